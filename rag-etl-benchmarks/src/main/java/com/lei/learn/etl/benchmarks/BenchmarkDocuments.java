@@ -0,0 +1,61 @@
+package com.lei.learn.etl.benchmarks;
+
+import java.util.Random;
+
+/**
+ * <p>
+ * 生成基准测试用的 Markdown 文档
+ * </p>
+ * 按固定随机种子生成标题、段落、列表和代码块交替的文档，同样的参数每次生成的内容相同。
+ *
+ * @author 伍磊
+ */
+public final class BenchmarkDocuments {
+
+    private static final String[] WORDS = {
+            "vector", "store", "embedding", "chunk", "token", "pipeline", "markdown", "index",
+            "batch", "latency", "throughput", "OpenSearch", "检索", "向量", "分块", "文档", "模型", "管道"
+    };
+
+    private BenchmarkDocuments() {
+    }
+
+    /**
+     * 生成约 sizeKb KB 的 Markdown 文本
+     */
+    public static String markdown(int sizeKb) {
+        Random random = new Random(42);
+        int targetBytes = sizeKb * 1024;
+        StringBuilder sb = new StringBuilder(targetBytes + 1024);
+        int section = 0;
+        while (sb.length() < targetBytes) {
+            section++;
+            sb.append("# 第 ").append(section).append(" 章\n\n");
+            for (int p = 0; p < 3; p++) {
+                appendSentence(sb, random, 40 + random.nextInt(40));
+                sb.append("\n\n");
+            }
+            sb.append("## 小节 ").append(section).append(".1\n\n");
+            for (int i = 0; i < 4; i++) {
+                sb.append("- ");
+                appendSentence(sb, random, 8 + random.nextInt(8));
+                sb.append('\n');
+            }
+            sb.append("\n```java\n")
+                    .append("VectorStore store = context.getBean(VectorStore.class);\n")
+                    .append("store.add(documents.subList(0, ").append(section).append("));\n")
+                    .append("```\n\n");
+        }
+        return sb.toString();
+    }
+
+    private static void appendSentence(StringBuilder sb, Random random, int words) {
+        for (int i = 0; i < words; i++) {
+            if (i > 0) {
+                sb.append(' ');
+            }
+            sb.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        sb.append('.');
+    }
+}
@@ -0,0 +1,66 @@
+package com.lei.learn.etl.benchmarks;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingOptions;
+import org.springframework.ai.embedding.TokenCountBatchingStrategy;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.filter.Filter;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <p>
+ * 基准测试用的内存 VectorStore
+ * </p>
+ * add 时与真实实现一样调用 EmbeddingModel 计算向量，只保存向量本身，不支持相似度检索。
+ *
+ * @author 伍磊
+ */
+public class InMemoryVectorStore implements VectorStore {
+
+    private final EmbeddingModel embeddingModel;
+
+    private final TokenCountBatchingStrategy batchingStrategy = new TokenCountBatchingStrategy();
+
+    private final Map<String, float[]> vectors = new ConcurrentHashMap<>();
+
+    public InMemoryVectorStore(EmbeddingModel embeddingModel) {
+        this.embeddingModel = embeddingModel;
+    }
+
+    @Override
+    public void add(List<Document> documents) {
+        List<float[]> embeddings = embeddingModel.embed(documents, EmbeddingOptions.builder().build(),
+                batchingStrategy);
+        for (int i = 0; i < documents.size(); i++) {
+            vectors.put(documents.get(i).getId(), embeddings.get(i));
+        }
+    }
+
+    @Override
+    public void delete(List<String> idList) {
+        idList.forEach(vectors::remove);
+    }
+
+    @Override
+    public void delete(Filter.Expression filterExpression) {
+        throw new UnsupportedOperationException("Filter delete is not supported");
+    }
+
+    @Override
+    public List<Document> similaritySearch(SearchRequest request) {
+        throw new UnsupportedOperationException("Similarity search is not supported");
+    }
+
+    public int size() {
+        return vectors.size();
+    }
+
+    public void clear() {
+        vectors.clear();
+    }
+}
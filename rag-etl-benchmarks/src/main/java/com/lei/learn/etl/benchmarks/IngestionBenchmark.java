@@ -0,0 +1,76 @@
+package com.lei.learn.etl.benchmarks;
+
+import com.lei.learn.etl.core.pipeline.IngestionResult;
+import com.lei.learn.etl.core.pipeline.markdown.MarkdownRagPipeline;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.ai.transformer.splitter.TokenTextSplitter;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ * 端到端入库基准：读取 -> 切分 -> 批量写入内存 VectorStore（假 EmbeddingModel）
+ * </p>
+ *
+ * @author 伍磊
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IngestionBenchmark {
+
+    @Param({"16", "256", "1024"})
+    private int sizeKb;
+
+    @Param({"10", "50"})
+    private int batchSize;
+
+    @Param({"false", "true"})
+    private boolean streaming;
+
+    @Param({"1536"})
+    private int dimensions;
+
+    private Path file;
+
+    private TokenTextSplitter splitter;
+
+    private InMemoryVectorStore vectorStore;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        file = Files.createTempFile("rag-etl-benchmark-", ".md");
+        Files.writeString(file, BenchmarkDocuments.markdown(sizeKb));
+        splitter = TokenTextSplitter.builder().withChunkSize(800).build();
+        vectorStore = new InMemoryVectorStore(new FakeEmbeddingModel(dimensions));
+    }
+
+    /**
+     * 每轮迭代清空，避免向量堆积影响 GC
+     */
+    @Setup(Level.Iteration)
+    public void clearStore() {
+        vectorStore.clear();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public IngestionResult ingest() {
+        return MarkdownRagPipeline.defaultConfig()
+                .fromFile(file.toFile())
+                .withTextSplitter(splitter)
+                .withBatchSize(batchSize)
+                .withStreaming(streaming)
+                .toVectorStore(vectorStore);
+    }
+}
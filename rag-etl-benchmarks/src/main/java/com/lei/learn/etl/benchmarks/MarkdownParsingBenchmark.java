@@ -0,0 +1,73 @@
+package com.lei.learn.etl.benchmarks;
+
+import com.lei.learn.etl.core.pipeline.markdown.MappedMarkdownSectionReader;
+import com.lei.learn.etl.core.pipeline.markdown.MarkdownSectionReader;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.reader.markdown.MarkdownDocumentReader;
+import org.springframework.ai.reader.markdown.config.MarkdownDocumentReaderConfig;
+import org.springframework.core.io.ByteArrayResource;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * <p>
+ * Markdown 解析基准：整篇解析 vs 按标题分段的流式解析 vs 内存映射分段解析
+ * </p>
+ *
+ * @author 伍磊
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MarkdownParsingBenchmark {
+
+    @Param({"16", "256", "1024"})
+    private int sizeKb;
+
+    private ByteArrayResource resource;
+
+    private Path file;
+
+    private MarkdownDocumentReaderConfig config;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        byte[] markdown = BenchmarkDocuments.markdown(sizeKb).getBytes(StandardCharsets.UTF_8);
+        resource = new ByteArrayResource(markdown);
+        file = Files.createTempFile("markdown-benchmark", ".md");
+        Files.write(file, markdown);
+        config = MarkdownDocumentReaderConfig.defaultConfig();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public List<Document> markdownDocumentReader() {
+        return new MarkdownDocumentReader(resource, config).get();
+    }
+
+    @Benchmark
+    public long markdownSectionReader() {
+        return new MarkdownSectionReader(resource, config).stream().count();
+    }
+
+    @Benchmark
+    public long mappedMarkdownSectionReader() {
+        try (Stream<Document> documents = new MappedMarkdownSectionReader(file, config).stream()) {
+            return documents.count();
+        }
+    }
+}
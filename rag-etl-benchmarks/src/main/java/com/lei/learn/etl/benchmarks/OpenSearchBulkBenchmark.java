@@ -0,0 +1,129 @@
+package com.lei.learn.etl.benchmarks;
+
+import com.lei.learn.etl.core.pipeline.IngestionResult;
+import com.lei.learn.etl.core.pipeline.VectorStoringStage;
+import com.lei.learn.etl.core.pipeline.markdown.MarkdownRagPipeline;
+import com.lei.learn.rag.etl.opensearch.store.OpenSearchBulkVectorStore;
+import org.apache.hc.core5.http.HttpHost;
+import org.openjdk.jmh.annotations.*;
+import org.opensearch.client.opensearch.OpenSearchClient;
+import org.opensearch.client.transport.httpclient5.ApacheHttpClient5TransportBuilder;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.transformer.splitter.TokenTextSplitter;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.opensearch.OpenSearchVectorStore;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ * 写入真实 OpenSearch 的端到端入库基准：OpenSearchVectorStore.add vs OpenSearchBulkVectorStore
+ * </p>
+ * pipelined 模式在 bulk 的基础上把 embedding 与写索引拆成两个阶段流水执行。
+ * 需要本地 OpenSearch，地址通过 {@code -Dopensearch.uri} 指定（默认 http://localhost:9200），例如：
+ * {@code docker run -p 9200:9200 -e discovery.type=single-node -e DISABLE_SECURITY_PLUGIN=true opensearchproject/opensearch:2}。
+ * 每轮迭代重建索引；vectorStore 模式在入库结束后同样执行一次 _refresh，两种模式结束时数据都可检索。
+ *
+ * @author 伍磊
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class OpenSearchBulkBenchmark {
+
+    private static final String INDEX = "rag-etl-bulk-benchmark";
+
+    @Param({"vectorStore", "bulk", "pipelined"})
+    private String writer;
+
+    @Param({"1024"})
+    private int sizeKb;
+
+    @Param({"50"})
+    private int batchSize;
+
+    @Param({"1", "4"})
+    private int writeConcurrency;
+
+    @Param({"768"})
+    private int dimensions;
+
+    private Path file;
+
+    private TokenTextSplitter splitter;
+
+    private OpenSearchClient client;
+
+    private OpenSearchVectorStore vectorStore;
+
+    private OpenSearchBulkVectorStore bulkVectorStore;
+
+    private EmbeddingModel embeddingModel;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, URISyntaxException {
+        file = Files.createTempFile("rag-etl-benchmark-", ".md");
+        Files.writeString(file, BenchmarkDocuments.markdown(sizeKb));
+        splitter = TokenTextSplitter.builder().withChunkSize(800).build();
+        HttpHost host = HttpHost.create(System.getProperty("opensearch.uri", "http://localhost:9200"));
+        client = new OpenSearchClient(ApacheHttpClient5TransportBuilder.builder(host).build());
+        embeddingModel = new FakeEmbeddingModel(dimensions);
+        vectorStore = OpenSearchVectorStore.builder(client, embeddingModel)
+                .index(INDEX)
+                .dimensions(dimensions)
+                .initializeSchema(true)
+                .build();
+        bulkVectorStore = OpenSearchBulkVectorStore.builder(vectorStore, client, embeddingModel)
+                .withIndex(INDEX)
+                .build();
+    }
+
+    /**
+     * 每轮迭代重建索引，避免文档堆积与段合并影响结果
+     */
+    @Setup(Level.Iteration)
+    public void recreateIndex() throws IOException {
+        if (client.indices().exists(e -> e.index(INDEX)).value()) {
+            client.indices().delete(d -> d.index(INDEX));
+        }
+        vectorStore.afterPropertiesSet();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+        if (client.indices().exists(e -> e.index(INDEX)).value()) {
+            client.indices().delete(d -> d.index(INDEX));
+        }
+        client._transport().close();
+    }
+
+    @Benchmark
+    public IngestionResult ingest() throws IOException {
+        if (!"vectorStore".equals(writer)) {
+            return bulkVectorStore.withRefreshSuspended(() -> ingestTo(bulkVectorStore));
+        }
+        IngestionResult result = ingestTo(vectorStore);
+        client.indices().refresh(r -> r.index(INDEX));
+        return result;
+    }
+
+    private IngestionResult ingestTo(VectorStore store) {
+        VectorStoringStage stage = MarkdownRagPipeline.defaultConfig()
+                .fromFile(file.toFile())
+                .withTextSplitter(splitter)
+                .withBatchSize(batchSize)
+                .withWriteConcurrency(writeConcurrency);
+        if ("pipelined".equals(writer)) {
+            stage.withPipelinedWrites(embeddingModel, bulkVectorStore, 2, 4);
+        }
+        return stage.toVectorStore(store);
+    }
+}
@@ -0,0 +1,57 @@
+package com.lei.learn.etl.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.reader.markdown.MarkdownDocumentReader;
+import org.springframework.ai.reader.markdown.config.MarkdownDocumentReaderConfig;
+import org.springframework.ai.transformer.splitter.TokenTextSplitter;
+import org.springframework.core.io.ByteArrayResource;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ * TokenTextSplitter 切分基准，文档在 setup 阶段解析好，只测量切分本身
+ * </p>
+ *
+ * @author 伍磊
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TokenSplittingBenchmark {
+
+    @Param({"16", "256", "1024"})
+    private int sizeKb;
+
+    @Param({"256", "800"})
+    private int chunkSize;
+
+    private List<Document> documents;
+
+    private TokenTextSplitter splitter;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ByteArrayResource resource = new ByteArrayResource(
+                BenchmarkDocuments.markdown(sizeKb).getBytes(StandardCharsets.UTF_8));
+        documents = new MarkdownDocumentReader(resource, MarkdownDocumentReaderConfig.defaultConfig()).get();
+        splitter = TokenTextSplitter.builder()
+                .withChunkSize(chunkSize)
+                .withMinChunkSizeChars(300)
+                .withMinChunkLengthToEmbed(5)
+                .withMaxNumChunks(10000)
+                .withKeepSeparator(true)
+                .build();
+    }
+
+    @Benchmark
+    public List<Document> split() {
+        return splitter.apply(documents);
+    }
+}
@@ -0,0 +1,188 @@
+package com.lei.learn.etl.core.embedding;
+
+import com.lei.learn.etl.core.pipeline.incremental.ContentHasher;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.document.MetadataMode;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingOptions;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+import org.springframework.ai.embedding.EmbeddingResponseMetadata;
+import org.springframework.util.Assert;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>
+ * 带缓存的 EmbeddingModel 装饰器
+ * </p>
+ * 按顺序查询多级缓存（通常是内存 LRU + 磁盘），命中低层缓存时回填到上层；
+ * 只把未命中的文本交给被装饰的模型，同一批次内重复的文本只请求一次。
+ * 缓存 key 为 SHA-256(模型名 + 文本)，换模型不会读到旧向量。
+ *
+ * @author 伍磊
+ */
+public class CachingEmbeddingModel implements EmbeddingModel {
+
+    private final EmbeddingModel delegate;
+
+    private final List<EmbeddingCache> caches;
+
+    private final String modelName;
+
+    private final AtomicLong hitCount = new AtomicLong();
+
+    private final AtomicLong missCount = new AtomicLong();
+
+    private CachingEmbeddingModel(Builder builder) {
+        this.delegate = builder.delegate;
+        this.caches = List.copyOf(builder.caches);
+        this.modelName = builder.modelName;
+    }
+
+    public static Builder builder(EmbeddingModel delegate) {
+        return new Builder(delegate);
+    }
+
+    @Override
+    public EmbeddingResponse call(EmbeddingRequest request) {
+        List<String> texts = request.getInstructions();
+        String model = modelOf(request.getOptions());
+        float[][] vectors = new float[texts.size()][];
+        // 未命中的文本 -> 它在请求中出现的位置
+        Map<String, List<Integer>> misses = new LinkedHashMap<>();
+        Map<String, String> keys = new LinkedHashMap<>();
+
+        for (int i = 0; i < texts.size(); i++) {
+            String text = texts.get(i);
+            String key = keys.computeIfAbsent(text, t -> keyOf(model, t));
+            float[] cached = lookup(key);
+            if (cached != null) {
+                vectors[i] = cached;
+                hitCount.incrementAndGet();
+            } else {
+                misses.computeIfAbsent(text, t -> new ArrayList<>()).add(i);
+            }
+        }
+
+        EmbeddingResponseMetadata metadata = new EmbeddingResponseMetadata();
+        if (!misses.isEmpty()) {
+            List<String> missTexts = new ArrayList<>(misses.keySet());
+            missCount.addAndGet(missTexts.size());
+            EmbeddingResponse response = delegate.call(new EmbeddingRequest(missTexts, request.getOptions()));
+            List<Embedding> results = response.getResults();
+            if (results.size() != missTexts.size()) {
+                throw new IllegalStateException("Expected " + missTexts.size() + " embeddings but got " + results.size());
+            }
+            for (int i = 0; i < missTexts.size(); i++) {
+                String text = missTexts.get(i);
+                float[] vector = results.get(i).getOutput();
+                store(keys.get(text), vector);
+                for (int position : misses.get(text)) {
+                    vectors[position] = vector;
+                }
+            }
+            metadata = response.getMetadata();
+        }
+
+        List<Embedding> embeddings = new ArrayList<>(vectors.length);
+        for (int i = 0; i < vectors.length; i++) {
+            embeddings.add(new Embedding(vectors[i], i));
+        }
+        return new EmbeddingResponse(embeddings, metadata);
+    }
+
+    @Override
+    public float[] embed(Document document) {
+        Assert.notNull(document, "document must not be null");
+        return embed(document.getFormattedContent(MetadataMode.EMBED));
+    }
+
+    @Override
+    public int dimensions() {
+        return delegate.dimensions();
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    public EmbeddingModel getDelegate() {
+        return delegate;
+    }
+
+    private String modelOf(EmbeddingOptions options) {
+        return options != null && options.getModel() != null ? options.getModel() : modelName;
+    }
+
+    private static String keyOf(String model, String text) {
+        return ContentHasher.hash(model + '\n' + text);
+    }
+
+    private float[] lookup(String key) {
+        for (int i = 0; i < caches.size(); i++) {
+            float[] cached = caches.get(i).get(key);
+            if (cached != null) {
+                for (int j = 0; j < i; j++) {
+                    caches.get(j).put(key, cached);
+                }
+                return cached;
+            }
+        }
+        return null;
+    }
+
+    private void store(String key, float[] vector) {
+        for (EmbeddingCache cache : caches) {
+            cache.put(key, vector);
+        }
+    }
+
+    public static final class Builder {
+
+        private final EmbeddingModel delegate;
+
+        private final List<EmbeddingCache> caches = new ArrayList<>();
+
+        private String modelName = "default";
+
+        private Builder(EmbeddingModel delegate) {
+            Assert.notNull(delegate, "delegate must not be null");
+            this.delegate = delegate;
+        }
+
+        /**
+         * 追加一级缓存，先添加的先查询
+         */
+        public Builder withCache(EmbeddingCache cache) {
+            Assert.notNull(cache, "cache must not be null");
+            this.caches.add(cache);
+            return this;
+        }
+
+        /**
+         * 请求未指定模型时参与缓存 key 计算的模型名
+         */
+        public Builder withModelName(String modelName) {
+            Assert.hasText(modelName, "modelName must not be empty");
+            this.modelName = modelName;
+            return this;
+        }
+
+        public CachingEmbeddingModel build() {
+            if (caches.isEmpty()) {
+                throw new IllegalArgumentException("at least one cache must be configured");
+            }
+            return new CachingEmbeddingModel(this);
+        }
+    }
+}
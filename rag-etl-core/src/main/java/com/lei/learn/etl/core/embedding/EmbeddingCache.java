@@ -0,0 +1,20 @@
+package com.lei.learn.etl.core.embedding;
+
+/**
+ * <p>
+ * 向量缓存，key 为模型名 + 文本的哈希
+ * </p>
+ *
+ * @author 伍磊
+ */
+public interface EmbeddingCache {
+
+    /**
+     * 查询缓存，未命中返回 null
+     */
+    float[] get(String key);
+
+    void put(String key, float[] embedding);
+
+    int size();
+}
@@ -0,0 +1,43 @@
+package com.lei.learn.etl.core.embedding;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * <p>
+ * 内存 LRU 向量缓存
+ * </p>
+ *
+ * @author 伍磊
+ */
+public class LruEmbeddingCache implements EmbeddingCache {
+
+    private final Map<String, float[]> entries;
+
+    public LruEmbeddingCache(int maxEntries) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("maxEntries must be at least 1");
+        }
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, float[]> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    @Override
+    public synchronized float[] get(String key) {
+        return entries.get(key);
+    }
+
+    @Override
+    public synchronized void put(String key, float[] embedding) {
+        entries.put(key, embedding);
+    }
+
+    @Override
+    public synchronized int size() {
+        return entries.size();
+    }
+}
@@ -0,0 +1,181 @@
+package com.lei.learn.etl.core.embedding;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>
+ * 基于内存映射文件的磁盘向量缓存，进程重启后仍然有效
+ * </p>
+ * 文件格式：16 字节文件头（magic、version、dimension、count），之后是定长记录
+ * （32 字节 SHA-256 key + dimension 个 float）。只追加不覆盖，打开时扫描 key 重建内存索引。
+ * 向量维度在第一次写入时确定，维度不一致的向量不会写入。
+ *
+ * @author 伍磊
+ */
+public class MappedFileEmbeddingCache implements EmbeddingCache, Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(MappedFileEmbeddingCache.class);
+
+    private static final int MAGIC = 0x454D4243;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 16;
+    private static final int DIMENSION_OFFSET = 8;
+    private static final int COUNT_OFFSET = 12;
+    private static final int KEY_BYTES = 32;
+
+    /**
+     * 每个映射段容纳的记录数，按段映射以避开单个 MappedByteBuffer 2GB 的上限
+     */
+    private static final int RECORDS_PER_SEGMENT = 4096;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final MappedByteBuffer header;
+    private final List<MappedByteBuffer> segments = new ArrayList<>();
+    private final Map<String, Integer> index = new HashMap<>();
+    private int dimension;
+    private int count;
+
+    private MappedFileEmbeddingCache(Path path) throws IOException {
+        this.path = path;
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        boolean fresh = channel.size() < HEADER_BYTES;
+        this.header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+        if (fresh) {
+            header.putInt(0, MAGIC);
+            header.putInt(4, VERSION);
+            header.putInt(DIMENSION_OFFSET, 0);
+            header.putInt(COUNT_OFFSET, 0);
+            return;
+        }
+        if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+            channel.close();
+            throw new IllegalStateException("Unrecognized embedding cache file: " + path);
+        }
+        this.dimension = header.getInt(DIMENSION_OFFSET);
+        int stored = header.getInt(COUNT_OFFSET);
+        byte[] key = new byte[KEY_BYTES];
+        for (int i = 0; i < stored; i++) {
+            MappedByteBuffer segment = segment(i);
+            segment.get(recordOffset(i), key);
+            index.put(HexFormat.of().formatHex(key), i);
+        }
+        this.count = stored;
+    }
+
+    /**
+     * 打开（不存在则创建）缓存文件
+     */
+    public static MappedFileEmbeddingCache open(Path path) {
+        if (path == null) {
+            throw new IllegalArgumentException("path must not be null");
+        }
+        try {
+            Path parent = path.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            MappedFileEmbeddingCache cache = new MappedFileEmbeddingCache(path);
+            log.info("[embedding cache] 打开磁盘缓存 {}，已有 {} 条向量", path, cache.count);
+            return cache;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open embedding cache: " + path, e);
+        }
+    }
+
+    @Override
+    public synchronized float[] get(String key) {
+        Integer record = index.get(key);
+        if (record == null) {
+            return null;
+        }
+        MappedByteBuffer segment = segment(record);
+        int offset = recordOffset(record) + KEY_BYTES;
+        float[] embedding = new float[dimension];
+        for (int i = 0; i < dimension; i++) {
+            embedding[i] = segment.getFloat(offset + i * Float.BYTES);
+        }
+        return embedding;
+    }
+
+    @Override
+    public synchronized void put(String key, float[] embedding) {
+        if (index.containsKey(key)) {
+            return;
+        }
+        if (dimension == 0) {
+            dimension = embedding.length;
+            header.putInt(DIMENSION_OFFSET, dimension);
+        } else if (embedding.length != dimension) {
+            log.warn("[embedding cache] 向量维度 {} 与缓存文件维度 {} 不一致，跳过写入", embedding.length, dimension);
+            return;
+        }
+        int record = count;
+        MappedByteBuffer segment = segment(record);
+        int offset = recordOffset(record);
+        segment.put(offset, HexFormat.of().parseHex(key));
+        for (int i = 0; i < dimension; i++) {
+            segment.putFloat(offset + KEY_BYTES + i * Float.BYTES, embedding[i]);
+        }
+        // 记录写完后再更新计数，进程中途退出时半条记录会被忽略
+        count++;
+        header.putInt(COUNT_OFFSET, count);
+        index.put(key, record);
+    }
+
+    @Override
+    public synchronized int size() {
+        return count;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        header.force();
+        for (MappedByteBuffer segment : segments) {
+            segment.force();
+        }
+        channel.close();
+    }
+
+    private int recordBytes() {
+        return KEY_BYTES + dimension * Float.BYTES;
+    }
+
+    private int recordOffset(int record) {
+        return (record % RECORDS_PER_SEGMENT) * recordBytes();
+    }
+
+    private MappedByteBuffer segment(int record) {
+        int segmentIndex = record / RECORDS_PER_SEGMENT;
+        long segmentBytes = (long) RECORDS_PER_SEGMENT * recordBytes();
+        try {
+            while (segments.size() <= segmentIndex) {
+                long position = HEADER_BYTES + segments.size() * segmentBytes;
+                segments.add(channel.map(FileChannel.MapMode.READ_WRITE, position, segmentBytes));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to map embedding cache segment: " + path, e);
+        }
+        return segments.get(segmentIndex);
+    }
+}
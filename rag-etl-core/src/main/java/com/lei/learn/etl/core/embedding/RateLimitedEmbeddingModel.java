@@ -0,0 +1,267 @@
+package com.lei.learn.etl.core.embedding;
+
+import com.lei.learn.etl.core.pipeline.batch.RetryPolicy;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.document.MetadataMode;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+import org.springframework.ai.retry.NonTransientAiException;
+import org.springframework.ai.retry.TransientAiException;
+import org.springframework.ai.tokenizer.JTokkitTokenCountEstimator;
+import org.springframework.ai.tokenizer.TokenCountEstimator;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.util.Assert;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientResponseException;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>
+ * 限流并重试的 EmbeddingModel 装饰器
+ * </p>
+ * 每次调用前按请求数、估算 token 数分别从两个 {@link TokenBucket} 申请配额，让请求速率稳定在配额以下，
+ * 而不是先突发再被服务端 429 限流；调用失败时按 {@link RetryPolicy} 指数退避（带随机抖动）重试，重试同样占用配额。
+ * 只重试限流和暂时性故障（{@link TransientAiException}、429 / 5xx 响应、网络 I/O 与超时），
+ * 参数错误、鉴权失败等 4xx 异常重试也不会成功，直接抛出，避免白白消耗配额。
+ * 指标（配置了 MeterRegistry 时上报）：
+ * <ul>
+ *     <li>{@code rag.embedding.ratelimit.wait}：每次调用等待配额的耗时，{@code limit} 标签区分 requests / tokens</li>
+ *     <li>{@code rag.embedding.retries}：重试次数</li>
+ * </ul>
+ *
+ * @author 伍磊
+ */
+public class RateLimitedEmbeddingModel implements EmbeddingModel {
+
+    public static final String WAIT = "rag.embedding.ratelimit.wait";
+    public static final String RETRIES = "rag.embedding.retries";
+
+    private static final Logger log = LoggerFactory.getLogger(RateLimitedEmbeddingModel.class);
+
+    private final EmbeddingModel delegate;
+
+    private final TokenBucket requestBucket;
+
+    private final TokenBucket tokenBucket;
+
+    private final TokenCountEstimator tokenCountEstimator;
+
+    private final RetryPolicy retryPolicy;
+
+    private final Timer requestWaitTimer;
+
+    private final Timer tokenWaitTimer;
+
+    private final Counter retryCounter;
+
+    private final AtomicLong waitNanos = new AtomicLong();
+
+    private final AtomicLong retryCount = new AtomicLong();
+
+    private RateLimitedEmbeddingModel(Builder builder) {
+        this.delegate = builder.delegate;
+        this.requestBucket = builder.requestsPerMinute > 0 ? new TokenBucket(builder.requestsPerMinute) : null;
+        this.tokenBucket = builder.tokensPerMinute > 0 ? new TokenBucket(builder.tokensPerMinute) : null;
+        this.tokenCountEstimator = builder.tokenCountEstimator;
+        this.retryPolicy = builder.retryPolicy;
+        MeterRegistry registry = builder.meterRegistry;
+        this.requestWaitTimer = null == registry ? null : waitTimer(registry, "requests");
+        this.tokenWaitTimer = null == registry ? null : waitTimer(registry, "tokens");
+        this.retryCounter = null == registry ? null : Counter.builder(RETRIES)
+                .description("Embedding calls retried after a failure")
+                .register(registry);
+    }
+
+    public static Builder builder(EmbeddingModel delegate) {
+        return new Builder(delegate);
+    }
+
+    @Override
+    public EmbeddingResponse call(EmbeddingRequest request) {
+        long tokens = null == tokenBucket ? 0 : estimateTokens(request);
+        for (int attempt = 1; ; attempt++) {
+            acquire(requestBucket, 1, requestWaitTimer);
+            acquire(tokenBucket, tokens, tokenWaitTimer);
+            try {
+                return delegate.call(request);
+            } catch (RuntimeException e) {
+                if (attempt >= retryPolicy.maxAttempts() || !isTransient(e)) {
+                    throw e;
+                }
+                Duration backoff = retryPolicy.backoff(attempt);
+                log.warn("[rag document init] embedding call failed, retrying | attempt={}, backoffMs={}, error={}",
+                         attempt, backoff.toMillis(), e.getMessage());
+                retryCount.incrementAndGet();
+                if (null != retryCounter) {
+                    retryCounter.increment();
+                }
+                sleep(backoff.toNanos(), e);
+            }
+        }
+    }
+
+    @Override
+    public float[] embed(Document document) {
+        Assert.notNull(document, "document must not be null");
+        return embed(document.getFormattedContent(MetadataMode.EMBED));
+    }
+
+    @Override
+    public int dimensions() {
+        return delegate.dimensions();
+    }
+
+    /**
+     * 累计等待配额的纳秒数
+     */
+    public long getWaitNanos() {
+        return waitNanos.get();
+    }
+
+    public long getRetryCount() {
+        return retryCount.get();
+    }
+
+    public EmbeddingModel getDelegate() {
+        return delegate;
+    }
+
+    /**
+     * 沿异常链判断是否为限流或暂时性故障
+     */
+    static boolean isTransient(Throwable error) {
+        for (Throwable e = error; null != e; e = e.getCause()) {
+            if (e instanceof NonTransientAiException) {
+                return false;
+            }
+            if (e instanceof TransientAiException || e instanceof ResourceAccessException
+                    || e instanceof IOException || e instanceof TimeoutException) {
+                return true;
+            }
+            if (e instanceof RestClientResponseException response) {
+                HttpStatusCode status = response.getStatusCode();
+                return status.value() == 429 || status.is5xxServerError();
+            }
+        }
+        return false;
+    }
+
+    private long estimateTokens(EmbeddingRequest request) {
+        long tokens = 0;
+        for (String text : request.getInstructions()) {
+            tokens += tokenCountEstimator.estimate(text);
+        }
+        return Math.max(1, tokens);
+    }
+
+    private void acquire(TokenBucket bucket, long permits, Timer timer) {
+        if (null == bucket) {
+            return;
+        }
+        long waited;
+        try {
+            waited = bucket.acquire(permits);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for embedding quota", e);
+        }
+        waitNanos.addAndGet(waited);
+        if (null != timer) {
+            timer.record(waited, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private static void sleep(long nanos, RuntimeException cause) {
+        try {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            cause.addSuppressed(e);
+            throw cause;
+        }
+    }
+
+    private static Timer waitTimer(MeterRegistry registry, String limit) {
+        return Timer.builder(WAIT)
+                .description("Time spent waiting for embedding rate limit quota")
+                .tag("limit", limit)
+                .register(registry);
+    }
+
+    public static final class Builder {
+
+        private final EmbeddingModel delegate;
+
+        private long requestsPerMinute;
+
+        private long tokensPerMinute;
+
+        private TokenCountEstimator tokenCountEstimator;
+
+        private RetryPolicy retryPolicy = RetryPolicy.none();
+
+        private MeterRegistry meterRegistry;
+
+        private Builder(EmbeddingModel delegate) {
+            Assert.notNull(delegate, "delegate must not be null");
+            this.delegate = delegate;
+        }
+
+        /**
+         * 每分钟最多请求数，不大于 0 时不限制
+         */
+        public Builder withRequestsPerMinute(long requestsPerMinute) {
+            this.requestsPerMinute = requestsPerMinute;
+            return this;
+        }
+
+        /**
+         * 每分钟最多 token 数（按 {@link TokenCountEstimator} 估算），不大于 0 时不限制
+         */
+        public Builder withTokensPerMinute(long tokensPerMinute) {
+            this.tokensPerMinute = tokensPerMinute;
+            return this;
+        }
+
+        /**
+         * 估算请求 token 数的方式，默认 {@link JTokkitTokenCountEstimator}
+         */
+        public Builder withTokenCountEstimator(TokenCountEstimator tokenCountEstimator) {
+            Assert.notNull(tokenCountEstimator, "tokenCountEstimator must not be null");
+            this.tokenCountEstimator = tokenCountEstimator;
+            return this;
+        }
+
+        /**
+         * 限流或暂时性故障时的重试策略，默认不重试
+         */
+        public Builder withRetry(RetryPolicy retryPolicy) {
+            Assert.notNull(retryPolicy, "retryPolicy must not be null");
+            this.retryPolicy = retryPolicy;
+            return this;
+        }
+
+        public Builder withMeterRegistry(MeterRegistry meterRegistry) {
+            this.meterRegistry = meterRegistry;
+            return this;
+        }
+
+        public RateLimitedEmbeddingModel build() {
+            if (tokensPerMinute > 0 && null == tokenCountEstimator) {
+                tokenCountEstimator = new JTokkitTokenCountEstimator();
+            }
+            return new RateLimitedEmbeddingModel(this);
+        }
+    }
+}
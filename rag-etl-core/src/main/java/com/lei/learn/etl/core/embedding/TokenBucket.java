@@ -0,0 +1,57 @@
+package com.lei.learn.etl.core.embedding;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ * 令牌桶限流器
+ * </p>
+ * 按每分钟配额匀速补充令牌，桶容量为 1 秒的配额，空闲后最多突发 1 秒的量，而不是一次性用掉整分钟的配额。
+ * 采用预约方式：{@link #acquire(long)} 立即扣减令牌（可以扣成负数），再在锁外等待欠下的令牌补齐，
+ * 调用方按到达顺序排队；单次申请超过桶容量时同样可以通过，只是等待更久。线程安全。
+ *
+ * @author 伍磊
+ */
+public class TokenBucket {
+
+    private final double capacity;
+
+    private final double permitsPerNano;
+
+    private double available;
+
+    private long lastRefillNanos;
+
+    public TokenBucket(long permitsPerMinute) {
+        if (permitsPerMinute <= 0) {
+            throw new IllegalArgumentException("Permits per minute must be positive");
+        }
+        this.capacity = Math.max(1d, permitsPerMinute / 60d);
+        this.permitsPerNano = permitsPerMinute / (double) TimeUnit.MINUTES.toNanos(1);
+        this.available = capacity;
+        this.lastRefillNanos = System.nanoTime();
+    }
+
+    /**
+     * 申请令牌，令牌不足时阻塞到补齐
+     *
+     * @param permits 令牌数
+     * @return 等待的纳秒数
+     * @throws InterruptedException 等待时被中断（已扣减的令牌不会归还）
+     */
+    public long acquire(long permits) throws InterruptedException {
+        long waitNanos = reserve(permits);
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+        return waitNanos;
+    }
+
+    private synchronized long reserve(long permits) {
+        long now = System.nanoTime();
+        available = Math.min(capacity, available + (now - lastRefillNanos) * permitsPerNano);
+        lastRefillNanos = now;
+        available -= permits;
+        return available >= 0 ? 0 : (long) Math.ceil(-available / permitsPerNano);
+    }
+}
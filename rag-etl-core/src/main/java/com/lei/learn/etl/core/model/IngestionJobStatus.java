@@ -0,0 +1,84 @@
+package com.lei.learn.etl.core.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * <p>
+ * 异步入库任务状态
+ * </p>
+ *
+ * @author 伍磊
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class IngestionJobStatus {
+
+    /**
+     * 任务 ID
+     */
+    private String jobId;
+
+    /**
+     * 任务状态
+     */
+    private State state;
+
+    /**
+     * 文件或目录路径
+     */
+    private String filePath;
+
+    /**
+     * 提交时间
+     */
+    private Instant submittedAt;
+
+    /**
+     * 开始执行时间
+     */
+    private Instant startedAt;
+
+    /**
+     * 结束时间
+     */
+    private Instant finishedAt;
+
+    /**
+     * 已写入 VectorStore 的分块数量
+     */
+    private Long chunksWritten;
+
+    /**
+     * 写入成功的批次数量
+     */
+    private Long batchesSucceeded;
+
+    /**
+     * 写入失败的批次数量
+     */
+    private Long batchesFailed;
+
+    /**
+     * 写入吞吐量（分块/秒），从开始执行计算到结束或当前时刻
+     */
+    private Double chunksPerSecond;
+
+    /**
+     * 任务结束后的处理结果
+     */
+    private MarkdownProcessResponse result;
+
+    public enum State {
+        QUEUED,
+        RUNNING,
+        SUCCEEDED,
+        FAILED
+    }
+}
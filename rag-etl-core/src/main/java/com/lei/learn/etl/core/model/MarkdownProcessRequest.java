@@ -16,10 +16,16 @@ import java.util.Map;
 public class MarkdownProcessRequest {
 
     /**
-     * 文件路径（本地文件系统路径）
+     * 文件路径（本地文件系统路径），目录入库时为目录路径
      */
     private String filePath;
 
+    /**
+     * 目录入库：文件匹配模式，不含 '/' 时匹配文件名，否则匹配相对路径；
+     * 为空时 Markdown 目录入库匹配 *.md，多格式目录入库匹配所有文件
+     */
+    private String glob;
+
     /**
      * 文本分割器配置
      */
@@ -30,6 +36,38 @@ public class MarkdownProcessRequest {
      */
     private MarkdownConfig markdownConfig;
 
+    /**
+     * 向量写入配置
+     */
+    private BatchConfig batchConfig;
+
+    /**
+     * 是否增量入库：文件未变化时跳过，变化时只写入新增分块并删除已消失的分块
+     */
+    private Boolean incremental = false;
+
+    /**
+     * 是否原子入库：分块写入新代次，全部批次成功后才切换生效代次并删除旧数据，失败时删除本次写入；
+     * 不能与 incremental / checkpoint / resume 同时使用
+     */
+    private Boolean atomic = false;
+
+    /**
+     * 是否记录断点：每个批次写入后在 checkpoint 目录下记录已完成的分块区间，部分批次失败后可通过 resume 续传（仅单文件）；
+     * 不能与 atomic 同时使用
+     */
+    private Boolean checkpoint = false;
+
+    /**
+     * 是否从上次失败的断点续传：只重新写入失败或未开始的批次（仅单文件），隐含 checkpoint
+     */
+    private Boolean resume = false;
+
+    /**
+     * 是否去除近似重复的分块：只写入代表分块，重复分块的 filepath 合并到代表分块的 merged_filepath
+     */
+    private Boolean deduplicate = false;
+
     /**
      * 额外的元数据（默认容量 4，假设平均 4 个元数据项）
      */
@@ -37,6 +75,11 @@ public class MarkdownProcessRequest {
 
     @Data
     public static class SplitterConfig {
+        /**
+         * 切分策略：token（按 token 数切分）或 markdown（按标题、代码块等结构切分，携带标题路径元数据）
+         */
+        private String strategy = "token";
+
         /**
          * 分块大小
          */
@@ -61,6 +104,11 @@ public class MarkdownProcessRequest {
          * 是否保留分隔符
          */
         private Boolean keepSeparator = true;
+
+        /**
+         * markdown 策略：低于该 token 数的章节与后续兄弟章节合并
+         */
+        private Integer minChunkTokens = 200;
     }
 
     @Data
@@ -80,4 +128,62 @@ public class MarkdownProcessRequest {
          */
         private Boolean includeBlockquote = true;
     }
+
+    @Data
+    public static class BatchConfig {
+        /**
+         * 每批写入的分块数（adaptive 为 false 时生效）
+         */
+        private Integer batchSize = 10;
+
+        /**
+         * 是否按 token 预算自适应调整批次大小
+         */
+        private Boolean adaptive = false;
+
+        /**
+         * 自适应批次：初始每批 token 预算
+         */
+        private Long initialBatchTokens = 2048L;
+
+        /**
+         * 自适应批次：每批 token 预算上限
+         */
+        private Long maxBatchTokens = 32768L;
+
+        /**
+         * 自适应批次：单批分块数上限
+         */
+        private Integer maxBatchSize = 100;
+
+        /**
+         * 自适应批次：目标写入延迟（毫秒），低于该值时增大批次
+         */
+        private Long targetLatencyMs = 2000L;
+
+        /**
+         * 同时写入 VectorStore 的最大批次数（1 表示顺序写入）
+         */
+        private Integer writeConcurrency = 1;
+
+        /**
+         * 是否流式处理（按标题分段读取、逐段切分写入，适合超大文件）
+         */
+        private Boolean streaming = false;
+
+        /**
+         * 单个批次最大尝试次数（含首次），1 表示不重试
+         */
+        private Integer maxAttempts = 1;
+
+        /**
+         * 首次重试前的等待时间（毫秒），之后每次翻倍
+         */
+        private Long retryBackoffMs = 1000L;
+
+        /**
+         * 目录入库：同时处理的文件数（默认 CPU 核数）
+         */
+        private Integer fileConcurrency;
+    }
 }
@@ -5,6 +5,8 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.List;
+
 /**
  * <p>
  * Markdown 文档处理响应
@@ -38,13 +40,142 @@ public class MarkdownProcessResponse {
      */
     private Integer chunkCount;
 
+    /**
+     * 批次数量
+     */
+    private Integer batchCount;
+
+    /**
+     * 自适应批次最终选定的每批 token 预算（固定批次时为空）
+     */
+    private Long batchTokenBudget;
+
+    /**
+     * 增量入库：文件未变化，整体跳过
+     */
+    private Boolean unchanged;
+
+    /**
+     * 增量入库：内容未变化而跳过的分块数量
+     */
+    private Integer skippedChunkCount;
+
+    /**
+     * 增量入库：删除的过期分块数量
+     */
+    private Integer deletedChunkCount;
+
+    /**
+     * 断点续传：此前已写入、本次跳过的分块数量
+     */
+    private Integer resumedChunkCount;
+
+    /**
+     * 去重：作为近似重复丢弃的分块数量
+     */
+    private Integer duplicateChunkCount;
+
+    /**
+     * 原子入库：本次写入并已生效的代次
+     */
+    private String generation;
+
+    /**
+     * 分阶段耗时
+     */
+    private StageTimings stageTimings;
+
     /**
      * 文件路径
      */
     private String filePath;
 
+    /**
+     * 目录入库：匹配到的文件数量
+     */
+    private Integer fileCount;
+
+    /**
+     * 目录入库：处理失败的文件数量
+     */
+    private Integer failedFileCount;
+
+    /**
+     * 目录入库：每个文件的处理结果
+     */
+    private List<FileResult> files;
+
     /**
      * 处理耗时（毫秒）
      */
     private Long processingTime;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class FileResult {
+
+        /**
+         * 文件路径
+         */
+        private String filePath;
+
+        /**
+         * 是否成功
+         */
+        private Boolean success;
+
+        /**
+         * 失败原因
+         */
+        private String message;
+
+        /**
+         * 写入的分块数量
+         */
+        private Integer chunkCount;
+
+        /**
+         * 增量入库：文件未变化，整体跳过
+         */
+        private Boolean unchanged;
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class StageTimings {
+
+        /**
+         * 读取耗时（毫秒）
+         */
+        private Long readTimeMs;
+
+        /**
+         * 切分耗时（毫秒）
+         */
+        private Long splitTimeMs;
+
+        /**
+         * 所有批次 VectorStore.add（含 embedding）耗时之和（毫秒），并发写入时可能大于总耗时
+         */
+        private Long writeTimeMs;
+
+        /**
+         * 管道总耗时（毫秒）
+         */
+        private Long totalTimeMs;
+
+        /**
+         * 处理的源文件字节数
+         */
+        private Long bytesProcessed;
+
+        /**
+         * 写入吞吐量（分块/秒）
+         */
+        private Double chunksPerSecond;
+    }
 }
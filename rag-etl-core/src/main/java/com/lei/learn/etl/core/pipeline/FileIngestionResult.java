@@ -0,0 +1,26 @@
+package com.lei.learn.etl.core.pipeline;
+
+/**
+ * <p>
+ * 目录入库中单个文件的处理结果
+ * </p>
+ *
+ * @param path   文件路径
+ * @param result 处理结果，失败时为 null
+ * @param error  失败原因，成功时为 null
+ * @author 伍磊
+ */
+public record FileIngestionResult(String path, IngestionResult result, String error) {
+
+    public static FileIngestionResult success(String path, IngestionResult result) {
+        return new FileIngestionResult(path, result, null);
+    }
+
+    public static FileIngestionResult failure(String path, String error) {
+        return new FileIngestionResult(path, null, error);
+    }
+
+    public boolean isSuccess() {
+        return error == null;
+    }
+}
@@ -0,0 +1,118 @@
+package com.lei.learn.etl.core.pipeline;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.List;
+
+/**
+ * <p>
+ * 一次管道执行的结果
+ * </p>
+ *
+ * @author 伍磊
+ */
+@Getter
+@Builder
+@ToString
+public class IngestionResult {
+
+    /**
+     * 读取的文档数量
+     */
+    private final int documentCount;
+
+    /**
+     * 写入的分块数量（不含增量入库跳过的分块）
+     */
+    private final int chunkCount;
+
+    /**
+     * 批次数量
+     */
+    private final int batchCount;
+
+    /**
+     * 自适应批次最终的 token 预算，固定批次时为 null
+     */
+    private final Long batchTokenBudget;
+
+    /**
+     * 增量入库：源文件与上次入库时相同，整体跳过
+     */
+    private final boolean unchanged;
+
+    /**
+     * 增量入库：内容未变化而跳过的分块数量
+     */
+    private final int skippedChunkCount;
+
+    /**
+     * 增量入库：已从 VectorStore 删除的过期分块数量
+     */
+    private final int deletedChunkCount;
+
+    /**
+     * 断点续传：此前已写入、本次跳过的分块数量
+     */
+    private final int resumedChunkCount;
+
+    /**
+     * 去重：作为近似重复丢弃、未写入的分块数量
+     */
+    private final int duplicateChunkCount;
+
+    /**
+     * 原子入库：本次写入并已生效的代次，未启用时为 null
+     */
+    private final String generation;
+
+    /**
+     * 读取耗时（毫秒），流式执行时为拉取文档的累计耗时；目录入库时为各文件之和
+     */
+    private final long readTimeMs;
+
+    /**
+     * 切分耗时（毫秒）；目录入库时为各文件之和
+     */
+    private final long splitTimeMs;
+
+    /**
+     * 所有批次 VectorStore.add（含 embedding）耗时之和（毫秒），并发写入时可能大于总耗时
+     */
+    private final long writeTimeMs;
+
+    /**
+     * 总耗时（毫秒）
+     */
+    private final long totalTimeMs;
+
+    /**
+     * 处理的源文件字节数
+     */
+    private final long bytesProcessed;
+
+    /**
+     * 写入吞吐量（分块/秒）
+     */
+    private final double chunksPerSecond;
+
+    /**
+     * 目录入库：匹配到的文件数量
+     */
+    private final int fileCount;
+
+    /**
+     * 目录入库：处理失败的文件数量
+     */
+    private final int failedFileCount;
+
+    /**
+     * 目录入库：每个文件的处理结果，单文件入库时为空
+     */
+    @Builder.Default
+    @ToString.Exclude
+    private final List<FileIngestionResult> files = List.of();
+
+}
@@ -0,0 +1,145 @@
+package com.lei.learn.etl.core.pipeline;
+
+import com.lei.learn.etl.core.pipeline.format.DocumentFormat;
+import com.lei.learn.etl.core.pipeline.html.HtmlRagPipeline;
+import com.lei.learn.etl.core.pipeline.jsonl.JsonLinesRagPipeline;
+import com.lei.learn.etl.core.pipeline.markdown.MarkdownRagPipeline;
+import com.lei.learn.etl.core.pipeline.pdf.PdfRagPipeline;
+import com.lei.learn.etl.core.pipeline.text.TextRagPipeline;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.document.DocumentReader;
+import org.springframework.core.io.Resource;
+import org.springframework.util.Assert;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * <p>
+ * 按文件格式分派的管道
+ * </p>
+ * 用 {@link DocumentFormat} 识别每个文件的格式，交给对应格式的管道创建 reader，
+ * 文档补充 {@code file_type} 元数据，后续切分与写入共用同一套配置。
+ * 目录入库时跳过无法识别或未配置格式的文件，因此一个目录中可以混合 Markdown、PDF、HTML、文本与 JSON Lines。
+ *
+ * @author 伍磊
+ */
+public class MixedFormatRagPipeline extends RagPipeline {
+
+    private final Map<DocumentFormat, RagPipeline> pipelines;
+
+    public MixedFormatRagPipeline(MixedFormatRagPipeline.Builder builder) {
+        this.pipelines = new EnumMap<>(builder.pipelines);
+    }
+
+    @Override
+    protected String getPipelineType() {
+        return "mixed";
+    }
+
+    @Override
+    protected boolean accepts(Path file) {
+        return DocumentFormat.detect(file).filter(pipelines::containsKey).isPresent();
+    }
+
+    @Override
+    protected DocumentReader getReader() {
+        return getReader(super.resource);
+    }
+
+    @Override
+    protected DocumentReader getReader(Resource resource) {
+        return getReader(resource, streaming);
+    }
+
+    @Override
+    protected DocumentReader getReader(Resource resource, boolean streaming) {
+        DocumentFormat format = detect(resource)
+                .filter(pipelines::containsKey)
+                .orElseThrow(() -> new IllegalArgumentException(
+                        "Unsupported document format: " + resource.getDescription()));
+        // 例如 Markdown 在流式执行时改用分段读取，这里与外层管道保持一致；
+        // 子管道在各工作线程和多次执行间共享，执行方式按调用传入而不是写回子管道
+        DocumentReader reader = pipelines.get(format).getReader(resource, streaming);
+        return (StreamingDocumentReader) () -> {
+            Stream<Document> documents = reader instanceof StreamingDocumentReader streamingReader
+                    ? streamingReader.stream()
+                    : reader.get().stream();
+            return documents.map(document -> {
+                if (format.getType().equals(document.getMetadata().get("file_type"))) {
+                    return document;
+                }
+                Map<String, Object> metadata = new HashMap<>(document.getMetadata());
+                metadata.put("file_type", format.getType());
+                Document withType = document.mutate().metadata(metadata).build();
+                withType.setContentFormatter(document.getContentFormatter());
+                return withType;
+            });
+        };
+    }
+
+    private static Optional<DocumentFormat> detect(Resource resource) {
+        if (resource.isFile()) {
+            try {
+                return DocumentFormat.detect(resource.getFile().toPath());
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to resolve file: " + resource.getDescription(), e);
+            }
+        }
+        return null != resource.getFilename() ? DocumentFormat.fromFilename(resource.getFilename()) : Optional.empty();
+    }
+
+    public static ResourceLoadingStage defaultConfig() {
+        return builder().build();
+    }
+
+    public static MixedFormatRagPipeline.Builder builder() {
+        return new Builder();
+    }
+
+    public static final class Builder {
+
+        private final Map<DocumentFormat, RagPipeline> pipelines = new EnumMap<>(DocumentFormat.class);
+
+        /**
+         * 默认支持全部格式，各格式使用默认配置
+         */
+        private Builder() {
+            pipelines.put(DocumentFormat.MARKDOWN, (RagPipeline) MarkdownRagPipeline.defaultConfig());
+            pipelines.put(DocumentFormat.PDF, (RagPipeline) PdfRagPipeline.defaultConfig());
+            pipelines.put(DocumentFormat.HTML, (RagPipeline) HtmlRagPipeline.defaultConfig());
+            pipelines.put(DocumentFormat.TEXT, (RagPipeline) TextRagPipeline.defaultConfig());
+            pipelines.put(DocumentFormat.JSONL, (RagPipeline) JsonLinesRagPipeline.defaultConfig());
+        }
+
+        /**
+         * 替换某个格式的管道配置，例如带额外元数据的 {@code MarkdownRagPipeline.builder()...build()}
+         */
+        public MixedFormatRagPipeline.Builder withPipeline(DocumentFormat format, ResourceLoadingStage pipeline) {
+            Assert.notNull(format, "format must not be null");
+            Assert.isInstanceOf(RagPipeline.class, pipeline, "pipeline must be a RagPipeline");
+            this.pipelines.put(format, (RagPipeline) pipeline);
+            return this;
+        }
+
+        /**
+         * 不处理某个格式，目录入库时跳过该格式的文件
+         */
+        public MixedFormatRagPipeline.Builder withoutFormat(DocumentFormat format) {
+            Assert.notNull(format, "format must not be null");
+            this.pipelines.remove(format);
+            return this;
+        }
+
+        public ResourceLoadingStage build() {
+            Assert.state(!pipelines.isEmpty(), "at least one format must be enabled");
+            return new MixedFormatRagPipeline(this);
+        }
+    }
+}
@@ -1,18 +1,58 @@
 package com.lei.learn.etl.core.pipeline;
 
+import com.lei.learn.etl.core.pipeline.batch.AdaptiveBatchSizer;
+import com.lei.learn.etl.core.pipeline.batch.BatchListener;
+import com.lei.learn.etl.core.pipeline.batch.BatchSizer;
+import com.lei.learn.etl.core.pipeline.batch.BatchWriter;
+import com.lei.learn.etl.core.pipeline.batch.ChunkBatchIterator;
+import com.lei.learn.etl.core.pipeline.batch.DocumentBatch;
+import com.lei.learn.etl.core.pipeline.batch.PipelinedBatchWriter;
+import com.lei.learn.etl.core.pipeline.batch.RetryPolicy;
+import com.lei.learn.etl.core.pipeline.batch.VectorIndexer;
+import com.lei.learn.etl.core.pipeline.checkpoint.IngestionCheckpoint;
+import com.lei.learn.etl.core.pipeline.dedup.NearDuplicateFilter;
+import com.lei.learn.etl.core.pipeline.generation.GenerationRegistry;
+import com.lei.learn.etl.core.pipeline.generation.GenerationTagger;
+import com.lei.learn.etl.core.pipeline.incremental.ContentHasher;
+import com.lei.learn.etl.core.pipeline.incremental.IncrementalChunkFilter;
+import com.lei.learn.etl.core.pipeline.incremental.IngestionManifest;
+import com.lei.learn.etl.core.pipeline.metrics.IngestionMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.ai.document.Document;
 import org.springframework.ai.document.DocumentReader;
+import org.springframework.ai.document.DocumentTransformer;
+import org.springframework.ai.embedding.EmbeddingModel;
 import org.springframework.ai.transformer.splitter.TextSplitter;
 import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.filter.FilterExpressionBuilder;
 import org.springframework.core.io.FileSystemResource;
 import org.springframework.core.io.Resource;
 import org.springframework.util.CollectionUtils;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 /**
  * <p>
@@ -30,11 +70,71 @@ public abstract class RagPipeline implements ResourceLoadingStage,
     protected Resource resource;
     protected TextSplitter splitter;
     protected VectorStore vectorStore;
+    protected int batchSize = 10;
+    protected BatchSizer batchSizer;
+    protected int writeConcurrency = 1;
+    protected boolean streaming = false;
+    protected IngestionManifest manifest;
+    protected GenerationRegistry generationRegistry;
+    protected BatchListener batchListener;
+    protected Path checkpointPath;
+    protected RetryPolicy retryPolicy = RetryPolicy.none();
+    protected EmbeddingModel embeddingModel;
+    protected VectorIndexer vectorIndexer;
+    protected int indexConcurrency;
+    protected int indexQueueCapacity;
+    protected Supplier<NearDuplicateFilter> deduplication;
+    /**
+     * 本次入库使用的去重过滤器，目录入库时所有文件共享
+     */
+    private NearDuplicateFilter nearDuplicateFilter;
+    protected MeterRegistry meterRegistry;
+    protected Path directory;
+    protected String glob;
+    protected int fileConcurrency = Runtime.getRuntime().availableProcessors();
 
     protected abstract DocumentReader getReader();
 
+    /**
+     * 目录入库时为每个文件创建 reader，会被多个线程同时调用，实现不能依赖 {@link #resource}
+     */
+    protected DocumentReader getReader(Resource resource) {
+        throw new UnsupportedOperationException(
+            String.format("%s does not support directory ingestion", getClass().getSimpleName()));
+    }
+
+    /**
+     * 按指定的执行方式创建 reader，供组合其他管道的实现（例如 {@link MixedFormatRagPipeline}）使用，
+     * 不修改被组合管道的 {@link #streaming}；默认忽略 streaming
+     */
+    protected DocumentReader getReader(Resource resource, boolean streaming) {
+        return getReader(resource);
+    }
+
+    /**
+     * 目录入库时过滤 glob 匹配到的文件，默认全部接受
+     */
+    protected boolean accepts(Path file) {
+        return true;
+    }
+
     protected int getBatchSize() {
-        return 10;
+        return batchSize;
+    }
+
+    protected BatchSizer getBatchSizer() {
+        return null != batchSizer ? batchSizer : BatchSizer.fixed(getBatchSize());
+    }
+
+    protected int getWriteConcurrency() {
+        return writeConcurrency;
+    }
+
+    /**
+     * 指标的 pipeline 标签
+     */
+    protected String getPipelineType() {
+        return getClass().getSimpleName();
     }
 
     @Override
@@ -77,6 +177,22 @@ public abstract class RagPipeline implements ResourceLoadingStage,
         return this;
     }
 
+    @Override
+    public TextSplittingStage fromDirectory(Path directory, String glob) {
+        if (null == directory) {
+            throw new IllegalArgumentException("Directory must not be null");
+        }
+        if (null == glob) {
+            throw new IllegalArgumentException("Glob must not be null");
+        }
+        if (!Files.isDirectory(directory)) {
+            throw new IllegalArgumentException(String.format("Directory does not exist: %s", directory));
+        }
+        this.directory = directory;
+        this.glob = glob;
+        return this;
+    }
+
     @Override
     public VectorStoringStage withTextSplitter(TextSplitter splitter) {
         this.splitter = splitter;
@@ -84,58 +200,567 @@ public abstract class RagPipeline implements ResourceLoadingStage,
     }
 
     @Override
-    public void toVectorStore(VectorStore vectorStore) {
+    public VectorStoringStage withBatchSize(int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive");
+        }
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    @Override
+    public VectorStoringStage withBatchSizer(BatchSizer batchSizer) {
+        this.batchSizer = batchSizer;
+        return this;
+    }
+
+    @Override
+    public VectorStoringStage withWriteConcurrency(int concurrency) {
+        if (concurrency <= 0) {
+            throw new IllegalArgumentException("Write concurrency must be positive");
+        }
+        this.writeConcurrency = concurrency;
+        return this;
+    }
+
+    @Override
+    public VectorStoringStage withStreaming(boolean streaming) {
+        this.streaming = streaming;
+        return this;
+    }
+
+    @Override
+    public VectorStoringStage withManifest(IngestionManifest manifest) {
+        this.manifest = manifest;
+        return this;
+    }
+
+    @Override
+    public VectorStoringStage withAtomicIngestion(GenerationRegistry registry) {
+        this.generationRegistry = registry;
+        return this;
+    }
+
+    @Override
+    public VectorStoringStage withBatchListener(BatchListener listener) {
+        this.batchListener = listener;
+        return this;
+    }
+
+    @Override
+    public VectorStoringStage withFileConcurrency(int concurrency) {
+        if (concurrency <= 0) {
+            throw new IllegalArgumentException("File concurrency must be positive");
+        }
+        this.fileConcurrency = concurrency;
+        return this;
+    }
+
+    @Override
+    public VectorStoringStage withCheckpoint(Path checkpointPath) {
+        this.checkpointPath = checkpointPath;
+        return this;
+    }
+
+    @Override
+    public VectorStoringStage withRetry(int maxAttempts, Duration initialBackoff) {
+        this.retryPolicy = RetryPolicy.of(maxAttempts, initialBackoff);
+        return this;
+    }
+
+    @Override
+    public VectorStoringStage withDeduplication(Supplier<NearDuplicateFilter> filterFactory) {
+        this.deduplication = filterFactory;
+        return this;
+    }
+
+    @Override
+    public VectorStoringStage withPipelinedWrites(EmbeddingModel embeddingModel, VectorIndexer indexer,
+                                                  int indexConcurrency, int queueCapacity) {
+        if (null == embeddingModel) {
+            throw new IllegalArgumentException("EmbeddingModel must not be null");
+        }
+        if (null == indexer) {
+            throw new IllegalArgumentException("VectorIndexer must not be null");
+        }
+        if (indexConcurrency <= 0) {
+            throw new IllegalArgumentException("Index concurrency must be positive");
+        }
+        if (queueCapacity <= 0) {
+            throw new IllegalArgumentException("Queue capacity must be positive");
+        }
+        this.embeddingModel = embeddingModel;
+        this.vectorIndexer = indexer;
+        this.indexConcurrency = indexConcurrency;
+        this.indexQueueCapacity = queueCapacity;
+        return this;
+    }
+
+    @Override
+    public VectorStoringStage withMeterRegistry(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        return this;
+    }
+
+    @Override
+    public IngestionResult toVectorStore(VectorStore vectorStore) {
+        if (null == vectorStore) {
+            throw new IllegalArgumentException("VectorStore must not be null");
+        }
+        this.vectorStore = vectorStore;
+        checkAtomicIngestion();
+        checkDeduplication();
+        this.nearDuplicateFilter = null != deduplication ? deduplication.get() : null;
+        if (null != directory) {
+            if (null != checkpointPath) {
+                throw new UnsupportedOperationException("Checkpoint is not supported for directory ingestion");
+            }
+            return executeDirectory();
+        }
+        return execute(resource, getReader(), false);
+    }
+
+    @Override
+    public IngestionResult resume(VectorStore vectorStore) {
         if (null == vectorStore) {
             throw new IllegalArgumentException("VectorStore must not be null");
         }
+        if (null == checkpointPath || null != directory) {
+            throw new IllegalStateException("resume() requires a single resource and withCheckpoint(path)");
+        }
         this.vectorStore = vectorStore;
-        execute();
+        checkAtomicIngestion();
+        checkDeduplication();
+        this.nearDuplicateFilter = null != deduplication ? deduplication.get() : null;
+        return execute(resource, getReader(), true);
+    }
+
+    /**
+     * 原子入库重新生成分块 ID，与依赖稳定分块 ID 的增量清单、断点续传不能同时使用
+     */
+    private void checkAtomicIngestion() {
+        if (null != generationRegistry && (null != manifest || null != checkpointPath)) {
+            throw new IllegalStateException("Atomic ingestion cannot be combined with manifest or checkpoint");
+        }
     }
 
-    private void execute() {
+    /**
+     * 被丢弃的重复分块没有任何记录，只依赖代表分块：增量清理或原子替换代表分块所在的文件时，重复内容会随之消失
+     */
+    private void checkDeduplication() {
+        if (null != deduplication && (null != manifest || null != generationRegistry)) {
+            throw new IllegalStateException(
+                    "Deduplication cannot be combined with manifest or atomic ingestion: dropped duplicates "
+                    + "would be lost when the file of their representative is replaced or cleaned up");
+        }
+    }
+
+    /**
+     * @param resume 是否从断点续传：跳过断点中已完成的分块；否则从头开始并重置断点
+     */
+    private IngestionResult execute(Resource resource, DocumentReader reader, boolean resume) {
         // 1. 读取
-        DocumentReader reader = getReader();
         if (null == reader) {
             throw new IllegalArgumentException(
                 "DocumentReader must not be null. getReader() returned null, please check implementation.");
         }
+
+        // 增量入库：源文件未变化时整体跳过，否则只写入新分块
+        String sourceKey = null;
+        String sourceHash = null;
+        IngestionManifest.SourceEntry previous = null;
+        IncrementalChunkFilter chunkFilter = null;
+        if (null != manifest) {
+            sourceKey = ContentHasher.sourceKey(resource);
+            sourceHash = ContentHasher.hash(resource);
+            previous = manifest.get(sourceKey).orElse(null);
+            if (null != previous && sourceHash.equals(previous.sourceHash())) {
+                log.info("[rag document init] source unchanged, skipped | source={}", sourceKey);
+                return IngestionResult.builder()
+                        .unchanged(true)
+                        .skippedChunkCount(previous.chunkIds().size())
+                        .build();
+            }
+            chunkFilter = new IncrementalChunkFilter(sourceKey,
+                    null == previous ? Set.of() : previous.chunkIds());
+        }
+
+        // 原子入库：分块写入新代次，全部成功后才切换生效代次
+        GenerationTagger generationTagger = null;
+        if (null != generationRegistry) {
+            sourceKey = ContentHasher.sourceKey(resource);
+            generationTagger = new GenerationTagger(sourceKey, GenerationRegistry.newGeneration());
+            generationRegistry.begin(sourceKey, generationTagger.getGeneration());
+        }
+
+        // 断点：续传时校验源文件未变化，否则从头开始
+        IngestionCheckpoint checkpoint = null;
+        if (null != checkpointPath) {
+            String key = null != sourceKey ? sourceKey : ContentHasher.sourceKey(resource);
+            String hash = null != sourceHash ? sourceHash : ContentHasher.hash(resource);
+            checkpoint = IngestionCheckpoint.open(checkpointPath);
+            if (!resume) {
+                checkpoint.reset(key, hash);
+            } else if (!checkpoint.matches(key, hash)) {
+                throw new IllegalStateException(
+                    String.format("No resumable checkpoint for %s: checkpoint missing or source changed", key));
+            } else {
+                log.info("[rag document init] resuming from checkpoint | source={}, completedChunks={}",
+                         key, checkpoint.getCompletedChunkCount());
+            }
+        }
+
+        BatchSizer sizer = getBatchSizer();
+        IngestionMetrics metrics = new IngestionMetrics(meterRegistry, getPipelineType());
+        IngestionResult.IngestionResultBuilder result = IngestionResult.builder();
+        AtomicInteger duplicates = new AtomicInteger();
+        DocumentTransformer transformer = deduplicating(
+                null != generationTagger ? generationTagger : chunkFilter, duplicates);
+        List<Integer> failedBatches;
+        try {
+            failedBatches = streaming
+                    ? executeStreaming(reader, transformer, sizer, checkpoint, metrics, result)
+                    : executeInMemory(reader, transformer, sizer, checkpoint, metrics, result);
+        } catch (RuntimeException e) {
+            if (null != generationTagger) {
+                rollbackGeneration(sourceKey, generationTagger.getGeneration());
+            }
+            throw e;
+        }
+        long bytes = contentLength(resource);
+        metrics.complete(bytes);
+        result.duplicateChunkCount(duplicates.get())
+                .readTimeMs(metrics.getReadTime().toMillis())
+                .splitTimeMs(metrics.getSplitTime().toMillis())
+                .writeTimeMs(metrics.getWriteTime().toMillis())
+                .totalTimeMs(metrics.getElapsed().toMillis())
+                .bytesProcessed(Math.max(bytes, 0))
+                .chunksPerSecond(metrics.getChunksPerSecond());
+
+        // 所有批次处理完毕后，如果有失败则抛出异常
+        if (!failedBatches.isEmpty()) {
+            if (null != generationTagger) {
+                rollbackGeneration(sourceKey, generationTagger.getGeneration());
+                throw new IllegalStateException(
+                    String.format("[rag document init] 部分批次处理失败：%d 个批次失败（索引：%s）。" +
+                                  "已删除本次写入的代次，原有数据保持不变。",
+                                  failedBatches.size(), failedBatches));
+            }
+            throw new IllegalStateException(
+                String.format("[rag document init] 部分批次处理失败：%d 个批次失败（索引：%s）。" +
+                              "注意：部分批次可能已成功写入 VectorStore，请检查数据一致性。%s",
+                              failedBatches.size(), failedBatches,
+                              null != checkpoint ? "可调用 resume() 只重试失败的批次。" : ""));
+        }
+        if (null != generationTagger) {
+            activateGeneration(sourceKey, generationTagger.getGeneration());
+            result.generation(generationTagger.getGeneration());
+        }
+        if (null != checkpoint) {
+            checkpoint.delete();
+        }
+
+        if (null != chunkFilter) {
+            result.skippedChunkCount(chunkFilter.getSkippedCount())
+                    .deletedChunkCount(removeStaleChunks(previous, chunkFilter.getChunkIds()));
+            manifest.put(sourceKey, new IngestionManifest.SourceEntry(sourceHash, chunkFilter.getChunkIds()));
+        }
+        if (sizer instanceof AdaptiveBatchSizer adaptive) {
+            result.batchTokenBudget(adaptive.getTokenBudget());
+        }
+        return result.build();
+    }
+
+    /**
+     * 目录入库：遍历目录下匹配的文件，交给 fileConcurrency 个工作线程并行处理，
+     * 单个文件失败不影响其他文件，结果汇总到一个 IngestionResult 中
+     */
+    private IngestionResult executeDirectory() {
+        long startNanos = System.nanoTime();
+        List<Path> files = findFiles();
+        if (files.isEmpty()) {
+            throw new IllegalArgumentException(
+                String.format("No files matching '%s' found in directory: %s", glob, directory));
+        }
+        log.info("[rag document init] directory ingestion started | directory={}, files={}, fileConcurrency={}",
+                 directory, files.size(), fileConcurrency);
+
+        AtomicInteger threadIndex = new AtomicInteger();
+        List<FileIngestionResult> fileResults = new ArrayList<>(files.size());
+        try (ExecutorService workers = Executors.newFixedThreadPool(Math.min(fileConcurrency, files.size()),
+                r -> new Thread(r, "rag-file-worker-" + threadIndex.incrementAndGet()))) {
+            List<Future<FileIngestionResult>> futures = new ArrayList<>(files.size());
+            for (Path file : files) {
+                futures.add(workers.submit(() -> executeFile(file)));
+            }
+            for (Future<FileIngestionResult> future : futures) {
+                fileResults.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("[rag document init] directory ingestion interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("[rag document init] directory ingestion failed", e.getCause());
+        }
+
+        IngestionResult.IngestionResultBuilder result = IngestionResult.builder()
+                .fileCount(fileResults.size())
+                .files(fileResults);
+        int documentCount = 0, chunkCount = 0, batchCount = 0, skipped = 0, deleted = 0, duplicates = 0, failed = 0;
+        long readTimeMs = 0, splitTimeMs = 0, writeTimeMs = 0, bytes = 0;
+        boolean unchanged = true;
+        for (FileIngestionResult fileResult : fileResults) {
+            if (!fileResult.isSuccess()) {
+                failed++;
+                unchanged = false;
+                continue;
+            }
+            IngestionResult r = fileResult.result();
+            documentCount += r.getDocumentCount();
+            chunkCount += r.getChunkCount();
+            batchCount += r.getBatchCount();
+            skipped += r.getSkippedChunkCount();
+            deleted += r.getDeletedChunkCount();
+            duplicates += r.getDuplicateChunkCount();
+            readTimeMs += r.getReadTimeMs();
+            splitTimeMs += r.getSplitTimeMs();
+            writeTimeMs += r.getWriteTimeMs();
+            bytes += r.getBytesProcessed();
+            unchanged &= r.isUnchanged();
+        }
+        long elapsedNanos = System.nanoTime() - startNanos;
+        if (getBatchSizer() instanceof AdaptiveBatchSizer adaptive) {
+            result.batchTokenBudget(adaptive.getTokenBudget());
+        }
+        log.info("[rag document init] directory ingestion finished | files={}, failed={}, chunks={}",
+                 fileResults.size(), failed, chunkCount);
+        return result.documentCount(documentCount)
+                .chunkCount(chunkCount)
+                .batchCount(batchCount)
+                .skippedChunkCount(skipped)
+                .deletedChunkCount(deleted)
+                .duplicateChunkCount(duplicates)
+                .unchanged(unchanged)
+                .failedFileCount(failed)
+                .readTimeMs(readTimeMs)
+                .splitTimeMs(splitTimeMs)
+                .writeTimeMs(writeTimeMs)
+                .totalTimeMs(elapsedNanos / 1_000_000)
+                .bytesProcessed(bytes)
+                .chunksPerSecond(elapsedNanos > 0 ? chunkCount * 1e9 / elapsedNanos : 0.0)
+                .build();
+    }
+
+    private FileIngestionResult executeFile(Path file) {
+        String path = file.toAbsolutePath().toString();
+        try {
+            Resource fileResource = new FileSystemResource(file);
+            IngestionResult result = execute(fileResource, withSourceMetadata(getReader(fileResource), file), false);
+            return FileIngestionResult.success(path, result);
+        } catch (Exception e) {
+            log.error("[rag document init] failed to ingest file: {}", path, e);
+            return FileIngestionResult.failure(path, e.getMessage());
+        }
+    }
+
+    private List<Path> findFiles() {
+        PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + glob);
+        boolean matchFileName = !glob.contains("/");
+        try (Stream<Path> paths = Files.walk(directory)) {
+            return paths.filter(Files::isRegularFile)
+                    .filter(p -> matcher.matches(matchFileName ? p.getFileName() : directory.relativize(p)))
+                    .filter(this::accepts)
+                    .sorted()
+                    .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to walk directory: " + directory, e);
+        }
+    }
+
+    /**
+     * 为目录中每个文件的文档补充 filename / filepath 元数据，已存在的键不覆盖
+     */
+    private static StreamingDocumentReader withSourceMetadata(DocumentReader reader, Path file) {
+        if (null == reader) {
+            return null;
+        }
+        String filename = file.getFileName().toString();
+        String filepath = file.toAbsolutePath().toString();
+        return () -> {
+            Stream<Document> documents = reader instanceof StreamingDocumentReader streamingReader
+                    ? streamingReader.stream()
+                    : reader.get().stream();
+            return documents.map(document -> {
+                // reader 可能让多个文档共享同一个元数据 Map，这里复制一份再补充
+                Map<String, Object> metadata = new HashMap<>(document.getMetadata());
+                metadata.putIfAbsent("filename", filename);
+                metadata.putIfAbsent("filepath", filepath);
+                Document withMetadata = document.mutate().metadata(metadata).build();
+                withMetadata.setContentFormatter(document.getContentFormatter());
+                return withMetadata;
+            });
+        };
+    }
+
+    /**
+     * 删除上次入库、本次已不存在的分块
+     *
+     * @return 删除的分块数
+     */
+    private int removeStaleChunks(IngestionManifest.SourceEntry previous, Set<String> currentIds) {
+        if (null == previous) {
+            return 0;
+        }
+        Set<String> staleIds = new HashSet<>(previous.chunkIds());
+        staleIds.removeAll(currentIds);
+        if (!staleIds.isEmpty()) {
+            vectorStore.delete(List.copyOf(staleIds));
+            log.info("[rag document init] deleted {} stale chunks", staleIds.size());
+        }
+        return staleIds.size();
+    }
+
+    /**
+     * 切换生效代次并删除该源文件已废弃的代次（被替换的旧代次与之前回滚失败遗留的代次），删除成功后解除隐藏；
+     * 同一源文件其他正在写入的代次不受影响。删除失败时只记录警告：
+     * 这些代次仍被 {@link GenerationRegistry#activeFilter()} 屏蔽，下次成功入库时会被一并清理
+     */
+    private void activateGeneration(String sourceKey, String generation) {
+        String previous = generationRegistry.activate(sourceKey, generation);
+        List<String> retired = generationRegistry.retired(sourceKey);
+        if (!retired.isEmpty()) {
+            FilterExpressionBuilder b = new FilterExpressionBuilder();
+            try {
+                vectorStore.delete(b.and(b.eq(GenerationRegistry.SOURCE_KEY, sourceKey),
+                        b.in(GenerationRegistry.GENERATION, new ArrayList<Object>(retired))).build());
+                generationRegistry.release(retired);
+            } catch (RuntimeException e) {
+                log.warn("[rag document init] failed to delete retired generations | source={}, generations={}",
+                         sourceKey, retired, e);
+            }
+        }
+        log.info("[rag document init] generation activated | source={}, generation={}, previous={}",
+                 sourceKey, generation, previous);
+    }
+
+    /**
+     * 删除写入失败的代次，生效代次保持不变，删除成功后解除隐藏。删除失败时只记录警告，
+     * 残留分块仍被 {@link GenerationRegistry#activeFilter()} 屏蔽，下次成功入库时会被一并清理
+     */
+    private void rollbackGeneration(String sourceKey, String generation) {
+        generationRegistry.abandon(generation);
+        FilterExpressionBuilder b = new FilterExpressionBuilder();
+        try {
+            vectorStore.delete(b.and(b.eq(GenerationRegistry.SOURCE_KEY, sourceKey),
+                    b.eq(GenerationRegistry.GENERATION, generation)).build());
+            generationRegistry.release(List.of(generation));
+            log.info("[rag document init] generation rolled back | source={}, generation={}", sourceKey, generation);
+        } catch (RuntimeException e) {
+            log.warn("[rag document init] failed to roll back generation | source={}, generation={}",
+                     sourceKey, generation, e);
+        }
+    }
+
+    /**
+     * 切分后先去除近似重复分块，再交给增量过滤或代次标记
+     */
+    private DocumentTransformer deduplicating(DocumentTransformer next, AtomicInteger duplicates) {
+        NearDuplicateFilter filter = nearDuplicateFilter;
+        if (null == filter) {
+            return next;
+        }
+        return chunks -> {
+            List<Document> kept = filter.apply(chunks);
+            duplicates.addAndGet(chunks.size() - kept.size());
+            return null != next ? next.apply(kept) : kept;
+        };
+    }
+
+    private List<Integer> executeInMemory(DocumentReader reader, DocumentTransformer chunkFilter, BatchSizer sizer,
+                                          IngestionCheckpoint checkpoint, IngestionMetrics metrics,
+                                          IngestionResult.IngestionResultBuilder result) {
+        long start = System.nanoTime();
         List<Document> documents = reader.get();
+        metrics.recordRead(System.nanoTime() - start);
         if (CollectionUtils.isEmpty(documents)) {
             throw new IllegalArgumentException("not found document!");
         }
 
         // 2. 切分
+        start = System.nanoTime();
         List<Document> chunks;
         if (splitter != null) {
             chunks = splitter.apply(documents);
         } else {
             chunks = documents;
         }
+        if (chunkFilter != null) {
+            chunks = chunkFilter.apply(chunks);
+        }
+        metrics.recordSplit(System.nanoTime() - start);
 
-        // 3. 批量保存到向量存储
-        int batchSize = getBatchSize();
-        List<Integer> failedBatches = new ArrayList<>();
+        // 3. 批量保存到向量存储（writeConcurrency > 1 时并发写入，启用流水线时 embedding 与写索引分阶段执行）
+        ChunkBatchIterator batches = new ChunkBatchIterator(chunks.iterator(), null, null, sizer,
+                null != checkpoint ? checkpoint::isCompleted : null);
+        List<Integer> failedBatches = writeBatches(batches, sizer, checkpoint, metrics);
+        metrics.recordChunks(batches.getChunkCount());
+        result.documentCount(documents.size())
+                .chunkCount(batches.getChunkCount())
+                .batchCount(batches.getBatchCount())
+                .resumedChunkCount(batches.getSkippedChunkCount());
+        return failedBatches;
+    }
 
-        for (int i = 0; i < chunks.size(); i += batchSize) {
-            List<Document> batch = chunks.subList(i, Math.min(i + batchSize, chunks.size()));
-            try {
-                vectorStore.add(batch);
-                log.debug("[rag document init] success | index={}, size={}", i, batch.size());
-            } catch (Exception e) {
-                log.error("[rag document init] failed to add batch starting at index {}", i, e);
-                failedBatches.add(i);
+    /**
+     * 流式执行：读取、切分、写入按批次交替进行，整个文件的文档与分块不会同时驻留在堆上。
+     * reader 实现 {@link StreamingDocumentReader} 时文档也按需读取。
+     */
+    private List<Integer> executeStreaming(DocumentReader reader, DocumentTransformer chunkFilter, BatchSizer sizer,
+                                           IngestionCheckpoint checkpoint, IngestionMetrics metrics,
+                                           IngestionResult.IngestionResultBuilder result) {
+        try (Stream<Document> documents = reader instanceof StreamingDocumentReader streamingReader
+                ? streamingReader.stream()
+                : reader.get().stream()) {
+            ChunkBatchIterator batches = new ChunkBatchIterator(documents.iterator(), splitter, chunkFilter, sizer,
+                    null != checkpoint ? checkpoint::isCompleted : null);
+            List<Integer> failedBatches = writeBatches(batches, sizer, checkpoint, metrics);
+            metrics.recordRead(batches.getReadNanos());
+            metrics.recordSplit(batches.getSplitNanos());
+            metrics.recordChunks(batches.getChunkCount());
+            if (batches.getDocumentCount() == 0) {
+                throw new IllegalArgumentException("not found document!");
             }
+            log.debug("[rag document init] streaming finished | documents={}, chunks={}",
+                      batches.getDocumentCount(), batches.getChunkCount());
+            result.documentCount(batches.getDocumentCount())
+                    .chunkCount(batches.getChunkCount())
+                    .batchCount(batches.getBatchCount())
+                    .resumedChunkCount(batches.getSkippedChunkCount());
+            return failedBatches;
         }
+    }
 
-        // 所有批次处理完毕后，如果有失败则抛出异常
-        if (!failedBatches.isEmpty()) {
-            throw new IllegalStateException(
-                String.format("[rag document init] 部分批次处理失败：%d 个批次失败（索引：%s）。" +
-                              "注意：部分批次可能已成功写入 VectorStore，请检查数据一致性。",
-                              failedBatches.size(), failedBatches));
+    private List<Integer> writeBatches(Iterator<DocumentBatch> batches, BatchSizer sizer,
+                                       IngestionCheckpoint checkpoint, IngestionMetrics metrics) {
+        BatchListener listener = BatchListener.compose(sizer, batchListener);
+        listener = BatchListener.compose(listener, checkpoint);
+        listener = BatchListener.compose(listener, metrics);
+        if (null != vectorIndexer) {
+            return new PipelinedBatchWriter(embeddingModel, vectorIndexer, getWriteConcurrency(), indexConcurrency,
+                    indexQueueCapacity, listener, retryPolicy).write(batches);
         }
-
+        return new BatchWriter(vectorStore, getWriteConcurrency(), listener, retryPolicy).write(batches);
     }
 
+    private static long contentLength(Resource resource) {
+        if (null == resource) {
+            return -1;
+        }
+        try {
+            return resource.contentLength();
+        } catch (IOException e) {
+            return -1;
+        }
+    }
 
 }
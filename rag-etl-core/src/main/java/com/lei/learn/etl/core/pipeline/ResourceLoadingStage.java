@@ -3,6 +3,7 @@ package com.lei.learn.etl.core.pipeline;
 import org.springframework.core.io.Resource;
 
 import java.io.File;
+import java.nio.file.Path;
 
 /**
  * <p>
@@ -19,4 +20,14 @@ public interface ResourceLoadingStage {
 
     TextSplittingStage fromFile(String filepath);
 
+    /**
+     * 递归读取目录下所有匹配 glob 的文件，多个文件并行处理。
+     * glob 不含 '/' 时匹配文件名（如 {@code *.md}），否则匹配相对于 directory 的路径（如 {@code guide/*.md}）
+     *
+     * @param directory 根目录
+     * @param glob      文件匹配模式
+     * @return this
+     */
+    TextSplittingStage fromDirectory(Path directory, String glob);
+
 }
@@ -0,0 +1,28 @@
+package com.lei.learn.etl.core.pipeline;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.document.DocumentReader;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * <p>
+ * 可流式读取的 DocumentReader
+ * </p>
+ * 文档按需逐个产出，调用方必须关闭返回的 Stream 以释放底层资源。
+ *
+ * @author 伍磊
+ */
+public interface StreamingDocumentReader extends DocumentReader {
+
+    Stream<Document> stream();
+
+    @Override
+    default List<Document> get() {
+        try (Stream<Document> documents = stream()) {
+            return documents.toList();
+        }
+    }
+
+}
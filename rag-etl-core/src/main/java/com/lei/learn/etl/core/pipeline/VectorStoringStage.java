@@ -1,7 +1,19 @@
 package com.lei.learn.etl.core.pipeline;
 
+import com.lei.learn.etl.core.pipeline.batch.BatchListener;
+import com.lei.learn.etl.core.pipeline.batch.BatchSizer;
+import com.lei.learn.etl.core.pipeline.batch.VectorIndexer;
+import com.lei.learn.etl.core.pipeline.dedup.NearDuplicateFilter;
+import com.lei.learn.etl.core.pipeline.generation.GenerationRegistry;
+import com.lei.learn.etl.core.pipeline.incremental.IngestionManifest;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.ai.embedding.EmbeddingModel;
 import org.springframework.ai.vectorstore.VectorStore;
 
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.function.Supplier;
+
 /**
  * <p>
  * VectorStoringStage
@@ -11,6 +23,140 @@ import org.springframework.ai.vectorstore.VectorStore;
  */
 public interface VectorStoringStage {
 
-    void toVectorStore(VectorStore vectorStore);
+    /**
+     * 设置每批写入的分块数（默认 10）
+     *
+     * @param batchSize 每批分块数
+     * @return this
+     */
+    VectorStoringStage withBatchSize(int batchSize);
+
+    /**
+     * 设置批次大小策略，例如按 token 预算自适应调整的
+     * {@link com.lei.learn.etl.core.pipeline.batch.AdaptiveBatchSizer}，设置后 batchSize 不再生效
+     *
+     * @param batchSizer 批次大小策略
+     * @return this
+     */
+    VectorStoringStage withBatchSizer(BatchSizer batchSizer);
+
+    /**
+     * 设置同时写入 VectorStore 的批次数（默认 1，即逐批顺序写入）
+     *
+     * @param concurrency 最大在途批次数
+     * @return this
+     */
+    VectorStoringStage withWriteConcurrency(int concurrency);
+
+    /**
+     * 是否以流式方式执行：文档逐个读取、逐个切分并按批写入，
+     * 内存占用与批次大小成正比而不是与文件大小成正比（默认 false）
+     *
+     * @param streaming 是否流式执行
+     * @return this
+     */
+    VectorStoringStage withStreaming(boolean streaming);
+
+    /**
+     * 启用增量入库：分块使用内容哈希生成稳定 ID，源文件未变化时整体跳过，
+     * 变化时只写入新增分块并删除已消失的分块，入库结果记录到清单中
+     *
+     * @param manifest 入库清单
+     * @return this
+     */
+    VectorStoringStage withManifest(IngestionManifest manifest);
+
+    /**
+     * 启用原子入库：每次执行把分块写入一个新代次（元数据 {@code source_key} / {@code generation}），
+     * 全部批次成功后才切换源文件的生效代次并删除旧代次，有批次失败时删除本次写入的代次。
+     * 写入中的代次在登记表中标记为隐藏，检索时以 {@link GenerationRegistry#activeFilter()} 过滤
+     * （例如 {@code OpenSearchBulkVectorStore} 配置登记表后在每次检索时自动合并）即不会读到写入一半的文档，
+     * 未经原子入库写入、没有代次元数据的文档不受影响。
+     * 不能与 {@link #withManifest(IngestionManifest)}、{@link #withCheckpoint(Path)} 同时使用
+     *
+     * @param registry 代次登记表
+     * @return this
+     */
+    VectorStoringStage withAtomicIngestion(GenerationRegistry registry);
+
+    /**
+     * 设置批次写入回调，用于上报进度；并发写入或目录入库时会在多个线程上回调
+     *
+     * @param listener 批次写入回调
+     * @return this
+     */
+    VectorStoringStage withBatchListener(BatchListener listener);
+
+    /**
+     * 目录入库时同时处理的文件数（默认 CPU 核数），单文件入库时不生效
+     *
+     * @param concurrency 并行处理的文件数
+     * @return this
+     */
+    VectorStoringStage withFileConcurrency(int concurrency);
+
+    /**
+     * 启用断点：每个批次写入成功后把已完成的分块区间记录到断点文件，全部成功后删除断点文件；
+     * 部分批次失败时可调用 {@link #resume(VectorStore)} 只重试失败或未开始的批次。仅单文件入库支持
+     *
+     * @param checkpointPath 断点文件路径
+     * @return this
+     */
+    VectorStoringStage withCheckpoint(Path checkpointPath);
+
+    /**
+     * 批次写入失败时按指数退避（带随机抖动）重试
+     *
+     * @param maxAttempts    最大尝试次数（含首次）
+     * @param initialBackoff 首次重试前的等待时间，之后每次翻倍
+     * @return this
+     */
+    VectorStoringStage withRetry(int maxAttempts, Duration initialBackoff);
+
+    /**
+     * 启用近似重复去重：切分之后、embedding 之前用 MinHash + LSH 找出近似重复的分块，只写入代表分块，
+     * 丢弃的数量见 {@link IngestionResult#getDuplicateChunkCount()}。每次入库调用一次 filterFactory，
+     * 目录入库时所有文件共享同一个过滤器，跨文件的重复同样会被丢弃。被丢弃的分块依赖代表分块，
+     * 因此不能与增量清单、原子入库同时使用，否则执行时抛出 IllegalStateException
+     *
+     * @param filterFactory 创建去重过滤器，例如 {@code () -> NearDuplicateFilter.builder().build()}
+     * @return this
+     */
+    VectorStoringStage withDeduplication(Supplier<NearDuplicateFilter> filterFactory);
+
+    /**
+     * 启用流水线写入：批次先由 embeddingModel 计算向量（并发度为 {@link #withWriteConcurrency(int)}），
+     * 再经有界队列交给 indexer 写索引（并发度为 indexConcurrency），
+     * 第 N 个批次写索引时第 N+1 个批次已经在 embedding。indexer 必须写入 {@link #toVectorStore(VectorStore)}
+     * 传入的同一个存储，增量、原子入库的删除仍通过该 VectorStore 执行
+     *
+     * @param embeddingModel   计算向量的模型
+     * @param indexer          写索引的存储
+     * @param indexConcurrency 同时写索引的批次数
+     * @param queueCapacity    已 embedding 待写索引的最大批次数，写满时 embedding 阶段阻塞
+     * @return this
+     */
+    VectorStoringStage withPipelinedWrites(EmbeddingModel embeddingModel, VectorIndexer indexer,
+                                           int indexConcurrency, int queueCapacity);
+
+    /**
+     * 上报读取、切分、批次写入耗时以及分块数、字节数、吞吐量等指标，
+     * 指标名见 {@link com.lei.learn.etl.core.pipeline.metrics.IngestionMetrics}
+     *
+     * @param meterRegistry 指标注册表
+     * @return this
+     */
+    VectorStoringStage withMeterRegistry(MeterRegistry meterRegistry);
+
+    IngestionResult toVectorStore(VectorStore vectorStore);
+
+    /**
+     * 从断点续传：重新读取并切分源文件，跳过断点中已写入的分块，只写入失败或未开始的批次。
+     * 需要先调用 {@link #withCheckpoint(Path)}，源文件在断点之后被修改时抛出 IllegalStateException
+     *
+     * @param vectorStore 向量存储
+     * @return 本次执行的结果
+     */
+    IngestionResult resume(VectorStore vectorStore);
 
 }
@@ -0,0 +1,174 @@
+package com.lei.learn.etl.core.pipeline.batch;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+
+/**
+ * <p>
+ * 自适应批次大小策略
+ * </p>
+ * 按估算 token 数而不是分块数量切分批次，并根据写入结果调整 token 预算（AIMD）：
+ * <ul>
+ *     <li>写入成功且耗时低于目标延迟：预算加上固定步长</li>
+ *     <li>写入成功但耗时超过目标延迟：预算降为 3/4</li>
+ *     <li>写入失败（包括限流）：预算减半</li>
+ * </ul>
+ * 预算始终限制在 [minTokens, maxTokens] 内，单批分块数不超过 maxBatchSize。
+ * 实例有状态，一次执行使用一个实例。
+ *
+ * @author 伍磊
+ */
+public class AdaptiveBatchSizer implements BatchSizer {
+
+    private static final Logger log = LoggerFactory.getLogger(AdaptiveBatchSizer.class);
+
+    private final long minTokens;
+
+    private final long maxTokens;
+
+    private final long stepTokens;
+
+    private final int maxBatchSize;
+
+    private final long targetLatencyNanos;
+
+    private volatile long tokenBudget;
+
+    private long peakTokenBudget;
+
+    private int increaseCount;
+
+    private int decreaseCount;
+
+    private AdaptiveBatchSizer(AdaptiveBatchSizer.Builder builder) {
+        if (builder.minTokens <= 0 || builder.maxTokens < builder.minTokens) {
+            throw new IllegalArgumentException("Token range must satisfy 0 < minTokens <= maxTokens");
+        }
+        if (builder.maxBatchSize <= 0) {
+            throw new IllegalArgumentException("Max batch size must be positive");
+        }
+        if (builder.targetLatency == null || builder.targetLatency.isNegative() || builder.targetLatency.isZero()) {
+            throw new IllegalArgumentException("Target latency must be positive");
+        }
+        this.minTokens = builder.minTokens;
+        this.maxTokens = builder.maxTokens;
+        this.maxBatchSize = builder.maxBatchSize;
+        this.targetLatencyNanos = builder.targetLatency.toNanos();
+        this.tokenBudget = Math.clamp(builder.initialTokens, minTokens, maxTokens);
+        this.stepTokens = builder.stepTokens > 0 ? builder.stepTokens : Math.max(1, this.tokenBudget / 4);
+        this.peakTokenBudget = this.tokenBudget;
+    }
+
+    @Override
+    public boolean isFull(int count, long tokens) {
+        return count >= maxBatchSize || tokens >= tokenBudget;
+    }
+
+    @Override
+    public synchronized void onSuccess(DocumentBatch batch, long elapsedNanos) {
+        if (elapsedNanos <= targetLatencyNanos) {
+            adjust(Math.min(maxTokens, tokenBudget + stepTokens));
+        } else {
+            adjust(Math.max(minTokens, tokenBudget * 3 / 4));
+        }
+    }
+
+    @Override
+    public synchronized void onFailure(DocumentBatch batch, Exception error) {
+        adjust(Math.max(minTokens, tokenBudget / 2));
+    }
+
+    private void adjust(long newBudget) {
+        if (newBudget == tokenBudget) {
+            return;
+        }
+        if (newBudget > tokenBudget) {
+            increaseCount++;
+        } else {
+            decreaseCount++;
+        }
+        log.debug("[adaptive batch] token budget {} -> {}", tokenBudget, newBudget);
+        tokenBudget = newBudget;
+        peakTokenBudget = Math.max(peakTokenBudget, newBudget);
+    }
+
+    /**
+     * 当前每批 token 预算
+     */
+    public long getTokenBudget() {
+        return tokenBudget;
+    }
+
+    /**
+     * 执行过程中达到过的最大 token 预算
+     */
+    public synchronized long getPeakTokenBudget() {
+        return peakTokenBudget;
+    }
+
+    public synchronized int getIncreaseCount() {
+        return increaseCount;
+    }
+
+    public synchronized int getDecreaseCount() {
+        return decreaseCount;
+    }
+
+    public static AdaptiveBatchSizer.Builder builder() {
+        return new AdaptiveBatchSizer.Builder();
+    }
+
+    public static final class Builder {
+
+        private long initialTokens = 2048;
+
+        private long minTokens = 256;
+
+        private long maxTokens = 32768;
+
+        /**
+         * 每次增长的 token 数，未设置时取初始预算的 1/4
+         */
+        private long stepTokens = 0;
+
+        private int maxBatchSize = 100;
+
+        private Duration targetLatency = Duration.ofSeconds(2);
+
+        public AdaptiveBatchSizer.Builder withInitialTokens(long initialTokens) {
+            this.initialTokens = initialTokens;
+            return this;
+        }
+
+        public AdaptiveBatchSizer.Builder withMinTokens(long minTokens) {
+            this.minTokens = minTokens;
+            return this;
+        }
+
+        public AdaptiveBatchSizer.Builder withMaxTokens(long maxTokens) {
+            this.maxTokens = maxTokens;
+            return this;
+        }
+
+        public AdaptiveBatchSizer.Builder withStepTokens(long stepTokens) {
+            this.stepTokens = stepTokens;
+            return this;
+        }
+
+        public AdaptiveBatchSizer.Builder withMaxBatchSize(int maxBatchSize) {
+            this.maxBatchSize = maxBatchSize;
+            return this;
+        }
+
+        public AdaptiveBatchSizer.Builder withTargetLatency(Duration targetLatency) {
+            this.targetLatency = targetLatency;
+            return this;
+        }
+
+        public AdaptiveBatchSizer build() {
+            return new AdaptiveBatchSizer(this);
+        }
+    }
+}
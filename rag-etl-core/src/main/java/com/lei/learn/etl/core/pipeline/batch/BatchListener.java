@@ -0,0 +1,56 @@
+package com.lei.learn.etl.core.pipeline.batch;
+
+/**
+ * <p>
+ * 批次写入回调
+ * </p>
+ * 并发写入时会在写入线程上回调，实现必须线程安全。
+ *
+ * @author 伍磊
+ */
+public interface BatchListener {
+
+    /**
+     * 批次写入成功
+     *
+     * @param batch        批次
+     * @param elapsedNanos 写入耗时（纳秒）
+     */
+    default void onSuccess(DocumentBatch batch, long elapsedNanos) {
+    }
+
+    /**
+     * 批次写入失败
+     *
+     * @param batch 批次
+     * @param error 异常
+     */
+    default void onFailure(DocumentBatch batch, Exception error) {
+    }
+
+    /**
+     * 依次回调两个监听器
+     */
+    static BatchListener compose(BatchListener first, BatchListener second) {
+        if (null == first) {
+            return second;
+        }
+        if (null == second) {
+            return first;
+        }
+        return new BatchListener() {
+            @Override
+            public void onSuccess(DocumentBatch batch, long elapsedNanos) {
+                first.onSuccess(batch, elapsedNanos);
+                second.onSuccess(batch, elapsedNanos);
+            }
+
+            @Override
+            public void onFailure(DocumentBatch batch, Exception error) {
+                first.onFailure(batch, error);
+                second.onFailure(batch, error);
+            }
+        };
+    }
+
+}
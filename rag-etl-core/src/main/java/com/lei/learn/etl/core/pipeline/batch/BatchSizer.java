@@ -0,0 +1,36 @@
+package com.lei.learn.etl.core.pipeline.batch;
+
+/**
+ * <p>
+ * 批次大小策略
+ * </p>
+ * 组装批次时每加入一个分块就询问一次是否已满；同时作为 {@link BatchListener} 接收写入结果，
+ * 可据此动态调整后续批次的大小。
+ *
+ * @author 伍磊
+ */
+public interface BatchSizer extends BatchListener {
+
+    /**
+     * 当前批次是否已满
+     *
+     * @param count  批次内分块数
+     * @param tokens 批次内估算 token 数
+     * @return 已满返回 true
+     */
+    boolean isFull(int count, long tokens);
+
+    /**
+     * 固定分块数量的批次策略
+     *
+     * @param batchSize 每批分块数
+     * @return BatchSizer
+     */
+    static BatchSizer fixed(int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive");
+        }
+        return (count, tokens) -> count >= batchSize;
+    }
+
+}
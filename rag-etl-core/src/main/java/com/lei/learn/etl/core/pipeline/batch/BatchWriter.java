@@ -0,0 +1,154 @@
+package com.lei.learn.etl.core.pipeline.batch;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.vectorstore.VectorStore;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+/**
+ * <p>
+ * 批次写入器
+ * </p>
+ * <ul>
+ *     <li>concurrency = 1：在调用线程上逐批写入（默认行为）</li>
+ *     <li>concurrency &gt; 1：使用虚拟线程并发写入，最多同时有 concurrency 个批次在途；
+ *     在途批次已满时生产方会阻塞，避免瞬时请求过多触发 embedding 服务限流</li>
+ * </ul>
+ * 失败的批次按 {@link RetryPolicy} 退避重试，最终结果回调给 {@link BatchListener}。
+ *
+ * @author 伍磊
+ */
+public class BatchWriter {
+
+    private static final Logger log = LoggerFactory.getLogger(BatchWriter.class);
+
+    private static final BatchListener NOOP = new BatchListener() {
+    };
+
+    private final VectorStore vectorStore;
+
+    private final int concurrency;
+
+    private final BatchListener listener;
+
+    private final RetryPolicy retryPolicy;
+
+    public BatchWriter(VectorStore vectorStore, int concurrency) {
+        this(vectorStore, concurrency, NOOP);
+    }
+
+    public BatchWriter(VectorStore vectorStore, int concurrency, BatchListener listener) {
+        this(vectorStore, concurrency, listener, RetryPolicy.none());
+    }
+
+    public BatchWriter(VectorStore vectorStore, int concurrency, BatchListener listener, RetryPolicy retryPolicy) {
+        if (null == vectorStore) {
+            throw new IllegalArgumentException("VectorStore must not be null");
+        }
+        if (concurrency <= 0) {
+            throw new IllegalArgumentException("Write concurrency must be positive");
+        }
+        this.vectorStore = vectorStore;
+        this.concurrency = concurrency;
+        this.listener = null == listener ? NOOP : listener;
+        this.retryPolicy = null == retryPolicy ? RetryPolicy.none() : retryPolicy;
+    }
+
+    /**
+     * 写入所有批次，单个批次失败不会中断其余批次
+     *
+     * @param batches 待写入批次
+     * @return 失败批次的起始下标（升序）
+     */
+    public List<Integer> write(Iterator<DocumentBatch> batches) {
+        List<Integer> failedBatches = concurrency == 1
+                ? writeSequentially(batches)
+                : writeConcurrently(batches);
+        Collections.sort(failedBatches);
+        return failedBatches;
+    }
+
+    private List<Integer> writeSequentially(Iterator<DocumentBatch> batches) {
+        List<Integer> failedBatches = new ArrayList<>();
+        while (batches.hasNext()) {
+            writeBatch(batches.next(), failedBatches);
+        }
+        return failedBatches;
+    }
+
+    private List<Integer> writeConcurrently(Iterator<DocumentBatch> batches) {
+        List<Integer> failedBatches = Collections.synchronizedList(new ArrayList<>());
+        Semaphore inFlight = new Semaphore(concurrency);
+
+        // close() 会等待所有已提交批次完成
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            while (batches.hasNext()) {
+                DocumentBatch batch = batches.next();
+                try {
+                    inFlight.acquire();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("[rag document init] 写入被中断", e);
+                }
+                executor.execute(() -> {
+                    try {
+                        writeBatch(batch, failedBatches);
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+        }
+        return new ArrayList<>(failedBatches);
+    }
+
+    private void writeBatch(DocumentBatch batch, List<Integer> failedBatches) {
+        long start = System.nanoTime();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                vectorStore.add(batch.documents());
+                break;
+            } catch (Exception e) {
+                if (attempt >= retryPolicy.maxAttempts() || !sleep(retryPolicy.backoff(attempt).toMillis())) {
+                    log.error("[rag document init] failed to add batch starting at index {}", batch.index(), e);
+                    failedBatches.add(batch.index());
+                    listener.onFailure(batch, e);
+                    return;
+                }
+                log.warn("[rag document init] retrying batch starting at index {} | attempt={}, error={}",
+                         batch.index(), attempt, e.getMessage());
+            }
+        }
+        long elapsedNanos = System.nanoTime() - start;
+        log.debug("[rag document init] success | index={}, size={}", batch.index(), batch.size());
+        try {
+            listener.onSuccess(batch, elapsedNanos);
+        } catch (RuntimeException e) {
+            // listener 抛出异常（例如断点落盘失败）时按失败批次处理：并发写入时异常不会传回调用线程，
+            // 顺序写入时也不应中断其余批次
+            log.error("[rag document init] batch listener failed | index={}", batch.index(), e);
+            failedBatches.add(batch.index());
+            listener.onFailure(batch, e);
+        }
+    }
+
+    /**
+     * @return 被中断时返回 false，不再重试
+     */
+    private static boolean sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
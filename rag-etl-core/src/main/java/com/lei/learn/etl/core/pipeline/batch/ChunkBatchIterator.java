@@ -0,0 +1,208 @@
+package com.lei.learn.etl.core.pipeline.batch;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.document.DocumentTransformer;
+import org.springframework.ai.transformer.splitter.TextSplitter;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.IntPredicate;
+
+/**
+ * <p>
+ * 拉取式批次迭代器：文档 -> 分块 -> 批次
+ * </p>
+ * 只在待组批的分块用完时才从上游拉取下一个文档进行切分，内存中最多保留一个批次加上单个文档的分块。
+ * 批次边界由 {@link BatchSizer} 决定。非线程安全，只能由生产方（调用线程）消费。
+ * 批次下标是批次第一个分块在全部分块中的序号；断点续传时已完成的分块被跳过但仍占用序号，
+ * 批次在已完成区间处截断，保证每个批次覆盖连续的分块区间。
+ *
+ * @author 伍磊
+ */
+public class ChunkBatchIterator implements Iterator<DocumentBatch> {
+
+    private final Iterator<Document> documents;
+
+    private final TextSplitter splitter;
+
+    private final DocumentTransformer chunkTransformer;
+
+    private final BatchSizer sizer;
+
+    private final IntPredicate completedChunks;
+
+    private final Deque<Document> pending = new ArrayDeque<>();
+
+    /**
+     * 下一个待处理分块的序号（含跳过的分块）
+     */
+    private int position;
+
+    private int skippedChunkCount;
+
+    private long readNanos;
+
+    private long splitNanos;
+
+    private int documentCount;
+
+    private int chunkCount;
+
+    private int batchCount;
+
+    /**
+     * @param documents 上游文档
+     * @param splitter  文本分割器，为 null 时文档直接作为分块
+     * @param sizer     批次大小策略
+     */
+    public ChunkBatchIterator(Iterator<Document> documents, TextSplitter splitter, BatchSizer sizer) {
+        this(documents, splitter, null, sizer);
+    }
+
+    /**
+     * @param documents        上游文档
+     * @param splitter         文本分割器，为 null 时文档直接作为分块
+     * @param chunkTransformer 组批前对每个文档的分块做的处理（如增量过滤），可为 null
+     * @param sizer            批次大小策略
+     */
+    public ChunkBatchIterator(Iterator<Document> documents, TextSplitter splitter,
+                              DocumentTransformer chunkTransformer, BatchSizer sizer) {
+        this(documents, splitter, chunkTransformer, sizer, null);
+    }
+
+    /**
+     * @param documents        上游文档
+     * @param splitter         文本分割器，为 null 时文档直接作为分块
+     * @param chunkTransformer 组批前对每个文档的分块做的处理（如增量过滤），可为 null
+     * @param sizer            批次大小策略
+     * @param completedChunks  按分块序号判断是否已写入（断点续传），已写入的分块被跳过，可为 null
+     */
+    public ChunkBatchIterator(Iterator<Document> documents, TextSplitter splitter,
+                              DocumentTransformer chunkTransformer, BatchSizer sizer, IntPredicate completedChunks) {
+        if (null == sizer) {
+            throw new IllegalArgumentException("BatchSizer must not be null");
+        }
+        this.documents = documents;
+        this.splitter = splitter;
+        this.chunkTransformer = chunkTransformer;
+        this.sizer = sizer;
+        this.completedChunks = completedChunks;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return fill();
+    }
+
+    @Override
+    public DocumentBatch next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        int start = position;
+        List<Document> batch = new ArrayList<>();
+        long tokens = 0;
+        // 遇到已完成的分块时截断，保证批次连续
+        while (load()) {
+            if (isCompleted(position)) {
+                break;
+            }
+            Document chunk = pending.poll();
+            position++;
+            batch.add(chunk);
+            tokens += TokenEstimator.estimate(chunk);
+            if (sizer.isFull(batch.size(), tokens)) {
+                break;
+            }
+        }
+        DocumentBatch result = new DocumentBatch(start, batch);
+        chunkCount += batch.size();
+        batchCount++;
+        return result;
+    }
+
+    /**
+     * 已从上游读取的文档数
+     */
+    public int getDocumentCount() {
+        return documentCount;
+    }
+
+    /**
+     * 已产出的分块数
+     */
+    public int getChunkCount() {
+        return chunkCount;
+    }
+
+    /**
+     * 断点续传时因已写入而跳过的分块数
+     */
+    public int getSkippedChunkCount() {
+        return skippedChunkCount;
+    }
+
+    /**
+     * 从上游拉取文档的累计耗时（纳秒），上游是流式 reader 时即读取耗时
+     */
+    public long getReadNanos() {
+        return readNanos;
+    }
+
+    /**
+     * 切分及分块处理的累计耗时（纳秒）
+     */
+    public long getSplitNanos() {
+        return splitNanos;
+    }
+
+    /**
+     * 已产出的批次数
+     */
+    public int getBatchCount() {
+        return batchCount;
+    }
+
+    /**
+     * 跳过已完成的分块，保证至少有一个待组批分块，上游耗尽时返回 false
+     */
+    private boolean fill() {
+        while (load()) {
+            if (!isCompleted(position)) {
+                return true;
+            }
+            pending.poll();
+            position++;
+            skippedChunkCount++;
+        }
+        return false;
+    }
+
+    /**
+     * 待组批分块用完时从上游拉取下一个文档切分，上游耗尽时返回 false
+     */
+    private boolean load() {
+        while (pending.isEmpty()) {
+            long start = System.nanoTime();
+            Document document = documents.hasNext() ? documents.next() : null;
+            long read = System.nanoTime();
+            readNanos += read - start;
+            if (null == document) {
+                return false;
+            }
+            documentCount++;
+            List<Document> chunks = splitter != null ? splitter.apply(List.of(document)) : List.of(document);
+            pending.addAll(chunkTransformer != null ? chunkTransformer.apply(chunks) : chunks);
+            splitNanos += System.nanoTime() - read;
+        }
+        return true;
+    }
+
+    private boolean isCompleted(int chunkIndex) {
+        return completedChunks != null && completedChunks.test(chunkIndex);
+    }
+}
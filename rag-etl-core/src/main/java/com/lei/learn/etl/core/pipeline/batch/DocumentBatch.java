@@ -0,0 +1,21 @@
+package com.lei.learn.etl.core.pipeline.batch;
+
+import org.springframework.ai.document.Document;
+
+import java.util.List;
+
+/**
+ * <p>
+ * 一次写入 VectorStore 的分块批次
+ * </p>
+ *
+ * @param index     批次第一个分块在整个分块序列中的下标（失败批次按此下标上报）
+ * @param documents 批次内的分块
+ * @author 伍磊
+ */
+public record DocumentBatch(int index, List<Document> documents) {
+
+    public int size() {
+        return documents.size();
+    }
+}
@@ -0,0 +1,232 @@
+package com.lei.learn.etl.core.pipeline.batch;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.BatchingStrategy;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingOptions;
+import org.springframework.ai.embedding.TokenCountBatchingStrategy;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+/**
+ * <p>
+ * 流水线批次写入器
+ * </p>
+ * 把 {@link BatchWriter} 中一次 {@code vectorStore.add} 完成的工作拆成两个阶段：
+ * <ul>
+ *     <li>embedding 阶段：最多 embedConcurrency 个批次同时调用 EmbeddingModel</li>
+ *     <li>写索引阶段：indexConcurrency 个工作线程从有界队列取出已 embedding 的批次交给 {@link VectorIndexer}</li>
+ * </ul>
+ * 两个阶段通过容量为 queueCapacity 的队列衔接，第 N 个批次写索引时第 N+1 个批次已经在 embedding；
+ * 写索引跟不上时队列写满，embedding 阶段与上游的读取、切分随之阻塞。
+ * 两个阶段各自按 {@link RetryPolicy} 重试，重试写索引时不会重新 embedding。
+ * 使用虚拟线程执行，批次结果回调给 {@link BatchListener}，耗时为 embedding 开始到写索引完成。
+ *
+ * @author 伍磊
+ */
+public class PipelinedBatchWriter {
+
+    private static final Logger log = LoggerFactory.getLogger(PipelinedBatchWriter.class);
+
+    private static final BatchListener NOOP = new BatchListener() {
+    };
+
+    /**
+     * 通知写索引工作线程退出
+     */
+    private static final EmbeddedBatch END = new EmbeddedBatch(null, null, 0);
+
+    private final EmbeddingModel embeddingModel;
+
+    private final VectorIndexer indexer;
+
+    private final int embedConcurrency;
+
+    private final int indexConcurrency;
+
+    private final int queueCapacity;
+
+    private final BatchListener listener;
+
+    private final RetryPolicy retryPolicy;
+
+    private final BatchingStrategy batchingStrategy = new TokenCountBatchingStrategy();
+
+    public PipelinedBatchWriter(EmbeddingModel embeddingModel, VectorIndexer indexer,
+                                int embedConcurrency, int indexConcurrency, int queueCapacity,
+                                BatchListener listener, RetryPolicy retryPolicy) {
+        if (null == embeddingModel) {
+            throw new IllegalArgumentException("EmbeddingModel must not be null");
+        }
+        if (null == indexer) {
+            throw new IllegalArgumentException("VectorIndexer must not be null");
+        }
+        if (embedConcurrency <= 0 || indexConcurrency <= 0) {
+            throw new IllegalArgumentException("Concurrency must be positive");
+        }
+        if (queueCapacity <= 0) {
+            throw new IllegalArgumentException("Queue capacity must be positive");
+        }
+        this.embeddingModel = embeddingModel;
+        this.indexer = indexer;
+        this.embedConcurrency = embedConcurrency;
+        this.indexConcurrency = indexConcurrency;
+        this.queueCapacity = queueCapacity;
+        this.listener = null == listener ? NOOP : listener;
+        this.retryPolicy = null == retryPolicy ? RetryPolicy.none() : retryPolicy;
+    }
+
+    /**
+     * 写入所有批次，单个批次失败不会中断其余批次
+     *
+     * @param batches 待写入批次
+     * @return 失败批次的起始下标（升序）
+     */
+    public List<Integer> write(Iterator<DocumentBatch> batches) {
+        List<Integer> failedBatches = Collections.synchronizedList(new ArrayList<>());
+        BlockingQueue<EmbeddedBatch> queue = new ArrayBlockingQueue<>(queueCapacity);
+        Semaphore embedding = new Semaphore(embedConcurrency);
+
+        // close() 会等待写索引工作线程取到 END 后退出
+        try (ExecutorService indexers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < indexConcurrency; i++) {
+                indexers.execute(() -> indexLoop(queue, failedBatches));
+            }
+            try (ExecutorService embedders = Executors.newVirtualThreadPerTaskExecutor()) {
+                while (batches.hasNext()) {
+                    DocumentBatch batch = batches.next();
+                    acquire(embedding);
+                    embedders.execute(() -> {
+                        try {
+                            embed(batch, queue, failedBatches);
+                        } finally {
+                            embedding.release();
+                        }
+                    });
+                }
+            } finally {
+                for (int i = 0; i < indexConcurrency; i++) {
+                    put(queue, END);
+                }
+            }
+        }
+        List<Integer> result = new ArrayList<>(failedBatches);
+        Collections.sort(result);
+        return result;
+    }
+
+    private void embed(DocumentBatch batch, BlockingQueue<EmbeddedBatch> queue, List<Integer> failedBatches) {
+        long start = System.nanoTime();
+        List<Document> documents = batch.documents();
+        List<float[]> embeddings = withRetry(batch, "embed",
+                () -> embeddingModel.embed(documents, EmbeddingOptions.builder().build(), batchingStrategy),
+                failedBatches);
+        if (null == embeddings) {
+            return;
+        }
+        log.debug("[rag document init] embedded | index={}, size={}, elapsedMs={}",
+                  batch.index(), batch.size(), (System.nanoTime() - start) / 1_000_000);
+        put(queue, new EmbeddedBatch(batch, embeddings, start));
+    }
+
+    private void indexLoop(BlockingQueue<EmbeddedBatch> queue, List<Integer> failedBatches) {
+        while (true) {
+            EmbeddedBatch embedded;
+            try {
+                embedded = queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (embedded == END) {
+                return;
+            }
+            DocumentBatch batch = embedded.batch();
+            try {
+                Boolean indexed = withRetry(batch, "index", () -> {
+                    indexer.index(batch.documents(), embedded.embeddings());
+                    return Boolean.TRUE;
+                }, failedBatches);
+                if (null != indexed) {
+                    log.debug("[rag document init] success | index={}, size={}", batch.index(), batch.size());
+                    listener.onSuccess(batch, System.nanoTime() - embedded.startNanos());
+                }
+            } catch (RuntimeException e) {
+                // listener 抛出异常（例如断点落盘失败）时按失败批次处理，工作线程继续消费队列，否则 write() 会一直阻塞
+                log.error("[rag document init] batch listener failed | index={}", batch.index(), e);
+                synchronized (failedBatches) {
+                    if (!failedBatches.contains(batch.index())) {
+                        failedBatches.add(batch.index());
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * 按重试策略执行一个阶段，最终失败时记录失败批次并回调 listener
+     *
+     * @return 阶段结果，最终失败时返回 null
+     */
+    private <T> T withRetry(DocumentBatch batch, String stage, Supplier<T> action, List<Integer> failedBatches) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return action.get();
+            } catch (Exception e) {
+                if (attempt >= retryPolicy.maxAttempts() || !sleep(retryPolicy.backoff(attempt).toMillis())) {
+                    log.error("[rag document init] failed to {} batch starting at index {}", stage, batch.index(), e);
+                    failedBatches.add(batch.index());
+                    listener.onFailure(batch, e);
+                    return null;
+                }
+                log.warn("[rag document init] retrying {} of batch starting at index {} | attempt={}, error={}",
+                         stage, batch.index(), attempt, e.getMessage());
+            }
+        }
+    }
+
+    private static void acquire(Semaphore semaphore) {
+        try {
+            semaphore.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("[rag document init] 写入被中断", e);
+        }
+    }
+
+    private static void put(BlockingQueue<EmbeddedBatch> queue, EmbeddedBatch embedded) {
+        try {
+            queue.put(embedded);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("[rag document init] 写入被中断", e);
+        }
+    }
+
+    /**
+     * @return 被中断时返回 false，不再重试
+     */
+    private static boolean sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private record EmbeddedBatch(DocumentBatch batch, List<float[]> embeddings, long startNanos) {
+    }
+}
@@ -0,0 +1,51 @@
+package com.lei.learn.etl.core.pipeline.batch;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * <p>
+ * 批次写入重试策略：指数退避 + 随机抖动
+ * </p>
+ *
+ * @param maxAttempts    最大尝试次数（含首次），1 表示不重试
+ * @param initialBackoff 首次重试前的等待时间，之后每次翻倍
+ * @param maxBackoff     单次等待时间上限
+ * @author 伍磊
+ */
+public record RetryPolicy(int maxAttempts, Duration initialBackoff, Duration maxBackoff) {
+
+    private static final RetryPolicy NONE = new RetryPolicy(1, Duration.ZERO, Duration.ZERO);
+
+    public RetryPolicy {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("maxAttempts must be at least 1");
+        }
+        if (null == initialBackoff || null == maxBackoff) {
+            throw new IllegalArgumentException("Backoff must not be null");
+        }
+    }
+
+    /**
+     * 不重试
+     */
+    public static RetryPolicy none() {
+        return NONE;
+    }
+
+    public static RetryPolicy of(int maxAttempts, Duration initialBackoff) {
+        return new RetryPolicy(maxAttempts, initialBackoff, Duration.ofSeconds(30));
+    }
+
+    /**
+     * 第 attempt 次失败后的等待时间：min(initialBackoff * 2^(attempt-1), maxBackoff)，
+     * 再在 [50%, 100%] 之间随机抖动，避免并发批次同时重试
+     *
+     * @param attempt 已失败的次数，从 1 开始
+     */
+    public Duration backoff(int attempt) {
+        long base = initialBackoff.toMillis() << Math.min(attempt - 1, 20);
+        long capped = Math.min(base, maxBackoff.toMillis());
+        return Duration.ofMillis(capped / 2 + ThreadLocalRandom.current().nextLong(capped / 2 + 1));
+    }
+}
@@ -0,0 +1,35 @@
+package com.lei.learn.etl.core.pipeline.batch;
+
+import org.springframework.ai.document.Document;
+
+/**
+ * <p>
+ * 轻量 token 估算
+ * </p>
+ * 不做 BPE 编码，按 ASCII 约 4 字符 1 token、其余字符（中文等）约 1 字符 1 token 估算，
+ * 只用于批次切分，不用于计费。
+ *
+ * @author 伍磊
+ */
+public final class TokenEstimator {
+
+    private TokenEstimator() {
+    }
+
+    public static long estimate(Document document) {
+        return document.getText() == null ? 0 : estimate(document.getText());
+    }
+
+    public static long estimate(String text) {
+        long ascii = 0;
+        long other = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) < 0x80) {
+                ascii++;
+            } else {
+                other++;
+            }
+        }
+        return (ascii + 3) / 4 + other;
+    }
+}
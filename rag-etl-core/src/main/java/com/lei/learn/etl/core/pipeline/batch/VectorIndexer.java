@@ -0,0 +1,27 @@
+package com.lei.learn.etl.core.pipeline.batch;
+
+import org.springframework.ai.document.Document;
+
+import java.util.List;
+
+/**
+ * <p>
+ * 写入已计算好向量的分块
+ * </p>
+ * {@link org.springframework.ai.vectorstore.VectorStore#add(List)} 在一次调用里既做 embedding 又写索引，
+ * 实现该接口的存储可以只负责写索引，由 {@link PipelinedBatchWriter} 把 embedding 与写索引拆成两个阶段流水执行。
+ * 会在多个线程上同时调用，实现必须线程安全。
+ *
+ * @author 伍磊
+ */
+public interface VectorIndexer {
+
+    /**
+     * 写入分块及其向量
+     *
+     * @param documents  分块
+     * @param embeddings 与分块一一对应的向量
+     */
+    void index(List<Document> documents, List<float[]> embeddings);
+
+}
@@ -0,0 +1,158 @@
+package com.lei.learn.etl.core.pipeline.checkpoint;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lei.learn.etl.core.pipeline.batch.BatchListener;
+import com.lei.learn.etl.core.pipeline.batch.DocumentBatch;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * <p>
+ * 单个源文件的入库断点
+ * </p>
+ * 记录源文件哈希以及已成功写入的分块区间 [start, end)，相邻区间会合并。
+ * 作为 {@link BatchListener} 挂在批次写入上，每个批次成功后以"写临时文件 + 原子替换"的方式落盘；
+ * 续传时按分块下标跳过已完成区间，只重新写入失败或未开始的批次。线程安全。
+ *
+ * @author 伍磊
+ */
+public class IngestionCheckpoint implements BatchListener {
+
+    private static final Logger log = LoggerFactory.getLogger(IngestionCheckpoint.class);
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final Path path;
+
+    private String sourceKey;
+
+    private String sourceHash;
+
+    /**
+     * 已完成区间：start -> end（不含）
+     */
+    private final TreeMap<Integer, Integer> completedRanges = new TreeMap<>();
+
+    private IngestionCheckpoint(Path path) {
+        this.path = path;
+    }
+
+    /**
+     * 打开断点文件，文件不存在时返回空断点
+     *
+     * @param path 断点文件路径
+     * @return IngestionCheckpoint
+     */
+    public static IngestionCheckpoint open(Path path) {
+        if (null == path) {
+            throw new IllegalArgumentException("Checkpoint path must not be null");
+        }
+        IngestionCheckpoint checkpoint = new IngestionCheckpoint(path);
+        if (Files.exists(path)) {
+            try {
+                State state = MAPPER.readValue(path.toFile(), State.class);
+                checkpoint.sourceKey = state.sourceKey();
+                checkpoint.sourceHash = state.sourceHash();
+                checkpoint.completedRanges.putAll(state.completedRanges());
+                log.info("[ingestion checkpoint] loaded {} completed chunks from {}",
+                         checkpoint.getCompletedChunkCount(), path);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to load ingestion checkpoint: " + path, e);
+            }
+        }
+        return checkpoint;
+    }
+
+    /**
+     * 断点是否属于该源文件的当前内容
+     */
+    public synchronized boolean matches(String sourceKey, String sourceHash) {
+        return null != this.sourceHash && this.sourceHash.equals(sourceHash) && this.sourceKey.equals(sourceKey);
+    }
+
+    /**
+     * 开始一次全新的入库，清空已完成区间
+     */
+    public synchronized void reset(String sourceKey, String sourceHash) {
+        this.sourceKey = sourceKey;
+        this.sourceHash = sourceHash;
+        this.completedRanges.clear();
+        save();
+    }
+
+    /**
+     * 记录 [start, end) 已写入，与相邻或重叠的区间合并
+     */
+    public synchronized void markCompleted(int start, int end) {
+        Map.Entry<Integer, Integer> lower = completedRanges.floorEntry(start);
+        if (null != lower && lower.getValue() >= start) {
+            start = lower.getKey();
+            end = Math.max(end, lower.getValue());
+        }
+        Map.Entry<Integer, Integer> higher = completedRanges.ceilingEntry(start);
+        while (null != higher && higher.getKey() <= end) {
+            end = Math.max(end, higher.getValue());
+            completedRanges.remove(higher.getKey());
+            higher = completedRanges.ceilingEntry(start);
+        }
+        completedRanges.put(start, end);
+        save();
+    }
+
+    public synchronized boolean isCompleted(int chunkIndex) {
+        Map.Entry<Integer, Integer> range = completedRanges.floorEntry(chunkIndex);
+        return null != range && chunkIndex < range.getValue();
+    }
+
+    public synchronized int getCompletedChunkCount() {
+        return completedRanges.entrySet().stream().mapToInt(e -> e.getValue() - e.getKey()).sum();
+    }
+
+    /**
+     * 所有批次成功后删除断点文件
+     */
+    public synchronized void delete() {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to delete ingestion checkpoint: " + path, e);
+        }
+    }
+
+    @Override
+    public void onSuccess(DocumentBatch batch, long elapsedNanos) {
+        markCompleted(batch.index(), batch.index() + batch.size());
+    }
+
+    private void save() {
+        try {
+            Path parent = path.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+            MAPPER.writeValue(tmp.toFile(), new State(sourceKey, sourceHash, completedRanges));
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to save ingestion checkpoint: " + path, e);
+        }
+    }
+
+    /**
+     * 断点文件内容
+     *
+     * @param sourceKey       源文件标识
+     * @param sourceHash      源文件内容哈希
+     * @param completedRanges 已完成区间 start -> end（不含）
+     */
+    record State(String sourceKey, String sourceHash, Map<Integer, Integer> completedRanges) {
+    }
+}
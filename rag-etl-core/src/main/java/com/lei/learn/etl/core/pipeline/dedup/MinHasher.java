@@ -0,0 +1,106 @@
+package com.lei.learn.etl.core.pipeline.dedup;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+/**
+ * <p>
+ * MinHash 签名计算
+ * </p>
+ * 文本先转小写并合并空白，再切成长度为 shingleSize 的字符片段（同时适用于中文与英文），
+ * 每个片段做 64 位哈希后经 numHashes 个不同种子的混合函数取最小值，得到签名。
+ * 两个签名相同位置取值相等的比例是两段文本片段集合 Jaccard 相似度的无偏估计。
+ * 种子由 seed 决定，同一配置的实例之间签名可比较。线程安全。
+ *
+ * @author 伍磊
+ */
+public class MinHasher {
+
+    private final int shingleSize;
+
+    private final long[] seeds;
+
+    public MinHasher(int numHashes, int shingleSize, long seed) {
+        if (numHashes <= 0) {
+            throw new IllegalArgumentException("numHashes must be positive");
+        }
+        if (shingleSize <= 0) {
+            throw new IllegalArgumentException("shingleSize must be positive");
+        }
+        this.shingleSize = shingleSize;
+        SplittableRandom random = new SplittableRandom(seed);
+        this.seeds = new long[numHashes];
+        for (int i = 0; i < numHashes; i++) {
+            seeds[i] = random.nextLong();
+        }
+    }
+
+    public int getNumHashes() {
+        return seeds.length;
+    }
+
+    /**
+     * 计算文本的签名；空文本的签名所有位置都是 Long.MAX_VALUE
+     */
+    public long[] signature(String text) {
+        long[] signature = new long[seeds.length];
+        Arrays.fill(signature, Long.MAX_VALUE);
+        String normalized = normalize(text);
+        if (normalized.isEmpty()) {
+            return signature;
+        }
+        int last = Math.max(0, normalized.length() - shingleSize);
+        for (int start = 0; start <= last; start++) {
+            long shingle = fnv1a(normalized, start, Math.min(normalized.length(), start + shingleSize));
+            for (int i = 0; i < seeds.length; i++) {
+                long hash = mix(shingle ^ seeds[i]);
+                if (hash < signature[i]) {
+                    signature[i] = hash;
+                }
+            }
+        }
+        return signature;
+    }
+
+    /**
+     * 估算的 Jaccard 相似度：签名相同位置取值相等的比例
+     */
+    public static double similarity(long[] a, long[] b) {
+        if (a.length != b.length) {
+            throw new IllegalArgumentException("Signatures must have the same length");
+        }
+        int equal = 0;
+        for (int i = 0; i < a.length; i++) {
+            if (a[i] == b[i]) {
+                equal++;
+            }
+        }
+        return (double) equal / a.length;
+    }
+
+    private static String normalize(String text) {
+        if (null == text) {
+            return "";
+        }
+        return text.toLowerCase(Locale.ROOT).replaceAll("\\s+", " ").strip();
+    }
+
+    private static long fnv1a(String text, int from, int to) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = from; i < to; i++) {
+            hash ^= text.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * SplitMix64 的混合函数
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,245 @@
+package com.lei.learn.etl.core.pipeline.dedup;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.document.DocumentTransformer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * <p>
+ * 近似重复分块过滤器
+ * </p>
+ * 切分之后、embedding 之前计算每个分块的 {@link MinHasher} 签名，用 LSH 分带（bands 段，每段 numHashes / bands 行）
+ * 找出候选，估算相似度不低于 threshold 的分块视为近似重复，只保留最先出现的代表分块：
+ * <ul>
+ *     <li>同一次 {@link #apply(List)} 内的重复分块合并到代表分块：mergedKeys 中每个元数据的取值汇总为
+ *     {@code merged_<key>} 列表（含代表分块自己的值），重复次数记为 {@link #DUPLICATE_COUNT}</li>
+ *     <li>与之前调用中的代表分块重复时，代表分块可能已经写入，直接丢弃</li>
+ * </ul>
+ * 代表分块的签名在实例内一直保留，一次入库（含目录入库的所有文件）使用一个实例；apply 串行执行，可在多个线程间共享。
+ * 目录入库并行处理文件时，哪个文件的分块成为代表取决于处理顺序。被丢弃的分块没有单独记录，
+ * 代表分块所在文件被替换或清理后重复内容也随之消失，因此 {@code RagPipeline} 不允许与增量清单、原子入库同时使用。
+ *
+ * @author 伍磊
+ */
+public class NearDuplicateFilter implements DocumentTransformer {
+
+    public static final String DUPLICATE_COUNT = "duplicate_count";
+
+    public static final String MERGED_PREFIX = "merged_";
+
+    private final MinHasher minHasher;
+
+    private final int bands;
+
+    private final int rows;
+
+    private final double threshold;
+
+    private final List<String> mergedKeys;
+
+    private final List<long[]> signatures = new ArrayList<>();
+
+    /**
+     * 分带哈希 -> 代表分块在 signatures 中的下标
+     */
+    private final Map<Long, List<Integer>> buckets = new HashMap<>();
+
+    private int duplicateCount;
+
+    private NearDuplicateFilter(Builder builder) {
+        this.minHasher = new MinHasher(builder.numHashes, builder.shingleSize, builder.seed);
+        this.bands = builder.bands;
+        this.rows = builder.numHashes / builder.bands;
+        this.threshold = builder.threshold;
+        this.mergedKeys = List.copyOf(builder.mergedKeys);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    @Override
+    public synchronized List<Document> apply(List<Document> chunks) {
+        List<Document> kept = new ArrayList<>(chunks.size());
+        // 本次调用产生的代表：签名下标 -> 在 kept 中的位置
+        Map<Integer, Integer> positions = new HashMap<>();
+        Map<Integer, Map<String, Set<Object>>> merged = new LinkedHashMap<>();
+        Map<Integer, Integer> counts = new HashMap<>();
+        for (Document chunk : chunks) {
+            long[] signature = minHasher.signature(chunk.getText());
+            int representative = findRepresentative(signature);
+            if (representative < 0) {
+                int index = register(signature);
+                positions.put(index, kept.size());
+                kept.add(chunk);
+                continue;
+            }
+            duplicateCount++;
+            Integer position = positions.get(representative);
+            if (null == position) {
+                continue;
+            }
+            counts.merge(position, 1, Integer::sum);
+            Map<String, Set<Object>> values = merged.computeIfAbsent(position,
+                    p -> collect(new LinkedHashMap<>(), kept.get(p)));
+            collect(values, chunk);
+        }
+        for (Map.Entry<Integer, Map<String, Set<Object>>> entry : merged.entrySet()) {
+            int position = entry.getKey();
+            kept.set(position, withMergedMetadata(kept.get(position), entry.getValue(), counts.get(position)));
+        }
+        return kept;
+    }
+
+    /**
+     * 累计丢弃的近似重复分块数
+     */
+    public synchronized int getDuplicateCount() {
+        return duplicateCount;
+    }
+
+    /**
+     * 已登记的代表分块数
+     */
+    public synchronized int getRepresentativeCount() {
+        return signatures.size();
+    }
+
+    private int findRepresentative(long[] signature) {
+        int best = -1;
+        double bestSimilarity = threshold;
+        Set<Integer> checked = new LinkedHashSet<>();
+        for (int band = 0; band < bands; band++) {
+            List<Integer> candidates = buckets.get(bandKey(signature, band));
+            if (null == candidates) {
+                continue;
+            }
+            for (int candidate : candidates) {
+                if (!checked.add(candidate)) {
+                    continue;
+                }
+                double similarity = MinHasher.similarity(signature, signatures.get(candidate));
+                if (similarity >= bestSimilarity) {
+                    best = candidate;
+                    bestSimilarity = similarity;
+                }
+            }
+        }
+        return best;
+    }
+
+    private int register(long[] signature) {
+        int index = signatures.size();
+        signatures.add(signature);
+        for (int band = 0; band < bands; band++) {
+            buckets.computeIfAbsent(bandKey(signature, band), k -> new ArrayList<>(1)).add(index);
+        }
+        return index;
+    }
+
+    private long bandKey(long[] signature, int band) {
+        int from = band * rows;
+        return 31L * Arrays.hashCode(Arrays.copyOfRange(signature, from, from + rows)) + band;
+    }
+
+    private Map<String, Set<Object>> collect(Map<String, Set<Object>> values, Document chunk) {
+        for (String key : mergedKeys) {
+            Object value = chunk.getMetadata().get(key);
+            if (null != value) {
+                values.computeIfAbsent(key, k -> new LinkedHashSet<>()).add(value);
+            }
+        }
+        return values;
+    }
+
+    private static Document withMergedMetadata(Document representative, Map<String, Set<Object>> values,
+                                               int duplicates) {
+        Map<String, Object> metadata = new HashMap<>(representative.getMetadata());
+        values.forEach((key, merged) -> metadata.put(MERGED_PREFIX + key, new ArrayList<>(merged)));
+        metadata.put(DUPLICATE_COUNT, duplicates);
+        Document document = representative.mutate().metadata(metadata).build();
+        document.setContentFormatter(representative.getContentFormatter());
+        return document;
+    }
+
+    public static final class Builder {
+
+        private int numHashes = 128;
+
+        private int bands = 16;
+
+        private int shingleSize = 5;
+
+        private double threshold = 0.8;
+
+        private long seed = 42L;
+
+        private List<String> mergedKeys = List.of("filepath");
+
+        private Builder() {
+        }
+
+        /**
+         * 签名长度，默认 128
+         */
+        public Builder withNumHashes(int numHashes) {
+            this.numHashes = numHashes;
+            return this;
+        }
+
+        /**
+         * LSH 分带数，默认 16（每段 8 行，相似度约 0.7 以上的分块大概率成为候选）
+         */
+        public Builder withBands(int bands) {
+            this.bands = bands;
+            return this;
+        }
+
+        /**
+         * 字符片段长度，默认 5
+         */
+        public Builder withShingleSize(int shingleSize) {
+            this.shingleSize = shingleSize;
+            return this;
+        }
+
+        /**
+         * 视为近似重复的最小估算相似度，默认 0.8
+         */
+        public Builder withThreshold(double threshold) {
+            this.threshold = threshold;
+            return this;
+        }
+
+        public Builder withSeed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        /**
+         * 重复分块合并到代表分块的元数据键，默认 filepath
+         */
+        public Builder withMergedKeys(String... keys) {
+            this.mergedKeys = List.of(keys);
+            return this;
+        }
+
+        public NearDuplicateFilter build() {
+            if (numHashes <= 0 || bands <= 0 || numHashes % bands != 0) {
+                throw new IllegalArgumentException("numHashes must be a positive multiple of bands");
+            }
+            if (threshold <= 0 || threshold > 1) {
+                throw new IllegalArgumentException("threshold must be in (0, 1]");
+            }
+            return new NearDuplicateFilter(this);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.lei.learn.etl.core.pipeline.format;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * <p>
+ * 支持入库的文档格式
+ * </p>
+ * 先按扩展名识别；只有文件没有扩展名时才读取文件头几百字节嗅探：{@code %PDF-} 为 PDF，
+ * 以 {@code <!doctype html} / {@code <html} 开头为 HTML，以 {@code {} 开头为 JSON Lines。
+ * 带有未知扩展名的文件（例如 {@code .json}、{@code .csv}）不做嗅探，视为无法识别。
+ *
+ * @author 伍磊
+ */
+public enum DocumentFormat {
+
+    MARKDOWN("markdown", Set.of("md", "markdown")),
+
+    PDF("pdf", Set.of("pdf")),
+
+    HTML("html", Set.of("html", "htm", "xhtml")),
+
+    TEXT("text", Set.of("txt", "text", "log")),
+
+    JSONL("jsonl", Set.of("jsonl", "ndjson"));
+
+    /**
+     * 嗅探时读取的字节数
+     */
+    private static final int SNIFF_BYTES = 512;
+
+    private final String type;
+
+    private final Set<String> extensions;
+
+    DocumentFormat(String type, Set<String> extensions) {
+        this.type = type;
+        this.extensions = extensions;
+    }
+
+    /**
+     * 写入元数据 file_type 的取值
+     */
+    public String getType() {
+        return type;
+    }
+
+    /**
+     * 识别文件格式，无法识别时返回 empty
+     */
+    public static Optional<DocumentFormat> detect(Path file) {
+        if (null == file) {
+            throw new IllegalArgumentException("File must not be null");
+        }
+        String filename = file.getFileName().toString();
+        return hasExtension(filename) ? fromFilename(filename) : sniff(file);
+    }
+
+    public static Optional<DocumentFormat> fromFilename(String filename) {
+        if (!hasExtension(filename)) {
+            return Optional.empty();
+        }
+        String extension = filename.substring(filename.lastIndexOf('.') + 1).toLowerCase(Locale.ROOT);
+        for (DocumentFormat format : values()) {
+            if (format.extensions.contains(extension)) {
+                return Optional.of(format);
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * 以点开头的隐藏文件（例如 {@code .env}）不算有扩展名
+     */
+    private static boolean hasExtension(String filename) {
+        int dot = filename.lastIndexOf('.');
+        return dot > 0 && dot < filename.length() - 1;
+    }
+
+    private static Optional<DocumentFormat> sniff(Path file) {
+        byte[] head;
+        try (InputStream input = Files.newInputStream(file)) {
+            head = input.readNBytes(SNIFF_BYTES);
+        } catch (IOException e) {
+            return Optional.empty();
+        }
+        String text = new String(head, StandardCharsets.ISO_8859_1);
+        if (text.startsWith("%PDF-")) {
+            return Optional.of(PDF);
+        }
+        // 跳过 UTF-8 BOM
+        if (text.startsWith("\u00EF\u00BB\u00BF")) {
+            text = text.substring(3);
+        }
+        String trimmed = text.stripLeading().toLowerCase(Locale.ROOT);
+        if (trimmed.startsWith("<!doctype html") || trimmed.startsWith("<html")) {
+            return Optional.of(HTML);
+        }
+        if (trimmed.startsWith("{")) {
+            return Optional.of(JSONL);
+        }
+        return Optional.empty();
+    }
+}
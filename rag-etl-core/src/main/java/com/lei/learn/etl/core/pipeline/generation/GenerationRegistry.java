@@ -0,0 +1,242 @@
+package com.lei.learn.etl.core.pipeline.generation;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.vectorstore.filter.Filter;
+import org.springframework.ai.vectorstore.filter.FilterExpressionBuilder;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * <p>
+ * 入库代次登记表
+ * </p>
+ * 原子入库时每次执行生成一个新代次，分块带 {@code source_key} 与 {@code generation} 元数据写入；
+ * 写入前先把新代次登记为隐藏，全部批次成功后才把源文件的生效代次切换为新代次，并隐藏被替换的旧代次，
+ * 旧代次或回滚的代次删除成功后才解除隐藏。同一源文件可能有多个代次同时在写入（例如两个任务处理同一文件），
+ * 写入中的代次只记录在内存中，{@link #retired(String)} 不会返回它们，清理旧代次时不会误删。检索时用 {@link #activeFilter()} 过滤即可只看到每个源文件完整写入的那一代，
+ * 没有代次元数据的文档（非原子入库写入的）不受影响。与 {@link com.lei.learn.etl.core.pipeline.incremental.IngestionManifest}
+ * 一样以"写临时文件 + 原子替换"的方式落盘，线程安全；旧版只包含生效代次的登记表文件仍可加载。
+ *
+ * @author 伍磊
+ */
+public class GenerationRegistry {
+
+    public static final String SOURCE_KEY = "source_key";
+
+    public static final String GENERATION = "generation";
+
+    private static final Logger log = LoggerFactory.getLogger(GenerationRegistry.class);
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static final TypeReference<Map<String, String>> TYPE = new TypeReference<>() {
+    };
+
+    private static final String ACTIVE = "active";
+
+    private static final String HIDDEN = "hidden";
+
+    /**
+     * 登记表文件路径，为 null 时只保存在内存中
+     */
+    private final Path path;
+
+    /**
+     * 源文件标识 -> 生效代次
+     */
+    private final Map<String, String> generations;
+
+    /**
+     * 本进程中正在写入的代次，不落盘：进程退出后遗留的代次按已废弃处理
+     */
+    private final Set<String> inFlight = new HashSet<>();
+
+    /**
+     * 检索时需要屏蔽的代次 -> 源文件标识：写入中、已回滚或已被替换但还没删除干净的代次
+     */
+    private final Map<String, String> hidden;
+
+    private GenerationRegistry(Path path, Map<String, String> generations, Map<String, String> hidden) {
+        this.path = path;
+        this.generations = generations;
+        this.hidden = hidden;
+    }
+
+    /**
+     * 从文件加载登记表，文件不存在时返回空登记表
+     *
+     * @param path 登记表文件路径
+     * @return GenerationRegistry
+     */
+    public static GenerationRegistry load(Path path) {
+        if (null == path) {
+            throw new IllegalArgumentException("Registry path must not be null");
+        }
+        if (!Files.exists(path)) {
+            return new GenerationRegistry(path, new TreeMap<>(), new TreeMap<>());
+        }
+        try {
+            JsonNode root = MAPPER.readTree(path.toFile());
+            Map<String, String> generations;
+            Map<String, String> hidden;
+            if (root.path(ACTIVE).isObject()) {
+                generations = MAPPER.convertValue(root.path(ACTIVE), TYPE);
+                hidden = root.path(HIDDEN).isObject() ? MAPPER.convertValue(root.path(HIDDEN), TYPE) : Map.of();
+            } else {
+                // 旧版登记表只有 源文件标识 -> 生效代次
+                generations = MAPPER.convertValue(root, TYPE);
+                hidden = Map.of();
+            }
+            log.info("[generation registry] loaded {} sources and {} hidden generations from {}",
+                     generations.size(), hidden.size(), path);
+            return new GenerationRegistry(path, new TreeMap<>(generations), new TreeMap<>(hidden));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to load generation registry: " + path, e);
+        }
+    }
+
+    /**
+     * 只保存在内存中的登记表
+     */
+    public static GenerationRegistry inMemory() {
+        return new GenerationRegistry(null, new TreeMap<>(), new TreeMap<>());
+    }
+
+    /**
+     * 生成新的代次标识
+     */
+    public static String newGeneration() {
+        return UUID.randomUUID().toString();
+    }
+
+    public synchronized Optional<String> get(String sourceKey) {
+        return Optional.ofNullable(generations.get(sourceKey));
+    }
+
+    /**
+     * 登记一个即将写入的代次，写入完成并切换为生效代次之前检索不可见
+     */
+    public synchronized void begin(String sourceKey, String generation) {
+        hidden.put(generation, sourceKey);
+        inFlight.add(generation);
+        save();
+    }
+
+    /**
+     * 把源文件的生效代次切换为 generation，被替换的旧代次转为隐藏，直到 {@link #release(Collection)}
+     *
+     * @return 切换前的生效代次，首次入库时为 null
+     */
+    public synchronized String activate(String sourceKey, String generation) {
+        String previous = generations.put(sourceKey, generation);
+        hidden.remove(generation);
+        inFlight.remove(generation);
+        if (null != previous && !previous.equals(generation)) {
+            hidden.put(previous, sourceKey);
+        }
+        save();
+        return previous;
+    }
+
+    /**
+     * 写入失败的代次不再写入，但在分块删除成功之前保持隐藏，之后由 {@link #retired(String)} 返回
+     */
+    public synchronized void abandon(String generation) {
+        inFlight.remove(generation);
+    }
+
+    /**
+     * 源文件已废弃、可以删除的代次：被替换的旧代次与回滚或中断后遗留的代次，不含正在写入的代次
+     */
+    public synchronized List<String> retired(String sourceKey) {
+        List<String> retired = new ArrayList<>();
+        hidden.forEach((generation, key) -> {
+            if (key.equals(sourceKey) && !inFlight.contains(generation)) {
+                retired.add(generation);
+            }
+        });
+        return retired;
+    }
+
+    /**
+     * 代次的分块已全部删除，不再需要在检索时屏蔽
+     */
+    public synchronized void release(Collection<String> generations) {
+        boolean changed = false;
+        for (String generation : generations) {
+            inFlight.remove(generation);
+            changed |= hidden.remove(generation) != null;
+        }
+        if (changed) {
+            save();
+        }
+    }
+
+    /**
+     * 移除源文件的生效代次，其分块转为隐藏
+     */
+    public synchronized void remove(String sourceKey) {
+        String previous = generations.remove(sourceKey);
+        if (previous != null) {
+            hidden.put(previous, sourceKey);
+            save();
+        }
+    }
+
+    public synchronized int size() {
+        return generations.size();
+    }
+
+    public synchronized int hiddenSize() {
+        return hidden.size();
+    }
+
+    /**
+     * 检索时屏蔽写入中、已回滚或已被替换的代次的过滤条件，生效代次与没有代次元数据的文档都能匹配；
+     * 没有需要屏蔽的代次时返回 null
+     */
+    public synchronized Filter.Expression activeFilter() {
+        if (hidden.isEmpty()) {
+            return null;
+        }
+        return new FilterExpressionBuilder().nin(GENERATION, new ArrayList<>(hidden.keySet())).build();
+    }
+
+    private void save() {
+        if (null == path) {
+            return;
+        }
+        try {
+            Path parent = path.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+            Map<String, Map<String, String>> state = new LinkedHashMap<>();
+            state.put(ACTIVE, generations);
+            state.put(HIDDEN, hidden);
+            MAPPER.writerWithDefaultPrettyPrinter().writeValue(tmp.toFile(), state);
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to save generation registry: " + path, e);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.lei.learn.etl.core.pipeline.generation;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.document.DocumentTransformer;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * <p>
+ * 代次标记
+ * </p>
+ * 为分块补充 {@link GenerationRegistry#SOURCE_KEY} 与 {@link GenerationRegistry#GENERATION} 元数据，
+ * 并重新生成分块 ID，保证新代次的写入不会覆盖旧代次的分块，回滚时旧代次完整保留。
+ *
+ * @author 伍磊
+ */
+public class GenerationTagger implements DocumentTransformer {
+
+    private final String sourceKey;
+
+    private final String generation;
+
+    public GenerationTagger(String sourceKey, String generation) {
+        if (null == sourceKey) {
+            throw new IllegalArgumentException("Source key must not be null");
+        }
+        if (null == generation) {
+            throw new IllegalArgumentException("Generation must not be null");
+        }
+        this.sourceKey = sourceKey;
+        this.generation = generation;
+    }
+
+    @Override
+    public List<Document> apply(List<Document> chunks) {
+        List<Document> result = new ArrayList<>(chunks.size());
+        for (Document chunk : chunks) {
+            Map<String, Object> metadata = new HashMap<>(chunk.getMetadata());
+            metadata.put(GenerationRegistry.SOURCE_KEY, sourceKey);
+            metadata.put(GenerationRegistry.GENERATION, generation);
+            Document tagged = chunk.mutate().id(UUID.randomUUID().toString()).metadata(metadata).build();
+            tagged.setContentFormatter(chunk.getContentFormatter());
+            result.add(tagged);
+        }
+        return result;
+    }
+
+    public String getGeneration() {
+        return generation;
+    }
+}
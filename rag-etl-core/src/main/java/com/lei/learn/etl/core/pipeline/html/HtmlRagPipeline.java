@@ -0,0 +1,86 @@
+package com.lei.learn.etl.core.pipeline.html;
+
+import com.lei.learn.etl.core.pipeline.RagPipeline;
+import com.lei.learn.etl.core.pipeline.ResourceLoadingStage;
+import org.springframework.ai.document.DocumentReader;
+import org.springframework.core.io.Resource;
+import org.springframework.util.Assert;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * <p>
+ * HtmlRagPipeline
+ * </p>
+ * HTML 入库，按标题分段读取，见 {@link HtmlSectionReader}
+ *
+ * @author 伍磊
+ */
+public class HtmlRagPipeline extends RagPipeline {
+
+    public final Charset charset;
+
+
+    private final Map<String, Object> additionalMetadata;
+
+    public HtmlRagPipeline(HtmlRagPipeline.Builder builder) {
+        this.charset = builder.charset;
+        this.additionalMetadata = new HashMap<>(builder.additionalMetadata);
+    }
+
+    @Override
+    protected String getPipelineType() {
+        return "html";
+    }
+
+    @Override
+    protected DocumentReader getReader() {
+        return getReader(super.resource);
+    }
+
+    @Override
+    protected DocumentReader getReader(Resource resource) {
+        return new HtmlSectionReader(resource, charset.name(), additionalMetadata);
+    }
+
+    public static ResourceLoadingStage defaultConfig() {
+        return builder().build();
+    }
+
+    public static HtmlRagPipeline.Builder builder() {
+        return new Builder();
+    }
+
+    public static final class Builder {
+
+        private Charset charset = StandardCharsets.UTF_8;
+
+        private Map<String, Object> additionalMetadata = new HashMap<>(4);
+
+        public HtmlRagPipeline.Builder withCharset(Charset charset) {
+            Assert.notNull(charset, "charset must not be null");
+            this.charset = charset;
+            return this;
+        }
+
+        public HtmlRagPipeline.Builder withAdditionalMetadata(String key, Object value) {
+            Assert.notNull(key, "key must not be null");
+            Assert.notNull(value, "value must not be null");
+            this.additionalMetadata.put(key, value);
+            return this;
+        }
+
+        public HtmlRagPipeline.Builder withAdditionalMetadata(Map<String, Object> additionalMetadata) {
+            Assert.notNull(additionalMetadata, "additionalMetadata must not be null");
+            this.additionalMetadata = additionalMetadata;
+            return this;
+        }
+
+        public ResourceLoadingStage build() {
+            return new HtmlRagPipeline(this);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.lei.learn.etl.core.pipeline.html;
+
+import com.lei.learn.etl.core.pipeline.StreamingDocumentReader;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Element;
+import org.jsoup.nodes.Node;
+import org.jsoup.nodes.TextNode;
+import org.jsoup.select.NodeTraversor;
+import org.jsoup.select.NodeVisitor;
+import org.springframework.ai.document.Document;
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * <p>
+ * 按标题分段读取 HTML
+ * </p>
+ * 用 jsoup 解析后遍历 {@code <body>}，遇到 h1 ~ h6 即切出一段，每段输出一个文档，
+ * 元数据记录页面标题 {@code title} 与段落标题 {@code heading}。
+ * HTML 需要完整解析成 DOM，这里只保证输出文档按段产出，后续的切分和写入与其他格式一样按批推进。
+ *
+ * @author 伍磊
+ */
+public class HtmlSectionReader implements StreamingDocumentReader {
+
+    private static final Set<String> HEADINGS = Set.of("h1", "h2", "h3", "h4", "h5", "h6");
+
+    private final Resource resource;
+
+    private final String charset;
+
+    private final Map<String, Object> metadata;
+
+    public HtmlSectionReader(Resource resource, String charset, Map<String, Object> metadata) {
+        if (null == resource) {
+            throw new IllegalArgumentException("Resource must not be null");
+        }
+        if (null == charset) {
+            throw new IllegalArgumentException("Charset must not be null");
+        }
+        this.resource = resource;
+        this.charset = charset;
+        this.metadata = null != metadata ? Map.copyOf(metadata) : Map.of();
+    }
+
+    @Override
+    public Stream<Document> stream() {
+        org.jsoup.nodes.Document html;
+        try (InputStream input = resource.getInputStream()) {
+            html = Jsoup.parse(input, charset, "");
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read html resource: " + resource.getDescription(), e);
+        }
+        String title = html.title();
+        SectionCollector collector = new SectionCollector();
+        NodeTraversor.traverse(collector, html.body());
+        collector.flush();
+        return collector.sections.stream().map(section -> {
+            Map<String, Object> documentMetadata = new HashMap<>(metadata);
+            if (!title.isBlank()) {
+                documentMetadata.put("title", title);
+            }
+            if (null != section.heading()) {
+                documentMetadata.put("heading", section.heading());
+            }
+            return new Document(section.text(), documentMetadata);
+        });
+    }
+
+    private record Section(String heading, String text) {
+    }
+
+    private static final class SectionCollector implements NodeVisitor {
+
+        private final List<Section> sections = new ArrayList<>();
+
+        private final StringBuilder text = new StringBuilder();
+
+        private String heading;
+
+        /**
+         * 当前所在的标题元素，标题文本已单独取出，遍历其子节点时不再重复追加
+         */
+        private Node insideHeading;
+
+        @Override
+        public void head(Node node, int depth) {
+            if (null != insideHeading) {
+                return;
+            }
+            if (node instanceof Element element && HEADINGS.contains(element.normalName())) {
+                flush();
+                heading = element.text();
+                text.append(heading).append('\n');
+                insideHeading = node;
+            } else if (node instanceof TextNode textNode) {
+                String content = textNode.text();
+                if (!content.isBlank()) {
+                    text.append(content.strip()).append(' ');
+                }
+            }
+        }
+
+        @Override
+        public void tail(Node node, int depth) {
+            if (node == insideHeading) {
+                insideHeading = null;
+                return;
+            }
+            if (null == insideHeading && node instanceof Element element && element.isBlock()
+                    && !text.isEmpty() && text.charAt(text.length() - 1) != '\n') {
+                text.append('\n');
+            }
+        }
+
+        private void flush() {
+            String content = text.toString().strip();
+            if (!content.isEmpty()) {
+                sections.add(new Section(heading, content));
+            }
+            text.setLength(0);
+        }
+    }
+}
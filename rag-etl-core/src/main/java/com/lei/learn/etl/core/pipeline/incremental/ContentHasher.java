@@ -0,0 +1,81 @@
+package com.lei.learn.etl.core.pipeline.incremental;
+
+import org.springframework.ai.document.Document;
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * <p>
+ * 内容哈希工具（SHA-256）
+ * </p>
+ *
+ * @author 伍磊
+ */
+public final class ContentHasher {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private ContentHasher() {
+    }
+
+    /**
+     * 资源的唯一标识：文件资源取绝对路径，其余取资源描述
+     */
+    public static String sourceKey(Resource resource) {
+        if (resource.isFile()) {
+            try {
+                return resource.getFile().getAbsolutePath();
+            } catch (IOException ignored) {
+                // 回退到资源描述
+            }
+        }
+        return resource.getDescription();
+    }
+
+    /**
+     * 资源原始字节的哈希，流式计算，不把整个文件读入内存
+     */
+    public static String hash(Resource resource) {
+        MessageDigest digest = newDigest();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try (InputStream in = resource.getInputStream()) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to hash resource: " + resource.getDescription(), e);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * 分块的哈希：文本 + 按键排序的元数据，元数据变化也视为内容变化
+     */
+    public static String hash(Document document) {
+        String text = document.getText() == null ? "" : document.getText();
+        Map<String, Object> metadata = new TreeMap<>(document.getMetadata());
+        return hash(text + '\n' + metadata);
+    }
+
+    public static String hash(String text) {
+        return HexFormat.of().formatHex(newDigest().digest(text.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.lei.learn.etl.core.pipeline.incremental;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.document.DocumentTransformer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * <p>
+ * 增量分块过滤器
+ * </p>
+ * 为每个分块生成由"源文件 + 内容哈希 + 出现序号"决定的稳定 ID，
+ * 已经写入过（ID 在上次清单中）的分块直接丢弃，不再重复 embedding。
+ * 有状态、非线程安全，一次执行使用一个实例。
+ *
+ * @author 伍磊
+ */
+public class IncrementalChunkFilter implements DocumentTransformer {
+
+    public static final String CONTENT_HASH = "content_hash";
+
+    private final String sourceKey;
+
+    private final Set<String> storedIds;
+
+    private final Set<String> chunkIds = new LinkedHashSet<>();
+
+    private final Map<String, Integer> occurrences = new HashMap<>();
+
+    private int skippedCount;
+
+    /**
+     * @param sourceKey 源文件标识
+     * @param storedIds 上次入库的分块 ID
+     */
+    public IncrementalChunkFilter(String sourceKey, Set<String> storedIds) {
+        this.sourceKey = sourceKey;
+        this.storedIds = storedIds;
+    }
+
+    @Override
+    public List<Document> apply(List<Document> chunks) {
+        List<Document> result = new ArrayList<>(chunks.size());
+        for (Document chunk : chunks) {
+            String hash = ContentHasher.hash(chunk);
+            int occurrence = occurrences.merge(hash, 1, Integer::sum);
+            String id = UUID.nameUUIDFromBytes((sourceKey + '#' + hash + '#' + occurrence)
+                    .getBytes(StandardCharsets.UTF_8)).toString();
+            chunkIds.add(id);
+            if (storedIds.contains(id)) {
+                skippedCount++;
+                continue;
+            }
+            Map<String, Object> metadata = new HashMap<>(chunk.getMetadata());
+            metadata.put(CONTENT_HASH, hash);
+            Document identified = chunk.mutate().id(id).metadata(metadata).build();
+            identified.setContentFormatter(chunk.getContentFormatter());
+            result.add(identified);
+        }
+        return result;
+    }
+
+    /**
+     * 本次切分出的全部分块 ID（包括被跳过的）
+     */
+    public Set<String> getChunkIds() {
+        return chunkIds;
+    }
+
+    /**
+     * 因未变化而跳过的分块数
+     */
+    public int getSkippedCount() {
+        return skippedCount;
+    }
+}
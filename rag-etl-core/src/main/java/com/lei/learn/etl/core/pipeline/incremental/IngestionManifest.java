@@ -0,0 +1,122 @@
+package com.lei.learn.etl.core.pipeline.incremental;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * <p>
+ * 本地入库清单
+ * </p>
+ * 记录每个源文件的内容哈希以及已写入 VectorStore 的分块 ID，用于增量入库：
+ * 源文件未变化时整体跳过；变化时只写入新分块，并删除已不存在的分块。
+ * 每次更新都会以"写临时文件 + 原子替换"的方式落盘，线程安全。
+ *
+ * @author 伍磊
+ */
+public class IngestionManifest {
+
+    private static final Logger log = LoggerFactory.getLogger(IngestionManifest.class);
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static final TypeReference<Map<String, SourceEntry>> TYPE = new TypeReference<>() {
+    };
+
+    /**
+     * 清单文件路径，为 null 时只保存在内存中
+     */
+    private final Path path;
+
+    private final Map<String, SourceEntry> sources;
+
+    private IngestionManifest(Path path, Map<String, SourceEntry> sources) {
+        this.path = path;
+        this.sources = sources;
+    }
+
+    /**
+     * 从文件加载清单，文件不存在时返回空清单
+     *
+     * @param path 清单文件路径
+     * @return IngestionManifest
+     */
+    public static IngestionManifest load(Path path) {
+        if (null == path) {
+            throw new IllegalArgumentException("Manifest path must not be null");
+        }
+        if (!Files.exists(path)) {
+            return new IngestionManifest(path, new TreeMap<>());
+        }
+        try {
+            Map<String, SourceEntry> sources = MAPPER.readValue(path.toFile(), TYPE);
+            log.info("[ingestion manifest] loaded {} sources from {}", sources.size(), path);
+            return new IngestionManifest(path, new TreeMap<>(sources));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to load ingestion manifest: " + path, e);
+        }
+    }
+
+    /**
+     * 只保存在内存中的清单
+     */
+    public static IngestionManifest inMemory() {
+        return new IngestionManifest(null, new TreeMap<>());
+    }
+
+    public synchronized Optional<SourceEntry> get(String sourceKey) {
+        return Optional.ofNullable(sources.get(sourceKey));
+    }
+
+    public synchronized void put(String sourceKey, SourceEntry entry) {
+        sources.put(sourceKey, entry);
+        save();
+    }
+
+    public synchronized void remove(String sourceKey) {
+        if (sources.remove(sourceKey) != null) {
+            save();
+        }
+    }
+
+    public synchronized int size() {
+        return sources.size();
+    }
+
+    private void save() {
+        if (null == path) {
+            return;
+        }
+        try {
+            Path parent = path.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+            MAPPER.writerWithDefaultPrettyPrinter().writeValue(tmp.toFile(), sources);
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to save ingestion manifest: " + path, e);
+        }
+    }
+
+    /**
+     * 单个源文件的入库记录
+     *
+     * @param sourceHash 源文件内容哈希
+     * @param chunkIds   已写入的分块 ID
+     */
+    public record SourceEntry(String sourceHash, Set<String> chunkIds) {
+    }
+}
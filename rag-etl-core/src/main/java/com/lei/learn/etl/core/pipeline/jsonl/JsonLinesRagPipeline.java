@@ -0,0 +1,86 @@
+package com.lei.learn.etl.core.pipeline.jsonl;
+
+import com.lei.learn.etl.core.pipeline.RagPipeline;
+import com.lei.learn.etl.core.pipeline.ResourceLoadingStage;
+import org.springframework.ai.document.DocumentReader;
+import org.springframework.core.io.Resource;
+import org.springframework.util.Assert;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * <p>
+ * JsonLinesRagPipeline
+ * </p>
+ * JSON Lines 入库，每行一个文档，逐行流式读取，见 {@link JsonLinesReader}
+ *
+ * @author 伍磊
+ */
+public class JsonLinesRagPipeline extends RagPipeline {
+
+    public final String textField;
+
+    private final Map<String, Object> additionalMetadata;
+
+    public JsonLinesRagPipeline(JsonLinesRagPipeline.Builder builder) {
+        this.textField = builder.textField;
+        this.additionalMetadata = new HashMap<>(builder.additionalMetadata);
+    }
+
+    @Override
+    protected String getPipelineType() {
+        return "jsonl";
+    }
+
+    @Override
+    protected DocumentReader getReader() {
+        return getReader(super.resource);
+    }
+
+    @Override
+    protected DocumentReader getReader(Resource resource) {
+        return new JsonLinesReader(resource, textField, additionalMetadata);
+    }
+
+    public static ResourceLoadingStage defaultConfig() {
+        return builder().build();
+    }
+
+    public static JsonLinesRagPipeline.Builder builder() {
+        return new Builder();
+    }
+
+    public static final class Builder {
+
+        /**
+         * 作为文档内容的字段名（默认 text）
+         */
+        private String textField = "text";
+
+        private Map<String, Object> additionalMetadata = new HashMap<>(4);
+
+        public JsonLinesRagPipeline.Builder withTextField(String textField) {
+            Assert.hasText(textField, "textField must not be blank");
+            this.textField = textField;
+            return this;
+        }
+
+        public JsonLinesRagPipeline.Builder withAdditionalMetadata(String key, Object value) {
+            Assert.notNull(key, "key must not be null");
+            Assert.notNull(value, "value must not be null");
+            this.additionalMetadata.put(key, value);
+            return this;
+        }
+
+        public JsonLinesRagPipeline.Builder withAdditionalMetadata(Map<String, Object> additionalMetadata) {
+            Assert.notNull(additionalMetadata, "additionalMetadata must not be null");
+            this.additionalMetadata = additionalMetadata;
+            return this;
+        }
+
+        public ResourceLoadingStage build() {
+            return new JsonLinesRagPipeline(this);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.lei.learn.etl.core.pipeline.jsonl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lei.learn.etl.core.pipeline.StreamingDocumentReader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.document.Document;
+import org.springframework.core.io.Resource;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * <p>
+ * 逐行流式读取 JSON Lines
+ * </p>
+ * 每行一个 JSON 对象，{@code textField} 字段作为文档内容，其余字段作为元数据
+ * （标量保留原类型，对象和数组序列化为 JSON 字符串），行号记录在 {@link #LINE}，不会覆盖同名的用户字段。
+ * 空行跳过；缺少内容字段或无法解析的行记录警告后跳过，不中断整个文件。
+ *
+ * @author 伍磊
+ */
+public class JsonLinesReader implements StreamingDocumentReader {
+
+    public static final String LINE = "jsonl_line";
+
+    private static final Logger log = LoggerFactory.getLogger(JsonLinesReader.class);
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final Resource resource;
+
+    private final String textField;
+
+    private final Map<String, Object> metadata;
+
+    public JsonLinesReader(Resource resource, String textField, Map<String, Object> metadata) {
+        if (null == resource) {
+            throw new IllegalArgumentException("Resource must not be null");
+        }
+        if (null == textField || textField.isBlank()) {
+            throw new IllegalArgumentException("Text field must not be blank");
+        }
+        this.resource = resource;
+        this.textField = textField;
+        this.metadata = null != metadata ? Map.copyOf(metadata) : Map.of();
+    }
+
+    @Override
+    public Stream<Document> stream() {
+        BufferedReader reader;
+        try {
+            reader = new BufferedReader(new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open jsonl resource: " + resource.getDescription(), e);
+        }
+        int[] lineNumber = {0};
+        return reader.lines()
+                .onClose(() -> closeQuietly(reader))
+                .map(line -> parse(line, ++lineNumber[0]))
+                .flatMap(Optional::stream);
+    }
+
+    private Optional<Document> parse(String line, int lineNumber) {
+        if (line.isBlank()) {
+            return Optional.empty();
+        }
+        JsonNode node;
+        try {
+            node = MAPPER.readTree(line);
+        } catch (JsonProcessingException e) {
+            log.warn("[rag document init] skip malformed jsonl line {} of {}", lineNumber, resource.getDescription());
+            return Optional.empty();
+        }
+        JsonNode text = node.get(textField);
+        if (!node.isObject() || null == text || !text.isTextual() || text.asText().isBlank()) {
+            log.warn("[rag document init] skip jsonl line {} without text field '{}'", lineNumber, textField);
+            return Optional.empty();
+        }
+        Map<String, Object> documentMetadata = new HashMap<>(metadata);
+        for (Map.Entry<String, JsonNode> field : node.properties()) {
+            if (!textField.equals(field.getKey()) && !field.getValue().isNull()) {
+                documentMetadata.put(field.getKey(), toMetadataValue(field.getValue()));
+            }
+        }
+        documentMetadata.put(LINE, lineNumber);
+        return Optional.of(new Document(text.asText(), documentMetadata));
+    }
+
+    private static Object toMetadataValue(JsonNode value) {
+        if (value.isTextual()) {
+            return value.asText();
+        }
+        if (value.isBoolean()) {
+            return value.booleanValue();
+        }
+        if (value.isNumber()) {
+            return value.numberValue();
+        }
+        return value.toString();
+    }
+
+    private static void closeQuietly(BufferedReader reader) {
+        try {
+            reader.close();
+        } catch (IOException ignored) {
+            // 只读资源，关闭失败不影响结果
+        }
+    }
+}
@@ -0,0 +1,278 @@
+package com.lei.learn.etl.core.pipeline.markdown;
+
+import com.lei.learn.etl.core.pipeline.StreamingDocumentReader;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.reader.markdown.config.MarkdownDocumentReaderConfig;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * <p>
+ * 基于内存映射按标题分段流式读取本地 Markdown 文件
+ * </p>
+ * 与 {@link MarkdownSectionReader} 的切分规则一致（代码块之外的 ATX 标题切段），
+ * 但通过 {@link FileChannel#map} 按窗口映射文件，直接在字节上识别标题和代码围栏，
+ * 只把当前段落解码为字符串，整个文件不会经过 InputStream 复制到堆上。
+ * 适用于几百 MB 的大文件；非本地文件资源请使用 {@link MarkdownSectionReader}。
+ *
+ * @author 伍磊
+ */
+public class MappedMarkdownSectionReader implements StreamingDocumentReader {
+
+    /**
+     * 默认映射窗口 64MB，超过窗口的文件分多次映射
+     */
+    static final long DEFAULT_WINDOW_SIZE = 64L * 1024 * 1024;
+
+    private final Path path;
+
+    private final MarkdownDocumentReaderConfig config;
+
+    private final long windowSize;
+
+    private final boolean raw;
+
+    public MappedMarkdownSectionReader(Path path, MarkdownDocumentReaderConfig config) {
+        this(path, config, false);
+    }
+
+    /**
+     * @param raw 为 true 时输出段落原文而不解析，见 {@link MarkdownSectionReader}
+     */
+    public MappedMarkdownSectionReader(Path path, MarkdownDocumentReaderConfig config, boolean raw) {
+        this(path, config, raw, DEFAULT_WINDOW_SIZE);
+    }
+
+    MappedMarkdownSectionReader(Path path, MarkdownDocumentReaderConfig config, boolean raw, long windowSize) {
+        if (null == path) {
+            throw new IllegalArgumentException("Path must not be null");
+        }
+        if (null == config) {
+            throw new IllegalArgumentException("MarkdownDocumentReaderConfig must not be null");
+        }
+        if (windowSize <= 0 || windowSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("windowSize must be between 1 and " + Integer.MAX_VALUE);
+        }
+        this.path = path;
+        this.config = config;
+        this.windowSize = windowSize;
+        this.raw = raw;
+    }
+
+    @Override
+    public Stream<Document> stream() {
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(path, StandardOpenOption.READ);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open markdown file: " + path, e);
+        }
+        Iterator<String> sections;
+        try {
+            sections = new SectionIterator(channel, windowSize);
+        } catch (RuntimeException e) {
+            closeQuietly(channel);
+            throw e;
+        }
+        return MarkdownSectionReader.toDocuments(
+                StreamSupport.stream(Spliterators.spliteratorUnknownSize(sections, Spliterator.ORDERED), false)
+                        .onClose(() -> closeQuietly(channel)), config, raw);
+    }
+
+    private static void closeQuietly(FileChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+            // 只读映射，关闭失败不影响结果
+        }
+    }
+
+    /**
+     * 字节版 {@link MarkdownSectionReader#isHeading(String)}，区间为 [from, to)，不含换行符
+     */
+    static boolean isHeading(ByteBuffer buffer, int from, int to) {
+        int i = from;
+        while (i < to && i - from < 3 && buffer.get(i) == ' ') {
+            i++;
+        }
+        int level = 0;
+        while (i < to && buffer.get(i) == '#') {
+            level++;
+            i++;
+        }
+        return level >= 1 && level <= 6 && (i == to || isWhitespace(buffer.get(i)));
+    }
+
+    /**
+     * 字节版 {@link MarkdownSectionReader#fenceOf(String)}，返回围栏字符（` 或 ~），不是围栏行时返回 0
+     */
+    static byte fenceOf(ByteBuffer buffer, int from, int to) {
+        int i = from;
+        while (i < to && isWhitespace(buffer.get(i))) {
+            i++;
+        }
+        if (i - from > 3 || to - i < 3) {
+            return 0;
+        }
+        byte first = buffer.get(i);
+        if ((first == '`' || first == '~') && buffer.get(i + 1) == first && buffer.get(i + 2) == first) {
+            return first;
+        }
+        return 0;
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\t' || b == '\r' || b == '\f' || b == 0x0B;
+    }
+
+    private static final class SectionIterator implements Iterator<String> {
+
+        private final FileChannel channel;
+
+        private final long size;
+
+        private final long windowSize;
+
+        private MappedByteBuffer window;
+
+        private long windowStart;
+
+        private long windowEnd;
+
+        /**
+         * 下一行的起始位置
+         */
+        private long position;
+
+        /**
+         * 当前段落的起始位置
+         */
+        private long sectionStart;
+
+        /**
+         * 当前未闭合的代码围栏字符，0 表示不在代码块中
+         */
+        private byte openFence;
+
+        private String next;
+
+        private SectionIterator(FileChannel channel, long windowSize) {
+            this.channel = channel;
+            this.windowSize = windowSize;
+            try {
+                this.size = channel.size();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to read markdown file size", e);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next == null && sectionStart < size) {
+                next = readSection();
+            }
+            return next != null;
+        }
+
+        @Override
+        public String next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            String section = next;
+            next = null;
+            return section;
+        }
+
+        private String readSection() {
+            while (position < size) {
+                long lineStart = position;
+                long lineEnd = readLine(lineStart);
+                int from = (int) (lineStart - windowStart);
+                int to = (int) (lineEnd - windowStart);
+                byte fence = fenceOf(window, from, to);
+                if (openFence == 0 && fence != 0) {
+                    openFence = fence;
+                } else if (openFence != 0 && openFence == fence) {
+                    openFence = 0;
+                } else if (openFence == 0 && lineStart > sectionStart && isHeading(window, from, to)) {
+                    String section = decode(sectionStart, lineStart);
+                    sectionStart = lineStart;
+                    return section;
+                }
+            }
+            String section = decode(sectionStart, size);
+            sectionStart = size;
+            return section;
+        }
+
+        /**
+         * 定位从 lineStart 开始的一行，返回行尾（换行符位置或文件末尾），并推进 position；
+         * 保证返回时整行都在当前窗口内。单行超过窗口时在窗口末尾强制断行。
+         */
+        private long readLine(long lineStart) {
+            if (window == null || lineStart < windowStart || lineStart >= windowEnd) {
+                map(lineStart);
+            }
+            long i = lineStart;
+            while (i < size) {
+                if (i >= windowEnd) {
+                    if (windowStart == lineStart) {
+                        position = i;
+                        return i;
+                    }
+                    map(lineStart);
+                }
+                if (window.get((int) (i - windowStart)) == '\n') {
+                    position = i + 1;
+                    return i;
+                }
+                i++;
+            }
+            position = size;
+            return size;
+        }
+
+        private void map(long offset) {
+            long length = Math.min(windowSize, size - offset);
+            try {
+                window = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to map markdown file at offset " + offset, e);
+            }
+            windowStart = offset;
+            windowEnd = offset + length;
+        }
+
+        private String decode(long start, long end) {
+            long length = end - start;
+            if (length > Integer.MAX_VALUE) {
+                throw new IllegalStateException("Markdown section is too large to decode: " + length + " bytes");
+            }
+            ByteBuffer bytes;
+            if (start >= windowStart && end <= windowEnd) {
+                bytes = window.slice((int) (start - windowStart), (int) length);
+            } else {
+                try {
+                    bytes = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Failed to map markdown section at offset " + start, e);
+                }
+            }
+            return StandardCharsets.UTF_8.decode(bytes).toString();
+        }
+    }
+}
@@ -7,8 +7,11 @@ import org.slf4j.LoggerFactory;
 import org.springframework.ai.document.DocumentReader;
 import org.springframework.ai.reader.markdown.MarkdownDocumentReader;
 import org.springframework.ai.reader.markdown.config.MarkdownDocumentReaderConfig;
+import org.springframework.core.io.Resource;
 import org.springframework.util.Assert;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -27,26 +30,55 @@ public class MarkdownRagPipeline extends RagPipeline {
 
     public final boolean includeBlockquote;
 
+    public final boolean rawMarkdown;
+
     private final Map<String, Object> additionalMetadata;
 
     public MarkdownRagPipeline(MarkdownRagPipeline.Builder builder) {
         this.horizontalRuleCreateDocument = builder.horizontalRuleCreateDocument;
         this.includeCodeBlock = builder.includeCodeBlock;
         this.includeBlockquote = builder.includeBlockquote;
+        this.rawMarkdown = builder.rawMarkdown;
         this.additionalMetadata = new HashMap<>(builder.additionalMetadata.size());
         this.additionalMetadata.putAll(builder.additionalMetadata);
     }
 
 
+    @Override
+    protected String getPipelineType() {
+        return "markdown";
+    }
+
     @Override
     protected DocumentReader getReader() {
+        return getReader(super.resource);
+    }
+
+    @Override
+    protected DocumentReader getReader(Resource resource) {
+        return getReader(resource, super.streaming);
+    }
+
+    @Override
+    protected DocumentReader getReader(Resource resource, boolean streaming) {
         MarkdownDocumentReaderConfig config = MarkdownDocumentReaderConfig.builder()
                 .withHorizontalRuleCreateDocument(horizontalRuleCreateDocument)
                 .withIncludeCodeBlock(includeCodeBlock)
                 .withIncludeBlockquote(includeBlockquote)
                 .withAdditionalMetadata(additionalMetadata)
                 .build();
-        return new MarkdownDocumentReader(super.resource, config);
+        if (streaming || rawMarkdown) {
+            // 本地文件走内存映射，避免大文件整体经过 InputStream 解码到堆上
+            if (resource.isFile()) {
+                try {
+                    return new MappedMarkdownSectionReader(resource.getFile().toPath(), config, rawMarkdown);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Failed to resolve markdown file: " + resource.getDescription(), e);
+                }
+            }
+            return new MarkdownSectionReader(resource, config, rawMarkdown);
+        }
+        return new MarkdownDocumentReader(resource, config);
     }
 
     public static ResourceLoadingStage defaultConfig() {
@@ -74,6 +106,11 @@ public class MarkdownRagPipeline extends RagPipeline {
          */
         private boolean includeBlockquote = true;
 
+        /**
+         * 是否按标题分段输出 Markdown 原文（默认 false），配合 {@link MarkdownTextSplitter} 使用
+         */
+        private boolean rawMarkdown = false;
+
         /**
          * 额外的元数据（默认容量 4）
          */
@@ -94,6 +131,11 @@ public class MarkdownRagPipeline extends RagPipeline {
             return this;
         }
 
+        public MarkdownRagPipeline.Builder withRawMarkdown(boolean rawMarkdown) {
+            this.rawMarkdown = rawMarkdown;
+            return this;
+        }
+
         /**
          * 添加额外的元数据
          *
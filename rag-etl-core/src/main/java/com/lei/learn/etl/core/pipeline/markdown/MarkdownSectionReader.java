@@ -0,0 +1,280 @@
+package com.lei.learn.etl.core.pipeline.markdown;
+
+import com.lei.learn.etl.core.pipeline.StreamingDocumentReader;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.reader.markdown.MarkdownDocumentReader;
+import org.springframework.ai.reader.markdown.config.MarkdownDocumentReaderConfig;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * <p>
+ * 按标题分段流式读取 Markdown
+ * </p>
+ * 逐行扫描资源，遇到代码块之外的 ATX 标题（# ~ ######）即切出一段，
+ * 每段交给 {@link MarkdownDocumentReader} 解析，因此解析结果与整篇解析一致，
+ * 但任意时刻只在堆上保留一个段落。
+ * <p>
+ * raw 模式下不解析段落，而是把段落的 Markdown 原文作为文档输出，并在 {@link #HEADING_PATH}
+ * 元数据中记录祖先标题，供 {@link MarkdownTextSplitter} 按结构切分。
+ *
+ * @author 伍磊
+ */
+public class MarkdownSectionReader implements StreamingDocumentReader {
+
+    /**
+     * 标题路径元数据，多级标题以 {@link #HEADING_SEPARATOR} 连接
+     */
+    public static final String HEADING_PATH = "heading_path";
+
+    public static final String HEADING_SEPARATOR = " > ";
+
+    private final Resource resource;
+
+    private final MarkdownDocumentReaderConfig config;
+
+    private final boolean raw;
+
+    public MarkdownSectionReader(Resource resource, MarkdownDocumentReaderConfig config) {
+        this(resource, config, false);
+    }
+
+    /**
+     * @param raw 为 true 时输出段落原文而不解析
+     */
+    public MarkdownSectionReader(Resource resource, MarkdownDocumentReaderConfig config, boolean raw) {
+        if (null == resource) {
+            throw new IllegalArgumentException("Resource must not be null");
+        }
+        if (null == config) {
+            throw new IllegalArgumentException("MarkdownDocumentReaderConfig must not be null");
+        }
+        this.resource = resource;
+        this.config = config;
+        this.raw = raw;
+    }
+
+    @Override
+    public Stream<Document> stream() {
+        BufferedReader reader;
+        try {
+            reader = new BufferedReader(new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open markdown resource: " + resource.getDescription(), e);
+        }
+        Iterator<String> sections = new SectionIterator(reader);
+        return toDocuments(StreamSupport.stream(Spliterators.spliteratorUnknownSize(sections, Spliterator.ORDERED), false)
+                .onClose(() -> closeQuietly(reader)), config, raw);
+    }
+
+    /**
+     * 把段落流转换为文档流，供同包内其他分段读取实现复用
+     */
+    static Stream<Document> toDocuments(Stream<String> sections, MarkdownDocumentReaderConfig config, boolean raw) {
+        if (!raw) {
+            return sections.flatMap(section -> parseSection(section, config));
+        }
+        RawSectionMapper mapper = new RawSectionMapper(config);
+        return sections.flatMap(mapper::map);
+    }
+
+    private static Stream<Document> parseSection(String section, MarkdownDocumentReaderConfig config) {
+        if (section.isBlank()) {
+            return Stream.empty();
+        }
+        ByteArrayResource sectionResource = new ByteArrayResource(section.getBytes(StandardCharsets.UTF_8));
+        return new MarkdownDocumentReader(sectionResource, config).get().stream();
+    }
+
+    private static void closeQuietly(BufferedReader reader) {
+        try {
+            reader.close();
+        } catch (IOException ignored) {
+            // 只读资源，关闭失败不影响结果
+        }
+    }
+
+    /**
+     * 判断是否为 ATX 标题行：0~3 个空格缩进，1~6 个 #，其后为空白或行尾
+     */
+    static boolean isHeading(String line) {
+        int i = 0;
+        while (i < line.length() && i < 3 && line.charAt(i) == ' ') {
+            i++;
+        }
+        int level = 0;
+        while (i < line.length() && line.charAt(i) == '#') {
+            level++;
+            i++;
+        }
+        return level >= 1 && level <= 6 && (i == line.length() || Character.isWhitespace(line.charAt(i)));
+    }
+
+    /**
+     * 返回代码围栏标记（``` 或 ~~~），不是围栏行时返回 null
+     */
+    static String fenceOf(String line) {
+        String trimmed = line.stripLeading();
+        if (line.length() - trimmed.length() > 3) {
+            return null;
+        }
+        if (trimmed.startsWith("```")) {
+            return "```";
+        }
+        if (trimmed.startsWith("~~~")) {
+            return "~~~";
+        }
+        return null;
+    }
+
+    /**
+     * 提取 ATX 标题文本，去掉前导的 # 和可选的结尾 # 序列
+     */
+    static String headingTitle(String line) {
+        String title = line.strip();
+        int i = 0;
+        while (i < title.length() && title.charAt(i) == '#') {
+            i++;
+        }
+        title = title.substring(i).strip();
+        int end = title.length();
+        while (end > 0 && title.charAt(end - 1) == '#') {
+            end--;
+        }
+        if (end == 0 || Character.isWhitespace(title.charAt(end - 1))) {
+            title = title.substring(0, end).strip();
+        }
+        return title;
+    }
+
+    static int headingLevel(String line) {
+        String trimmed = line.stripLeading();
+        int level = 0;
+        while (level < trimmed.length() && trimmed.charAt(level) == '#') {
+            level++;
+        }
+        return level;
+    }
+
+    /**
+     * raw 模式：按顺序跟踪标题层级，为每个段落记录祖先标题路径
+     */
+    private static final class RawSectionMapper {
+
+        private final MarkdownDocumentReaderConfig config;
+
+        /**
+         * 下标为标题级别（1 ~ 6）
+         */
+        private final String[] titles = new String[7];
+
+        private RawSectionMapper(MarkdownDocumentReaderConfig config) {
+            this.config = config;
+        }
+
+        private Stream<Document> map(String section) {
+            if (section.isBlank()) {
+                return Stream.empty();
+            }
+            int newline = section.indexOf('\n');
+            String firstLine = newline < 0 ? section : section.substring(0, newline);
+            List<String> ancestors = new ArrayList<>(6);
+            if (isHeading(firstLine)) {
+                int level = headingLevel(firstLine);
+                for (int i = 1; i < level; i++) {
+                    if (titles[i] != null) {
+                        ancestors.add(titles[i]);
+                    }
+                }
+                titles[level] = headingTitle(firstLine);
+                Arrays.fill(titles, level + 1, titles.length, null);
+            }
+            Map<String, Object> metadata = new HashMap<>(config.additionalMetadata);
+            if (!ancestors.isEmpty()) {
+                metadata.put(HEADING_PATH, String.join(HEADING_SEPARATOR, ancestors));
+            }
+            return Stream.of(new Document(section, metadata));
+        }
+    }
+
+    private static final class SectionIterator implements Iterator<String> {
+
+        private final BufferedReader reader;
+
+        /**
+         * 已读取但属于下一段的标题行
+         */
+        private String carry;
+
+        private String next;
+
+        private boolean eof;
+
+        private SectionIterator(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next == null && !eof) {
+                next = readSection();
+            }
+            return next != null;
+        }
+
+        @Override
+        public String next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            String section = next;
+            next = null;
+            return section;
+        }
+
+        private String readSection() {
+            StringBuilder section = new StringBuilder();
+            if (carry != null) {
+                section.append(carry).append('\n');
+                carry = null;
+            }
+            String openFence = null;
+            try {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    String fence = fenceOf(line);
+                    if (openFence == null && fence != null) {
+                        openFence = fence;
+                    } else if (openFence != null && openFence.equals(fence)) {
+                        openFence = null;
+                    } else if (openFence == null && isHeading(line) && !section.isEmpty()) {
+                        carry = line;
+                        return section.toString();
+                    }
+                    section.append(line).append('\n');
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to read markdown section", e);
+            }
+            eof = true;
+            return section.isEmpty() ? null : section.toString();
+        }
+    }
+}
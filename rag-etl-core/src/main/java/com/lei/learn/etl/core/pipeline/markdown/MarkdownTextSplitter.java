@@ -0,0 +1,390 @@
+package com.lei.learn.etl.core.pipeline.markdown;
+
+import com.lei.learn.etl.core.pipeline.batch.TokenEstimator;
+import org.commonmark.node.Code;
+import org.commonmark.node.FencedCodeBlock;
+import org.commonmark.node.Heading;
+import org.commonmark.node.Node;
+import org.commonmark.node.SourceSpan;
+import org.commonmark.node.Text;
+import org.commonmark.parser.IncludeSourceSpans;
+import org.commonmark.parser.Parser;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.transformer.splitter.TextSplitter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>
+ * 按 Markdown 结构切分文本
+ * </p>
+ * 用 commonmark 解析出块级 AST，按顶层块（标题、段落、代码块、列表、引用、表格等）组装分块：
+ * <ul>
+ *     <li>遇到标题时结束当前分块，分块不会跨越章节；</li>
+ *     <li>同一章节内的相邻块合并到 token 预算为止，代码块和表格不会被从中间切开；</li>
+ *     <li>不足 {@code minChunkSize} 的章节会与后续同级或更深的章节合并；</li>
+ *     <li>单个块超过预算时按行切分，代码块的每一段都补全围栏。</li>
+ * </ul>
+ * token 数用 {@link TokenEstimator} 估算，不做 BPE 编码。每个分块的标题路径写入
+ * {@link MarkdownSectionReader#HEADING_PATH} 元数据；输入文档已带该元数据（或 title）时作为路径前缀。
+ * 输入最好是 Markdown 原文，参见 {@link MarkdownRagPipeline.Builder#withRawMarkdown(boolean)}。
+ *
+ * @author 伍磊
+ */
+public class MarkdownTextSplitter extends TextSplitter {
+
+    private static final String TITLE = "title";
+
+    private final int chunkSize;
+
+    private final int minChunkSize;
+
+    /**
+     * commonmark 的 Parser 是线程安全的，可以共享
+     */
+    private final Parser parser = Parser.builder()
+            .includeSourceSpans(IncludeSourceSpans.BLOCKS)
+            .build();
+
+    private MarkdownTextSplitter(Builder builder) {
+        this.chunkSize = builder.chunkSize;
+        this.minChunkSize = builder.minChunkSize;
+    }
+
+    @Override
+    public List<Document> apply(List<Document> documents) {
+        List<Document> chunks = new ArrayList<>();
+        for (Document document : documents) {
+            if (document.getText() == null) {
+                continue;
+            }
+            Map<String, Object> metadata = document.getMetadata();
+            Object prefix = metadata.get(MarkdownSectionReader.HEADING_PATH);
+            if (prefix == null) {
+                prefix = metadata.get(TITLE);
+            }
+            List<Chunk> split = chunk(document.getText(), prefix == null ? null : prefix.toString());
+            for (int i = 0; i < split.size(); i++) {
+                Chunk chunk = split.get(i);
+                Map<String, Object> chunkMetadata = new HashMap<>(metadata.size() + 4);
+                metadata.forEach((key, value) -> {
+                    if (value != null) {
+                        chunkMetadata.put(key, value);
+                    }
+                });
+                chunkMetadata.put("parent_document_id", document.getId());
+                chunkMetadata.put("chunk_index", i);
+                chunkMetadata.put("total_chunks", split.size());
+                if (chunk.headingPath() != null) {
+                    chunkMetadata.put(MarkdownSectionReader.HEADING_PATH, chunk.headingPath());
+                }
+                Document result = Document.builder()
+                        .text(chunk.text())
+                        .metadata(chunkMetadata)
+                        .score(document.getScore())
+                        .build();
+                if (isCopyContentFormatter()) {
+                    result.setContentFormatter(document.getContentFormatter());
+                }
+                chunks.add(result);
+            }
+        }
+        return chunks;
+    }
+
+    @Override
+    protected List<String> splitText(String text) {
+        return chunk(text, null).stream().map(Chunk::text).toList();
+    }
+
+    /**
+     * 切分 Markdown 文本
+     *
+     * @param markdown Markdown 原文
+     * @param prefix   标题路径前缀，可为 null
+     */
+    List<Chunk> chunk(String markdown, String prefix) {
+        String[] lines = markdown.split("\r\n|\r|\n", -1);
+        Node root = parser.parse(markdown);
+        ChunkAssembler assembler = new ChunkAssembler(prefix);
+        for (Node node = root.getFirstChild(); node != null; node = node.getNext()) {
+            String source = source(node, lines);
+            if (source.isBlank()) {
+                continue;
+            }
+            long tokens = TokenEstimator.estimate(source);
+            if (node instanceof Heading heading) {
+                assembler.heading(heading.getLevel(), text(heading), source, tokens);
+            } else if (tokens > chunkSize) {
+                for (String piece : splitOversized(node, source)) {
+                    assembler.block(piece, TokenEstimator.estimate(piece));
+                }
+            } else {
+                assembler.block(source, tokens);
+            }
+        }
+        return assembler.finish();
+    }
+
+    /**
+     * 块对应的源码行，基于块级 source span
+     */
+    private static String source(Node node, String[] lines) {
+        List<SourceSpan> spans = node.getSourceSpans();
+        if (spans.isEmpty()) {
+            return "";
+        }
+        int first = spans.get(0).getLineIndex();
+        int last = spans.get(spans.size() - 1).getLineIndex();
+        return String.join("\n", Arrays.asList(lines).subList(first, last + 1));
+    }
+
+    private static String text(Node node) {
+        StringBuilder text = new StringBuilder();
+        appendText(node, text);
+        return text.toString().strip();
+    }
+
+    private static void appendText(Node node, StringBuilder text) {
+        for (Node child = node.getFirstChild(); child != null; child = child.getNext()) {
+            if (child instanceof Text literal) {
+                text.append(literal.getLiteral());
+            } else if (child instanceof Code code) {
+                text.append(code.getLiteral());
+            } else {
+                appendText(child, text);
+            }
+        }
+    }
+
+    /**
+     * 超过预算的块按行切分；代码块的每一段都带上开闭围栏，保证单独可读
+     */
+    private List<String> splitOversized(Node node, String source) {
+        List<String> lines = new ArrayList<>(Arrays.asList(source.split("\n", -1)));
+        String open = "";
+        String close = "";
+        if (node instanceof FencedCodeBlock fenced && lines.size() >= 2) {
+            open = lines.remove(0) + "\n";
+            if (fenced.getClosingFenceLength() != null) {
+                close = "\n" + lines.remove(lines.size() - 1);
+            } else {
+                close = "\n" + fenced.getFenceCharacter().repeat(fenced.getOpeningFenceLength());
+            }
+        }
+        long budget = Math.max(1, chunkSize - TokenEstimator.estimate(open) - TokenEstimator.estimate(close));
+        List<String> pieces = new ArrayList<>();
+        StringBuilder piece = new StringBuilder();
+        long pieceTokens = 0;
+        for (String line : lines) {
+            for (String part : splitLine(line, budget)) {
+                long tokens = TokenEstimator.estimate(part);
+                if (!piece.isEmpty() && pieceTokens + tokens > budget) {
+                    pieces.add(open + piece + close);
+                    piece.setLength(0);
+                    pieceTokens = 0;
+                }
+                if (!piece.isEmpty()) {
+                    piece.append('\n');
+                }
+                piece.append(part);
+                pieceTokens += tokens;
+            }
+        }
+        if (!piece.isEmpty()) {
+            pieces.add(open + piece + close);
+        }
+        return pieces;
+    }
+
+    /**
+     * 单行超过预算时按字符切开，优先在句末标点处断开
+     */
+    private static List<String> splitLine(String line, long budget) {
+        if (TokenEstimator.estimate(line) <= budget) {
+            return List.of(line);
+        }
+        List<String> parts = new ArrayList<>();
+        int start = 0;
+        while (start < line.length()) {
+            int end = start;
+            long ascii = 0;
+            long other = 0;
+            int sentenceEnd = -1;
+            while (end < line.length() && (ascii + 3) / 4 + other < budget) {
+                char c = line.charAt(end);
+                if (c < 0x80) {
+                    ascii++;
+                } else {
+                    other++;
+                }
+                end++;
+                if (Character.isHighSurrogate(c) && end < line.length()) {
+                    end++;
+                }
+                if (c == '。' || c == '！' || c == '？' || c == '.' || c == '!' || c == '?') {
+                    sentenceEnd = end;
+                }
+            }
+            if (end < line.length() && sentenceEnd > start + (end - start) / 2) {
+                end = sentenceEnd;
+            }
+            parts.add(line.substring(start, end));
+            start = end;
+        }
+        return parts;
+    }
+
+    record Chunk(String text, String headingPath) {
+    }
+
+    /**
+     * 按顺序接收顶层块并组装分块
+     */
+    private final class ChunkAssembler {
+
+        private final String prefix;
+
+        private final List<Chunk> chunks = new ArrayList<>();
+
+        /**
+         * 下标为标题级别（1 ~ 6）
+         */
+        private final String[] titles = new String[7];
+
+        private final StringBuilder text = new StringBuilder();
+
+        private long tokens;
+
+        private boolean hasBody;
+
+        /**
+         * 当前分块所属章节的级别与标题路径，0 表示还没遇到标题
+         */
+        private int level;
+
+        private List<String> path = List.of();
+
+        private ChunkAssembler(String prefix) {
+            this.prefix = prefix == null || prefix.isBlank() ? null : prefix;
+        }
+
+        private void heading(int headingLevel, String title, String source, long headingTokens) {
+            boolean mergeSibling = hasBody && tokens < minChunkSize && headingLevel >= level
+                    && tokens + headingTokens <= chunkSize;
+            if (hasBody && !mergeSibling) {
+                flush();
+            }
+            titles[headingLevel] = title;
+            Arrays.fill(titles, headingLevel + 1, titles.length, null);
+            List<String> headingPath = currentPath();
+            if (mergeSibling) {
+                // 合并的章节只保留共同的祖先标题
+                path = commonPrefix(path, headingPath);
+            } else {
+                path = headingPath;
+                level = headingLevel;
+            }
+            append(source, headingTokens);
+        }
+
+        private void block(String source, long blockTokens) {
+            if (hasBody && tokens + blockTokens > chunkSize) {
+                flush();
+            }
+            append(source, blockTokens);
+            hasBody = true;
+        }
+
+        private void append(String source, long sourceTokens) {
+            if (!text.isEmpty()) {
+                text.append("\n\n");
+            }
+            text.append(source);
+            tokens += sourceTokens;
+        }
+
+        private void flush() {
+            if (text.isEmpty()) {
+                return;
+            }
+            List<String> headingPath = new ArrayList<>(path.size() + 1);
+            if (prefix != null) {
+                headingPath.add(prefix);
+            }
+            headingPath.addAll(path);
+            chunks.add(new Chunk(text.toString(),
+                    headingPath.isEmpty() ? null : String.join(MarkdownSectionReader.HEADING_SEPARATOR, headingPath)));
+            text.setLength(0);
+            tokens = 0;
+            hasBody = false;
+        }
+
+        private List<String> currentPath() {
+            List<String> current = new ArrayList<>(6);
+            for (int i = 1; i < titles.length; i++) {
+                if (titles[i] != null) {
+                    current.add(titles[i]);
+                }
+            }
+            return current;
+        }
+
+        private List<String> commonPrefix(List<String> a, List<String> b) {
+            int n = 0;
+            while (n < a.size() && n < b.size() && a.get(n).equals(b.get(n))) {
+                n++;
+            }
+            return List.copyOf(a.subList(0, n));
+        }
+
+        private List<Chunk> finish() {
+            flush();
+            return chunks;
+        }
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static final class Builder {
+
+        /**
+         * 每个分块的 token 预算
+         */
+        private int chunkSize = 800;
+
+        /**
+         * 低于该 token 数的章节与后续兄弟章节合并
+         */
+        private int minChunkSize = 200;
+
+        public Builder withChunkSize(int chunkSize) {
+            if (chunkSize <= 0) {
+                throw new IllegalArgumentException("chunkSize must be positive");
+            }
+            this.chunkSize = chunkSize;
+            return this;
+        }
+
+        public Builder withMinChunkSize(int minChunkSize) {
+            if (minChunkSize < 0) {
+                throw new IllegalArgumentException("minChunkSize must not be negative");
+            }
+            this.minChunkSize = minChunkSize;
+            return this;
+        }
+
+        public MarkdownTextSplitter build() {
+            if (minChunkSize > chunkSize) {
+                throw new IllegalArgumentException("minChunkSize must not be greater than chunkSize");
+            }
+            return new MarkdownTextSplitter(this);
+        }
+    }
+}
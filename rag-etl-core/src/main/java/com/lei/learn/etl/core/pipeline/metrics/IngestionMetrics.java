@@ -0,0 +1,142 @@
+package com.lei.learn.etl.core.pipeline.metrics;
+
+import com.lei.learn.etl.core.pipeline.batch.BatchListener;
+import com.lei.learn.etl.core.pipeline.batch.DocumentBatch;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>
+ * 单次入库的分阶段计时，同时上报到 Micrometer
+ * </p>
+ * 每次执行创建一个实例；registry 为 null 时只统计，不上报。所有指标都带 pipeline 标签：
+ * <ul>
+ *     <li>{@code rag.ingestion.read} / {@code rag.ingestion.split}：读取、切分耗时</li>
+ *     <li>{@code rag.ingestion.batch.write}：单个批次 VectorStore.add 耗时（含 embedding）</li>
+ *     <li>{@code rag.ingestion.batches.failed}：失败批次数</li>
+ *     <li>{@code rag.ingestion.chunks} / {@code rag.ingestion.bytes}：写入分块数、处理的源文件字节数</li>
+ *     <li>{@code rag.ingestion.throughput}：每次入库的分块/秒</li>
+ * </ul>
+ * 作为 {@link BatchListener} 时会在写入线程上回调，线程安全。
+ *
+ * @author 伍磊
+ */
+public class IngestionMetrics implements BatchListener {
+
+    public static final String READ = "rag.ingestion.read";
+    public static final String SPLIT = "rag.ingestion.split";
+    public static final String BATCH_WRITE = "rag.ingestion.batch.write";
+    public static final String BATCHES_FAILED = "rag.ingestion.batches.failed";
+    public static final String CHUNKS = "rag.ingestion.chunks";
+    public static final String BYTES = "rag.ingestion.bytes";
+    public static final String THROUGHPUT = "rag.ingestion.throughput";
+
+    private final MeterRegistry registry;
+
+    private final Tags tags;
+
+    private final long startNanos = System.nanoTime();
+
+    private final LongAdder writeNanos = new LongAdder();
+
+    private long readNanos;
+
+    private long splitNanos;
+
+    private int chunkCount;
+
+    public IngestionMetrics(MeterRegistry registry, String pipelineType) {
+        this.registry = registry;
+        this.tags = Tags.of("pipeline", pipelineType);
+    }
+
+    @Override
+    public void onSuccess(DocumentBatch batch, long elapsedNanos) {
+        writeNanos.add(elapsedNanos);
+        if (null != registry) {
+            Timer.builder(BATCH_WRITE)
+                    .description("VectorStore.add latency per batch, including embedding")
+                    .tags(tags)
+                    .register(registry)
+                    .record(elapsedNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public void onFailure(DocumentBatch batch, Exception error) {
+        if (null != registry) {
+            Counter.builder(BATCHES_FAILED).tags(tags).register(registry).increment();
+        }
+    }
+
+    public void recordRead(long nanos) {
+        this.readNanos += nanos;
+        record(READ, nanos);
+    }
+
+    public void recordSplit(long nanos) {
+        this.splitNanos += nanos;
+        record(SPLIT, nanos);
+    }
+
+    public void recordChunks(int chunkCount) {
+        this.chunkCount = chunkCount;
+    }
+
+    /**
+     * 入库结束：上报分块数、字节数与吞吐量
+     *
+     * @param bytes 源文件字节数，未知时为负数
+     */
+    public void complete(long bytes) {
+        if (null == registry) {
+            return;
+        }
+        Counter.builder(CHUNKS).tags(tags).register(registry).increment(chunkCount);
+        if (bytes >= 0) {
+            Counter.builder(BYTES).baseUnit("bytes").tags(tags).register(registry).increment(bytes);
+        }
+        DistributionSummary.builder(THROUGHPUT)
+                .baseUnit("chunks/s")
+                .tags(tags)
+                .register(registry)
+                .record(getChunksPerSecond());
+    }
+
+    public Duration getReadTime() {
+        return Duration.ofNanos(readNanos);
+    }
+
+    public Duration getSplitTime() {
+        return Duration.ofNanos(splitNanos);
+    }
+
+    /**
+     * 所有批次 VectorStore.add 耗时之和，并发写入时可能大于墙钟时间
+     */
+    public Duration getWriteTime() {
+        return Duration.ofNanos(writeNanos.sum());
+    }
+
+    public Duration getElapsed() {
+        return Duration.ofNanos(System.nanoTime() - startNanos);
+    }
+
+    public double getChunksPerSecond() {
+        long nanos = System.nanoTime() - startNanos;
+        return nanos > 0 ? chunkCount * 1e9 / nanos : 0.0;
+    }
+
+    private void record(String name, long nanos) {
+        if (null != registry) {
+            Timer.builder(name).tags(tags).register(registry).record(nanos, TimeUnit.NANOSECONDS);
+        }
+    }
+}
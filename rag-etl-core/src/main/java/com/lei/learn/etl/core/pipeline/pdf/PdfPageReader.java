@@ -0,0 +1,112 @@
+package com.lei.learn.etl.core.pipeline.pdf;
+
+import com.lei.learn.etl.core.pipeline.StreamingDocumentReader;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.io.IOUtils;
+import org.apache.pdfbox.io.RandomAccessReadBuffer;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.springframework.ai.document.Document;
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * <p>
+ * 按页流式读取 PDF
+ * </p>
+ * 每 {@code pagesPerDocument} 页输出一个文档，文本按需逐页抽取，元数据记录起止页码
+ * {@code page_number} / {@code end_page_number} 与总页数 {@code total_pages}。
+ * 本地文件通过 PDFBox 的随机访问读取按需解析页面对象，解析缓存使用临时文件而不是堆内存；
+ * 非文件资源只能先读入内存。空白页（例如扫描件）不输出文档。
+ *
+ * @author 伍磊
+ */
+public class PdfPageReader implements StreamingDocumentReader {
+
+    private final Resource resource;
+
+    private final int pagesPerDocument;
+
+    private final Map<String, Object> metadata;
+
+    public PdfPageReader(Resource resource, int pagesPerDocument, Map<String, Object> metadata) {
+        if (null == resource) {
+            throw new IllegalArgumentException("Resource must not be null");
+        }
+        if (pagesPerDocument <= 0) {
+            throw new IllegalArgumentException("pagesPerDocument must be positive");
+        }
+        this.resource = resource;
+        this.pagesPerDocument = pagesPerDocument;
+        this.metadata = null != metadata ? Map.copyOf(metadata) : Map.of();
+    }
+
+    @Override
+    public Stream<Document> stream() {
+        PDDocument pdf = load();
+        int totalPages = pdf.getNumberOfPages();
+        PDFTextStripper stripper = new PDFTextStripper();
+        stripper.setSortByPosition(true);
+        int groups = (totalPages + pagesPerDocument - 1) / pagesPerDocument;
+        return IntStream.range(0, groups)
+                .mapToObj(group -> {
+                    int startPage = group * pagesPerDocument + 1;
+                    int endPage = Math.min(totalPages, startPage + pagesPerDocument - 1);
+                    return extract(pdf, stripper, startPage, endPage, totalPages);
+                })
+                .onClose(() -> closeQuietly(pdf))
+                .filter(Objects::nonNull);
+    }
+
+    private PDDocument load() {
+        try {
+            if (resource.isFile()) {
+                return Loader.loadPDF(resource.getFile(), IOUtils.createTempFileOnlyStreamCache());
+            }
+            try (InputStream input = resource.getInputStream()) {
+                return Loader.loadPDF(new RandomAccessReadBuffer(input), IOUtils.createTempFileOnlyStreamCache());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to load pdf resource: " + resource.getDescription(), e);
+        }
+    }
+
+    /**
+     * 抽取指定页的文本，全部为空白时返回 null
+     */
+    private Document extract(PDDocument pdf, PDFTextStripper stripper, int startPage, int endPage, int totalPages) {
+        String text;
+        try {
+            stripper.setStartPage(startPage);
+            stripper.setEndPage(endPage);
+            text = stripper.getText(pdf);
+        } catch (IOException e) {
+            throw new UncheckedIOException(String.format("Failed to extract pdf pages %d-%d of %s",
+                    startPage, endPage, resource.getDescription()), e);
+        }
+        if (text.isBlank()) {
+            return null;
+        }
+        Map<String, Object> documentMetadata = new HashMap<>(metadata);
+        documentMetadata.put("page_number", startPage);
+        documentMetadata.put("end_page_number", endPage);
+        documentMetadata.put("total_pages", totalPages);
+        return new Document(text.strip(), documentMetadata);
+    }
+
+    private static void closeQuietly(PDDocument pdf) {
+        try {
+            pdf.close();
+        } catch (IOException ignored) {
+            // 只读资源，关闭失败不影响结果
+        }
+    }
+}
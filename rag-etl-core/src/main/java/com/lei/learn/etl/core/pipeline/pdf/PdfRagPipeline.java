@@ -0,0 +1,86 @@
+package com.lei.learn.etl.core.pipeline.pdf;
+
+import com.lei.learn.etl.core.pipeline.RagPipeline;
+import com.lei.learn.etl.core.pipeline.ResourceLoadingStage;
+import org.springframework.ai.document.DocumentReader;
+import org.springframework.core.io.Resource;
+import org.springframework.util.Assert;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * <p>
+ * PdfRagPipeline
+ * </p>
+ * PDF 入库，按页流式读取，见 {@link PdfPageReader}
+ *
+ * @author 伍磊
+ */
+public class PdfRagPipeline extends RagPipeline {
+
+    public final int pagesPerDocument;
+
+    private final Map<String, Object> additionalMetadata;
+
+    public PdfRagPipeline(PdfRagPipeline.Builder builder) {
+        this.pagesPerDocument = builder.pagesPerDocument;
+        this.additionalMetadata = new HashMap<>(builder.additionalMetadata);
+    }
+
+    @Override
+    protected String getPipelineType() {
+        return "pdf";
+    }
+
+    @Override
+    protected DocumentReader getReader() {
+        return getReader(super.resource);
+    }
+
+    @Override
+    protected DocumentReader getReader(Resource resource) {
+        return new PdfPageReader(resource, pagesPerDocument, additionalMetadata);
+    }
+
+    public static ResourceLoadingStage defaultConfig() {
+        return builder().build();
+    }
+
+    public static PdfRagPipeline.Builder builder() {
+        return new Builder();
+    }
+
+    public static final class Builder {
+
+        /**
+         * 每个文档包含的页数（默认 1）
+         */
+        private int pagesPerDocument = 1;
+
+        private Map<String, Object> additionalMetadata = new HashMap<>(4);
+
+        public PdfRagPipeline.Builder withPagesPerDocument(int pagesPerDocument) {
+            Assert.isTrue(pagesPerDocument > 0, "pagesPerDocument must be positive");
+            this.pagesPerDocument = pagesPerDocument;
+            return this;
+        }
+
+        public PdfRagPipeline.Builder withAdditionalMetadata(String key, Object value) {
+            Assert.notNull(key, "key must not be null");
+            Assert.notNull(value, "value must not be null");
+            this.additionalMetadata.put(key, value);
+            return this;
+        }
+
+        public PdfRagPipeline.Builder withAdditionalMetadata(Map<String, Object> additionalMetadata) {
+            Assert.notNull(additionalMetadata, "additionalMetadata must not be null");
+            this.additionalMetadata = additionalMetadata;
+            return this;
+        }
+
+        public ResourceLoadingStage build() {
+            return new PdfRagPipeline(this);
+        }
+    }
+}
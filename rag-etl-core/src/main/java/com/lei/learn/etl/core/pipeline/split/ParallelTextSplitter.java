@@ -0,0 +1,102 @@
+package com.lei.learn.etl.core.pipeline.split;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.transformer.splitter.TextSplitter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Supplier;
+
+/**
+ * <p>
+ * 在 ForkJoin 线程池上并行切分文档
+ * </p>
+ * 文档列表被递归二分后分发到池中的工作线程，每个工作线程通过 {@link ThreadLocal} 复用自己的
+ * {@link TextSplitter} 实例（例如 {@code TokenTextSplitter} 内部的 BPE 编码器），
+ * 合并时按原顺序拼接，输出的分块顺序和元数据与单线程 {@code splitter.apply(documents)} 一致。
+ * <p>
+ * 只有一个文档时（例如流式执行逐个切分）直接在调用线程上切分。
+ *
+ * @author 伍磊
+ */
+public class ParallelTextSplitter extends TextSplitter {
+
+    private final ThreadLocal<TextSplitter> splitters;
+
+    private final ForkJoinPool pool;
+
+    /**
+     * 每个子任务至少处理的文档数，避免任务过碎
+     */
+    private final int minDocumentsPerTask;
+
+    /**
+     * @param splitterFactory 创建切分器，每个线程调用一次
+     * @param pool            执行切分的线程池
+     */
+    public ParallelTextSplitter(Supplier<? extends TextSplitter> splitterFactory, ForkJoinPool pool) {
+        this(splitterFactory, pool, 1);
+    }
+
+    public ParallelTextSplitter(Supplier<? extends TextSplitter> splitterFactory, ForkJoinPool pool,
+                                int minDocumentsPerTask) {
+        if (null == splitterFactory) {
+            throw new IllegalArgumentException("Splitter factory must not be null");
+        }
+        if (null == pool) {
+            throw new IllegalArgumentException("ForkJoinPool must not be null");
+        }
+        if (minDocumentsPerTask <= 0) {
+            throw new IllegalArgumentException("minDocumentsPerTask must be positive");
+        }
+        this.splitters = ThreadLocal.withInitial(splitterFactory);
+        this.pool = pool;
+        this.minDocumentsPerTask = minDocumentsPerTask;
+    }
+
+    @Override
+    public List<Document> apply(List<Document> documents) {
+        if (documents.size() <= minDocumentsPerTask || pool.getParallelism() == 1) {
+            return splitters.get().apply(documents);
+        }
+        // 按并行度的 4 倍切分任务，兼顾负载均衡和任务开销
+        int threshold = Math.max(minDocumentsPerTask, documents.size() / (pool.getParallelism() * 4));
+        return pool.invoke(new SplitTask(documents, threshold));
+    }
+
+    @Override
+    protected List<String> splitText(String text) {
+        return apply(List.of(new Document(text))).stream().map(Document::getText).toList();
+    }
+
+    private final class SplitTask extends RecursiveTask<List<Document>> {
+
+        private final List<Document> documents;
+
+        private final int threshold;
+
+        private SplitTask(List<Document> documents, int threshold) {
+            this.documents = documents;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected List<Document> compute() {
+            if (documents.size() <= threshold) {
+                return splitters.get().apply(documents);
+            }
+            int middle = documents.size() / 2;
+            SplitTask left = new SplitTask(documents.subList(0, middle), threshold);
+            SplitTask right = new SplitTask(documents.subList(middle, documents.size()), threshold);
+            left.fork();
+            List<Document> rightChunks = right.compute();
+            List<Document> leftChunks = left.join();
+            List<Document> chunks = new ArrayList<>(leftChunks.size() + rightChunks.size());
+            chunks.addAll(leftChunks);
+            chunks.addAll(rightChunks);
+            return chunks;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.lei.learn.etl.core.pipeline.text;
+
+import com.lei.learn.etl.core.pipeline.RagPipeline;
+import com.lei.learn.etl.core.pipeline.ResourceLoadingStage;
+import org.springframework.ai.document.DocumentReader;
+import org.springframework.core.io.Resource;
+import org.springframework.util.Assert;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * <p>
+ * TextRagPipeline
+ * </p>
+ * 纯文本入库，按段落分段流式读取，见 {@link TextSectionReader}
+ *
+ * @author 伍磊
+ */
+public class TextRagPipeline extends RagPipeline {
+
+    public final Charset charset;
+
+    public final int sectionChars;
+
+    private final Map<String, Object> additionalMetadata;
+
+    public TextRagPipeline(TextRagPipeline.Builder builder) {
+        this.charset = builder.charset;
+        this.sectionChars = builder.sectionChars;
+        this.additionalMetadata = new HashMap<>(builder.additionalMetadata);
+    }
+
+    @Override
+    protected String getPipelineType() {
+        return "text";
+    }
+
+    @Override
+    protected DocumentReader getReader() {
+        return getReader(super.resource);
+    }
+
+    @Override
+    protected DocumentReader getReader(Resource resource) {
+        return new TextSectionReader(resource, charset, sectionChars, additionalMetadata);
+    }
+
+    public static ResourceLoadingStage defaultConfig() {
+        return builder().build();
+    }
+
+    public static TextRagPipeline.Builder builder() {
+        return new Builder();
+    }
+
+    public static final class Builder {
+
+        private Charset charset = StandardCharsets.UTF_8;
+
+        /**
+         * 每段的目标字符数（默认 4000）
+         */
+        private int sectionChars = 4000;
+
+        private Map<String, Object> additionalMetadata = new HashMap<>(4);
+
+        public TextRagPipeline.Builder withCharset(Charset charset) {
+            Assert.notNull(charset, "charset must not be null");
+            this.charset = charset;
+            return this;
+        }
+
+        public TextRagPipeline.Builder withSectionChars(int sectionChars) {
+            Assert.isTrue(sectionChars > 0, "sectionChars must be positive");
+            this.sectionChars = sectionChars;
+            return this;
+        }
+
+        public TextRagPipeline.Builder withAdditionalMetadata(String key, Object value) {
+            Assert.notNull(key, "key must not be null");
+            Assert.notNull(value, "value must not be null");
+            this.additionalMetadata.put(key, value);
+            return this;
+        }
+
+        public TextRagPipeline.Builder withAdditionalMetadata(Map<String, Object> additionalMetadata) {
+            Assert.notNull(additionalMetadata, "additionalMetadata must not be null");
+            this.additionalMetadata = additionalMetadata;
+            return this;
+        }
+
+        public ResourceLoadingStage build() {
+            return new TextRagPipeline(this);
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.lei.learn.etl.core.pipeline.text;
+
+import com.lei.learn.etl.core.pipeline.StreamingDocumentReader;
+import org.springframework.ai.document.Document;
+import org.springframework.core.io.Resource;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * <p>
+ * 按段落分段流式读取纯文本
+ * </p>
+ * 逐行读取，在空行处（段落边界）切段，每段累计到 {@code sectionChars} 个字符后输出一个文档；
+ * 没有空行的超长文本在 2 倍 {@code sectionChars} 处按行强制切段。任意时刻只在堆上保留一段。
+ *
+ * @author 伍磊
+ */
+public class TextSectionReader implements StreamingDocumentReader {
+
+    private final Resource resource;
+
+    private final Charset charset;
+
+    private final int sectionChars;
+
+    private final Map<String, Object> metadata;
+
+    public TextSectionReader(Resource resource, Charset charset, int sectionChars, Map<String, Object> metadata) {
+        if (null == resource) {
+            throw new IllegalArgumentException("Resource must not be null");
+        }
+        if (null == charset) {
+            throw new IllegalArgumentException("Charset must not be null");
+        }
+        if (sectionChars <= 0) {
+            throw new IllegalArgumentException("sectionChars must be positive");
+        }
+        this.resource = resource;
+        this.charset = charset;
+        this.sectionChars = sectionChars;
+        this.metadata = null != metadata ? Map.copyOf(metadata) : Map.of();
+    }
+
+    @Override
+    public Stream<Document> stream() {
+        BufferedReader reader;
+        try {
+            reader = new BufferedReader(new InputStreamReader(resource.getInputStream(), charset));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open text resource: " + resource.getDescription(), e);
+        }
+        Iterator<String> sections = new SectionIterator(reader, sectionChars);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(sections, Spliterator.ORDERED), false)
+                .onClose(() -> closeQuietly(reader))
+                .map(section -> new Document(section, new HashMap<>(metadata)));
+    }
+
+    private static void closeQuietly(BufferedReader reader) {
+        try {
+            reader.close();
+        } catch (IOException ignored) {
+            // 只读资源，关闭失败不影响结果
+        }
+    }
+
+    private static final class SectionIterator implements Iterator<String> {
+
+        private final BufferedReader reader;
+
+        private final int sectionChars;
+
+        private String next;
+
+        private boolean eof;
+
+        private SectionIterator(BufferedReader reader, int sectionChars) {
+            this.reader = reader;
+            this.sectionChars = sectionChars;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (next == null && !eof) {
+                next = readSection();
+            }
+            return next != null;
+        }
+
+        @Override
+        public String next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            String section = next;
+            next = null;
+            return section;
+        }
+
+        private String readSection() {
+            StringBuilder section = new StringBuilder();
+            try {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    boolean blank = line.isBlank();
+                    if (blank && section.length() >= sectionChars) {
+                        break;
+                    }
+                    section.append(line).append('\n');
+                    if (!blank && section.length() >= 2L * sectionChars) {
+                        break;
+                    }
+                }
+                if (line == null) {
+                    eof = true;
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to read text section", e);
+            }
+            String text = section.toString().strip();
+            return text.isEmpty() ? null : text;
+        }
+    }
+}
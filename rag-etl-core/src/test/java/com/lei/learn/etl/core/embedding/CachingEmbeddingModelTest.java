@@ -0,0 +1,155 @@
+package com.lei.learn.etl.core.embedding;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * <p>
+ * 向量缓存单元测试
+ * </p>
+ *
+ * @author 伍磊
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("向量缓存单元测试")
+class CachingEmbeddingModelTest {
+
+    @Mock
+    private EmbeddingModel mockDelegate;
+
+    /**
+     * 按文本长度生成确定性的向量
+     */
+    private void stubDelegate() {
+        when(mockDelegate.call(any(EmbeddingRequest.class))).thenAnswer(invocation -> {
+            EmbeddingRequest request = invocation.getArgument(0);
+            List<Embedding> embeddings = new ArrayList<>();
+            for (int i = 0; i < request.getInstructions().size(); i++) {
+                float length = request.getInstructions().get(i).length();
+                embeddings.add(new Embedding(new float[]{length, 1f, 2f}, i));
+            }
+            return new EmbeddingResponse(embeddings);
+        });
+    }
+
+    @Nested
+    @DisplayName("内存缓存测试")
+    class MemoryCacheTests {
+
+        @Test
+        @DisplayName("只把未命中的文本交给模型，批次内重复文本只请求一次")
+        void testOnlyMissesAreEmbedded() {
+            // Given
+            stubDelegate();
+            CachingEmbeddingModel model = CachingEmbeddingModel.builder(mockDelegate)
+                    .withCache(new LruEmbeddingCache(100))
+                    .build();
+            model.embed(List.of("license header"));
+
+            // When
+            List<float[]> vectors = model.embed(List.of("license header", "abc", "abc"));
+
+            // Then
+            ArgumentCaptor<EmbeddingRequest> captor = ArgumentCaptor.forClass(EmbeddingRequest.class);
+            verify(mockDelegate, times(2)).call(captor.capture());
+            assertThat(captor.getAllValues().get(1).getInstructions()).containsExactly("abc");
+            assertThat(vectors).hasSize(3);
+            assertThat(vectors.get(0)[0]).isEqualTo(14f);
+            assertThat(vectors.get(2)[0]).isEqualTo(3f);
+            assertThat(model.getHitCount()).isEqualTo(1);
+            assertThat(model.getMissCount()).isEqualTo(2);
+        }
+
+        @Test
+        @DisplayName("LRU 超出容量时淘汰最久未访问的条目")
+        void testLruEviction() {
+            // Given
+            LruEmbeddingCache cache = new LruEmbeddingCache(2);
+            cache.put("a", new float[]{1f});
+            cache.put("b", new float[]{2f});
+            cache.get("a");
+
+            // When
+            cache.put("c", new float[]{3f});
+
+            // Then
+            assertThat(cache.get("a")).isNotNull();
+            assertThat(cache.get("b")).isNull();
+            assertThat(cache.size()).isEqualTo(2);
+        }
+    }
+
+    @Nested
+    @DisplayName("磁盘缓存测试")
+    class DiskCacheTests {
+
+        @Test
+        @DisplayName("重新打开磁盘缓存后无需再次请求模型")
+        void testDiskCacheSurvivesReopen(@TempDir Path tempDir) throws IOException {
+            // Given
+            stubDelegate();
+            Path file = tempDir.resolve("embedding-cache.bin");
+            try (MappedFileEmbeddingCache disk = MappedFileEmbeddingCache.open(file)) {
+                CachingEmbeddingModel model = CachingEmbeddingModel.builder(mockDelegate)
+                        .withCache(disk)
+                        .build();
+                model.embed(List.of("hello", "world!"));
+            }
+
+            // When
+            List<float[]> vectors;
+            try (MappedFileEmbeddingCache disk = MappedFileEmbeddingCache.open(file)) {
+                LruEmbeddingCache memory = new LruEmbeddingCache(10);
+                CachingEmbeddingModel model = CachingEmbeddingModel.builder(mockDelegate)
+                        .withCache(memory)
+                        .withCache(disk)
+                        .build();
+                vectors = model.embed(List.of("world!", "hello"));
+
+                // Then
+                assertThat(disk.size()).isEqualTo(2);
+                assertThat(memory.size()).isEqualTo(2);
+            }
+            verify(mockDelegate, times(1)).call(any(EmbeddingRequest.class));
+            assertThat(vectors.get(0)).containsExactly(6f, 1f, 2f);
+            assertThat(vectors.get(1)).containsExactly(5f, 1f, 2f);
+        }
+
+        @Test
+        @DisplayName("不同模型名的缓存互不命中")
+        void testModelNameIsPartOfKey() {
+            // Given
+            stubDelegate();
+            LruEmbeddingCache cache = new LruEmbeddingCache(10);
+            CachingEmbeddingModel.builder(mockDelegate).withCache(cache).withModelName("v1").build()
+                    .embed(List.of("same text"));
+
+            // When
+            CachingEmbeddingModel.builder(mockDelegate).withCache(cache).withModelName("v2").build()
+                    .embed(List.of("same text"));
+
+            // Then
+            verify(mockDelegate, times(2)).call(any(EmbeddingRequest.class));
+            assertThat(cache.size()).isEqualTo(2);
+        }
+    }
+}
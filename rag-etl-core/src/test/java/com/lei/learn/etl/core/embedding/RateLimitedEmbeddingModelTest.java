@@ -0,0 +1,179 @@
+package com.lei.learn.etl.core.embedding;
+
+import com.lei.learn.etl.core.pipeline.batch.RetryPolicy;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+import org.springframework.ai.retry.NonTransientAiException;
+import org.springframework.ai.retry.TransientAiException;
+import org.springframework.ai.tokenizer.TokenCountEstimator;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * <p>
+ * 限流重试 EmbeddingModel 单元测试
+ * </p>
+ *
+ * @author 伍磊
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("限流重试 EmbeddingModel 单元测试")
+class RateLimitedEmbeddingModelTest {
+
+    private static final EmbeddingResponse RESPONSE =
+            new EmbeddingResponse(List.of(new Embedding(new float[]{1f}, 0)));
+
+    @Mock
+    private EmbeddingModel mockDelegate;
+
+    @Mock
+    private TokenCountEstimator mockEstimator;
+
+    @Nested
+    @DisplayName("重试测试")
+    class RetryTests {
+
+        @Test
+        @DisplayName("调用失败后按退避重试，成功后返回结果")
+        void testRetryUntilSuccess() {
+            // Given
+            when(mockDelegate.call(any(EmbeddingRequest.class)))
+                    .thenThrow(new TransientAiException("429 Too Many Requests"))
+                    .thenThrow(HttpClientErrorException.create(HttpStatus.TOO_MANY_REQUESTS, "Too Many Requests",
+                            HttpHeaders.EMPTY, null, null))
+                    .thenReturn(RESPONSE);
+            SimpleMeterRegistry registry = new SimpleMeterRegistry();
+            RateLimitedEmbeddingModel model = RateLimitedEmbeddingModel.builder(mockDelegate)
+                    .withRetry(RetryPolicy.of(3, Duration.ofMillis(1)))
+                    .withMeterRegistry(registry)
+                    .build();
+
+            // When
+            List<float[]> vectors = model.embed(List.of("hello"));
+
+            // Then
+            assertThat(vectors).hasSize(1);
+            verify(mockDelegate, times(3)).call(any(EmbeddingRequest.class));
+            assertThat(model.getRetryCount()).isEqualTo(2);
+            assertThat(registry.get(RateLimitedEmbeddingModel.RETRIES).counter().count()).isEqualTo(2d);
+        }
+
+        @Test
+        @DisplayName("达到最大尝试次数后抛出最后一次的异常")
+        void testRetryExhausted() {
+            // Given
+            when(mockDelegate.call(any(EmbeddingRequest.class))).thenThrow(new TransientAiException("quota exceeded"));
+            RateLimitedEmbeddingModel model = RateLimitedEmbeddingModel.builder(mockDelegate)
+                    .withRetry(RetryPolicy.of(2, Duration.ofMillis(1)))
+                    .build();
+
+            // When & Then
+            assertThatThrownBy(() -> model.embed(List.of("hello")))
+                    .isInstanceOf(TransientAiException.class)
+                    .hasMessage("quota exceeded");
+            verify(mockDelegate, times(2)).call(any(EmbeddingRequest.class));
+        }
+
+        @Test
+        @DisplayName("参数错误、鉴权失败等非暂时性异常不重试，直接抛出")
+        void testNonTransientNotRetried() {
+            // Given
+            when(mockDelegate.call(any(EmbeddingRequest.class)))
+                    .thenThrow(new NonTransientAiException("401 Unauthorized"));
+            RateLimitedEmbeddingModel model = RateLimitedEmbeddingModel.builder(mockDelegate)
+                    .withRetry(RetryPolicy.of(3, Duration.ofMillis(1)))
+                    .build();
+
+            // When & Then
+            assertThatThrownBy(() -> model.embed(List.of("hello")))
+                    .isInstanceOf(NonTransientAiException.class);
+            verify(mockDelegate, times(1)).call(any(EmbeddingRequest.class));
+            assertThat(model.getRetryCount()).isZero();
+        }
+
+        @Test
+        @DisplayName("按异常链识别限流与暂时性故障")
+        void testIsTransient() {
+            assertThat(RateLimitedEmbeddingModel.isTransient(new TransientAiException("busy"))).isTrue();
+            assertThat(RateLimitedEmbeddingModel.isTransient(new IllegalStateException(
+                    HttpServerErrorException.create(HttpStatus.SERVICE_UNAVAILABLE, "Unavailable",
+                            HttpHeaders.EMPTY, null, null)))).isTrue();
+            assertThat(RateLimitedEmbeddingModel.isTransient(new ResourceAccessException("timeout"))).isTrue();
+            assertThat(RateLimitedEmbeddingModel.isTransient(HttpClientErrorException.create(
+                    HttpStatus.BAD_REQUEST, "Bad Request", HttpHeaders.EMPTY, null, null))).isFalse();
+            assertThat(RateLimitedEmbeddingModel.isTransient(new NonTransientAiException("403 Forbidden"))).isFalse();
+            assertThat(RateLimitedEmbeddingModel.isTransient(new IllegalArgumentException("bad input"))).isFalse();
+        }
+    }
+
+    @Nested
+    @DisplayName("限流测试")
+    class RateLimitTests {
+
+        @Test
+        @DisplayName("超过每分钟请求数时等待配额，并上报等待耗时")
+        void testRequestsPerMinute() {
+            // Given: 每秒 10 个请求，桶容量 10，第 11、12 个请求各等待约 100ms
+            when(mockDelegate.call(any(EmbeddingRequest.class))).thenReturn(RESPONSE);
+            SimpleMeterRegistry registry = new SimpleMeterRegistry();
+            RateLimitedEmbeddingModel model = RateLimitedEmbeddingModel.builder(mockDelegate)
+                    .withRequestsPerMinute(600)
+                    .withMeterRegistry(registry)
+                    .build();
+
+            // When
+            for (int i = 0; i < 12; i++) {
+                model.embed("text " + i);
+            }
+
+            // Then
+            assertThat(model.getWaitNanos()).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(150));
+            assertThat(registry.get(RateLimitedEmbeddingModel.WAIT).tag("limit", "requests").timer().count())
+                    .isEqualTo(12);
+        }
+
+        @Test
+        @DisplayName("按估算 token 数限流，配额不足时等待补齐")
+        void testTokensPerMinute() {
+            // Given: 每秒 100 个 token，桶容量 100，token 数按字符数估算
+            when(mockDelegate.call(any(EmbeddingRequest.class))).thenReturn(RESPONSE);
+            when(mockEstimator.estimate(anyString())).thenAnswer(invocation -> invocation.<String>getArgument(0).length());
+            RateLimitedEmbeddingModel model = RateLimitedEmbeddingModel.builder(mockDelegate)
+                    .withTokensPerMinute(6000)
+                    .withTokenCountEstimator(mockEstimator)
+                    .build();
+
+            // When
+            model.embed("a".repeat(50));
+            long waitedBefore = model.getWaitNanos();
+            model.embed("b".repeat(100));
+
+            // Then: 第二次请求时桶内剩余约 50，欠 50 个 token，约等待 500ms
+            assertThat(waitedBefore).isZero();
+            assertThat(model.getWaitNanos()).isBetween(TimeUnit.MILLISECONDS.toNanos(400),
+                    TimeUnit.MILLISECONDS.toNanos(600));
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.lei.learn.etl.core.pipeline;
+
+import com.lei.learn.etl.core.pipeline.format.DocumentFormat;
+import com.lei.learn.etl.core.pipeline.jsonl.JsonLinesReader;
+import com.lei.learn.etl.core.pipeline.markdown.MarkdownRagPipeline;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.VectorStore;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+/**
+ * <p>
+ * MixedFormatRagPipeline 单元测试
+ * </p>
+ *
+ * @author 伍磊
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("MixedFormatRagPipeline 单元测试")
+class MixedFormatRagPipelineTest {
+
+    @Mock
+    private VectorStore mockVectorStore;
+
+    private static void writePdf(Path file, String... pages) throws IOException {
+        try (PDDocument pdf = new PDDocument()) {
+            PDType1Font font = new PDType1Font(Standard14Fonts.FontName.HELVETICA);
+            for (String text : pages) {
+                PDPage page = new PDPage();
+                pdf.addPage(page);
+                if (text.isEmpty()) {
+                    continue;
+                }
+                try (PDPageContentStream content = new PDPageContentStream(pdf, page)) {
+                    content.beginText();
+                    content.setFont(font, 12);
+                    content.newLineAtOffset(72, 700);
+                    content.showText(text);
+                    content.endText();
+                }
+            }
+            pdf.save(file.toFile());
+        }
+    }
+
+    @Nested
+    @DisplayName("格式识别测试")
+    class DetectTests {
+
+        @Test
+        @DisplayName("优先按扩展名识别")
+        void testDetectByExtension(@TempDir Path tempDir) throws IOException {
+            // Given
+            Path html = Files.writeString(tempDir.resolve("page.HTM"), "plain");
+
+            // When & Then
+            assertThat(DocumentFormat.detect(html)).contains(DocumentFormat.HTML);
+            assertThat(DocumentFormat.fromFilename("data.ndjson")).contains(DocumentFormat.JSONL);
+        }
+
+        @Test
+        @DisplayName("没有扩展名时嗅探文件头")
+        void testDetectByContent(@TempDir Path tempDir) throws IOException {
+            // Given
+            Path pdf = tempDir.resolve("report");
+            writePdf(pdf, "hello");
+            Path html = Files.writeString(tempDir.resolve("page"), "\uFEFF<!DOCTYPE html><html></html>");
+            Path jsonl = Files.writeString(tempDir.resolve("faq"), "{\"text\":\"问题\"}\n");
+
+            // When & Then
+            assertThat(DocumentFormat.detect(pdf)).contains(DocumentFormat.PDF);
+            assertThat(DocumentFormat.detect(html)).contains(DocumentFormat.HTML);
+            assertThat(DocumentFormat.detect(jsonl)).contains(DocumentFormat.JSONL);
+        }
+
+        @Test
+        @DisplayName("未知扩展名不嗅探，以 { 开头的 JSON 文件不会被当作 JSON Lines")
+        void testUnknownExtensionIsNotSniffed(@TempDir Path tempDir) throws IOException {
+            // Given
+            Path pdf = tempDir.resolve("report.bin");
+            writePdf(pdf, "hello");
+            Path json = Files.writeString(tempDir.resolve("config.json"), "{\n  \"name\": \"demo\"\n}\n");
+            Path unknown = Files.writeString(tempDir.resolve("notes.dat"), "plain text");
+
+            // When & Then
+            assertThat(DocumentFormat.detect(pdf)).isEmpty();
+            assertThat(DocumentFormat.detect(json)).isEmpty();
+            assertThat(DocumentFormat.detect(unknown)).isEmpty();
+        }
+    }
+
+    @Nested
+    @DisplayName("目录入库测试")
+    class DirectoryTests {
+
+        @Test
+        @DisplayName("一个目录中混合多种格式，按格式读取并跳过无法识别的文件")
+        void testIngestMixedDirectory(@TempDir Path tempDir) throws IOException {
+            // Given
+            Files.writeString(tempDir.resolve("guide.md"), "# 指南\n\n指南内容");
+            Files.writeString(tempDir.resolve("page.html"),
+                    "<html><head><title>页面</title></head><body><p>前言</p>"
+                            + "<h2>安装</h2><p>安装步骤</p><h2>配置</h2><p>配置说明</p></body></html>");
+            Files.writeString(tempDir.resolve("notes.txt"), "第一段\n\n第二段");
+            Files.writeString(tempDir.resolve("faq.jsonl"),
+                    "{\"text\":\"问题一\",\"tag\":\"a\",\"line\":\"L1\"}\n\nnot json\n{\"text\":\"问题二\",\"score\":2}\n");
+            writePdf(tempDir.resolve("manual.pdf"), "first page", "", "third page");
+            Files.writeString(tempDir.resolve("image.dat"), "binary");
+            List<Document> written = new CopyOnWriteArrayList<>();
+            doAnswer(invocation -> written.addAll(invocation.getArgument(0)))
+                    .when(mockVectorStore).add(any());
+
+            // When
+            IngestionResult result = MixedFormatRagPipeline.defaultConfig()
+                    .fromDirectory(tempDir, "*")
+                    .withTextSplitter(null)
+                    .toVectorStore(mockVectorStore);
+
+            // Then
+            assertThat(result.getFileCount()).isEqualTo(5);
+            assertThat(result.getFailedFileCount()).isZero();
+            assertThat(written).filteredOn(d -> "html".equals(d.getMetadata().get("file_type")))
+                    .extracting(d -> d.getMetadata().get("heading"))
+                    .containsExactly(null, "安装", "配置");
+            assertThat(written).filteredOn(d -> "pdf".equals(d.getMetadata().get("file_type")))
+                    .extracting(d -> d.getMetadata().get("page_number"))
+                    .containsExactly(1, 3);
+            assertThat(written).filteredOn(d -> "jsonl".equals(d.getMetadata().get("file_type")))
+                    .extracting(Document::getText, d -> d.getMetadata().get(JsonLinesReader.LINE),
+                            d -> d.getMetadata().get("line"))
+                    .containsExactly(tuple("问题一", 1, "L1"), tuple("问题二", 4, null));
+            assertThat(written).extracting(d -> d.getMetadata().get("file_type"))
+                    .contains("markdown", "text");
+        }
+
+        @Test
+        @DisplayName("流式执行不改写共享的子管道，之后的非流式执行不受影响")
+        void testStreamingDoesNotLeakIntoChildPipeline(@TempDir Path tempDir) throws IOException {
+            // Given
+            Files.writeString(tempDir.resolve("guide.md"), "# 指南\n\n指南内容");
+            RagPipeline markdown = (RagPipeline) MarkdownRagPipeline.defaultConfig();
+            ResourceLoadingStage pipeline = MixedFormatRagPipeline.builder()
+                    .withPipeline(DocumentFormat.MARKDOWN, markdown)
+                    .build();
+
+            // When
+            IngestionResult result = pipeline.fromDirectory(tempDir, "*")
+                    .withTextSplitter(null)
+                    .withStreaming(true)
+                    .toVectorStore(mockVectorStore);
+
+            // Then
+            assertThat(result.getFailedFileCount()).isZero();
+            assertThat(markdown.streaming).isFalse();
+        }
+
+        @Test
+        @DisplayName("未启用的格式不参与目录入库")
+        void testDisabledFormatIsSkipped(@TempDir Path tempDir) throws IOException {
+            // Given
+            Files.writeString(tempDir.resolve("guide.md"), "# 指南\n\n指南内容");
+            Files.writeString(tempDir.resolve("notes.txt"), "文本内容");
+
+            // When
+            IngestionResult result = MixedFormatRagPipeline.builder()
+                    .withoutFormat(DocumentFormat.TEXT)
+                    .build()
+                    .fromDirectory(tempDir, "*")
+                    .withTextSplitter(null)
+                    .toVectorStore(mockVectorStore);
+
+            // Then
+            assertThat(result.getFiles()).extracting(FileIngestionResult::path)
+                    .containsExactly(tempDir.resolve("guide.md").toAbsolutePath().toString());
+        }
+    }
+}
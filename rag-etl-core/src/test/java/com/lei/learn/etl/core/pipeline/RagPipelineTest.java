@@ -1,5 +1,14 @@
 package com.lei.learn.etl.core.pipeline;
 
+import com.lei.learn.etl.core.pipeline.batch.AdaptiveBatchSizer;
+import com.lei.learn.etl.core.pipeline.batch.BatchListener;
+import com.lei.learn.etl.core.pipeline.batch.DocumentBatch;
+import com.lei.learn.etl.core.pipeline.dedup.NearDuplicateFilter;
+import com.lei.learn.etl.core.pipeline.generation.GenerationRegistry;
+import com.lei.learn.etl.core.pipeline.incremental.IngestionManifest;
+import com.lei.learn.etl.core.pipeline.markdown.MarkdownRagPipeline;
+import com.lei.learn.etl.core.pipeline.metrics.IngestionMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
@@ -11,19 +20,28 @@ import org.springframework.ai.document.Document;
 import org.springframework.ai.document.DocumentReader;
 import org.springframework.ai.transformer.splitter.TextSplitter;
 import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.filter.Filter;
+import org.springframework.ai.vectorstore.filter.FilterExpressionBuilder;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.core.io.Resource;
 
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.*;
 
 /**
@@ -471,6 +489,168 @@ class RagPipelineTest {
         }
     }
 
+    @Nested
+    @DisplayName("并发写入测试")
+    class ConcurrentWriteTests {
+
+        @Test
+        @DisplayName("并发写入时所有批次都会写入")
+        void testConcurrentWriteAllBatches() {
+            // Given
+            List<Document> documents = createTestDocuments(95);
+            when(mockDocumentReader.get()).thenReturn(documents);
+
+            TestRagPipeline pipeline = new TestRagPipeline(mockDocumentReader, 10);
+
+            // When
+            pipeline.withWriteConcurrency(4).toVectorStore(mockVectorStore);
+
+            // Then
+            verify(mockVectorStore, times(10)).add(any());
+        }
+
+        @Test
+        @DisplayName("在途批次数不超过并发数")
+        void testInFlightBatchesBounded() {
+            // Given
+            List<Document> documents = createTestDocuments(40);
+            when(mockDocumentReader.get()).thenReturn(documents);
+
+            AtomicInteger inFlight = new AtomicInteger();
+            AtomicInteger maxInFlight = new AtomicInteger();
+            doAnswer(invocation -> {
+                int current = inFlight.incrementAndGet();
+                maxInFlight.accumulateAndGet(current, Math::max);
+                Thread.sleep(20);
+                inFlight.decrementAndGet();
+                return null;
+            }).when(mockVectorStore).add(any());
+
+            TestRagPipeline pipeline = new TestRagPipeline(mockDocumentReader, 2);
+
+            // When
+            pipeline.withWriteConcurrency(3).toVectorStore(mockVectorStore);
+
+            // Then
+            verify(mockVectorStore, times(20)).add(any());
+            assertThat(maxInFlight.get()).isBetween(1, 3);
+        }
+
+        @Test
+        @DisplayName("并发写入部分批次失败时按下标升序上报")
+        void testConcurrentPartialFailureReportsSortedIndices() {
+            // Given
+            List<Document> documents = createTestDocuments(50);
+            when(mockDocumentReader.get()).thenReturn(documents);
+
+            doAnswer(invocation -> {
+                List<Document> batch = invocation.getArgument(0);
+                String text = batch.getFirst().getText();
+                if (text.endsWith(" 10") || text.endsWith(" 30")) {
+                    throw new RuntimeException("Batch failed");
+                }
+                return null;
+            }).when(mockVectorStore).add(any());
+
+            TestRagPipeline pipeline = new TestRagPipeline(mockDocumentReader, 10);
+
+            // When & Then
+            assertThatThrownBy(() -> pipeline.withWriteConcurrency(5).toVectorStore(mockVectorStore))
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasMessageContaining("2 个批次失败")
+                    .hasMessageContaining("[10, 30]");
+        }
+
+        @Test
+        @DisplayName("并发数小于 1 应抛出异常")
+        void testInvalidWriteConcurrency() {
+            // Given
+            TestRagPipeline pipeline = new TestRagPipeline(mockDocumentReader);
+
+            // When & Then
+            assertThatThrownBy(() -> pipeline.withWriteConcurrency(0))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessageContaining("Write concurrency must be positive");
+        }
+    }
+
+    @Nested
+    @DisplayName("流式执行测试")
+    class StreamingTests {
+
+        @Test
+        @DisplayName("流式执行逐个文档切分并按批写入")
+        void testStreamingSplitsPerDocument() {
+            // Given
+            List<Document> documents = createTestDocuments(3);
+            when(mockDocumentReader.get()).thenReturn(documents);
+            when(mockTextSplitter.apply(any())).thenAnswer(invocation -> {
+                List<Document> input = invocation.getArgument(0);
+                return createTestDocuments(4 * input.size());
+            });
+
+            TestRagPipeline pipeline = new TestRagPipeline(mockDocumentReader, 5);
+
+            // When
+            pipeline.withTextSplitter(mockTextSplitter)
+                    .withStreaming(true)
+                    .toVectorStore(mockVectorStore);
+
+            // Then: 3 个文档各自切分为 4 个分块，共 12 个分块 -> 3 批
+            verify(mockTextSplitter, times(3)).apply(any());
+            verify(mockVectorStore, times(3)).add(any());
+        }
+
+        @Test
+        @DisplayName("流式执行优先使用 StreamingDocumentReader 按需读取")
+        void testStreamingUsesStreamingReader() {
+            // Given
+            AtomicInteger pulled = new AtomicInteger();
+            StreamingDocumentReader streamingReader = () -> Stream.generate(() -> {
+                int i = pulled.incrementAndGet();
+                return new Document("Streamed content " + i);
+            }).limit(7);
+
+            TestRagPipeline pipeline = new TestRagPipeline(streamingReader, 3);
+
+            // When
+            pipeline.withStreaming(true).toVectorStore(mockVectorStore);
+
+            // Then
+            assertThat(pulled.get()).isEqualTo(7);
+            verify(mockVectorStore, times(3)).add(any());
+        }
+
+        @Test
+        @DisplayName("流式执行没有文档时应抛出异常")
+        void testStreamingWithEmptyDocuments() {
+            // Given
+            StreamingDocumentReader streamingReader = Stream::empty;
+            TestRagPipeline pipeline = new TestRagPipeline(streamingReader);
+
+            // When & Then
+            assertThatThrownBy(() -> pipeline.withStreaming(true).toVectorStore(mockVectorStore))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessageContaining("not found document");
+        }
+
+        @Test
+        @DisplayName("流式执行部分批次失败应抛出异常")
+        void testStreamingPartialBatchFailure() {
+            // Given
+            List<Document> documents = createTestDocuments(20);
+            when(mockDocumentReader.get()).thenReturn(documents);
+            doNothing().doThrow(new RuntimeException("Batch failed")).when(mockVectorStore).add(any());
+
+            TestRagPipeline pipeline = new TestRagPipeline(mockDocumentReader, 10);
+
+            // When & Then
+            assertThatThrownBy(() -> pipeline.withStreaming(true).toVectorStore(mockVectorStore))
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasMessageContaining("索引：[10]");
+        }
+    }
+
     @Nested
     @DisplayName("链式调用测试")
     class ChainingTests {
@@ -571,6 +751,562 @@ class RagPipelineTest {
         }
     }
 
+    @Nested
+    @DisplayName("批次大小配置测试")
+    class BatchSizeConfigTests {
+
+        @Test
+        @DisplayName("withBatchSize 覆盖默认批次大小")
+        void testWithBatchSize() {
+            // Given
+            List<Document> documents = createTestDocuments(30);
+            when(mockDocumentReader.get()).thenReturn(documents);
+
+            RagPipeline pipeline = new RagPipeline() {
+                @Override
+                protected DocumentReader getReader() {
+                    return mockDocumentReader;
+                }
+            };
+
+            // When
+            IngestionResult result = pipeline.withBatchSize(15).toVectorStore(mockVectorStore);
+
+            // Then
+            verify(mockVectorStore, times(2)).add(any());
+            assertThat(result.getBatchCount()).isEqualTo(2);
+            assertThat(result.getChunkCount()).isEqualTo(30);
+            assertThat(result.getDocumentCount()).isEqualTo(30);
+            assertThat(result.getBatchTokenBudget()).isNull();
+        }
+
+        @Test
+        @DisplayName("批次大小小于 1 应抛出异常")
+        void testInvalidBatchSize() {
+            // Given
+            TestRagPipeline pipeline = new TestRagPipeline(mockDocumentReader);
+
+            // When & Then
+            assertThatThrownBy(() -> pipeline.withBatchSize(0))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessageContaining("Batch size must be positive");
+        }
+
+        @Test
+        @DisplayName("自适应批次按 token 预算切分并上报最终预算")
+        void testAdaptiveBatchSizer() {
+            // Given: 每个文档约 4 token
+            List<Document> documents = createTestDocuments(30);
+            when(mockDocumentReader.get()).thenReturn(documents);
+
+            AdaptiveBatchSizer sizer = AdaptiveBatchSizer.builder()
+                    .withInitialTokens(20)
+                    .withMinTokens(10)
+                    .withMaxTokens(40)
+                    .withStepTokens(10)
+                    .build();
+            TestRagPipeline pipeline = new TestRagPipeline(mockDocumentReader);
+
+            // When
+            IngestionResult result = pipeline.withBatchSizer(sizer).toVectorStore(mockVectorStore);
+
+            // Then: 预算随成功写入增长，批次数少于固定 5 个一批的 6 批
+            assertThat(result.getChunkCount()).isEqualTo(30);
+            assertThat(result.getBatchCount()).isLessThan(6);
+            assertThat(result.getBatchTokenBudget()).isEqualTo(40L);
+        }
+    }
+
+    @Nested
+    @DisplayName("批次回调测试")
+    class BatchListenerTests {
+
+        @Test
+        @DisplayName("每个批次写入后回调 listener")
+        void testBatchListenerReceivesProgress() {
+            // Given
+            when(mockDocumentReader.get()).thenReturn(createTestDocuments(25));
+            doThrow(new RuntimeException("写入失败"))
+                    .doNothing()
+                    .when(mockVectorStore).add(any());
+            AtomicInteger succeededChunks = new AtomicInteger();
+            AtomicInteger failedBatches = new AtomicInteger();
+            BatchListener listener = new BatchListener() {
+                @Override
+                public void onSuccess(DocumentBatch batch, long elapsedNanos) {
+                    succeededChunks.addAndGet(batch.size());
+                }
+
+                @Override
+                public void onFailure(DocumentBatch batch, Exception error) {
+                    failedBatches.incrementAndGet();
+                }
+            };
+            TestRagPipeline pipeline = new TestRagPipeline(mockDocumentReader);
+
+            // When
+            assertThatThrownBy(() -> pipeline.withBatchListener(listener).toVectorStore(mockVectorStore))
+                    .isInstanceOf(IllegalStateException.class);
+
+            // Then
+            assertThat(failedBatches.get()).isEqualTo(1);
+            assertThat(succeededChunks.get()).isEqualTo(15);
+        }
+    }
+
+    @Nested
+    @DisplayName("断点续传与重试测试")
+    class CheckpointTests {
+
+        @Test
+        @DisplayName("resume 只重新写入失败的批次，全部成功后删除断点文件")
+        @SuppressWarnings("unchecked")
+        void testResumeRetriesOnlyFailedBatches(@TempDir Path tempDir) throws IOException {
+            // Given: 30 个分块、3 个批次，第二个批次失败
+            Path source = Files.writeString(tempDir.resolve("doc.md"), "# doc");
+            Path checkpointFile = tempDir.resolve("doc.checkpoint.json");
+            List<Document> documents = createTestDocuments(30);
+            when(mockDocumentReader.get()).thenReturn(documents);
+            List<List<Document>> written = new ArrayList<>();
+            doAnswer(invocation -> written.add(invocation.getArgument(0))).when(mockVectorStore).add(any());
+            doThrow(new RuntimeException("429 Too Many Requests"))
+                    .when(mockVectorStore).add(argThat(batch -> batch.contains(documents.get(10))));
+            TestRagPipeline pipeline = new TestRagPipeline(mockDocumentReader);
+            pipeline.fromFile(source.toFile()).withTextSplitter(null).withCheckpoint(checkpointFile);
+
+            assertThatThrownBy(() -> pipeline.toVectorStore(mockVectorStore))
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasMessageContaining("resume()");
+            assertThat(checkpointFile).exists();
+
+            // When
+            reset(mockVectorStore);
+            written.clear();
+            doAnswer(invocation -> written.add(invocation.getArgument(0))).when(mockVectorStore).add(any());
+            IngestionResult result = pipeline.resume(mockVectorStore);
+
+            // Then
+            assertThat(written).singleElement()
+                    .satisfies(batch -> assertThat(batch).containsExactlyElementsOf(documents.subList(10, 20)));
+            assertThat(result.getChunkCount()).isEqualTo(10);
+            assertThat(result.getResumedChunkCount()).isEqualTo(20);
+            assertThat(checkpointFile).doesNotExist();
+        }
+
+        @Test
+        @DisplayName("源文件在断点之后被修改时拒绝续传")
+        void testResumeRejectsChangedSource(@TempDir Path tempDir) throws IOException {
+            // Given
+            Path source = Files.writeString(tempDir.resolve("doc.md"), "# v1");
+            Path checkpointFile = tempDir.resolve("doc.checkpoint.json");
+            when(mockDocumentReader.get()).thenReturn(createTestDocuments(10));
+            doThrow(new RuntimeException("写入失败")).when(mockVectorStore).add(any());
+            TestRagPipeline pipeline = new TestRagPipeline(mockDocumentReader);
+            pipeline.fromFile(source.toFile()).withTextSplitter(null).withCheckpoint(checkpointFile);
+            assertThatThrownBy(() -> pipeline.toVectorStore(mockVectorStore))
+                    .isInstanceOf(IllegalStateException.class);
+            Files.writeString(source, "# v2");
+
+            // When & Then
+            assertThatThrownBy(() -> pipeline.resume(mockVectorStore))
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasMessageContaining("source changed");
+        }
+
+        @Test
+        @DisplayName("瞬时失败按退避重试后成功")
+        void testRetryRecoversTransientFailure() {
+            // Given
+            when(mockDocumentReader.get()).thenReturn(createTestDocuments(20));
+            doThrow(new RuntimeException("429 Too Many Requests"))
+                    .doNothing()
+                    .when(mockVectorStore).add(any());
+            TestRagPipeline pipeline = new TestRagPipeline(mockDocumentReader);
+
+            // When
+            IngestionResult result = pipeline.withRetry(3, Duration.ofMillis(1)).toVectorStore(mockVectorStore);
+
+            // Then
+            assertThat(result.getChunkCount()).isEqualTo(20);
+            verify(mockVectorStore, times(3)).add(any());
+        }
+    }
+
+    @Nested
+    @DisplayName("原子入库测试")
+    class AtomicIngestionTests {
+
+        private final FilterExpressionBuilder b = new FilterExpressionBuilder();
+
+        @Test
+        @DisplayName("全部批次成功后切换生效代次并删除旧代次")
+        void testActivateGenerationOnSuccess(@TempDir Path tempDir) throws IOException {
+            // Given
+            Path source = Files.writeString(tempDir.resolve("doc.md"), "# doc");
+            String sourceKey = source.toFile().getAbsolutePath();
+            GenerationRegistry registry = GenerationRegistry.inMemory();
+            registry.activate(sourceKey, "old");
+            when(mockDocumentReader.get()).thenReturn(createTestDocuments(20));
+            List<Document> written = new CopyOnWriteArrayList<>();
+            doAnswer(invocation -> written.addAll(invocation.getArgument(0))).when(mockVectorStore).add(any());
+            TestRagPipeline pipeline = new TestRagPipeline(mockDocumentReader);
+
+            // When
+            IngestionResult result = pipeline.fromFile(source.toFile())
+                    .withTextSplitter(null)
+                    .withAtomicIngestion(registry)
+                    .toVectorStore(mockVectorStore);
+
+            // Then
+            String generation = result.getGeneration();
+            assertThat(generation).isNotNull().isNotEqualTo("old");
+            assertThat(registry.get(sourceKey)).contains(generation);
+            assertThat(written).hasSize(20).allSatisfy(d -> {
+                assertThat(d.getMetadata()).containsEntry(GenerationRegistry.SOURCE_KEY, sourceKey);
+                assertThat(d.getMetadata()).containsEntry(GenerationRegistry.GENERATION, generation);
+            });
+            verify(mockVectorStore).delete(b.and(b.eq(GenerationRegistry.SOURCE_KEY, sourceKey),
+                    b.in(GenerationRegistry.GENERATION, "old")).build());
+            assertThat(registry.hiddenSize()).isZero();
+        }
+
+        @Test
+        @DisplayName("失败后再次成功入库时清理回滚遗留的代次并解除屏蔽")
+        void testReleaseRolledBackGenerationsOnSuccess(@TempDir Path tempDir) throws IOException {
+            // Given: 第一次写入失败且回滚删除失败，遗留的代次保持屏蔽
+            Path source = Files.writeString(tempDir.resolve("doc.md"), "# doc");
+            String sourceKey = source.toFile().getAbsolutePath();
+            GenerationRegistry registry = GenerationRegistry.inMemory();
+            when(mockDocumentReader.get()).thenReturn(createTestDocuments(5));
+            List<Document> written = new CopyOnWriteArrayList<>();
+            AtomicBoolean failing = new AtomicBoolean(true);
+            doAnswer(invocation -> {
+                written.addAll(invocation.getArgument(0));
+                if (failing.get()) {
+                    throw new RuntimeException("写入失败");
+                }
+                return null;
+            }).when(mockVectorStore).add(any());
+            doThrow(new RuntimeException("删除失败")).doNothing()
+                    .when(mockVectorStore).delete(any(Filter.Expression.class));
+            TestRagPipeline pipeline = new TestRagPipeline(mockDocumentReader);
+            pipeline.fromFile(source.toFile()).withTextSplitter(null).withAtomicIngestion(registry);
+            assertThatThrownBy(() -> pipeline.toVectorStore(mockVectorStore))
+                    .isInstanceOf(IllegalStateException.class);
+            String failed = (String) written.get(0).getMetadata().get(GenerationRegistry.GENERATION);
+            assertThat(registry.hiddenSize()).isEqualTo(1);
+            failing.set(false);
+
+            // When
+            IngestionResult result = pipeline.toVectorStore(mockVectorStore);
+
+            // Then
+            assertThat(registry.get(sourceKey)).contains(result.getGeneration());
+            verify(mockVectorStore).delete(b.and(b.eq(GenerationRegistry.SOURCE_KEY, sourceKey),
+                    b.in(GenerationRegistry.GENERATION, failed)).build());
+            assertThat(registry.hiddenSize()).isZero();
+            assertThat(registry.activeFilter()).isNull();
+        }
+
+        @Test
+        @DisplayName("有批次失败时删除本次写入的代次，生效代次保持不变")
+        void testRollbackGenerationOnFailure(@TempDir Path tempDir) throws IOException {
+            // Given
+            Path source = Files.writeString(tempDir.resolve("doc.md"), "# doc");
+            String sourceKey = source.toFile().getAbsolutePath();
+            GenerationRegistry registry = GenerationRegistry.inMemory();
+            registry.activate(sourceKey, "old");
+            when(mockDocumentReader.get()).thenReturn(createTestDocuments(30));
+            List<Document> written = new CopyOnWriteArrayList<>();
+            doAnswer(invocation -> {
+                List<Document> batch = invocation.getArgument(0);
+                if (batch.stream().anyMatch(d -> "Test content 10".equals(d.getText()))) {
+                    throw new RuntimeException("写入失败");
+                }
+                return written.addAll(batch);
+            }).when(mockVectorStore).add(any());
+            TestRagPipeline pipeline = new TestRagPipeline(mockDocumentReader);
+            pipeline.fromFile(source.toFile()).withTextSplitter(null).withAtomicIngestion(registry);
+
+            // When & Then
+            assertThatThrownBy(() -> pipeline.toVectorStore(mockVectorStore))
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasMessageContaining("已删除本次写入的代次");
+            String generation = (String) written.get(0).getMetadata().get(GenerationRegistry.GENERATION);
+            verify(mockVectorStore).delete(b.and(b.eq(GenerationRegistry.SOURCE_KEY, sourceKey),
+                    b.eq(GenerationRegistry.GENERATION, generation)).build());
+            assertThat(registry.get(sourceKey)).contains("old");
+        }
+
+        @Test
+        @DisplayName("写入期间新代次被检索过滤条件屏蔽，切换并删除旧代次后解除屏蔽")
+        void testHideGenerationWhileWriting(@TempDir Path tempDir) throws IOException {
+            // Given
+            Path source = Files.writeString(tempDir.resolve("doc.md"), "# doc");
+            String sourceKey = source.toFile().getAbsolutePath();
+            GenerationRegistry registry = GenerationRegistry.inMemory();
+            registry.activate(sourceKey, "old");
+            when(mockDocumentReader.get()).thenReturn(createTestDocuments(5));
+            List<Filter.Expression> filters = new CopyOnWriteArrayList<>();
+            List<Document> written = new CopyOnWriteArrayList<>();
+            doAnswer(invocation -> {
+                filters.add(registry.activeFilter());
+                return written.addAll(invocation.getArgument(0));
+            }).when(mockVectorStore).add(any());
+            TestRagPipeline pipeline = new TestRagPipeline(mockDocumentReader);
+
+            // When
+            IngestionResult result = pipeline.fromFile(source.toFile())
+                    .withTextSplitter(null)
+                    .withAtomicIngestion(registry)
+                    .toVectorStore(mockVectorStore);
+
+            // Then
+            assertThat(filters).containsOnly(b.nin(GenerationRegistry.GENERATION, result.getGeneration()).build());
+            assertThat(registry.activeFilter()).isNull();
+        }
+
+        @Test
+        @DisplayName("回滚删除失败时本次写入的代次保持屏蔽")
+        void testKeepGenerationHiddenWhenRollbackFails(@TempDir Path tempDir) throws IOException {
+            // Given
+            Path source = Files.writeString(tempDir.resolve("doc.md"), "# doc");
+            GenerationRegistry registry = GenerationRegistry.inMemory();
+            when(mockDocumentReader.get()).thenReturn(createTestDocuments(5));
+            List<Document> written = new CopyOnWriteArrayList<>();
+            doAnswer(invocation -> {
+                List<Document> batch = invocation.getArgument(0);
+                written.addAll(batch);
+                throw new RuntimeException("写入失败");
+            }).when(mockVectorStore).add(any());
+            doThrow(new RuntimeException("删除失败")).when(mockVectorStore).delete(any(Filter.Expression.class));
+            TestRagPipeline pipeline = new TestRagPipeline(mockDocumentReader);
+            pipeline.fromFile(source.toFile()).withTextSplitter(null).withAtomicIngestion(registry);
+
+            // When
+            assertThatThrownBy(() -> pipeline.toVectorStore(mockVectorStore))
+                    .isInstanceOf(IllegalStateException.class);
+
+            // Then
+            String generation = (String) written.get(0).getMetadata().get(GenerationRegistry.GENERATION);
+            assertThat(registry.activeFilter()).isEqualTo(b.nin(GenerationRegistry.GENERATION, generation).build());
+        }
+
+        @Test
+        @DisplayName("原子入库不能与增量清单同时使用")
+        void testRejectsManifest(@TempDir Path tempDir) throws IOException {
+            // Given
+            Path source = Files.writeString(tempDir.resolve("doc.md"), "# doc");
+            TestRagPipeline pipeline = new TestRagPipeline(mockDocumentReader);
+            pipeline.fromFile(source.toFile())
+                    .withTextSplitter(null)
+                    .withManifest(IngestionManifest.inMemory())
+                    .withAtomicIngestion(GenerationRegistry.inMemory());
+
+            // When & Then
+            assertThatThrownBy(() -> pipeline.toVectorStore(mockVectorStore))
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasMessageContaining("Atomic ingestion");
+        }
+    }
+
+    @Nested
+    @DisplayName("入库指标测试")
+    class MetricsTests {
+
+        @Test
+        @DisplayName("上报批次写入耗时、失败批次、分块数与字节数")
+        void testMetricsAreRecorded(@TempDir Path tempDir) throws IOException {
+            // Given
+            Path source = Files.writeString(tempDir.resolve("doc.md"), "# doc\n\ncontent");
+            when(mockDocumentReader.get()).thenReturn(createTestDocuments(25));
+            doThrow(new RuntimeException("写入失败"))
+                    .doNothing()
+                    .when(mockVectorStore).add(any());
+            SimpleMeterRegistry registry = new SimpleMeterRegistry();
+            TestRagPipeline pipeline = new TestRagPipeline(mockDocumentReader);
+            pipeline.fromFile(source.toFile()).withTextSplitter(null).withMeterRegistry(registry);
+
+            // When
+            assertThatThrownBy(() -> pipeline.toVectorStore(mockVectorStore))
+                    .isInstanceOf(IllegalStateException.class);
+
+            // Then
+            String type = TestRagPipeline.class.getSimpleName();
+            assertThat(registry.get(IngestionMetrics.BATCH_WRITE).tag("pipeline", type).timer().count())
+                    .isEqualTo(2);
+            assertThat(registry.get(IngestionMetrics.BATCHES_FAILED).counter().count()).isEqualTo(1);
+            assertThat(registry.get(IngestionMetrics.CHUNKS).counter().count()).isEqualTo(25);
+            assertThat(registry.get(IngestionMetrics.BYTES).counter().count()).isEqualTo(Files.size(source));
+            assertThat(registry.get(IngestionMetrics.READ).timer().count()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("结果中包含分阶段耗时")
+        void testStageTimingsInResult(@TempDir Path tempDir) throws IOException {
+            // Given
+            Path source = Files.writeString(tempDir.resolve("doc.md"), "# doc");
+            when(mockDocumentReader.get()).thenReturn(createTestDocuments(5));
+            TestRagPipeline pipeline = new TestRagPipeline(mockDocumentReader);
+
+            // When
+            IngestionResult result = pipeline.fromFile(source.toFile())
+                    .withTextSplitter(null)
+                    .toVectorStore(mockVectorStore);
+
+            // Then
+            assertThat(result.getBytesProcessed()).isEqualTo(Files.size(source));
+            assertThat(result.getTotalTimeMs()).isGreaterThanOrEqualTo(result.getReadTimeMs());
+            assertThat(result.getChunksPerSecond()).isPositive();
+        }
+    }
+
+    @Nested
+    @DisplayName("目录入库测试")
+    class DirectoryIngestionTests {
+
+        private Path createDocsTree(Path root) throws IOException {
+            Files.createDirectories(root.resolve("guide/advanced"));
+            Files.writeString(root.resolve("index.md"), "# 首页\n\n首页内容");
+            Files.writeString(root.resolve("guide/start.md"), "# 开始\n\n开始内容");
+            Files.writeString(root.resolve("guide/advanced/tuning.md"), "# 调优\n\n调优内容");
+            Files.writeString(root.resolve("guide/notes.txt"), "not markdown");
+            return root;
+        }
+
+        @Test
+        @DisplayName("递归匹配文件名并汇总每个文件的结果")
+        @SuppressWarnings("unchecked")
+        void testIngestDirectoryByFileName(@TempDir Path tempDir) throws IOException {
+            // Given
+            Path root = createDocsTree(tempDir);
+            List<Document> written = new CopyOnWriteArrayList<>();
+            doAnswer(invocation -> written.addAll(invocation.getArgument(0)))
+                    .when(mockVectorStore).add(any());
+
+            // When
+            IngestionResult result = MarkdownRagPipeline.defaultConfig()
+                    .fromDirectory(root, "*.md")
+                    .withTextSplitter(null)
+                    .withFileConcurrency(2)
+                    .toVectorStore(mockVectorStore);
+
+            // Then
+            assertThat(result.getFileCount()).isEqualTo(3);
+            assertThat(result.getFailedFileCount()).isZero();
+            assertThat(result.getFiles()).allMatch(FileIngestionResult::isSuccess);
+            assertThat(result.getChunkCount()).isEqualTo(3);
+            assertThat(written).extracting(d -> d.getMetadata().get("filename"))
+                    .containsExactlyInAnyOrder("index.md", "start.md", "tuning.md");
+        }
+
+        @Test
+        @DisplayName("包含 '/' 的 glob 匹配相对路径")
+        void testIngestDirectoryByRelativePath(@TempDir Path tempDir) throws IOException {
+            // Given
+            Path root = createDocsTree(tempDir);
+
+            // When
+            IngestionResult result = MarkdownRagPipeline.defaultConfig()
+                    .fromDirectory(root, "guide/*.md")
+                    .withTextSplitter(null)
+                    .toVectorStore(mockVectorStore);
+
+            // Then
+            assertThat(result.getFiles()).extracting(FileIngestionResult::path)
+                    .containsExactly(root.resolve("guide/start.md").toAbsolutePath().toString());
+        }
+
+        @Test
+        @DisplayName("单个文件失败不影响其他文件")
+        void testFailedFileIsReported(@TempDir Path tempDir) throws IOException {
+            // Given
+            Path root = createDocsTree(tempDir);
+            doAnswer(invocation -> {
+                List<Document> batch = invocation.getArgument(0);
+                if (batch.stream().anyMatch(d -> "start.md".equals(d.getMetadata().get("filename")))) {
+                    throw new RuntimeException("写入失败");
+                }
+                return null;
+            }).when(mockVectorStore).add(any());
+
+            // When
+            IngestionResult result = MarkdownRagPipeline.defaultConfig()
+                    .fromDirectory(root, "*.md")
+                    .withTextSplitter(null)
+                    .toVectorStore(mockVectorStore);
+
+            // Then
+            assertThat(result.getFileCount()).isEqualTo(3);
+            assertThat(result.getFailedFileCount()).isEqualTo(1);
+            assertThat(result.getChunkCount()).isEqualTo(2);
+            assertThat(result.getFiles()).filteredOn(f -> !f.isSuccess())
+                    .singleElement()
+                    .satisfies(f -> assertThat(f.path()).endsWith("start.md"));
+        }
+
+        @Test
+        @DisplayName("启用去重时跨文件的重复分块只写入一次")
+        void testDeduplicateAcrossFiles(@TempDir Path tempDir) throws IOException {
+            // Given: v1、v2 两份文档内容相同
+            String content = "# 安装\n\n下载安装包，解压后执行 bin/start.sh 启动服务，默认监听 8080 端口。";
+            Files.writeString(tempDir.resolve("v1.md"), content);
+            Files.writeString(tempDir.resolve("v2.md"), content);
+            Files.writeString(tempDir.resolve("faq.md"), "# 常见问题\n\n端口被占用时修改 server.port 配置后重启。");
+            List<Document> written = new CopyOnWriteArrayList<>();
+            doAnswer(invocation -> written.addAll(invocation.getArgument(0)))
+                    .when(mockVectorStore).add(any());
+
+            // When
+            IngestionResult result = MarkdownRagPipeline.defaultConfig()
+                    .fromDirectory(tempDir, "*.md")
+                    .withTextSplitter(null)
+                    .withDeduplication(() -> NearDuplicateFilter.builder().build())
+                    .toVectorStore(mockVectorStore);
+
+            // Then
+            assertThat(result.getDuplicateChunkCount()).isEqualTo(1);
+            assertThat(written).hasSize(2);
+            assertThat(written).extracting(Document::getText).doesNotHaveDuplicates();
+        }
+
+        @Test
+        @DisplayName("去重不能与增量清单或原子入库同时使用，避免代表分块所在文件被替换时带走重复内容")
+        void testDeduplicationRejectsManifestAndAtomic(@TempDir Path tempDir) throws IOException {
+            // Given
+            Files.writeString(tempDir.resolve("v1.md"), "# 安装");
+            VectorStoringStage incremental = MarkdownRagPipeline.defaultConfig()
+                    .fromDirectory(tempDir, "*.md")
+                    .withTextSplitter(null)
+                    .withManifest(IngestionManifest.inMemory())
+                    .withDeduplication(() -> NearDuplicateFilter.builder().build());
+            VectorStoringStage atomic = MarkdownRagPipeline.defaultConfig()
+                    .fromDirectory(tempDir, "*.md")
+                    .withTextSplitter(null)
+                    .withAtomicIngestion(GenerationRegistry.inMemory())
+                    .withDeduplication(() -> NearDuplicateFilter.builder().build());
+
+            // When & Then
+            assertThatThrownBy(() -> incremental.toVectorStore(mockVectorStore))
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasMessageContaining("Deduplication cannot be combined");
+            assertThatThrownBy(() -> atomic.toVectorStore(mockVectorStore))
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasMessageContaining("Deduplication cannot be combined");
+            verify(mockVectorStore, never()).add(any());
+        }
+
+        @Test
+        @DisplayName("目录不存在应抛出异常")
+        void testFromDirectoryWithMissingDirectory(@TempDir Path tempDir) {
+            // When & Then
+            assertThatThrownBy(() -> MarkdownRagPipeline.defaultConfig()
+                    .fromDirectory(tempDir.resolve("missing"), "*.md"))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessageContaining("Directory does not exist");
+        }
+    }
+
     /**
      * 创建测试用的文档列表
      */
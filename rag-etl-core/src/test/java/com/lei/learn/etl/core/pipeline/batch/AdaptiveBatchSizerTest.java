@@ -0,0 +1,154 @@
+package com.lei.learn.etl.core.pipeline.batch;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.document.Document;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * <p>
+ * AdaptiveBatchSizer 单元测试
+ * </p>
+ *
+ * @author 伍磊
+ */
+@DisplayName("AdaptiveBatchSizer 单元测试")
+class AdaptiveBatchSizerTest {
+
+    private static final DocumentBatch BATCH = new DocumentBatch(0, List.of(new Document("content")));
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private static final long SLOW = TimeUnit.SECONDS.toNanos(5);
+
+    private AdaptiveBatchSizer sizer() {
+        return AdaptiveBatchSizer.builder()
+                .withInitialTokens(1000)
+                .withMinTokens(100)
+                .withMaxTokens(2000)
+                .withStepTokens(250)
+                .withMaxBatchSize(50)
+                .withTargetLatency(Duration.ofSeconds(1))
+                .build();
+    }
+
+    @Nested
+    @DisplayName("预算调整测试")
+    class AdjustTests {
+
+        @Test
+        @DisplayName("低于目标延迟时按步长增长，且不超过上限")
+        void testGrowWhileFast() {
+            // Given
+            AdaptiveBatchSizer sizer = sizer();
+
+            // When
+            sizer.onSuccess(BATCH, FAST);
+
+            // Then
+            assertThat(sizer.getTokenBudget()).isEqualTo(1250);
+
+            // When
+            for (int i = 0; i < 10; i++) {
+                sizer.onSuccess(BATCH, FAST);
+            }
+
+            // Then
+            assertThat(sizer.getTokenBudget()).isEqualTo(2000);
+            assertThat(sizer.getPeakTokenBudget()).isEqualTo(2000);
+        }
+
+        @Test
+        @DisplayName("超过目标延迟时收缩为 3/4")
+        void testShrinkWhenSlow() {
+            // Given
+            AdaptiveBatchSizer sizer = sizer();
+
+            // When
+            sizer.onSuccess(BATCH, SLOW);
+
+            // Then
+            assertThat(sizer.getTokenBudget()).isEqualTo(750);
+        }
+
+        @Test
+        @DisplayName("写入失败时减半，且不低于下限")
+        void testHalveOnFailure() {
+            // Given
+            AdaptiveBatchSizer sizer = sizer();
+
+            // When
+            sizer.onFailure(BATCH, new RuntimeException("429 Too Many Requests"));
+
+            // Then
+            assertThat(sizer.getTokenBudget()).isEqualTo(500);
+
+            // When
+            for (int i = 0; i < 10; i++) {
+                sizer.onFailure(BATCH, new RuntimeException("429 Too Many Requests"));
+            }
+
+            // Then
+            assertThat(sizer.getTokenBudget()).isEqualTo(100);
+            assertThat(sizer.getDecreaseCount()).isGreaterThan(0);
+        }
+    }
+
+    @Nested
+    @DisplayName("批次切分测试")
+    class SplitTests {
+
+        @Test
+        @DisplayName("按 token 预算切分批次")
+        void testBatchesByTokens() {
+            // Given: 每个分块 40 个 ASCII 字符，约 10 token
+            List<Document> chunks = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                chunks.add(new Document("a".repeat(40)));
+            }
+            AdaptiveBatchSizer sizer = AdaptiveBatchSizer.builder()
+                    .withInitialTokens(50)
+                    .withMinTokens(10)
+                    .withMaxTokens(1000)
+                    .build();
+
+            // When
+            ChunkBatchIterator batches = new ChunkBatchIterator(chunks.iterator(), null, sizer);
+            List<Integer> sizes = new ArrayList<>();
+            batches.forEachRemaining(batch -> sizes.add(batch.size()));
+
+            // Then
+            assertThat(sizes).containsOnly(5);
+            assertThat(batches.getChunkCount()).isEqualTo(20);
+            assertThat(batches.getBatchCount()).isEqualTo(4);
+        }
+
+        @Test
+        @DisplayName("单批分块数不超过 maxBatchSize")
+        void testMaxBatchSize() {
+            // Given
+            AdaptiveBatchSizer sizer = sizer();
+
+            // Then
+            assertThat(sizer.isFull(49, 10)).isFalse();
+            assertThat(sizer.isFull(50, 10)).isTrue();
+            assertThat(sizer.isFull(1, 1000)).isTrue();
+        }
+    }
+
+    @Test
+    @DisplayName("非法的 token 范围应抛出异常")
+    void testInvalidRange() {
+        assertThatThrownBy(() -> AdaptiveBatchSizer.builder().withMinTokens(500).withMaxTokens(100).build())
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Token range");
+    }
+}
@@ -0,0 +1,85 @@
+package com.lei.learn.etl.core.pipeline.batch;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.VectorStore;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * <p>
+ * BatchWriter 单元测试
+ * </p>
+ *
+ * @author 伍磊
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("BatchWriter 单元测试")
+class BatchWriterTest {
+
+    @Mock
+    private VectorStore vectorStore;
+
+    @Mock
+    private BatchListener listener;
+
+    private static List<DocumentBatch> createBatches(int count) {
+        List<DocumentBatch> batches = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            batches.add(new DocumentBatch(i * 2,
+                    List.of(new Document("chunk " + i), new Document("chunk " + i + "!"))));
+        }
+        return batches;
+    }
+
+    @Test
+    @DisplayName("并发写入时 listener 回调抛出异常记为失败批次，其余批次继续写入")
+    void testListenerFailureWhenWritingConcurrently() {
+        // Given: 起始下标为 2 的批次写入成功后回调失败，例如断点文件写入失败
+        UncheckedIOException error = new UncheckedIOException(new IOException("disk full"));
+        doAnswer(invocation -> {
+            if (invocation.<DocumentBatch>getArgument(0).index() == 2) {
+                throw error;
+            }
+            return null;
+        }).when(listener).onSuccess(any(), anyLong());
+        BatchWriter writer = new BatchWriter(vectorStore, 3, listener);
+
+        // When
+        List<Integer> failed = writer.write(createBatches(4).iterator());
+
+        // Then
+        assertThat(failed).containsExactly(2);
+        verify(vectorStore, times(4)).add(any());
+        verify(listener).onFailure(argThat(batch -> batch.index() == 2), eq(error));
+    }
+
+    @Test
+    @DisplayName("顺序写入时 listener 回调抛出异常不中断其余批次")
+    void testListenerFailureWhenWritingSequentially() {
+        // Given
+        doThrow(new UncheckedIOException(new IOException("disk full")))
+                .doNothing()
+                .when(listener).onSuccess(any(), anyLong());
+        BatchWriter writer = new BatchWriter(vectorStore, 1, listener);
+
+        // When
+        List<Integer> failed = writer.write(createBatches(3).iterator());
+
+        // Then
+        assertThat(failed).containsExactly(0);
+        verify(vectorStore, times(3)).add(any());
+        verify(listener, times(3)).onSuccess(any(), anyLong());
+    }
+}
@@ -0,0 +1,177 @@
+package com.lei.learn.etl.core.pipeline.batch;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+/**
+ * <p>
+ * PipelinedBatchWriter 单元测试
+ * </p>
+ *
+ * @author 伍磊
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("PipelinedBatchWriter 单元测试")
+class PipelinedBatchWriterTest {
+
+    @Mock
+    private EmbeddingModel embeddingModel;
+
+    @Mock
+    private BatchListener listener;
+
+    private static List<DocumentBatch> createBatches(int count) {
+        List<DocumentBatch> batches = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            batches.add(new DocumentBatch(i * 2,
+                    List.of(new Document("chunk " + i), new Document("chunk " + i + "!"))));
+        }
+        return batches;
+    }
+
+    @Test
+    @DisplayName("写索引与下一个批次的 embedding 重叠执行")
+    void testEmbeddingOverlapsIndexing() {
+        // Given: 批次 0 写索引时等待批次 1 开始 embedding，两个阶段串行执行时会超时
+        CountDownLatch secondEmbedding = new CountDownLatch(1);
+        AtomicInteger embedCalls = new AtomicInteger();
+        when(embeddingModel.embed(anyList(), any(), any())).thenAnswer(invocation -> {
+            if (embedCalls.incrementAndGet() == 2) {
+                secondEmbedding.countDown();
+            }
+            return List.of(new float[1], new float[1]);
+        });
+        VectorIndexer indexer = (documents, embeddings) -> {
+            try {
+                if (!secondEmbedding.await(5, TimeUnit.SECONDS)) {
+                    throw new IllegalStateException("embedding did not overlap indexing");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+        };
+        PipelinedBatchWriter writer = new PipelinedBatchWriter(embeddingModel, indexer, 1, 1, 1, listener, null);
+
+        // When
+        List<Integer> failed = writer.write(createBatches(3).iterator());
+
+        // Then
+        assertThat(failed).isEmpty();
+        verify(listener, times(3)).onSuccess(any(), anyLong());
+    }
+
+    @Test
+    @DisplayName("向量按批次交给写索引阶段，写索引失败重试时不重新 embedding")
+    void testIndexRetryReusesEmbeddings() {
+        // Given: 向量取文本长度，首次写索引失败
+        when(embeddingModel.embed(anyList(), any(), any())).thenAnswer(invocation -> {
+            List<float[]> embeddings = new ArrayList<>();
+            for (Document document : invocation.<List<Document>>getArgument(0)) {
+                embeddings.add(new float[]{document.getText().length()});
+            }
+            return embeddings;
+        });
+        AtomicInteger indexCalls = new AtomicInteger();
+        Map<String, List<float[]>> indexed = new ConcurrentHashMap<>();
+        VectorIndexer indexer = (documents, embeddings) -> {
+            if (indexCalls.incrementAndGet() == 1) {
+                throw new IllegalStateException("bulk rejected");
+            }
+            indexed.put(documents.get(0).getText(), embeddings);
+        };
+        PipelinedBatchWriter writer = new PipelinedBatchWriter(embeddingModel, indexer, 2, 2, 2, listener,
+                RetryPolicy.of(2, Duration.ofMillis(1)));
+
+        // When
+        List<Integer> failed = writer.write(createBatches(4).iterator());
+
+        // Then
+        assertThat(failed).isEmpty();
+        verify(embeddingModel, times(4)).embed(anyList(), any(), any());
+        assertThat(indexCalls).hasValue(5);
+        assertThat(indexed).containsOnlyKeys("chunk 0", "chunk 1", "chunk 2", "chunk 3");
+        assertThat(indexed.values()).allSatisfy(embeddings ->
+                assertThat(embeddings).extracting(embedding -> embedding[0]).containsExactly(7f, 8f));
+        verify(listener, never()).onFailure(any(), any());
+    }
+
+    @Test
+    @DisplayName("embedding 失败的批次不进入写索引阶段，其余批次继续写入")
+    void testEmbeddingFailure() {
+        // Given
+        RuntimeException error = new RuntimeException("rate limited");
+        when(embeddingModel.embed(anyList(), any(), any())).thenAnswer(invocation -> {
+            List<Document> documents = invocation.getArgument(0);
+            if ("chunk 1".equals(documents.get(0).getText())) {
+                throw error;
+            }
+            return List.of(new float[1], new float[1]);
+        });
+        List<String> indexedTexts = new ArrayList<>();
+        VectorIndexer indexer = (documents, embeddings) -> {
+            synchronized (indexedTexts) {
+                indexedTexts.add(documents.get(0).getText());
+            }
+        };
+        PipelinedBatchWriter writer = new PipelinedBatchWriter(embeddingModel, indexer, 2, 1, 1, listener, null);
+
+        // When
+        List<Integer> failed = writer.write(createBatches(3).iterator());
+
+        // Then
+        assertThat(failed).containsExactly(2);
+        assertThat(indexedTexts).containsExactlyInAnyOrder("chunk 0", "chunk 2");
+        verify(listener).onFailure(argThat(batch -> batch.index() == 2), eq(error));
+        verify(listener, times(2)).onSuccess(any(), anyLong());
+    }
+
+    @Test
+    @DisplayName("listener 回调抛出异常时记为失败批次，其余批次继续写入")
+    void testListenerFailure() {
+        // Given: 起始下标为 2 的批次写入成功后回调失败，例如断点文件写入失败
+        when(embeddingModel.embed(anyList(), any(), any())).thenReturn(List.of(new float[1], new float[1]));
+        List<String> indexedTexts = new ArrayList<>();
+        VectorIndexer indexer = (documents, embeddings) -> {
+            synchronized (indexedTexts) {
+                indexedTexts.add(documents.get(0).getText());
+            }
+        };
+        doAnswer(invocation -> {
+            if (invocation.<DocumentBatch>getArgument(0).index() == 2) {
+                throw new UncheckedIOException(new IOException("disk full"));
+            }
+            return null;
+        }).when(listener).onSuccess(any(), anyLong());
+        PipelinedBatchWriter writer = new PipelinedBatchWriter(embeddingModel, indexer, 1, 1, 1, listener, null);
+
+        // When
+        List<Integer> failed = writer.write(createBatches(4).iterator());
+
+        // Then
+        assertThat(failed).containsExactly(2);
+        assertThat(indexedTexts).containsExactly("chunk 0", "chunk 1", "chunk 2", "chunk 3");
+        verify(listener, times(4)).onSuccess(any(), anyLong());
+    }
+}
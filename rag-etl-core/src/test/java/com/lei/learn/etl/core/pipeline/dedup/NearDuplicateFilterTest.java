@@ -0,0 +1,128 @@
+package com.lei.learn.etl.core.pipeline.dedup;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.document.Document;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * <p>
+ * NearDuplicateFilter 单元测试
+ * </p>
+ *
+ * @author 伍磊
+ */
+@DisplayName("NearDuplicateFilter 单元测试")
+class NearDuplicateFilterTest {
+
+    private static final String INSTALL = """
+            ## 安装
+            下载对应平台的安装包，解压到任意目录后执行 bin/start.sh 启动服务。
+            默认监听 8080 端口，可以通过 --server.port 参数修改。
+            首次启动会在 data 目录下初始化数据库，请确保当前用户对该目录有写权限。
+            """;
+
+    private static final String INSTALL_V2 = INSTALL.replace("8080", "9090");
+
+    private static final String UPGRADE = """
+            ## 升级
+            升级前请先停止服务并备份 data 目录，然后用新版本的安装包覆盖 lib 目录。
+            数据库结构变更会在启动时自动执行，变更记录写入 logs/migration.log。
+            """;
+
+    private static Document chunk(String text, String filepath) {
+        return new Document(text, Map.of("filepath", filepath));
+    }
+
+    @Nested
+    @DisplayName("去重测试")
+    class DeduplicateTests {
+
+        @Test
+        @DisplayName("同一批分块中的近似重复合并到代表分块，并汇总 filepath")
+        void testMergeWithinCall() {
+            // Given
+            NearDuplicateFilter filter = NearDuplicateFilter.builder().build();
+
+            // When
+            List<Document> kept = filter.apply(List.of(
+                    chunk(INSTALL, "docs/v1/README.md"),
+                    chunk(UPGRADE, "docs/v1/README.md"),
+                    chunk(INSTALL_V2, "docs/v2/README.md"),
+                    chunk(INSTALL, "docs/v3/README.md")));
+
+            // Then
+            assertThat(kept).extracting(Document::getText).containsExactly(INSTALL, UPGRADE);
+            assertThat(kept.get(0).getMetadata())
+                    .containsEntry("filepath", "docs/v1/README.md")
+                    .containsEntry(NearDuplicateFilter.MERGED_PREFIX + "filepath",
+                            List.of("docs/v1/README.md", "docs/v2/README.md", "docs/v3/README.md"))
+                    .containsEntry(NearDuplicateFilter.DUPLICATE_COUNT, 2);
+            assertThat(kept.get(1).getMetadata()).doesNotContainKey(NearDuplicateFilter.DUPLICATE_COUNT);
+            assertThat(filter.getDuplicateCount()).isEqualTo(2);
+            assertThat(filter.getRepresentativeCount()).isEqualTo(2);
+        }
+
+        @Test
+        @DisplayName("与之前调用中的代表分块重复时直接丢弃")
+        void testDropAcrossCalls() {
+            // Given
+            NearDuplicateFilter filter = NearDuplicateFilter.builder().build();
+            filter.apply(List.of(chunk(INSTALL, "docs/v1/README.md")));
+
+            // When
+            List<Document> kept = filter.apply(List.of(
+                    chunk(INSTALL_V2, "docs/v2/README.md"),
+                    chunk(UPGRADE, "docs/v2/README.md")));
+
+            // Then
+            assertThat(kept).extracting(Document::getText).containsExactly(UPGRADE);
+            assertThat(filter.getDuplicateCount()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("相似度低于阈值的分块都保留")
+        void testThreshold() {
+            // Given: 只有一半内容相同
+            String halfSame = INSTALL.substring(0, INSTALL.length() / 2) + UPGRADE;
+            NearDuplicateFilter filter = NearDuplicateFilter.builder().withThreshold(0.9).build();
+
+            // When
+            List<Document> kept = filter.apply(List.of(chunk(INSTALL, "a.md"), chunk(halfSame, "b.md")));
+
+            // Then
+            assertThat(kept).hasSize(2);
+            assertThat(filter.getDuplicateCount()).isZero();
+        }
+    }
+
+    @Test
+    @DisplayName("签名长度必须是分带数的整数倍")
+    void testInvalidBands() {
+        assertThatThrownBy(() -> NearDuplicateFilter.builder().withNumHashes(100).withBands(16).build())
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("MinHash 估算的相似度与内容重合程度一致")
+    void testMinHashSimilarity() {
+        // Given
+        MinHasher minHasher = new MinHasher(128, 5, 42L);
+
+        // When
+        double same = MinHasher.similarity(minHasher.signature(INSTALL), minHasher.signature("  " + INSTALL));
+        double near = MinHasher.similarity(minHasher.signature(INSTALL), minHasher.signature(INSTALL_V2));
+        double different = MinHasher.similarity(minHasher.signature(INSTALL), minHasher.signature(UPGRADE));
+
+        // Then
+        assertThat(same).isEqualTo(1.0);
+        assertThat(near).isGreaterThan(0.8);
+        assertThat(different).isLessThan(0.3);
+    }
+}
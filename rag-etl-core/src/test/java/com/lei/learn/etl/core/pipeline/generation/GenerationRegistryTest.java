@@ -0,0 +1,93 @@
+package com.lei.learn.etl.core.pipeline.generation;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.ai.vectorstore.filter.FilterExpressionBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * <p>
+ * GenerationRegistry 单元测试
+ * </p>
+ *
+ * @author 伍磊
+ */
+@DisplayName("GenerationRegistry 单元测试")
+class GenerationRegistryTest {
+
+    private final FilterExpressionBuilder b = new FilterExpressionBuilder();
+
+    @Test
+    @DisplayName("写入中和被替换的代次被屏蔽，删除后解除，过滤条件不排除没有代次的文档")
+    void testHiddenGenerations() {
+        // Given
+        GenerationRegistry registry = GenerationRegistry.inMemory();
+
+        // When & Then: 首次入库写入中
+        assertThat(registry.activeFilter()).isNull();
+        registry.begin("doc.md", "g1");
+        assertThat(registry.activeFilter()).isEqualTo(b.nin(GenerationRegistry.GENERATION, "g1").build());
+
+        // When & Then: 切换后新代次可见
+        assertThat(registry.activate("doc.md", "g1")).isNull();
+        assertThat(registry.activeFilter()).isNull();
+
+        // When & Then: 再次入库，切换后旧代次在删除前保持屏蔽
+        registry.begin("doc.md", "g2");
+        registry.activate("doc.md", "g2");
+        assertThat(registry.activeFilter()).isEqualTo(b.nin(GenerationRegistry.GENERATION, "g1").build());
+        assertThat(registry.retired("doc.md")).containsExactly("g1");
+        registry.release(List.of("g1"));
+        assertThat(registry.activeFilter()).isNull();
+        assertThat(registry.get("doc.md")).contains("g2");
+    }
+
+    @Test
+    @DisplayName("屏蔽的代次随登记表落盘，兼容只有生效代次的旧版文件")
+    void testPersistence(@TempDir Path tempDir) throws IOException {
+        // Given
+        Path legacy = Files.writeString(tempDir.resolve("legacy.json"), "{\"doc.md\":\"g1\"}");
+        Path path = tempDir.resolve("registry.json");
+        GenerationRegistry registry = GenerationRegistry.load(path);
+        registry.activate("doc.md", "g1");
+        registry.begin("doc.md", "g2");
+
+        // When
+        GenerationRegistry legacyRegistry = GenerationRegistry.load(legacy);
+        GenerationRegistry reloaded = GenerationRegistry.load(path);
+
+        // Then
+        assertThat(legacyRegistry.get("doc.md")).contains("g1");
+        assertThat(legacyRegistry.hiddenSize()).isZero();
+        assertThat(reloaded.get("doc.md")).contains("g1");
+        assertThat(reloaded.activeFilter()).isEqualTo(b.nin(GenerationRegistry.GENERATION, "g2").build());
+    }
+
+    @Test
+    @DisplayName("同一源文件正在写入的其他代次不会作为废弃代次返回")
+    void testRetiredExcludesInFlight() {
+        // Given: 两个任务同时写入同一文件，另有一次回滚失败遗留的代次
+        GenerationRegistry registry = GenerationRegistry.inMemory();
+        registry.activate("doc.md", "g0");
+        registry.begin("doc.md", "failed");
+        registry.abandon("failed");
+        registry.begin("doc.md", "g1");
+        registry.begin("doc.md", "g2");
+
+        // When
+        registry.activate("doc.md", "g1");
+
+        // Then
+        assertThat(registry.retired("doc.md")).containsExactlyInAnyOrder("g0", "failed");
+        assertThat(registry.retired("other.md")).isEmpty();
+        registry.release(registry.retired("doc.md"));
+        assertThat(registry.activeFilter()).isEqualTo(b.nin(GenerationRegistry.GENERATION, "g2").build());
+    }
+}
@@ -0,0 +1,175 @@
+package com.lei.learn.etl.core.pipeline.incremental;
+
+import com.lei.learn.etl.core.pipeline.IngestionResult;
+import com.lei.learn.etl.core.pipeline.markdown.MarkdownRagPipeline;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.VectorStore;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+/**
+ * <p>
+ * 增量入库单元测试
+ * </p>
+ *
+ * @author 伍磊
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("增量入库单元测试")
+class IncrementalIngestionTest {
+
+    private static final String ORIGINAL = """
+            # 第一章
+
+            第一章内容
+
+            # 第二章
+
+            第二章内容
+            """;
+
+    @Mock
+    private VectorStore mockVectorStore;
+
+    private IngestionResult ingest(Path file, IngestionManifest manifest) {
+        return MarkdownRagPipeline.defaultConfig()
+                .fromFile(file.toFile())
+                .withTextSplitter(null)
+                .withManifest(manifest)
+                .toVectorStore(mockVectorStore);
+    }
+
+    @Nested
+    @DisplayName("重复入库测试")
+    class ReingestTests {
+
+        @Test
+        @DisplayName("首次入库写入全部分块并记录清单")
+        void testFirstIngestion(@TempDir Path tempDir) throws IOException {
+            // Given
+            Path file = Files.writeString(tempDir.resolve("doc.md"), ORIGINAL);
+            Path manifestFile = tempDir.resolve("manifest.json");
+            IngestionManifest manifest = IngestionManifest.load(manifestFile);
+
+            // When
+            IngestionResult result = ingest(file, manifest);
+
+            // Then
+            assertThat(result.getChunkCount()).isEqualTo(2);
+            assertThat(result.getSkippedChunkCount()).isZero();
+            assertThat(Files.exists(manifestFile)).isTrue();
+            assertThat(IngestionManifest.load(manifestFile).get(file.toAbsolutePath().toString()))
+                    .get()
+                    .satisfies(entry -> assertThat(entry.chunkIds()).hasSize(2));
+        }
+
+        @Test
+        @DisplayName("源文件未变化时整体跳过")
+        void testUnchangedSourceSkipped(@TempDir Path tempDir) throws IOException {
+            // Given
+            Path file = Files.writeString(tempDir.resolve("doc.md"), ORIGINAL);
+            IngestionManifest manifest = IngestionManifest.load(tempDir.resolve("manifest.json"));
+            ingest(file, manifest);
+            clearInvocations(mockVectorStore);
+
+            // When
+            IngestionResult result = ingest(file, IngestionManifest.load(tempDir.resolve("manifest.json")));
+
+            // Then
+            assertThat(result.isUnchanged()).isTrue();
+            assertThat(result.getSkippedChunkCount()).isEqualTo(2);
+            verifyNoInteractions(mockVectorStore);
+        }
+
+        @Test
+        @DisplayName("修改后只写入变化的分块并删除消失的分块")
+        void testChangedSectionsOnly(@TempDir Path tempDir) throws IOException {
+            // Given
+            Path file = Files.writeString(tempDir.resolve("doc.md"), ORIGINAL);
+            IngestionManifest manifest = IngestionManifest.inMemory();
+            ingest(file, manifest);
+            clearInvocations(mockVectorStore);
+
+            Files.writeString(file, """
+                    # 第一章
+
+                    第一章内容
+
+                    # 第三章
+
+                    第三章内容
+                    """);
+
+            // When
+            IngestionResult result = ingest(file, manifest);
+
+            // Then
+            ArgumentCaptor<List<Document>> added = ArgumentCaptor.captor();
+            verify(mockVectorStore).add(added.capture());
+            assertThat(added.getValue()).hasSize(1);
+            assertThat(added.getValue().getFirst().getText()).contains("第三章内容");
+            verify(mockVectorStore).delete(anyList());
+            assertThat(result.getChunkCount()).isEqualTo(1);
+            assertThat(result.getSkippedChunkCount()).isEqualTo(1);
+            assertThat(result.getDeletedChunkCount()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("写入失败时不更新清单，下次重新写入")
+        void testManifestNotUpdatedOnFailure(@TempDir Path tempDir) throws IOException {
+            // Given
+            Path file = Files.writeString(tempDir.resolve("doc.md"), ORIGINAL);
+            IngestionManifest manifest = IngestionManifest.inMemory();
+            doThrow(new RuntimeException("Batch failed")).when(mockVectorStore).add(any());
+
+            // When
+            try {
+                ingest(file, manifest);
+            } catch (IllegalStateException ignored) {
+                // 预期失败
+            }
+
+            // Then
+            assertThat(manifest.size()).isZero();
+        }
+    }
+
+    @Nested
+    @DisplayName("稳定 ID 测试")
+    class StableIdTests {
+
+        @Test
+        @DisplayName("相同内容生成相同 ID，重复内容按出现序号区分")
+        void testStableIds() {
+            // Given
+            List<Document> chunks = List.of(new Document("a"), new Document("b"), new Document("a"));
+
+            // When
+            List<Document> first = new IncrementalChunkFilter("source", Set.of()).apply(chunks);
+            List<Document> second = new IncrementalChunkFilter("source", Set.of()).apply(chunks);
+
+            // Then
+            assertThat(first).extracting(Document::getId).doesNotHaveDuplicates();
+            assertThat(first).extracting(Document::getId)
+                    .containsExactlyElementsOf(second.stream().map(Document::getId).toList());
+            assertThat(first.getFirst().getMetadata()).containsKey(IncrementalChunkFilter.CONTENT_HASH);
+        }
+    }
+}
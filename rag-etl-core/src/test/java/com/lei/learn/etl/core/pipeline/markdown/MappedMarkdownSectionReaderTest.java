@@ -0,0 +1,121 @@
+package com.lei.learn.etl.core.pipeline.markdown;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.reader.markdown.config.MarkdownDocumentReaderConfig;
+import org.springframework.core.io.ByteArrayResource;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * <p>
+ * MappedMarkdownSectionReader 单元测试
+ * </p>
+ *
+ * @author 伍磊
+ */
+@DisplayName("MappedMarkdownSectionReader 单元测试")
+class MappedMarkdownSectionReaderTest {
+
+    private static final String MARKDOWN = """
+            前言段落
+
+            # 第一章
+
+            第一章内容
+
+            ```java
+            # 这不是标题
+            System.out.println("hello");
+            ```
+
+            ## 1.1 小节
+
+            > 引用内容
+
+            # 第二章
+
+            第二章内容
+            """;
+
+    @TempDir
+    Path tempDir;
+
+    private Path write(String content) throws IOException {
+        Path file = tempDir.resolve("doc.md");
+        Files.writeString(file, content, StandardCharsets.UTF_8);
+        return file;
+    }
+
+    private static void assertSameDocuments(List<Document> actual, List<Document> expected) {
+        assertThat(actual).hasSameSizeAs(expected);
+        for (int i = 0; i < expected.size(); i++) {
+            assertThat(actual.get(i).getText()).isEqualTo(expected.get(i).getText());
+            assertThat(actual.get(i).getMetadata()).isEqualTo(expected.get(i).getMetadata());
+        }
+    }
+
+    @Nested
+    @DisplayName("内存映射分段解析测试")
+    class SectionTests {
+
+        @Test
+        @DisplayName("解析结果与 MarkdownSectionReader 一致")
+        void testSameResultAsSectionReader() throws IOException {
+            // Given
+            MarkdownDocumentReaderConfig config = MarkdownDocumentReaderConfig.builder()
+                    .withIncludeCodeBlock(true)
+                    .withIncludeBlockquote(true)
+                    .withAdditionalMetadata("source", "test")
+                    .build();
+            Path file = write(MARKDOWN);
+
+            // When
+            List<Document> expected = new MarkdownSectionReader(
+                    new ByteArrayResource(MARKDOWN.getBytes(StandardCharsets.UTF_8)), config).get();
+            List<Document> actual = new MappedMarkdownSectionReader(file, config).get();
+
+            // Then
+            assertThat(actual).isNotEmpty();
+            assertSameDocuments(actual, expected);
+        }
+
+        @Test
+        @DisplayName("映射窗口小于文件时分多次映射，结果不变")
+        void testSmallWindow() throws IOException {
+            // Given
+            MarkdownDocumentReaderConfig config = MarkdownDocumentReaderConfig.defaultConfig();
+            Path file = write(MARKDOWN);
+
+            // When
+            List<Document> expected = new MappedMarkdownSectionReader(file, config).get();
+            List<Document> actual = new MappedMarkdownSectionReader(file, config, false, 32).get();
+
+            // Then
+            assertSameDocuments(actual, expected);
+        }
+
+        @Test
+        @DisplayName("空文件不产出文档")
+        void testEmptyFile() throws IOException {
+            // Given
+            Path file = write("");
+
+            // When
+            List<Document> documents = new MappedMarkdownSectionReader(file,
+                    MarkdownDocumentReaderConfig.defaultConfig()).get();
+
+            // Then
+            assertThat(documents).isEmpty();
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.lei.learn.etl.core.pipeline.markdown;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.reader.markdown.MarkdownDocumentReader;
+import org.springframework.ai.reader.markdown.config.MarkdownDocumentReaderConfig;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * <p>
+ * MarkdownSectionReader 单元测试
+ * </p>
+ *
+ * @author 伍磊
+ */
+@DisplayName("MarkdownSectionReader 单元测试")
+class MarkdownSectionReaderTest {
+
+    private static final String MARKDOWN = """
+            前言段落
+
+            # 第一章
+
+            第一章内容
+
+            ```java
+            # 这不是标题
+            System.out.println("hello");
+            ```
+
+            ## 1.1 小节
+
+            > 引用内容
+
+            # 第二章
+
+            第二章内容
+            """;
+
+    private static Resource resource(String content) {
+        return new ByteArrayResource(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Nested
+    @DisplayName("分段解析测试")
+    class SectionTests {
+
+        @Test
+        @DisplayName("分段解析结果与整篇解析一致")
+        void testSameResultAsWholeDocument() {
+            // Given
+            MarkdownDocumentReaderConfig config = MarkdownDocumentReaderConfig.builder()
+                    .withIncludeCodeBlock(true)
+                    .withIncludeBlockquote(true)
+                    .withAdditionalMetadata("source", "test")
+                    .build();
+
+            // When
+            List<Document> expected = new MarkdownDocumentReader(resource(MARKDOWN), config).get();
+            List<Document> actual = new MarkdownSectionReader(resource(MARKDOWN), config).get();
+
+            // Then
+            assertThat(actual).hasSameSizeAs(expected);
+            for (int i = 0; i < expected.size(); i++) {
+                assertThat(actual.get(i).getText()).isEqualTo(expected.get(i).getText());
+                assertThat(actual.get(i).getMetadata()).isEqualTo(expected.get(i).getMetadata());
+            }
+        }
+
+        @Test
+        @DisplayName("代码块中的 # 不会切分段落")
+        void testHeadingInsideCodeBlockIgnored() {
+            // Given
+            MarkdownDocumentReaderConfig config = MarkdownDocumentReaderConfig.builder()
+                    .withIncludeCodeBlock(true)
+                    .build();
+
+            // When
+            List<Document> documents = new MarkdownSectionReader(resource(MARKDOWN), config).get();
+
+            // Then
+            assertThat(documents).noneMatch(d -> "这不是标题".equals(d.getMetadata().get("title")));
+        }
+
+        @Test
+        @DisplayName("按需读取：只消费第一个文档时不会解析后续段落")
+        void testLazyStream() {
+            // Given
+            MarkdownDocumentReaderConfig config = MarkdownDocumentReaderConfig.defaultConfig();
+
+            // When
+            try (Stream<Document> documents = new MarkdownSectionReader(resource(MARKDOWN), config).stream()) {
+                Document first = documents.findFirst().orElseThrow();
+
+                // Then
+                assertThat(first.getText()).contains("前言段落");
+            }
+        }
+
+        @Test
+        @DisplayName("空资源不产出文档")
+        void testEmptyResource() {
+            // When
+            List<Document> documents = new MarkdownSectionReader(resource(""),
+                    MarkdownDocumentReaderConfig.defaultConfig()).get();
+
+            // Then
+            assertThat(documents).isEmpty();
+        }
+    }
+
+    @Nested
+    @DisplayName("标题识别测试")
+    class HeadingTests {
+
+        @Test
+        @DisplayName("识别 ATX 标题")
+        void testIsHeading() {
+            assertThat(MarkdownSectionReader.isHeading("# 标题")).isTrue();
+            assertThat(MarkdownSectionReader.isHeading("###### 标题")).isTrue();
+            assertThat(MarkdownSectionReader.isHeading("   ## 标题")).isTrue();
+            assertThat(MarkdownSectionReader.isHeading("#")).isTrue();
+            assertThat(MarkdownSectionReader.isHeading("####### 标题")).isFalse();
+            assertThat(MarkdownSectionReader.isHeading("#标题")).isFalse();
+            assertThat(MarkdownSectionReader.isHeading("    # 缩进代码")).isFalse();
+        }
+    }
+}
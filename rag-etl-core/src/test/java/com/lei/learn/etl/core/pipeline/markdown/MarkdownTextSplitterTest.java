@@ -0,0 +1,161 @@
+package com.lei.learn.etl.core.pipeline.markdown;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.reader.markdown.config.MarkdownDocumentReaderConfig;
+import org.springframework.core.io.ByteArrayResource;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * <p>
+ * MarkdownTextSplitter 单元测试
+ * </p>
+ *
+ * @author 伍磊
+ */
+@DisplayName("MarkdownTextSplitter 单元测试")
+class MarkdownTextSplitterTest {
+
+    private static final String MARKDOWN = """
+            # 第一章
+
+            第一章内容
+
+            ## 1.1 小节
+
+            小节内容
+
+            ```java
+            # 这不是标题
+            System.out.println("hello");
+            ```
+
+            # 第二章
+
+            第二章内容
+            """;
+
+    @Nested
+    @DisplayName("结构切分测试")
+    class SplitTests {
+
+        @Test
+        @DisplayName("按标题切分并携带标题路径，代码块保持完整")
+        void testSplitByHeading() {
+            // Given
+            MarkdownTextSplitter splitter = MarkdownTextSplitter.builder()
+                    .withChunkSize(100)
+                    .withMinChunkSize(0)
+                    .build();
+
+            // When
+            List<Document> chunks = splitter.apply(List.of(new Document(MARKDOWN, Map.of("source", "test"))));
+
+            // Then
+            assertThat(chunks).hasSize(3);
+            assertThat(chunks).extracting(d -> d.getMetadata().get(MarkdownSectionReader.HEADING_PATH))
+                    .containsExactly("第一章", "第一章 > 1.1 小节", "第二章");
+            assertThat(chunks.get(1).getText())
+                    .contains("## 1.1 小节")
+                    .contains("```java\n# 这不是标题\nSystem.out.println(\"hello\");\n```");
+            assertThat(chunks).allMatch(d -> "test".equals(d.getMetadata().get("source")));
+            assertThat(chunks.get(2).getMetadata()).containsEntry("chunk_index", 2).containsEntry("total_chunks", 3);
+        }
+
+        @Test
+        @DisplayName("小章节与后续兄弟章节合并，标题路径取共同祖先")
+        void testMergeSmallSiblings() {
+            // Given
+            MarkdownTextSplitter splitter = MarkdownTextSplitter.builder()
+                    .withChunkSize(100)
+                    .withMinChunkSize(50)
+                    .build();
+
+            // When
+            List<Document> chunks = splitter.apply(List.of(new Document(MARKDOWN)));
+
+            // Then
+            assertThat(chunks).hasSize(1);
+            assertThat(chunks.get(0).getText()).contains("# 第一章", "## 1.1 小节", "# 第二章");
+            assertThat(chunks.get(0).getMetadata()).doesNotContainKey(MarkdownSectionReader.HEADING_PATH);
+        }
+
+        @Test
+        @DisplayName("超过预算的代码块按行切分，每段都补全围栏")
+        void testOversizedCodeBlock() {
+            // Given
+            StringBuilder code = new StringBuilder("```java\n");
+            for (int i = 0; i < 50; i++) {
+                code.append("System.out.println(\"line ").append(i).append("\");\n");
+            }
+            code.append("```\n");
+            MarkdownTextSplitter splitter = MarkdownTextSplitter.builder()
+                    .withChunkSize(50)
+                    .withMinChunkSize(0)
+                    .build();
+
+            // When
+            List<Document> chunks = splitter.apply(List.of(new Document("# 代码\n\n" + code)));
+
+            // Then
+            assertThat(chunks).hasSizeGreaterThan(2);
+            assertThat(chunks.subList(1, chunks.size()))
+                    .allMatch(d -> d.getText().startsWith("```java\n") && d.getText().endsWith("\n```"));
+        }
+
+        @Test
+        @DisplayName("输入文档的标题路径作为前缀")
+        void testHeadingPathPrefix() {
+            // Given
+            MarkdownTextSplitter splitter = MarkdownTextSplitter.builder().build();
+            Document section = new Document("## 1.1 小节\n\n小节内容",
+                    Map.of(MarkdownSectionReader.HEADING_PATH, "第一章"));
+
+            // When
+            List<Document> chunks = splitter.apply(List.of(section));
+
+            // Then
+            assertThat(chunks).singleElement()
+                    .extracting(d -> d.getMetadata().get(MarkdownSectionReader.HEADING_PATH))
+                    .isEqualTo("第一章 > 1.1 小节");
+        }
+
+        @Test
+        @DisplayName("minChunkSize 大于 chunkSize 时抛出异常")
+        void testInvalidConfig() {
+            assertThatThrownBy(() -> MarkdownTextSplitter.builder().withChunkSize(100).withMinChunkSize(200).build())
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    @Nested
+    @DisplayName("原文分段读取测试")
+    class RawSectionTests {
+
+        @Test
+        @DisplayName("raw 模式输出段落原文并记录祖先标题")
+        void testRawSections() {
+            // Given
+            ByteArrayResource resource = new ByteArrayResource(MARKDOWN.getBytes(StandardCharsets.UTF_8));
+
+            // When
+            List<Document> sections = new MarkdownSectionReader(resource,
+                    MarkdownDocumentReaderConfig.defaultConfig(), true).get();
+
+            // Then
+            assertThat(sections).hasSize(3);
+            assertThat(sections.get(1).getText()).startsWith("## 1.1 小节").contains("```java");
+            assertThat(sections.get(0).getMetadata()).doesNotContainKey(MarkdownSectionReader.HEADING_PATH);
+            assertThat(sections.get(1).getMetadata()).containsEntry(MarkdownSectionReader.HEADING_PATH, "第一章");
+            assertThat(sections.get(2).getMetadata()).doesNotContainKey(MarkdownSectionReader.HEADING_PATH);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.lei.learn.etl.core.pipeline.split;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.transformer.splitter.TextSplitter;
+import org.springframework.ai.transformer.splitter.TokenTextSplitter;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * <p>
+ * ParallelTextSplitter 单元测试
+ * </p>
+ *
+ * @author 伍磊
+ */
+@DisplayName("ParallelTextSplitter 单元测试")
+class ParallelTextSplitterTest {
+
+    private final ForkJoinPool pool = new ForkJoinPool(4);
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+    }
+
+    private static List<Document> documents(int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> new Document("文档 " + i + " 的内容。".repeat(50 + i % 7), Map.of("index", i)))
+                .toList();
+    }
+
+    private static TextSplitter tokenSplitter() {
+        return TokenTextSplitter.builder().withChunkSize(64).withMinChunkSizeChars(10).build();
+    }
+
+    @Nested
+    @DisplayName("并行切分测试")
+    class SplitTests {
+
+        @Test
+        @DisplayName("分块顺序与元数据与单线程切分一致")
+        void testSameResultAsSequential() {
+            // Given
+            List<Document> documents = documents(100);
+            ParallelTextSplitter splitter = new ParallelTextSplitter(ParallelTextSplitterTest::tokenSplitter, pool);
+
+            // When
+            List<Document> expected = tokenSplitter().apply(documents);
+            List<Document> actual = splitter.apply(documents);
+
+            // Then
+            assertThat(actual).extracting(Document::getText)
+                    .containsExactlyElementsOf(expected.stream().map(Document::getText).toList());
+            assertThat(actual).extracting(d -> d.getMetadata().get("index"))
+                    .containsExactlyElementsOf(expected.stream().map(d -> d.getMetadata().get("index")).toList());
+            assertThat(actual).extracting(d -> d.getMetadata().get("parent_document_id"))
+                    .containsExactlyElementsOf(expected.stream()
+                            .map(d -> d.getMetadata().get("parent_document_id")).toList());
+        }
+
+        @Test
+        @DisplayName("每个线程只创建一个切分器并跨调用复用")
+        void testSplitterReusedPerThread() {
+            // Given
+            AtomicInteger created = new AtomicInteger();
+            ParallelTextSplitter splitter = new ParallelTextSplitter(() -> {
+                created.incrementAndGet();
+                return tokenSplitter();
+            }, pool);
+
+            // When
+            splitter.apply(documents(50));
+            splitter.apply(documents(50));
+
+            // Then：池内 4 个工作线程，外加文档过少时的调用线程
+            assertThat(created.get()).isBetween(1, 5);
+        }
+
+        @Test
+        @DisplayName("单个文档在调用线程上切分")
+        void testSingleDocumentOnCallerThread() {
+            // Given
+            Thread caller = Thread.currentThread();
+            AtomicInteger onCaller = new AtomicInteger();
+            ParallelTextSplitter splitter = new ParallelTextSplitter(() -> {
+                if (Thread.currentThread() == caller) {
+                    onCaller.incrementAndGet();
+                }
+                return tokenSplitter();
+            }, pool);
+
+            // When
+            List<Document> chunks = splitter.apply(documents(1));
+
+            // Then
+            assertThat(chunks).isNotEmpty();
+            assertThat(onCaller.get()).isEqualTo(1);
+        }
+    }
+}
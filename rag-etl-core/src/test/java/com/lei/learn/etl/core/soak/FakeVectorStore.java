@@ -0,0 +1,87 @@
+package com.lei.learn.etl.core.soak;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.filter.Filter;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>
+ * 压测用的进程内 VectorStore
+ * </p>
+ * add 按配置的延迟（含 embedding 在内的一次写入耗时，随机抖动 ±50%）阻塞，并按 failureRate 随机抛出异常模拟限流；
+ * 只计数不保存分块，长时间压测时堆内存只反映 pipeline 自身的占用。线程安全。
+ *
+ * @author 伍磊
+ */
+final class FakeVectorStore implements VectorStore {
+
+    private final long latencyMicros;
+
+    private final double failureRate;
+
+    private final LongAdder addedDocuments = new LongAdder();
+
+    private final LongAdder calls = new LongAdder();
+
+    private final LongAdder failures = new LongAdder();
+
+    FakeVectorStore(long latencyMicros, double failureRate) {
+        this.latencyMicros = latencyMicros;
+        this.failureRate = failureRate;
+    }
+
+    @Override
+    public void add(List<Document> documents) {
+        calls.increment();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (latencyMicros > 0) {
+            long jitter = latencyMicros / 2;
+            sleep(latencyMicros - jitter + random.nextLong(2 * jitter + 1));
+        }
+        if (failureRate > 0 && random.nextDouble() < failureRate) {
+            failures.increment();
+            throw new IllegalStateException("Injected failure: 429 Too Many Requests");
+        }
+        addedDocuments.add(documents.size());
+    }
+
+    @Override
+    public void delete(List<String> idList) {
+    }
+
+    @Override
+    public void delete(Filter.Expression filterExpression) {
+    }
+
+    @Override
+    public List<Document> similaritySearch(SearchRequest request) {
+        return List.of();
+    }
+
+    long getAddedDocuments() {
+        return addedDocuments.sum();
+    }
+
+    long getCalls() {
+        return calls.sum();
+    }
+
+    long getFailures() {
+        return failures.sum();
+    }
+
+    private static void sleep(long micros) {
+        try {
+            TimeUnit.MICROSECONDS.sleep(micros);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while simulating latency", e);
+        }
+    }
+}
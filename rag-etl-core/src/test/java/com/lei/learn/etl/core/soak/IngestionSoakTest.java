@@ -0,0 +1,107 @@
+package com.lei.learn.etl.core.soak;
+
+import com.lei.learn.etl.core.pipeline.IngestionResult;
+import com.lei.learn.etl.core.pipeline.VectorStoringStage;
+import com.lei.learn.etl.core.pipeline.markdown.MarkdownRagPipeline;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.transformer.splitter.TokenTextSplitter;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * <p>
+ * 大规模入库压测
+ * </p>
+ * 生成指定大小的 Markdown，经 {@link MarkdownRagPipeline} 写入带延迟与随机失败的 {@link FakeVectorStore}，
+ * 输出吞吐、峰值堆与 GC 停顿。默认不执行，通过 soak profile 运行，参数用系统属性覆盖：
+ * <pre>
+ * mvn -pl rag-etl-core test -Psoak -Dsoak.sizeMb=1024 -Dsoak.latencyMs=20 -Dsoak.failureRate=0.01 -DargLine=-Xmx512m
+ * </pre>
+ * <ul>
+ *     <li>{@code soak.sizeMb}：源文件大小，默认 64</li>
+ *     <li>{@code soak.latencyMs}：每次 VectorStore.add 的平均延迟，默认 5</li>
+ *     <li>{@code soak.failureRate}：每次 add 失败的概率，默认 0</li>
+ *     <li>{@code soak.batchSize} / {@code soak.writeConcurrency} / {@code soak.maxAttempts}：默认 50 / 4 / 3</li>
+ *     <li>{@code soak.streaming}：是否流式执行，默认 true</li>
+ *     <li>{@code soak.maxHeapMb}：峰值堆上限，大于 0 时超过即失败，默认 0</li>
+ * </ul>
+ *
+ * @author 伍磊
+ */
+@Tag("soak")
+@DisplayName("大规模入库压测")
+class IngestionSoakTest {
+
+    private static final Logger log = LoggerFactory.getLogger(IngestionSoakTest.class);
+
+    @Test
+    @DisplayName("合成 Markdown 入库到假 VectorStore，报告吞吐、峰值堆与 GC 停顿")
+    void soak(@TempDir Path tempDir) throws IOException {
+        // Given
+        long sizeMb = Long.getLong("soak.sizeMb", 64);
+        double latencyMs = Double.parseDouble(System.getProperty("soak.latencyMs", "5"));
+        double failureRate = Double.parseDouble(System.getProperty("soak.failureRate", "0"));
+        int batchSize = Integer.getInteger("soak.batchSize", 50);
+        int writeConcurrency = Integer.getInteger("soak.writeConcurrency", 4);
+        int maxAttempts = Integer.getInteger("soak.maxAttempts", 3);
+        boolean streaming = Boolean.parseBoolean(System.getProperty("soak.streaming", "true"));
+        long maxHeapMb = Long.getLong("soak.maxHeapMb", 0);
+
+        Path source = tempDir.resolve("soak.md");
+        long bytes = SyntheticMarkdown.write(source, sizeMb * 1024 * 1024, 42L);
+        FakeVectorStore vectorStore = new FakeVectorStore((long) (latencyMs * 1000), failureRate);
+        VectorStoringStage stage = MarkdownRagPipeline.defaultConfig()
+                .fromFile(source.toFile())
+                .withTextSplitter(TokenTextSplitter.builder().withChunkSize(800).build())
+                .withBatchSize(batchSize)
+                .withWriteConcurrency(writeConcurrency)
+                .withStreaming(streaming);
+        if (maxAttempts > 1) {
+            stage.withRetry(maxAttempts, Duration.ofMillis(50));
+        }
+        log.info("[rag soak] started | sizeMb={}, latencyMs={}, failureRate={}, batchSize={}, "
+                 + "writeConcurrency={}, maxAttempts={}, streaming={}",
+                 bytes / (1024 * 1024), latencyMs, failureRate, batchSize, writeConcurrency, maxAttempts, streaming);
+
+        // When
+        IngestionResult result = null;
+        RuntimeException failure = null;
+        long start = System.nanoTime();
+        try (JvmMonitor monitor = new JvmMonitor()) {
+            try {
+                result = stage.toVectorStore(vectorStore);
+            } catch (IllegalStateException e) {
+                failure = e;
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            // Then
+            long peakHeapMb = monitor.getPeakHeapBytes() / (1024 * 1024);
+            log.info("[rag soak] finished | elapsedS={}, chunks={}, chunksPerS={}, mbPerS={}, calls={}, "
+                     + "injectedFailures={}, peakHeapMb={}, gcPauses={}, gcPauseMs={}, maxGcPauseMs={}, error={}",
+                     String.format("%.1f", seconds), vectorStore.getAddedDocuments(),
+                     String.format("%.0f", vectorStore.getAddedDocuments() / seconds),
+                     String.format("%.2f", bytes / 1024d / 1024d / seconds), vectorStore.getCalls(),
+                     vectorStore.getFailures(), peakHeapMb, monitor.getPauseCount(), monitor.getPauseMillis(),
+                     monitor.getMaxPauseMillis(), null == failure ? "-" : failure.getMessage());
+            if (null == failure) {
+                assertThat(vectorStore.getAddedDocuments()).isEqualTo(result.getChunkCount());
+            } else {
+                // 只有注入的失败在重试后仍未成功时才允许出现失败批次
+                assertThat(failureRate).as("unexpected failure: %s", failure.getMessage()).isPositive();
+            }
+            if (maxHeapMb > 0) {
+                assertThat(peakHeapMb).isLessThanOrEqualTo(maxHeapMb);
+            }
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.lei.learn.etl.core.soak;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+
+import javax.management.ListenerNotFoundException;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>
+ * 压测期间的堆与 GC 统计
+ * </p>
+ * 创建时重置各堆内存池的峰值，通过 GC 通知累计停顿次数、总时长和最长一次停顿。
+ * 名称包含 Concurrent / Cycles 的收集器（G1 并发周期、ZGC 周期）不是停顿，不计入。
+ * 峰值堆为各内存池峰值之和，是同一时刻堆占用的上界。
+ *
+ * @author 伍磊
+ */
+final class JvmMonitor implements AutoCloseable {
+
+    private final List<MemoryPoolMXBean> heapPools = new ArrayList<>();
+
+    private final List<NotificationEmitter> emitters = new ArrayList<>();
+
+    private final LongAdder pauseCount = new LongAdder();
+
+    private final LongAdder pauseMillis = new LongAdder();
+
+    private final AtomicLong maxPauseMillis = new AtomicLong();
+
+    private final NotificationListener listener = (notification, handback) -> {
+        if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+            return;
+        }
+        GarbageCollectionNotificationInfo info =
+                GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+        String name = info.getGcName();
+        if (name.contains("Concurrent") || name.contains("Cycles")) {
+            return;
+        }
+        long duration = info.getGcInfo().getDuration();
+        pauseCount.increment();
+        pauseMillis.add(duration);
+        maxPauseMillis.accumulateAndGet(duration, Math::max);
+    };
+
+    JvmMonitor() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+                heapPools.add(pool);
+            }
+        }
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (gc instanceof NotificationEmitter emitter) {
+                emitter.addNotificationListener(listener, null, null);
+                emitters.add(emitter);
+            }
+        }
+    }
+
+    long getPeakHeapBytes() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : heapPools) {
+            peak += pool.getPeakUsage().getUsed();
+        }
+        return peak;
+    }
+
+    long getPauseCount() {
+        return pauseCount.sum();
+    }
+
+    long getPauseMillis() {
+        return pauseMillis.sum();
+    }
+
+    long getMaxPauseMillis() {
+        return maxPauseMillis.get();
+    }
+
+    @Override
+    public void close() {
+        for (NotificationEmitter emitter : emitters) {
+            try {
+                emitter.removeNotificationListener(listener);
+            } catch (ListenerNotFoundException ignored) {
+                // 已经移除
+            }
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.lei.learn.etl.core.soak;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * <p>
+ * 生成压测用的 Markdown 文件
+ * </p>
+ * 按固定随机种子生成标题、段落、列表和代码块交替的文档，边生成边写盘，GB 级文件也不会占用堆内存。
+ * 同样的参数每次生成的内容相同。
+ *
+ * @author 伍磊
+ */
+final class SyntheticMarkdown {
+
+    private static final String[] WORDS = {
+            "vector", "store", "embedding", "chunk", "token", "pipeline", "markdown", "index",
+            "batch", "latency", "throughput", "OpenSearch", "检索", "向量", "分块", "文档", "模型", "管道"
+    };
+
+    private SyntheticMarkdown() {
+    }
+
+    /**
+     * 写入约 bytes 字节（UTF-8）的 Markdown 文件
+     *
+     * @return 实际写入的字节数
+     */
+    static long write(Path file, long bytes, long seed) throws IOException {
+        Random random = new Random(seed);
+        long written = 0;
+        int chapter = 0;
+        StringBuilder sb = new StringBuilder(8 * 1024);
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            while (written < bytes) {
+                sb.setLength(0);
+                chapter++;
+                sb.append("# 第 ").append(chapter).append(" 章\n\n");
+                for (int p = 0; p < 3; p++) {
+                    appendSentence(sb, random, 40 + random.nextInt(40));
+                    sb.append("\n\n");
+                }
+                sb.append("## 小节 ").append(chapter).append(".1\n\n");
+                for (int i = 0; i < 4; i++) {
+                    sb.append("- ");
+                    appendSentence(sb, random, 8 + random.nextInt(8));
+                    sb.append('\n');
+                }
+                sb.append("\n```java\n")
+                        .append("VectorStore store = context.getBean(VectorStore.class);\n")
+                        .append("store.add(documents.subList(0, ").append(chapter).append("));\n")
+                        .append("```\n\n");
+                String section = sb.toString();
+                writer.write(section);
+                written += section.getBytes(StandardCharsets.UTF_8).length;
+            }
+        }
+        return written;
+    }
+
+    private static void appendSentence(StringBuilder sb, Random random, int words) {
+        for (int i = 0; i < words; i++) {
+            if (i > 0) {
+                sb.append(' ');
+            }
+            sb.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        sb.append('.');
+    }
+}
@@ -0,0 +1,167 @@
+package com.lei.learn.rag.etl.opensearch.configuration;
+
+import com.lei.learn.etl.core.embedding.CachingEmbeddingModel;
+import com.lei.learn.etl.core.embedding.LruEmbeddingCache;
+import com.lei.learn.etl.core.embedding.MappedFileEmbeddingCache;
+import com.lei.learn.etl.core.embedding.RateLimitedEmbeddingModel;
+import com.lei.learn.etl.core.pipeline.generation.GenerationRegistry;
+import com.lei.learn.etl.core.pipeline.batch.RetryPolicy;
+import com.lei.learn.etl.core.pipeline.incremental.IngestionManifest;
+import com.lei.learn.rag.etl.opensearch.store.OpenSearchBulkVectorStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.opensearch.client.opensearch.OpenSearchClient;
+import org.springframework.ai.embedding.BatchingStrategy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.vectorstore.opensearch.OpenSearchVectorStore;
+import org.springframework.ai.vectorstore.opensearch.autoconfigure.OpenSearchVectorStoreProperties;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * <p>
+ * RagEtlConfiguration
+ * </p>
+ *
+ * @author 伍磊
+ */
+@Configuration(proxyBeanMethods = false)
+@EnableConfigurationProperties(RagEtlProperties.class)
+@RequiredArgsConstructor
+public class RagEtlConfiguration {
+
+    private final RagEtlProperties ragEtlProperties;
+
+    @Bean
+    public IngestionManifest ingestionManifest() {
+        return IngestionManifest.load(Path.of(ragEtlProperties.getManifestPath()));
+    }
+
+    @Bean
+    public GenerationRegistry generationRegistry() {
+        return GenerationRegistry.load(Path.of(ragEtlProperties.getGenerationRegistryPath()));
+    }
+
+    /**
+     * 文本切分线程池，所有入库请求共享，容器关闭时释放
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ForkJoinPool textSplitPool() {
+        return new ForkJoinPool(Math.max(1, ragEtlProperties.getSplitParallelism()));
+    }
+
+    /**
+     * 磁盘向量缓存，容器关闭时刷盘
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "rag.etl.embedding-cache", name = {"enabled", "disk-path"})
+    public MappedFileEmbeddingCache mappedFileEmbeddingCache() {
+        return MappedFileEmbeddingCache.open(Path.of(ragEtlProperties.getEmbeddingCache().getDiskPath()));
+    }
+
+    /**
+     * 用 CachingEmbeddingModel 包装容器中的 EmbeddingModel，VectorStore 拿到的就是带缓存的模型
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "rag.etl.embedding-cache", name = "enabled", matchIfMissing = true)
+    public static BeanPostProcessor cachingEmbeddingModelPostProcessor(
+            ObjectProvider<RagEtlProperties> properties,
+            ObjectProvider<MappedFileEmbeddingCache> diskCache) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof EmbeddingModel embeddingModel) || bean instanceof CachingEmbeddingModel) {
+                    return bean;
+                }
+                RagEtlProperties.EmbeddingCache config = properties.getObject().getEmbeddingCache();
+                CachingEmbeddingModel.Builder builder = CachingEmbeddingModel.builder(embeddingModel)
+                        .withModelName(config.getModelName())
+                        .withCache(new LruEmbeddingCache(config.getMaxEntries()));
+                diskCache.ifAvailable(builder::withCache);
+                return builder.build();
+            }
+        };
+    }
+
+    /**
+     * 用 RateLimitedEmbeddingModel 包装容器中的 EmbeddingModel，按配额匀速调用并在失败时重试
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "rag.etl.embedding-rate-limit", name = "enabled")
+    public static BeanPostProcessor rateLimitedEmbeddingModelPostProcessor(
+            ObjectProvider<RagEtlProperties> properties,
+            ObjectProvider<MeterRegistry> meterRegistry) {
+        return new RateLimitedEmbeddingModelPostProcessor(properties, meterRegistry);
+    }
+
+    /**
+     * 用 OpenSearchBulkVectorStore 包装自动配置的 OpenSearchVectorStore，写入改走 _bulk 批量请求，
+     * 检索时屏蔽原子入库尚未生效的代次
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "rag.etl.bulk", name = "enabled", matchIfMissing = true)
+    public static BeanPostProcessor bulkVectorStorePostProcessor(
+            ObjectProvider<RagEtlProperties> properties,
+            ObjectProvider<OpenSearchClient> client,
+            ObjectProvider<EmbeddingModel> embeddingModel,
+            ObjectProvider<BatchingStrategy> batchingStrategy,
+            ObjectProvider<OpenSearchVectorStoreProperties> vectorStoreProperties,
+            ObjectProvider<GenerationRegistry> generationRegistry) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof OpenSearchVectorStore vectorStore)) {
+                    return bean;
+                }
+                RagEtlProperties.Bulk config = properties.getObject().getBulk();
+                OpenSearchBulkVectorStore.Builder builder = OpenSearchBulkVectorStore
+                        .builder(vectorStore, client.getObject(), embeddingModel.getObject())
+                        .withMaxRequestBytes(config.getMaxRequestSize().toBytes())
+                        .withConcurrency(config.getConcurrency())
+                        .withSuspendRefresh(config.isSuspendRefresh());
+                vectorStoreProperties.ifAvailable(p -> builder.withIndex(p.getIndexName()));
+                batchingStrategy.ifAvailable(builder::withBatchingStrategy);
+                generationRegistry.ifAvailable(builder::withGenerationRegistry);
+                return builder.build();
+            }
+        };
+    }
+
+    /**
+     * 实现 Ordered，先于缓存装饰器执行，包装顺序为 CachingEmbeddingModel -> RateLimitedEmbeddingModel -> 原模型，
+     * 缓存命中的文本不占用配额
+     */
+    private record RateLimitedEmbeddingModelPostProcessor(ObjectProvider<RagEtlProperties> properties,
+                                                          ObjectProvider<MeterRegistry> meterRegistry)
+            implements BeanPostProcessor, Ordered {
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (!(bean instanceof EmbeddingModel embeddingModel)
+                || bean instanceof RateLimitedEmbeddingModel
+                || bean instanceof CachingEmbeddingModel) {
+                return bean;
+            }
+            RagEtlProperties.EmbeddingRateLimit config = properties.getObject().getEmbeddingRateLimit();
+            return RateLimitedEmbeddingModel.builder(embeddingModel)
+                    .withRequestsPerMinute(config.getRequestsPerMinute())
+                    .withTokensPerMinute(config.getTokensPerMinute())
+                    .withRetry(RetryPolicy.of(config.getMaxAttempts(), config.getInitialBackoff()))
+                    .withMeterRegistry(meterRegistry.getIfAvailable())
+                    .build();
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.LOWEST_PRECEDENCE;
+        }
+    }
+}
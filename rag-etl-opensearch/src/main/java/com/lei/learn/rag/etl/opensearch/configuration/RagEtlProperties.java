@@ -0,0 +1,171 @@
+package com.lei.learn.rag.etl.opensearch.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * <p>
+ * RagEtlProperties
+ * </p>
+ *
+ * @author 伍磊
+ */
+@Data
+@ConfigurationProperties(prefix = "rag.etl")
+public class RagEtlProperties {
+
+    /**
+     * 增量入库清单文件路径
+     */
+    private String manifestPath = "data/ingestion-manifest.json";
+
+    /**
+     * 原子入库的代次登记表文件路径
+     */
+    private String generationRegistryPath = "data/generation-registry.json";
+
+    /**
+     * 单文件入库的断点目录，请求开启 checkpoint 时使用，部分批次失败后可通过 resume 续传
+     */
+    private String checkpointDir = "data/checkpoints";
+
+    /**
+     * 切分并行度：多个文档在 ForkJoin 线程池上并行切分，1 表示在调用线程上顺序切分
+     */
+    private int splitParallelism = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * 向量缓存配置
+     */
+    private EmbeddingCache embeddingCache = new EmbeddingCache();
+
+    /**
+     * embedding 调用限流与重试配置
+     */
+    private EmbeddingRateLimit embeddingRateLimit = new EmbeddingRateLimit();
+
+    /**
+     * 异步入库任务配置
+     */
+    private Jobs jobs = new Jobs();
+
+    /**
+     * _bulk 批量写入配置
+     */
+    private Bulk bulk = new Bulk();
+
+    @Data
+    public static class EmbeddingCache {
+
+        /**
+         * 是否启用向量缓存
+         */
+        private boolean enabled = true;
+
+        /**
+         * 内存 LRU 缓存最大条目数
+         */
+        private int maxEntries = 10_000;
+
+        /**
+         * 磁盘缓存文件路径，为空时只使用内存缓存
+         */
+        private String diskPath;
+
+        /**
+         * 参与缓存 key 计算的模型名，切换 embedding 模型时需要同步修改
+         */
+        private String modelName = "text-embedding-v1";
+    }
+
+    @Data
+    public static class EmbeddingRateLimit {
+
+        /**
+         * 是否对 embedding 调用限流并在失败时重试
+         */
+        private boolean enabled = false;
+
+        /**
+         * 每分钟最多请求数，0 表示不限制
+         */
+        private long requestsPerMinute = 0;
+
+        /**
+         * 每分钟最多 token 数（本地估算），0 表示不限制
+         */
+        private long tokensPerMinute = 0;
+
+        /**
+         * 单次调用最大尝试次数（含首次）
+         */
+        private int maxAttempts = 3;
+
+        /**
+         * 首次重试前的等待时间，之后每次翻倍并随机抖动
+         */
+        private Duration initialBackoff = Duration.ofSeconds(1);
+    }
+
+    @Data
+    public static class Bulk {
+
+        /**
+         * 是否使用 _bulk 批量写入替换 OpenSearchVectorStore.add
+         */
+        private boolean enabled = true;
+
+        /**
+         * 单个 _bulk 请求体上限（估算值）
+         */
+        private DataSize maxRequestSize = DataSize.ofMegabytes(5);
+
+        /**
+         * 同时在途的 _bulk 请求数，所有入库共享
+         */
+        private int concurrency = 4;
+
+        /**
+         * 入库期间是否把索引 refresh_interval 设为 -1，结束后恢复并刷新一次
+         */
+        private boolean suspendRefresh = true;
+
+        /**
+         * 是否把 embedding 与写索引拆成两个阶段流水执行，embedding 并发度为请求的 writeConcurrency
+         */
+        private boolean pipelined = true;
+
+        /**
+         * 流水线写入时同时写索引的批次数
+         */
+        private int indexConcurrency = 2;
+
+        /**
+         * 流水线写入时已 embedding 待写索引的最大批次数，写满时 embedding 阶段阻塞
+         */
+        private int indexQueueCapacity = 4;
+    }
+
+    @Data
+    public static class Jobs {
+
+        /**
+         * 同时执行的入库任务数
+         */
+        private int concurrency = 2;
+
+        /**
+         * 等待执行的任务队列容量，队列满时拒绝提交
+         */
+        private int queueCapacity = 1000;
+
+        /**
+         * 保留的已结束任务数，超过后淘汰最早提交的
+         */
+        private int retainedJobs = 1000;
+    }
+
+}
@@ -0,0 +1,49 @@
+package com.lei.learn.rag.etl.opensearch.controller;
+
+import com.lei.learn.etl.core.model.MarkdownProcessRequest;
+import com.lei.learn.etl.core.model.MarkdownProcessResponse;
+import com.lei.learn.rag.etl.opensearch.service.MarkdownService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * <p>
+ * 多格式文档处理控制器：按扩展名或内容识别 Markdown、PDF、HTML、文本与 JSON Lines
+ * </p>
+ *
+ * @author 伍磊
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/documents")
+@RequiredArgsConstructor
+public class DocumentController {
+
+    private final MarkdownService markdownService;
+
+    /**
+     * 处理本地文件，格式自动识别
+     *
+     * @param request 处理请求
+     * @return 处理响应
+     */
+    @PostMapping("/process")
+    public MarkdownProcessResponse processDocument(@RequestBody MarkdownProcessRequest request) {
+        log.info("收到文档处理请求: {}", request.getFilePath());
+        return markdownService.processDocumentFile(request);
+    }
+
+    /**
+     * 处理本地目录下的混合格式文件，无法识别格式的文件跳过
+     *
+     * @param request 处理请求，filePath 为目录路径，glob 默认匹配所有文件
+     * @return 处理响应
+     */
+    @PostMapping("/process-directory")
+    public MarkdownProcessResponse processDocumentDirectory(@RequestBody MarkdownProcessRequest request) {
+        log.info("收到混合格式目录处理请求: {}, glob: {}", request.getFilePath(), request.getGlob());
+        return markdownService.processDocumentDirectory(request);
+    }
+
+}
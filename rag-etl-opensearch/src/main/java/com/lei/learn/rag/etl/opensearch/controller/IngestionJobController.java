@@ -0,0 +1,84 @@
+package com.lei.learn.rag.etl.opensearch.controller;
+
+import com.lei.learn.etl.core.model.IngestionJobStatus;
+import com.lei.learn.etl.core.model.MarkdownProcessRequest;
+import com.lei.learn.rag.etl.opensearch.job.IngestionJobService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Function;
+
+/**
+ * <p>
+ * 异步入库任务控制器
+ * </p>
+ *
+ * @author 伍磊
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/markdown/jobs")
+@RequiredArgsConstructor
+public class IngestionJobController {
+
+    private final IngestionJobService ingestionJobService;
+
+    /**
+     * 提交单个 Markdown 文件的入库任务，立即返回任务 ID
+     *
+     * @param request 处理请求
+     * @return 任务状态，队列已满时返回 429
+     */
+    @PostMapping
+    public ResponseEntity<IngestionJobStatus> submitFile(@RequestBody MarkdownProcessRequest request) {
+        log.info("收到 Markdown 文件入库任务: {}", request.getFilePath());
+        return submit(request, ingestionJobService::submitFile);
+    }
+
+    /**
+     * 提交目录入库任务，立即返回任务 ID
+     *
+     * @param request 处理请求，filePath 为目录路径
+     * @return 任务状态，队列已满时返回 429
+     */
+    @PostMapping("/directory")
+    public ResponseEntity<IngestionJobStatus> submitDirectory(@RequestBody MarkdownProcessRequest request) {
+        log.info("收到 Markdown 目录入库任务: {}, glob: {}", request.getFilePath(), request.getGlob());
+        return submit(request, ingestionJobService::submitDirectory);
+    }
+
+    /**
+     * 查询任务进度
+     *
+     * @param jobId 任务 ID
+     * @return 任务状态，任务不存在时返回 404
+     */
+    @GetMapping("/{jobId}")
+    public ResponseEntity<IngestionJobStatus> getStatus(@PathVariable String jobId) {
+        return ResponseEntity.of(ingestionJobService.getStatus(jobId));
+    }
+
+    /**
+     * 查询所有保留的任务，按提交时间倒序
+     */
+    @GetMapping
+    public List<IngestionJobStatus> listStatus() {
+        return ingestionJobService.listStatus();
+    }
+
+    private ResponseEntity<IngestionJobStatus> submit(MarkdownProcessRequest request,
+                                                      Function<MarkdownProcessRequest, IngestionJobStatus> submitter) {
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(submitter.apply(request));
+        } catch (RejectedExecutionException e) {
+            log.warn("入库任务队列已满，拒绝提交: {}", request.getFilePath());
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).build();
+        }
+    }
+
+}
@@ -34,4 +34,16 @@ public class MarkdownController {
         return markdownService.processMarkdownFile(request);
     }
 
+    /**
+     * 处理本地目录下所有匹配的 Markdown 文件
+     *
+     * @param request 处理请求，filePath 为目录路径
+     * @return 处理响应
+     */
+    @PostMapping("/process-directory")
+    public MarkdownProcessResponse processMarkdownDirectory(@RequestBody MarkdownProcessRequest request) {
+        log.info("收到 Markdown 目录处理请求: {}, glob: {}", request.getFilePath(), request.getGlob());
+        return markdownService.processMarkdownDirectory(request);
+    }
+
 }
@@ -0,0 +1,104 @@
+package com.lei.learn.rag.etl.opensearch.job;
+
+import com.lei.learn.etl.core.model.IngestionJobStatus;
+import com.lei.learn.etl.core.model.MarkdownProcessResponse;
+import com.lei.learn.etl.core.pipeline.batch.BatchListener;
+import com.lei.learn.etl.core.pipeline.batch.DocumentBatch;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>
+ * 异步入库任务，同时作为批次回调记录进度
+ * </p>
+ *
+ * @author 伍磊
+ */
+public class IngestionJob implements BatchListener {
+
+    private final String id;
+
+    private final String filePath;
+
+    private final Instant submittedAt = Instant.now();
+
+    private final AtomicLong chunksWritten = new AtomicLong();
+
+    private final AtomicLong batchesSucceeded = new AtomicLong();
+
+    private final AtomicLong batchesFailed = new AtomicLong();
+
+    private volatile IngestionJobStatus.State state = IngestionJobStatus.State.QUEUED;
+
+    private volatile Instant startedAt;
+
+    private volatile Instant finishedAt;
+
+    private volatile MarkdownProcessResponse result;
+
+    public IngestionJob(String id, String filePath) {
+        this.id = id;
+        this.filePath = filePath;
+    }
+
+    @Override
+    public void onSuccess(DocumentBatch batch, long elapsedNanos) {
+        chunksWritten.addAndGet(batch.size());
+        batchesSucceeded.incrementAndGet();
+    }
+
+    @Override
+    public void onFailure(DocumentBatch batch, Exception error) {
+        batchesFailed.incrementAndGet();
+    }
+
+    void markRunning() {
+        this.startedAt = Instant.now();
+        this.state = IngestionJobStatus.State.RUNNING;
+    }
+
+    void markFinished(MarkdownProcessResponse result) {
+        this.result = result;
+        this.finishedAt = Instant.now();
+        this.state = Boolean.TRUE.equals(result.getSuccess())
+                ? IngestionJobStatus.State.SUCCEEDED
+                : IngestionJobStatus.State.FAILED;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public Instant getSubmittedAt() {
+        return submittedAt;
+    }
+
+    public boolean isFinished() {
+        return null != finishedAt;
+    }
+
+    public IngestionJobStatus toStatus() {
+        Instant started = startedAt;
+        Instant finished = finishedAt;
+        Double chunksPerSecond = null;
+        if (null != started) {
+            long millis = Duration.between(started, null != finished ? finished : Instant.now()).toMillis();
+            chunksPerSecond = millis > 0 ? chunksWritten.get() * 1000.0 / millis : 0.0;
+        }
+        return IngestionJobStatus.builder()
+                .jobId(id)
+                .state(state)
+                .filePath(filePath)
+                .submittedAt(submittedAt)
+                .startedAt(started)
+                .finishedAt(finished)
+                .chunksWritten(chunksWritten.get())
+                .batchesSucceeded(batchesSucceeded.get())
+                .batchesFailed(batchesFailed.get())
+                .chunksPerSecond(chunksPerSecond)
+                .result(result)
+                .build();
+    }
+}
@@ -0,0 +1,140 @@
+package com.lei.learn.rag.etl.opensearch.job;
+
+import com.lei.learn.etl.core.model.IngestionJobStatus;
+import com.lei.learn.etl.core.model.MarkdownProcessRequest;
+import com.lei.learn.etl.core.model.MarkdownProcessResponse;
+import com.lei.learn.rag.etl.opensearch.configuration.RagEtlProperties;
+import com.lei.learn.rag.etl.opensearch.service.MarkdownService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Service;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+
+/**
+ * <p>
+ * 异步入库任务服务
+ * </p>
+ * 任务在独立的线程池上执行，提交后立即返回任务 ID，队列满时拒绝提交。
+ * 只保留最近的 retainedJobs 个已结束任务。
+ *
+ * @author 伍磊
+ */
+@Slf4j
+@Service
+public class IngestionJobService implements DisposableBean {
+
+    private final MarkdownService markdownService;
+
+    private final ThreadPoolExecutor executor;
+
+    private final int retainedJobs;
+
+    private final Map<String, IngestionJob> jobs = new ConcurrentHashMap<>();
+
+    public IngestionJobService(MarkdownService markdownService, RagEtlProperties ragEtlProperties) {
+        this.markdownService = markdownService;
+        RagEtlProperties.Jobs config = ragEtlProperties.getJobs();
+        this.retainedJobs = config.getRetainedJobs();
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(config.getConcurrency(), config.getConcurrency(),
+                0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(config.getQueueCapacity()),
+                r -> new Thread(r, "rag-ingestion-job-" + threadIndex.incrementAndGet()));
+    }
+
+    /**
+     * 提交单个 Markdown 文件的入库任务
+     *
+     * @throws RejectedExecutionException 队列已满
+     */
+    public IngestionJobStatus submitFile(MarkdownProcessRequest request) {
+        return submit(request, markdownService::processMarkdownFile);
+    }
+
+    /**
+     * 提交目录入库任务
+     *
+     * @throws RejectedExecutionException 队列已满
+     */
+    public IngestionJobStatus submitDirectory(MarkdownProcessRequest request) {
+        return submit(request, markdownService::processMarkdownDirectory);
+    }
+
+    public Optional<IngestionJobStatus> getStatus(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId)).map(IngestionJob::toStatus);
+    }
+
+    public List<IngestionJobStatus> listStatus() {
+        return jobs.values().stream()
+                .map(IngestionJob::toStatus)
+                .sorted(Comparator.comparing(IngestionJobStatus::getSubmittedAt).reversed())
+                .toList();
+    }
+
+    private IngestionJobStatus submit(MarkdownProcessRequest request,
+                                      BiFunction<MarkdownProcessRequest, IngestionJob, MarkdownProcessResponse> task) {
+        IngestionJob job = new IngestionJob(UUID.randomUUID().toString(), request.getFilePath());
+        jobs.put(job.getId(), job);
+        try {
+            executor.execute(() -> run(job, request, task));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getId());
+            throw e;
+        }
+        log.info("入库任务已提交: {}, 文件: {}, 排队任务数: {}", job.getId(), request.getFilePath(), executor.getQueue().size());
+        evictFinishedJobs();
+        return job.toStatus();
+    }
+
+    private void run(IngestionJob job, MarkdownProcessRequest request,
+                     BiFunction<MarkdownProcessRequest, IngestionJob, MarkdownProcessResponse> task) {
+        job.markRunning();
+        MarkdownProcessResponse response;
+        try {
+            response = task.apply(request, job);
+        } catch (Exception e) {
+            log.error("入库任务执行失败: {}", job.getId(), e);
+            response = MarkdownProcessResponse.builder()
+                    .success(false)
+                    .message("处理失败: " + e.getMessage())
+                    .filePath(request.getFilePath())
+                    .build();
+        }
+        job.markFinished(response);
+        log.info("入库任务结束: {}, 状态: {}", job.getId(), job.toStatus().getState());
+    }
+
+    /**
+     * 已结束的任务超过 retainedJobs 时，按提交时间淘汰最早的
+     */
+    private void evictFinishedJobs() {
+        List<IngestionJob> finished = jobs.values().stream()
+                .filter(IngestionJob::isFinished)
+                .sorted(Comparator.comparing(IngestionJob::getSubmittedAt))
+                .toList();
+        for (int i = 0; i < finished.size() - retainedJobs; i++) {
+            jobs.remove(finished.get(i).getId());
+        }
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+            log.warn("入库任务线程池未能在 30 秒内结束，剩余任务将被中断");
+            executor.shutdownNow();
+        }
+    }
+}
@@ -2,15 +2,47 @@ package com.lei.learn.rag.etl.opensearch.service;
 
 import com.lei.learn.etl.core.model.MarkdownProcessRequest;
 import com.lei.learn.etl.core.model.MarkdownProcessResponse;
+import com.lei.learn.etl.core.pipeline.IngestionResult;
+import com.lei.learn.etl.core.pipeline.MixedFormatRagPipeline;
+import com.lei.learn.etl.core.pipeline.ResourceLoadingStage;
+import com.lei.learn.etl.core.pipeline.VectorStoringStage;
+import com.lei.learn.etl.core.pipeline.batch.AdaptiveBatchSizer;
+import com.lei.learn.etl.core.pipeline.batch.BatchListener;
+import com.lei.learn.etl.core.pipeline.dedup.NearDuplicateFilter;
+import com.lei.learn.etl.core.pipeline.format.DocumentFormat;
+import com.lei.learn.etl.core.pipeline.generation.GenerationRegistry;
+import com.lei.learn.etl.core.pipeline.html.HtmlRagPipeline;
+import com.lei.learn.etl.core.pipeline.incremental.ContentHasher;
+import com.lei.learn.etl.core.pipeline.incremental.IngestionManifest;
+import com.lei.learn.etl.core.pipeline.jsonl.JsonLinesRagPipeline;
 import com.lei.learn.etl.core.pipeline.markdown.MarkdownRagPipeline;
+import com.lei.learn.etl.core.pipeline.markdown.MarkdownTextSplitter;
+import com.lei.learn.etl.core.pipeline.pdf.PdfRagPipeline;
+import com.lei.learn.etl.core.pipeline.split.ParallelTextSplitter;
+import com.lei.learn.etl.core.pipeline.text.TextRagPipeline;
+import com.lei.learn.rag.etl.opensearch.configuration.RagEtlProperties;
+import com.lei.learn.rag.etl.opensearch.store.OpenSearchBulkVectorStore;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.transformer.splitter.TextSplitter;
 import org.springframework.ai.transformer.splitter.TokenTextSplitter;
 import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Service;
 
 import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
  * <p>
@@ -26,6 +58,33 @@ public class MarkdownService {
 
     private final VectorStore vectorStore;
 
+    private final EmbeddingModel embeddingModel;
+
+    private final IngestionManifest ingestionManifest;
+
+    private final GenerationRegistry generationRegistry;
+
+    private final RagEtlProperties ragEtlProperties;
+
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+
+    private final ForkJoinPool textSplitPool;
+
+    /**
+     * 缓存的切分配置数上限，切分配置来自请求，超出后淘汰最久未用的
+     */
+    private static final int MAX_CACHED_SPLITTERS = 16;
+
+    /**
+     * 按归一化后的切分配置缓存切分器，让各工作线程上的切分器（及其 BPE 编码器）跨请求复用
+     */
+    private final Map<SplitterKey, TextSplitter> textSplitters = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<SplitterKey, TextSplitter> eldest) {
+            return size() > MAX_CACHED_SPLITTERS;
+        }
+    };
+
     /**
      * 处理本地 Markdown 文件
      *
@@ -33,6 +92,60 @@ public class MarkdownService {
      * @return 处理响应
      */
     public MarkdownProcessResponse processMarkdownFile(MarkdownProcessRequest request) {
+        return processMarkdownFile(request, null);
+    }
+
+    /**
+     * 处理本地 Markdown 文件，每个批次写入后回调 listener
+     *
+     * @param request  处理请求
+     * @param listener 批次写入回调，可为 null
+     * @return 处理响应
+     */
+    public MarkdownProcessResponse processMarkdownFile(MarkdownProcessRequest request, BatchListener listener) {
+        String filePath = request.getFilePath();
+        if (filePath != null && !filePath.trim().isEmpty() && !filePath.toLowerCase().endsWith(".md")) {
+            return buildErrorResponse("文件不是 Markdown 格式: " + filePath, filePath, System.currentTimeMillis());
+        }
+        return processFile(request, listener, file -> {
+            MarkdownRagPipeline.Builder pipelineBuilder = buildPipeline(request);
+            // 添加默认元数据
+            pipelineBuilder.withAdditionalMetadata("filename", file.getName());
+            pipelineBuilder.withAdditionalMetadata("filepath", file.getAbsolutePath());
+            pipelineBuilder.withAdditionalMetadata("file_type", "markdown");
+            return pipelineBuilder.build();
+        });
+    }
+
+    /**
+     * 处理本地文件，按扩展名或内容识别格式（Markdown、PDF、HTML、文本、JSON Lines）
+     *
+     * @param request 处理请求
+     * @return 处理响应
+     */
+    public MarkdownProcessResponse processDocumentFile(MarkdownProcessRequest request) {
+        return processDocumentFile(request, null);
+    }
+
+    /**
+     * 处理本地文件，按扩展名或内容识别格式，每个批次写入后回调 listener
+     *
+     * @param request  处理请求
+     * @param listener 批次写入回调，可为 null
+     * @return 处理响应
+     */
+    public MarkdownProcessResponse processDocumentFile(MarkdownProcessRequest request, BatchListener listener) {
+        String filePath = request.getFilePath();
+        if (filePath != null && !filePath.trim().isEmpty() && Files.isRegularFile(Path.of(filePath))
+                && DocumentFormat.detect(Path.of(filePath)).isEmpty()) {
+            return buildErrorResponse("不支持的文件格式: " + filePath, filePath, System.currentTimeMillis());
+        }
+        return processFile(request, listener, file -> buildMixedPipeline(request,
+                Map.of("filename", file.getName(), "filepath", file.getAbsolutePath())));
+    }
+
+    private MarkdownProcessResponse processFile(MarkdownProcessRequest request, BatchListener listener,
+                                                Function<File, ResourceLoadingStage> pipelineFactory) {
         long startTime = System.currentTimeMillis();
 
         try {
@@ -50,63 +163,62 @@ public class MarkdownService {
             if (!file.isFile()) {
                 return buildErrorResponse("路径不是文件: " + filePath, filePath, startTime);
             }
-
-            if (!filePath.toLowerCase().endsWith(".md")) {
-                return buildErrorResponse("文件不是 Markdown 格式: " + filePath, filePath, startTime);
+            if (isAtomicConflict(request)) {
+                return buildErrorResponse("原子入库不能与增量入库或断点续传同时使用", filePath, startTime);
             }
-
-            // 2. 构建文本分割器
-            TokenTextSplitter splitter = buildTextSplitter(request.getSplitterConfig());
-
-            // 3. 构建 MarkdownRagPipeline
-            MarkdownRagPipeline.Builder pipelineBuilder = MarkdownRagPipeline.builder();
-
-            // 配置 Markdown 选项
-            if (request.getMarkdownConfig() != null) {
-                MarkdownProcessRequest.MarkdownConfig config = request.getMarkdownConfig();
-                if (config.getHorizontalRuleCreateDocument() != null) {
-                    pipelineBuilder.withHorizontalRuleCreateDocument(config.getHorizontalRuleCreateDocument());
-                }
-                if (config.getIncludeCodeBlock() != null) {
-                    pipelineBuilder.withIncludeCodeBlock(config.getIncludeCodeBlock());
-                }
-                if (config.getIncludeBlockquote() != null) {
-                    pipelineBuilder.withIncludeBlockquote(config.getIncludeBlockquote());
-                }
-            }
-
-            // 添加元数据
-            if (request.getMetadata() != null && !request.getMetadata().isEmpty()) {
-                for (Map.Entry<String, Object> entry : request.getMetadata().entrySet()) {
-                    pipelineBuilder.withAdditionalMetadata(entry.getKey(), entry.getValue());
-                }
+            if (isDeduplicationConflict(request)) {
+                return buildErrorResponse("近似重复去重不能与增量入库或原子入库同时使用", filePath, startTime);
             }
 
-            // 添加默认元数据
-            pipelineBuilder.withAdditionalMetadata("filename", file.getName());
-            pipelineBuilder.withAdditionalMetadata("filepath", file.getAbsolutePath());
-            pipelineBuilder.withAdditionalMetadata("file_type", "markdown");
-
-            // 4. 执行 RAG Pipeline
-            log.info("开始处理 Markdown 文件: {}", filePath);
-            pipelineBuilder.build()
+            // 2. 构建管道并执行
+            log.info("开始处理文件: {}", filePath);
+            VectorStoringStage storingStage = pipelineFactory.apply(file)
                     .fromFile(file)
-                    .withTextSplitter(splitter)
-                    .toVectorStore(vectorStore);
+                    .withTextSplitter(buildTextSplitter(request.getSplitterConfig()));
+            if (Boolean.TRUE.equals(request.getIncremental())) {
+                storingStage.withManifest(ingestionManifest);
+            }
+            if (Boolean.TRUE.equals(request.getAtomic())) {
+                storingStage.withAtomicIngestion(generationRegistry);
+            }
+            // 断点需要显式开启，每个批次都会同步重写断点文件
+            if (isCheckpointed(request)) {
+                storingStage.withCheckpoint(checkpointPath(file));
+            }
+            if (Boolean.TRUE.equals(request.getDeduplicate())) {
+                storingStage.withDeduplication(() -> NearDuplicateFilter.builder().build());
+            }
+            storingStage.withMeterRegistry(meterRegistry.getIfAvailable())
+                    .withBatchListener(listener);
+            configureBatch(storingStage, request.getBatchConfig());
+            IngestionResult result = ingest(() -> Boolean.TRUE.equals(request.getResume())
+                    ? storingStage.resume(vectorStore)
+                    : storingStage.toVectorStore(vectorStore));
 
             long processingTime = System.currentTimeMillis() - startTime;
-            log.info("Markdown 文件处理完成: {}, 耗时: {}ms", filePath, processingTime);
+            log.info("文件处理完成: {}, 耗时: {}ms, 结果: {}", filePath, processingTime, result);
 
-            // 5. 构建成功响应
+            // 4. 构建成功响应
             return MarkdownProcessResponse.builder()
                     .success(true)
-                    .message("文档处理成功")
+                    .message(result.isUnchanged() ? "文档未变化，已跳过" : "文档处理成功")
+                    .documentCount(result.getDocumentCount())
+                    .chunkCount(result.getChunkCount())
+                    .batchCount(result.getBatchCount())
+                    .batchTokenBudget(result.getBatchTokenBudget())
+                    .unchanged(result.isUnchanged())
+                    .skippedChunkCount(result.getSkippedChunkCount())
+                    .deletedChunkCount(result.getDeletedChunkCount())
+                    .duplicateChunkCount(result.getDuplicateChunkCount())
+                    .stageTimings(stageTimings(result))
+                    .resumedChunkCount(result.getResumedChunkCount())
+                    .generation(result.getGeneration())
                     .filePath(filePath)
                     .processingTime(processingTime)
                     .build();
 
         } catch (Exception e) {
-            log.error("处理 Markdown 文件失败: {}", request.getFilePath(), e);
+            log.error("处理文件失败: {}", request.getFilePath(), e);
             long processingTime = System.currentTimeMillis() - startTime;
             return MarkdownProcessResponse.builder()
                     .success(false)
@@ -117,23 +229,332 @@ public class MarkdownService {
         }
     }
 
+    /**
+     * 处理本地目录下所有匹配的 Markdown 文件，多个文件并行处理
+     *
+     * @param request 处理请求，filePath 为目录路径
+     * @return 处理响应，包含每个文件的处理结果
+     */
+    public MarkdownProcessResponse processMarkdownDirectory(MarkdownProcessRequest request) {
+        return processMarkdownDirectory(request, null);
+    }
+
+    /**
+     * 处理本地目录下所有匹配的 Markdown 文件，每个批次写入后回调 listener
+     *
+     * @param request  处理请求，filePath 为目录路径
+     * @param listener 批次写入回调，可为 null
+     * @return 处理响应，包含每个文件的处理结果
+     */
+    public MarkdownProcessResponse processMarkdownDirectory(MarkdownProcessRequest request, BatchListener listener) {
+        MarkdownRagPipeline.Builder pipelineBuilder = buildPipeline(request);
+        // filename / filepath 由管道按文件补充
+        pipelineBuilder.withAdditionalMetadata("file_type", "markdown");
+        return processDirectory(request, listener, pipelineBuilder.build(),
+                request.getGlob() != null ? request.getGlob() : "*.md");
+    }
+
+    /**
+     * 处理本地目录下的混合格式文件，按扩展名或内容识别每个文件的格式，无法识别的文件跳过
+     *
+     * @param request 处理请求，filePath 为目录路径，glob 为空时匹配所有文件
+     * @return 处理响应，包含每个文件的处理结果
+     */
+    public MarkdownProcessResponse processDocumentDirectory(MarkdownProcessRequest request) {
+        return processDocumentDirectory(request, null);
+    }
+
+    /**
+     * 处理本地目录下的混合格式文件，每个批次写入后回调 listener
+     *
+     * @param request  处理请求，filePath 为目录路径，glob 为空时匹配所有文件
+     * @param listener 批次写入回调，可为 null
+     * @return 处理响应，包含每个文件的处理结果
+     */
+    public MarkdownProcessResponse processDocumentDirectory(MarkdownProcessRequest request, BatchListener listener) {
+        // filename / filepath 由管道按文件补充
+        return processDirectory(request, listener, buildMixedPipeline(request, Map.of()),
+                request.getGlob() != null ? request.getGlob() : "*");
+    }
+
+    private MarkdownProcessResponse processDirectory(MarkdownProcessRequest request, BatchListener listener,
+                                                     ResourceLoadingStage pipeline, String glob) {
+        long startTime = System.currentTimeMillis();
+        String directoryPath = request.getFilePath();
+
+        try {
+            if (directoryPath == null || directoryPath.trim().isEmpty()) {
+                return buildErrorResponse("目录路径不能为空", directoryPath, startTime);
+            }
+            Path directory = Path.of(directoryPath);
+            if (!Files.isDirectory(directory)) {
+                return buildErrorResponse("目录不存在: " + directoryPath, directoryPath, startTime);
+            }
+            if (isAtomicConflict(request)) {
+                return buildErrorResponse("原子入库不能与增量入库同时使用", directoryPath, startTime);
+            }
+            if (isDeduplicationConflict(request)) {
+                return buildErrorResponse("近似重复去重不能与增量入库或原子入库同时使用", directoryPath, startTime);
+            }
+
+            log.info("开始处理目录: {}, glob: {}", directoryPath, glob);
+            VectorStoringStage storingStage = pipeline
+                    .fromDirectory(directory, glob)
+                    .withTextSplitter(buildTextSplitter(request.getSplitterConfig()));
+            if (Boolean.TRUE.equals(request.getIncremental())) {
+                storingStage.withManifest(ingestionManifest);
+            }
+            if (Boolean.TRUE.equals(request.getAtomic())) {
+                storingStage.withAtomicIngestion(generationRegistry);
+            }
+            if (Boolean.TRUE.equals(request.getDeduplicate())) {
+                storingStage.withDeduplication(() -> NearDuplicateFilter.builder().build());
+            }
+            storingStage.withMeterRegistry(meterRegistry.getIfAvailable())
+                    .withBatchListener(listener);
+            if (request.getBatchConfig() != null && request.getBatchConfig().getFileConcurrency() != null) {
+                storingStage.withFileConcurrency(request.getBatchConfig().getFileConcurrency());
+            }
+            configureBatch(storingStage, request.getBatchConfig());
+            IngestionResult result = ingest(() -> storingStage.toVectorStore(vectorStore));
+
+            long processingTime = System.currentTimeMillis() - startTime;
+            log.info("目录处理完成: {}, 耗时: {}ms, 结果: {}", directoryPath, processingTime, result);
+
+            List<MarkdownProcessResponse.FileResult> files = result.getFiles().stream()
+                    .map(file -> MarkdownProcessResponse.FileResult.builder()
+                            .filePath(file.path())
+                            .success(file.isSuccess())
+                            .message(file.error())
+                            .chunkCount(file.isSuccess() ? file.result().getChunkCount() : null)
+                            .unchanged(file.isSuccess() ? file.result().isUnchanged() : null)
+                            .build())
+                    .toList();
+            return MarkdownProcessResponse.builder()
+                    .success(result.getFailedFileCount() == 0)
+                    .message(result.getFailedFileCount() == 0
+                            ? "目录处理成功"
+                            : String.format("%d 个文件处理失败", result.getFailedFileCount()))
+                    .documentCount(result.getDocumentCount())
+                    .chunkCount(result.getChunkCount())
+                    .batchCount(result.getBatchCount())
+                    .batchTokenBudget(result.getBatchTokenBudget())
+                    .unchanged(result.isUnchanged())
+                    .skippedChunkCount(result.getSkippedChunkCount())
+                    .deletedChunkCount(result.getDeletedChunkCount())
+                    .duplicateChunkCount(result.getDuplicateChunkCount())
+                    .stageTimings(stageTimings(result))
+                    .fileCount(result.getFileCount())
+                    .failedFileCount(result.getFailedFileCount())
+                    .files(files)
+                    .filePath(directoryPath)
+                    .processingTime(processingTime)
+                    .build();
+
+        } catch (Exception e) {
+            log.error("处理目录失败: {}", directoryPath, e);
+            return buildErrorResponse("处理失败: " + e.getMessage(), directoryPath, startTime);
+        }
+    }
+
+    /**
+     * 构建按格式分派的管道：Markdown 沿用请求中的 Markdown 选项，其他格式使用默认配置，
+     * 请求中的元数据与 extraMetadata 追加到所有格式的文档上
+     */
+    private ResourceLoadingStage buildMixedPipeline(MarkdownProcessRequest request, Map<String, Object> extraMetadata) {
+        MarkdownRagPipeline.Builder markdown = buildPipeline(request);
+        extraMetadata.forEach(markdown::withAdditionalMetadata);
+        Map<String, Object> additionalMetadata = new HashMap<>(extraMetadata);
+        if (request.getMetadata() != null) {
+            additionalMetadata.putAll(request.getMetadata());
+        }
+        return MixedFormatRagPipeline.builder()
+                .withPipeline(DocumentFormat.MARKDOWN, markdown.build())
+                .withPipeline(DocumentFormat.PDF,
+                        PdfRagPipeline.builder().withAdditionalMetadata(new HashMap<>(additionalMetadata)).build())
+                .withPipeline(DocumentFormat.HTML,
+                        HtmlRagPipeline.builder().withAdditionalMetadata(new HashMap<>(additionalMetadata)).build())
+                .withPipeline(DocumentFormat.TEXT,
+                        TextRagPipeline.builder().withAdditionalMetadata(new HashMap<>(additionalMetadata)).build())
+                .withPipeline(DocumentFormat.JSONL,
+                        JsonLinesRagPipeline.builder().withAdditionalMetadata(new HashMap<>(additionalMetadata)).build())
+                .build();
+    }
+
+    /**
+     * 根据请求构建 MarkdownRagPipeline（Markdown 选项与请求中的元数据）
+     */
+    private MarkdownRagPipeline.Builder buildPipeline(MarkdownProcessRequest request) {
+        MarkdownRagPipeline.Builder pipelineBuilder = MarkdownRagPipeline.builder();
+
+        // 配置 Markdown 选项
+        if (request.getMarkdownConfig() != null) {
+            MarkdownProcessRequest.MarkdownConfig config = request.getMarkdownConfig();
+            if (config.getHorizontalRuleCreateDocument() != null) {
+                pipelineBuilder.withHorizontalRuleCreateDocument(config.getHorizontalRuleCreateDocument());
+            }
+            if (config.getIncludeCodeBlock() != null) {
+                pipelineBuilder.withIncludeCodeBlock(config.getIncludeCodeBlock());
+            }
+            if (config.getIncludeBlockquote() != null) {
+                pipelineBuilder.withIncludeBlockquote(config.getIncludeBlockquote());
+            }
+        }
+
+        // 按结构切分需要 Markdown 原文
+        if (isMarkdownStrategy(request.getSplitterConfig())) {
+            pipelineBuilder.withRawMarkdown(true);
+        }
+
+        // 添加元数据
+        if (request.getMetadata() != null && !request.getMetadata().isEmpty()) {
+            for (Map.Entry<String, Object> entry : request.getMetadata().entrySet()) {
+                pipelineBuilder.withAdditionalMetadata(entry.getKey(), entry.getValue());
+            }
+        }
+        return pipelineBuilder;
+    }
+
     /**
      * 构建文本分割器
      */
-    private TokenTextSplitter buildTextSplitter(MarkdownProcessRequest.SplitterConfig config) {
-        if (config == null) {
-            config = new MarkdownProcessRequest.SplitterConfig();
+    private TextSplitter buildTextSplitter(MarkdownProcessRequest.SplitterConfig config) {
+        SplitterKey key = SplitterKey.of(config != null ? config : new MarkdownProcessRequest.SplitterConfig());
+        synchronized (textSplitters) {
+            return textSplitters.computeIfAbsent(key,
+                    k -> new ParallelTextSplitter(() -> newTextSplitter(k), textSplitPool));
+        }
+    }
+
+    private static TextSplitter newTextSplitter(SplitterKey key) {
+        if (key.markdown()) {
+            return MarkdownTextSplitter.builder()
+                    .withChunkSize(key.chunkSize())
+                    .withMinChunkSize(key.minChunkTokens())
+                    .build();
         }
 
         return TokenTextSplitter.builder()
-                .withChunkSize(config.getChunkSize() != null ? config.getChunkSize() : 800)
-                .withMinChunkSizeChars(config.getMinChunkSizeChars() != null ? config.getMinChunkSizeChars() : 300)
-                .withMinChunkLengthToEmbed(config.getMinChunkLengthToEmbed() != null ? config.getMinChunkLengthToEmbed() : 5)
-                .withMaxNumChunks(config.getMaxNumChunks() != null ? config.getMaxNumChunks() : 10000)
-                .withKeepSeparator(config.getKeepSeparator() != null ? config.getKeepSeparator() : true)
+                .withChunkSize(key.chunkSize())
+                .withMinChunkSizeChars(key.minChunkSizeChars())
+                .withMinChunkLengthToEmbed(key.minChunkLengthToEmbed())
+                .withMaxNumChunks(key.maxNumChunks())
+                .withKeepSeparator(key.keepSeparator())
                 .build();
     }
 
+    private static boolean isMarkdownStrategy(MarkdownProcessRequest.SplitterConfig config) {
+        return config != null && "markdown".equalsIgnoreCase(config.getStrategy());
+    }
+
+    /**
+     * 不可变的切分配置，补齐默认值并忽略所选策略用不到的字段，作为切分器缓存的 key
+     */
+    private record SplitterKey(boolean markdown, int chunkSize, int minChunkSizeChars, int minChunkLengthToEmbed,
+                               int maxNumChunks, boolean keepSeparator, int minChunkTokens) {
+
+        static SplitterKey of(MarkdownProcessRequest.SplitterConfig config) {
+            int chunkSize = config.getChunkSize() != null ? config.getChunkSize() : 800;
+            if (isMarkdownStrategy(config)) {
+                return new SplitterKey(true, chunkSize, 0, 0, 0, false,
+                        config.getMinChunkTokens() != null ? config.getMinChunkTokens() : 200);
+            }
+            return new SplitterKey(false, chunkSize,
+                    config.getMinChunkSizeChars() != null ? config.getMinChunkSizeChars() : 300,
+                    config.getMinChunkLengthToEmbed() != null ? config.getMinChunkLengthToEmbed() : 5,
+                    config.getMaxNumChunks() != null ? config.getMaxNumChunks() : 10000,
+                    config.getKeepSeparator() != null ? config.getKeepSeparator() : true,
+                    0);
+        }
+    }
+
+    /**
+     * 配置批次写入选项
+     */
+    private VectorStoringStage configureBatch(VectorStoringStage stage, MarkdownProcessRequest.BatchConfig config) {
+        RagEtlProperties.Bulk bulk = ragEtlProperties.getBulk();
+        if (bulk.isPipelined() && vectorStore instanceof OpenSearchBulkVectorStore bulkStore) {
+            stage.withPipelinedWrites(embeddingModel, bulkStore, bulk.getIndexConcurrency(),
+                    bulk.getIndexQueueCapacity());
+        }
+        if (config == null) {
+            return stage;
+        }
+        if (config.getWriteConcurrency() != null) {
+            stage.withWriteConcurrency(config.getWriteConcurrency());
+        }
+        if (config.getStreaming() != null) {
+            stage.withStreaming(config.getStreaming());
+        }
+        if (config.getMaxAttempts() != null && config.getMaxAttempts() > 1) {
+            stage.withRetry(config.getMaxAttempts(),
+                    Duration.ofMillis(config.getRetryBackoffMs() != null ? config.getRetryBackoffMs() : 1000L));
+        }
+        if (Boolean.TRUE.equals(config.getAdaptive())) {
+            AdaptiveBatchSizer.Builder sizer = AdaptiveBatchSizer.builder();
+            if (config.getInitialBatchTokens() != null) {
+                sizer.withInitialTokens(config.getInitialBatchTokens());
+            }
+            if (config.getMaxBatchTokens() != null) {
+                sizer.withMaxTokens(config.getMaxBatchTokens());
+            }
+            if (config.getMaxBatchSize() != null) {
+                sizer.withMaxBatchSize(config.getMaxBatchSize());
+            }
+            if (config.getTargetLatencyMs() != null) {
+                sizer.withTargetLatency(Duration.ofMillis(config.getTargetLatencyMs()));
+            }
+            stage.withBatchSizer(sizer.build());
+        } else if (config.getBatchSize() != null) {
+            stage.withBatchSize(config.getBatchSize());
+        }
+        return stage;
+    }
+
+    private MarkdownProcessResponse.StageTimings stageTimings(IngestionResult result) {
+        return MarkdownProcessResponse.StageTimings.builder()
+                .readTimeMs(result.getReadTimeMs())
+                .splitTimeMs(result.getSplitTimeMs())
+                .writeTimeMs(result.getWriteTimeMs())
+                .totalTimeMs(result.getTotalTimeMs())
+                .bytesProcessed(result.getBytesProcessed())
+                .chunksPerSecond(result.getChunksPerSecond())
+                .build();
+    }
+
+    /**
+     * 每个源文件一个断点文件，文件名为绝对路径的哈希
+     */
+    private Path checkpointPath(File file) {
+        return Path.of(ragEtlProperties.getCheckpointDir(), ContentHasher.hash(file.getAbsolutePath()) + ".json");
+    }
+
+    /**
+     * 使用 _bulk 写入时，入库期间暂停索引刷新，结束后刷新一次
+     */
+    private IngestionResult ingest(Supplier<IngestionResult> ingestion) {
+        return vectorStore instanceof OpenSearchBulkVectorStore bulkStore
+                ? bulkStore.withRefreshSuspended(ingestion)
+                : ingestion.get();
+    }
+
+    private static boolean isAtomicConflict(MarkdownProcessRequest request) {
+        return Boolean.TRUE.equals(request.getAtomic())
+               && (Boolean.TRUE.equals(request.getIncremental()) || isCheckpointed(request));
+    }
+
+    /**
+     * 去重丢弃的分块依赖代表分块所在文件，增量清理或原子替换该文件时会随之丢失
+     */
+    private static boolean isDeduplicationConflict(MarkdownProcessRequest request) {
+        return Boolean.TRUE.equals(request.getDeduplicate())
+               && (Boolean.TRUE.equals(request.getIncremental()) || Boolean.TRUE.equals(request.getAtomic()));
+    }
+
+    private static boolean isCheckpointed(MarkdownProcessRequest request) {
+        return Boolean.TRUE.equals(request.getCheckpoint()) || Boolean.TRUE.equals(request.getResume());
+    }
+
     /**
      * 构建错误响应
      */
@@ -0,0 +1,416 @@
+package com.lei.learn.rag.etl.opensearch.store;
+
+import com.lei.learn.etl.core.pipeline.batch.VectorIndexer;
+import com.lei.learn.etl.core.pipeline.generation.GenerationRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.opensearch.client.opensearch.OpenSearchClient;
+import org.opensearch.client.opensearch._types.Refresh;
+import org.opensearch.client.opensearch._types.Time;
+import org.opensearch.client.opensearch.core.BulkRequest;
+import org.opensearch.client.opensearch.core.BulkResponse;
+import org.opensearch.client.opensearch.core.bulk.BulkOperation;
+import org.opensearch.client.opensearch.core.bulk.BulkResponseItem;
+import org.opensearch.client.opensearch.indices.IndexSettings;
+import org.opensearch.client.opensearch.indices.IndexState;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.BatchingStrategy;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingOptions;
+import org.springframework.ai.embedding.TokenCountBatchingStrategy;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.filter.Filter;
+import org.springframework.ai.vectorstore.opensearch.OpenSearchVectorStore;
+import org.springframework.util.Assert;
+import org.springframework.util.CollectionUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+/**
+ * <p>
+ * 基于 OpenSearch _bulk API 批量写入的 VectorStore
+ * </p>
+ * 包装 Spring AI 的 {@link OpenSearchVectorStore}，检索与删除交给原 VectorStore；写入时整批 embedding 一次，
+ * 再按估算的请求体大小拆成多个 _bulk 请求，所有 add 调用共享最多 {@code concurrency} 个在途请求。
+ * 请求带 {@code refresh=false}，并逐条检查失败项（原实现忽略 _bulk 的部分失败）。
+ * <p>
+ * {@link #withRefreshSuspended(Supplier)} 在入库期间把索引的 {@code refresh_interval} 设为 -1，
+ * 最后一个进行中的入库结束时恢复原值并执行一次 _refresh，入库期间新写入的分块不可检索。
+ * <p>
+ * 同时实现 {@link VectorIndexer}，流水线写入时 embedding 由 pipeline 完成，这里只发送 _bulk 请求。
+ * <p>
+ * 配置 {@link GenerationRegistry} 后，每次检索都会合并 {@link GenerationRegistry#activeFilter()}，
+ * 原子入库写入中、已回滚或已被替换的代次不会被检索到。
+ *
+ * @author 伍磊
+ */
+@Slf4j
+public class OpenSearchBulkVectorStore implements VectorStore, VectorIndexer {
+
+    /**
+     * OpenSearch 的默认刷新间隔，索引未显式配置时恢复为该值
+     */
+    private static final String DEFAULT_REFRESH_INTERVAL = "1s";
+
+    /**
+     * 估算请求体大小时每个向量分量占用的字节数（JSON 中的浮点数加逗号）
+     */
+    private static final int BYTES_PER_DIMENSION = 12;
+
+    /**
+     * 估算请求体大小时每条操作的固定开销（操作行、字段名等）
+     */
+    private static final int OPERATION_OVERHEAD_BYTES = 128;
+
+    private final VectorStore delegate;
+
+    private final OpenSearchClient client;
+
+    private final EmbeddingModel embeddingModel;
+
+    private final BatchingStrategy batchingStrategy;
+
+    private final String index;
+
+    private final long maxRequestBytes;
+
+    private final Semaphore requestPermits;
+
+    private final boolean suspendRefresh;
+
+    private final GenerationRegistry generationRegistry;
+
+    private final Object refreshLock = new Object();
+
+    private int activeIngestions;
+
+    private Time previousRefreshInterval;
+
+    private OpenSearchBulkVectorStore(OpenSearchBulkVectorStore.Builder builder) {
+        this.delegate = builder.delegate;
+        this.client = builder.client;
+        this.embeddingModel = builder.embeddingModel;
+        this.batchingStrategy = builder.batchingStrategy;
+        this.index = builder.index;
+        this.maxRequestBytes = builder.maxRequestBytes;
+        this.requestPermits = new Semaphore(builder.concurrency);
+        this.suspendRefresh = builder.suspendRefresh;
+        this.generationRegistry = builder.generationRegistry;
+    }
+
+    @Override
+    public String getName() {
+        return getClass().getSimpleName();
+    }
+
+    @Override
+    public void add(List<Document> documents) {
+        if (CollectionUtils.isEmpty(documents)) {
+            return;
+        }
+        index(documents, embeddingModel.embed(documents, EmbeddingOptions.builder().build(), batchingStrategy));
+    }
+
+    @Override
+    public void index(List<Document> documents, List<float[]> embeddings) {
+        if (CollectionUtils.isEmpty(documents)) {
+            return;
+        }
+        Assert.isTrue(documents.size() == embeddings.size(), "documents and embeddings must have the same size");
+        List<List<BulkOperation>> requests = new ArrayList<>();
+        List<BulkOperation> operations = new ArrayList<>();
+        long requestBytes = 0;
+        for (int i = 0; i < documents.size(); i++) {
+            Document document = documents.get(i);
+            float[] embedding = embeddings.get(i);
+            long bytes = estimateBytes(document, embedding);
+            if (!operations.isEmpty() && requestBytes + bytes > maxRequestBytes) {
+                requests.add(operations);
+                operations = new ArrayList<>();
+                requestBytes = 0;
+            }
+            OpenSearchVectorStore.OpenSearchDocument body = new OpenSearchVectorStore.OpenSearchDocument(
+                    document.getId(), document.getText(), document.getMetadata(), embedding);
+            operations.add(BulkOperation.of(op -> op.index(idx -> idx.index(index)
+                    .id(document.getId())
+                    .document(body))));
+            requestBytes += bytes;
+        }
+        requests.add(operations);
+        if (requests.size() == 1) {
+            bulk(requests.get(0));
+            return;
+        }
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> futures = new ArrayList<>(requests.size());
+            for (List<BulkOperation> request : requests) {
+                futures.add(executor.submit(() -> bulk(request)));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Bulk indexing interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Bulk indexing failed", e.getCause());
+        }
+    }
+
+    /**
+     * 发送一个 _bulk 请求，占用一个在途请求名额；有失败项时抛出 IllegalStateException，
+     * 由上层的批次重试整体重写（按 ID 索引，重复写入是幂等的）
+     */
+    private void bulk(List<BulkOperation> operations) {
+        try {
+            requestPermits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for bulk request permit", e);
+        }
+        BulkResponse response;
+        try {
+            response = client.bulk(BulkRequest.of(b -> b.index(index)
+                    .refresh(Refresh.False)
+                    .operations(operations)));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Bulk request to index " + index + " failed", e);
+        } finally {
+            requestPermits.release();
+        }
+        if (response.errors()) {
+            List<BulkResponseItem> failed = response.items().stream()
+                    .filter(item -> null != item.error())
+                    .toList();
+            BulkResponseItem first = failed.get(0);
+            throw new IllegalStateException(String.format(
+                    "Bulk indexing failed for %d of %d documents, first: id=%s, status=%d, reason=%s",
+                    failed.size(), operations.size(), first.id(), first.status(), first.error().reason()));
+        }
+        log.debug("[rag document init] bulk indexed {} documents in {}ms", operations.size(), response.took());
+    }
+
+    private static long estimateBytes(Document document, float[] embedding) {
+        String text = null != document.getText() ? document.getText() : "";
+        return text.getBytes(StandardCharsets.UTF_8).length
+               + document.getMetadata().toString().getBytes(StandardCharsets.UTF_8).length
+               + (long) embedding.length * BYTES_PER_DIMENSION
+               + OPERATION_OVERHEAD_BYTES;
+    }
+
+    /**
+     * 在暂停索引刷新的状态下执行入库。多个入库同时进行时只在第一个开始时暂停、最后一个结束时恢复并刷新一次；
+     * 未启用 suspendRefresh 时只在结束时刷新一次
+     *
+     * @param ingestion 入库操作
+     * @return 入库结果
+     */
+    public <T> T withRefreshSuspended(Supplier<T> ingestion) {
+        synchronized (refreshLock) {
+            if (activeIngestions++ == 0 && suspendRefresh) {
+                try {
+                    previousRefreshInterval = currentRefreshInterval();
+                    putRefreshInterval(Time.of(t -> t.time("-1")));
+                    log.info("[rag document init] refresh suspended | index={}, previous={}", index,
+                             previousRefreshInterval);
+                } catch (RuntimeException e) {
+                    activeIngestions--;
+                    throw e;
+                }
+            }
+        }
+        try {
+            return ingestion.get();
+        } finally {
+            synchronized (refreshLock) {
+                if (--activeIngestions == 0) {
+                    restoreAndRefresh();
+                }
+            }
+        }
+    }
+
+    /**
+     * 恢复刷新间隔并刷新一次，失败只记录警告，不影响已经成功的入库结果
+     */
+    private void restoreAndRefresh() {
+        try {
+            if (suspendRefresh) {
+                putRefreshInterval(null != previousRefreshInterval
+                        ? previousRefreshInterval
+                        : Time.of(t -> t.time(DEFAULT_REFRESH_INTERVAL)));
+            }
+            client.indices().refresh(r -> r.index(index));
+            log.info("[rag document init] index refreshed | index={}", index);
+        } catch (IOException | RuntimeException e) {
+            log.warn("[rag document init] failed to restore refresh of index {}", index, e);
+        }
+    }
+
+    private Time currentRefreshInterval() {
+        try {
+            Map<String, IndexState> states = client.indices().getSettings(s -> s.index(index)).result();
+            return states.values().stream()
+                    .map(IndexState::settings)
+                    .filter(settings -> null != settings)
+                    .map(settings -> null != settings.index() ? settings.index().refreshInterval()
+                            : settings.refreshInterval())
+                    .filter(interval -> null != interval)
+                    .findFirst()
+                    .orElse(null);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read settings of index " + index, e);
+        }
+    }
+
+    private void putRefreshInterval(Time interval) {
+        try {
+            client.indices().putSettings(s -> s.index(index)
+                    .settings(IndexSettings.of(settings -> settings.refreshInterval(interval))));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to update refresh_interval of index " + index, e);
+        }
+    }
+
+    @Override
+    public void delete(List<String> idList) {
+        delegate.delete(idList);
+    }
+
+    /**
+     * 按条件删除基于查询，只能匹配已刷新的文档，入库进行中时先刷新一次，避免漏删刚写入的分块（例如原子入库回滚）
+     */
+    @Override
+    public void delete(Filter.Expression filterExpression) {
+        boolean ingesting;
+        synchronized (refreshLock) {
+            ingesting = activeIngestions > 0;
+        }
+        if (ingesting) {
+            try {
+                client.indices().refresh(r -> r.index(index));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to refresh index " + index, e);
+            }
+        }
+        delegate.delete(filterExpression);
+    }
+
+    @Override
+    public List<Document> similaritySearch(SearchRequest request) {
+        Filter.Expression generationFilter = null != generationRegistry ? generationRegistry.activeFilter() : null;
+        if (null == generationFilter) {
+            return delegate.similaritySearch(request);
+        }
+        Filter.Expression filter = request.hasFilterExpression()
+                ? new Filter.Expression(Filter.ExpressionType.AND, generationFilter,
+                        new Filter.Group(request.getFilterExpression()))
+                : generationFilter;
+        return delegate.similaritySearch(SearchRequest.from(request).filterExpression(filter).build());
+    }
+
+    @Override
+    public <T> Optional<T> getNativeClient() {
+        return delegate.getNativeClient();
+    }
+
+    public static OpenSearchBulkVectorStore.Builder builder(VectorStore delegate, OpenSearchClient client,
+                                                            EmbeddingModel embeddingModel) {
+        return new Builder(delegate, client, embeddingModel);
+    }
+
+    public static final class Builder {
+
+        private final VectorStore delegate;
+
+        private final OpenSearchClient client;
+
+        private final EmbeddingModel embeddingModel;
+
+        private BatchingStrategy batchingStrategy = new TokenCountBatchingStrategy();
+
+        private String index = OpenSearchVectorStore.DEFAULT_INDEX_NAME;
+
+        /**
+         * 单个 _bulk 请求体的上限（估算值，默认 5MB）
+         */
+        private long maxRequestBytes = 5L * 1024 * 1024;
+
+        /**
+         * 同时在途的 _bulk 请求数（默认 4）
+         */
+        private int concurrency = 4;
+
+        private boolean suspendRefresh = true;
+
+        private GenerationRegistry generationRegistry;
+
+        private Builder(VectorStore delegate, OpenSearchClient client, EmbeddingModel embeddingModel) {
+            Assert.notNull(delegate, "delegate must not be null");
+            Assert.notNull(client, "client must not be null");
+            Assert.notNull(embeddingModel, "embeddingModel must not be null");
+            this.delegate = delegate;
+            this.client = client;
+            this.embeddingModel = embeddingModel;
+        }
+
+        public OpenSearchBulkVectorStore.Builder withIndex(String index) {
+            Assert.hasText(index, "index must not be empty");
+            this.index = index;
+            return this;
+        }
+
+        public OpenSearchBulkVectorStore.Builder withBatchingStrategy(BatchingStrategy batchingStrategy) {
+            Assert.notNull(batchingStrategy, "batchingStrategy must not be null");
+            this.batchingStrategy = batchingStrategy;
+            return this;
+        }
+
+        public OpenSearchBulkVectorStore.Builder withMaxRequestBytes(long maxRequestBytes) {
+            Assert.isTrue(maxRequestBytes > 0, "maxRequestBytes must be positive");
+            this.maxRequestBytes = maxRequestBytes;
+            return this;
+        }
+
+        public OpenSearchBulkVectorStore.Builder withConcurrency(int concurrency) {
+            Assert.isTrue(concurrency > 0, "concurrency must be positive");
+            this.concurrency = concurrency;
+            return this;
+        }
+
+        /**
+         * 入库期间是否把 refresh_interval 设为 -1（默认 true），关闭时只在入库结束后刷新一次
+         */
+        public OpenSearchBulkVectorStore.Builder withSuspendRefresh(boolean suspendRefresh) {
+            this.suspendRefresh = suspendRefresh;
+            return this;
+        }
+
+        /**
+         * 检索时合并代次登记表的过滤条件，屏蔽原子入库尚未生效的代次
+         */
+        public OpenSearchBulkVectorStore.Builder withGenerationRegistry(GenerationRegistry generationRegistry) {
+            this.generationRegistry = generationRegistry;
+            return this;
+        }
+
+        public OpenSearchBulkVectorStore build() {
+            return new OpenSearchBulkVectorStore(this);
+        }
+    }
+}
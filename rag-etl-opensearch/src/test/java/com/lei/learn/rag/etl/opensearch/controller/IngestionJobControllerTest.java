@@ -0,0 +1,84 @@
+package com.lei.learn.rag.etl.opensearch.controller;
+
+import com.lei.learn.etl.core.model.IngestionJobStatus;
+import com.lei.learn.etl.core.model.MarkdownProcessRequest;
+import com.lei.learn.rag.etl.opensearch.job.IngestionJobService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+/**
+ * <p>
+ * IngestionJobController 单元测试
+ * </p>
+ *
+ * @author 伍磊
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("IngestionJobController 单元测试")
+class IngestionJobControllerTest {
+
+    @Mock
+    private IngestionJobService ingestionJobService;
+
+    private IngestionJobController controller;
+
+    private MarkdownProcessRequest request;
+
+    @BeforeEach
+    void setUp() {
+        controller = new IngestionJobController(ingestionJobService);
+        request = new MarkdownProcessRequest();
+        request.setFilePath("docs/a.md");
+    }
+
+    @Test
+    @DisplayName("提交成功返回 202 和任务状态")
+    void testAccepted() {
+        // Given
+        IngestionJobStatus status = IngestionJobStatus.builder()
+                .jobId("job-1").state(IngestionJobStatus.State.QUEUED).build();
+        when(ingestionJobService.submitFile(request)).thenReturn(status);
+
+        // When
+        ResponseEntity<IngestionJobStatus> response = controller.submitFile(request);
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.ACCEPTED);
+        assertThat(response.getBody()).isSameAs(status);
+    }
+
+    @Test
+    @DisplayName("队列已满返回 429")
+    void testTooManyRequests() {
+        // Given
+        when(ingestionJobService.submitDirectory(request)).thenThrow(new RejectedExecutionException("full"));
+
+        // When
+        ResponseEntity<IngestionJobStatus> response = controller.submitDirectory(request);
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+    }
+
+    @Test
+    @DisplayName("任务不存在返回 404")
+    void testNotFound() {
+        // Given
+        when(ingestionJobService.getStatus("missing")).thenReturn(Optional.empty());
+
+        // When / Then
+        assertThat(controller.getStatus("missing").getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+    }
+}
@@ -0,0 +1,251 @@
+package com.lei.learn.rag.etl.opensearch.job;
+
+import com.lei.learn.etl.core.model.IngestionJobStatus;
+import com.lei.learn.etl.core.model.MarkdownProcessRequest;
+import com.lei.learn.etl.core.model.MarkdownProcessResponse;
+import com.lei.learn.etl.core.pipeline.batch.DocumentBatch;
+import com.lei.learn.rag.etl.opensearch.configuration.RagEtlProperties;
+import com.lei.learn.rag.etl.opensearch.service.MarkdownService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.ai.document.Document;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * <p>
+ * IngestionJobService 单元测试
+ * </p>
+ *
+ * @author 伍磊
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("IngestionJobService 单元测试")
+class IngestionJobServiceTest {
+
+    @Mock
+    private MarkdownService markdownService;
+
+    private IngestionJobService service;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (null != service) {
+            service.destroy();
+        }
+    }
+
+    private IngestionJobService createService(int concurrency, int queueCapacity, int retainedJobs) {
+        RagEtlProperties properties = new RagEtlProperties();
+        properties.getJobs().setConcurrency(concurrency);
+        properties.getJobs().setQueueCapacity(queueCapacity);
+        properties.getJobs().setRetainedJobs(retainedJobs);
+        service = new IngestionJobService(markdownService, properties);
+        return service;
+    }
+
+    private static MarkdownProcessRequest request(String filePath) {
+        MarkdownProcessRequest request = new MarkdownProcessRequest();
+        request.setFilePath(filePath);
+        return request;
+    }
+
+    private static DocumentBatch batch(int index, int size) {
+        return new DocumentBatch(index, IntStream.range(0, size)
+                .mapToObj(i -> new Document("chunk " + i))
+                .toList());
+    }
+
+    private IngestionJobStatus awaitFinished(String jobId) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (System.nanoTime() < deadline) {
+            IngestionJobStatus status = service.getStatus(jobId).orElseThrow();
+            if (null != status.getFinishedAt()) {
+                return status;
+            }
+            Thread.sleep(10);
+        }
+        throw new AssertionError("job " + jobId + " did not finish in time");
+    }
+
+    @Nested
+    @DisplayName("任务生命周期测试")
+    class LifecycleTests {
+
+        @Test
+        @DisplayName("任务执行成功后状态为 SUCCEEDED，并汇总批次进度")
+        void testSucceeded() throws InterruptedException {
+            // Given
+            createService(1, 10, 10);
+            MarkdownProcessResponse response = MarkdownProcessResponse.builder()
+                    .success(true).chunkCount(5).build();
+            when(markdownService.processMarkdownFile(any(MarkdownProcessRequest.class), any(IngestionJob.class)))
+                    .thenAnswer(invocation -> {
+                        IngestionJob job = invocation.getArgument(1);
+                        job.onSuccess(batch(0, 3), 1_000L);
+                        job.onSuccess(batch(3, 2), 1_000L);
+                        job.onFailure(batch(5, 1), new IllegalStateException("429"));
+                        return response;
+                    });
+
+            // When
+            IngestionJobStatus submitted = service.submitFile(request("docs/a.md"));
+            IngestionJobStatus finished = awaitFinished(submitted.getJobId());
+
+            // Then
+            assertThat(submitted.getFilePath()).isEqualTo("docs/a.md");
+            assertThat(finished.getState()).isEqualTo(IngestionJobStatus.State.SUCCEEDED);
+            assertThat(finished.getStartedAt()).isNotNull();
+            assertThat(finished.getChunksWritten()).isEqualTo(5);
+            assertThat(finished.getBatchesSucceeded()).isEqualTo(2);
+            assertThat(finished.getBatchesFailed()).isEqualTo(1);
+            assertThat(finished.getResult()).isSameAs(response);
+        }
+
+        @Test
+        @DisplayName("处理结果为失败时状态为 FAILED")
+        void testFailedResponse() throws InterruptedException {
+            // Given
+            createService(1, 10, 10);
+            when(markdownService.processMarkdownDirectory(any(MarkdownProcessRequest.class), any(IngestionJob.class)))
+                    .thenReturn(MarkdownProcessResponse.builder().success(false).message("部分文件失败").build());
+
+            // When
+            IngestionJobStatus finished = awaitFinished(service.submitDirectory(request("docs")).getJobId());
+
+            // Then
+            assertThat(finished.getState()).isEqualTo(IngestionJobStatus.State.FAILED);
+            assertThat(finished.getResult().getMessage()).isEqualTo("部分文件失败");
+        }
+
+        @Test
+        @DisplayName("任务抛出异常时状态为 FAILED，结果中带有异常信息")
+        void testException() throws InterruptedException {
+            // Given
+            createService(1, 10, 10);
+            when(markdownService.processMarkdownFile(any(MarkdownProcessRequest.class), any(IngestionJob.class)))
+                    .thenThrow(new IllegalStateException("OpenSearch unavailable"));
+
+            // When
+            IngestionJobStatus finished = awaitFinished(service.submitFile(request("docs/a.md")).getJobId());
+
+            // Then
+            assertThat(finished.getState()).isEqualTo(IngestionJobStatus.State.FAILED);
+            assertThat(finished.getResult().getSuccess()).isFalse();
+            assertThat(finished.getResult().getMessage()).isEqualTo("处理失败: OpenSearch unavailable");
+            assertThat(finished.getResult().getFilePath()).isEqualTo("docs/a.md");
+        }
+
+        @Test
+        @DisplayName("排队中的任务状态为 QUEUED，执行中为 RUNNING")
+        void testQueuedAndRunning() throws InterruptedException {
+            // Given
+            createService(1, 10, 10);
+            CountDownLatch started = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            when(markdownService.processMarkdownFile(any(MarkdownProcessRequest.class), any(IngestionJob.class)))
+                    .thenAnswer(invocation -> {
+                        started.countDown();
+                        release.await();
+                        return MarkdownProcessResponse.builder().success(true).build();
+                    });
+
+            // When
+            String running = service.submitFile(request("docs/a.md")).getJobId();
+            assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+            String queued = service.submitFile(request("docs/b.md")).getJobId();
+
+            // Then
+            assertThat(service.getStatus(running).orElseThrow().getState())
+                    .isEqualTo(IngestionJobStatus.State.RUNNING);
+            assertThat(service.getStatus(queued).orElseThrow().getState())
+                    .isEqualTo(IngestionJobStatus.State.QUEUED);
+            release.countDown();
+            assertThat(awaitFinished(queued).getState()).isEqualTo(IngestionJobStatus.State.SUCCEEDED);
+        }
+    }
+
+    @Nested
+    @DisplayName("提交与保留测试")
+    class SubmitTests {
+
+        @Test
+        @DisplayName("队列已满时拒绝提交，且不保留被拒绝的任务")
+        void testRejectWhenQueueFull() throws InterruptedException {
+            // Given
+            createService(1, 1, 10);
+            CountDownLatch started = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            when(markdownService.processMarkdownFile(any(MarkdownProcessRequest.class), any(IngestionJob.class)))
+                    .thenAnswer(invocation -> {
+                        started.countDown();
+                        release.await();
+                        return MarkdownProcessResponse.builder().success(true).build();
+                    });
+            service.submitFile(request("docs/a.md"));
+            assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+            service.submitFile(request("docs/b.md"));
+
+            // When / Then
+            assertThatThrownBy(() -> service.submitFile(request("docs/c.md")))
+                    .isInstanceOf(RejectedExecutionException.class);
+            assertThat(service.listStatus()).extracting(IngestionJobStatus::getFilePath)
+                    .containsExactlyInAnyOrder("docs/a.md", "docs/b.md");
+            release.countDown();
+        }
+
+        @Test
+        @DisplayName("已结束的任务超过 retainedJobs 时淘汰最早提交的")
+        void testEvictFinishedJobs() throws InterruptedException {
+            // Given
+            createService(1, 10, 1);
+            CountDownLatch release = new CountDownLatch(1);
+            when(markdownService.processMarkdownFile(any(MarkdownProcessRequest.class), any(IngestionJob.class)))
+                    .thenReturn(MarkdownProcessResponse.builder().success(true).build())
+                    .thenReturn(MarkdownProcessResponse.builder().success(true).build())
+                    .thenAnswer(invocation -> {
+                        // 第三个任务在淘汰前不能结束，否则会连同第二个一起被淘汰
+                        release.await();
+                        return MarkdownProcessResponse.builder().success(true).build();
+                    });
+            String first = service.submitFile(request("docs/a.md")).getJobId();
+            awaitFinished(first);
+            String second = service.submitFile(request("docs/b.md")).getJobId();
+            awaitFinished(second);
+
+            // When: 提交时淘汰
+            String third = service.submitFile(request("docs/c.md")).getJobId();
+
+            // Then
+            assertThat(service.getStatus(first)).isEmpty();
+            assertThat(service.getStatus(second)).isPresent();
+            assertThat(service.getStatus(third)).isPresent();
+            release.countDown();
+        }
+
+        @Test
+        @DisplayName("查询不存在的任务返回空")
+        void testUnknownJob() {
+            // Given
+            createService(1, 10, 10);
+
+            // When / Then
+            assertThat(service.getStatus("missing")).isEmpty();
+            assertThat(service.listStatus()).isEqualTo(List.of());
+        }
+    }
+}
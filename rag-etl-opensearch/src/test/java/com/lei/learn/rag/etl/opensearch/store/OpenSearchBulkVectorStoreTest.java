@@ -0,0 +1,149 @@
+package com.lei.learn.rag.etl.opensearch.store;
+
+import com.lei.learn.etl.core.pipeline.generation.GenerationRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.opensearch.client.opensearch.OpenSearchClient;
+import org.opensearch.client.opensearch._types.ErrorCause;
+import org.opensearch.client.opensearch._types.Refresh;
+import org.opensearch.client.opensearch.core.BulkRequest;
+import org.opensearch.client.opensearch.core.BulkResponse;
+import org.opensearch.client.opensearch.core.bulk.BulkResponseItem;
+import org.opensearch.client.opensearch.core.bulk.OperationType;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.filter.Filter;
+import org.springframework.ai.vectorstore.filter.FilterExpressionBuilder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * <p>
+ * OpenSearchBulkVectorStore 单元测试
+ * </p>
+ *
+ * @author 伍磊
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("OpenSearchBulkVectorStore 单元测试")
+class OpenSearchBulkVectorStoreTest {
+
+    @Mock
+    private VectorStore delegate;
+
+    @Mock
+    private OpenSearchClient client;
+
+    @Mock
+    private EmbeddingModel embeddingModel;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(embeddingModel.embed(anyList(), any(), any())).thenAnswer(invocation -> {
+            List<float[]> embeddings = new ArrayList<>();
+            for (int i = 0; i < invocation.<List<?>>getArgument(0).size(); i++) {
+                embeddings.add(new float[8]);
+            }
+            return embeddings;
+        });
+    }
+
+    private static List<Document> createDocuments(int count) {
+        List<Document> documents = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            documents.add(new Document("chunk-" + i, "content " + i, Map.of()));
+        }
+        return documents;
+    }
+
+    @Test
+    @DisplayName("按请求体大小拆分成多个 _bulk 请求，且不触发刷新")
+    void testSplitByRequestSize() throws IOException {
+        // Given: 每个分块估算约 250 字节，上限 600 字节时每个请求最多 2 个分块
+        when(client.bulk(any(BulkRequest.class)))
+                .thenReturn(BulkResponse.of(r -> r.errors(false).took(1).items(List.of())));
+        OpenSearchBulkVectorStore store = OpenSearchBulkVectorStore.builder(delegate, client, embeddingModel)
+                .withIndex("test-index")
+                .withMaxRequestBytes(600)
+                .withConcurrency(2)
+                .build();
+
+        // When
+        store.add(createDocuments(5));
+
+        // Then
+        ArgumentCaptor<BulkRequest> requests = ArgumentCaptor.forClass(BulkRequest.class);
+        verify(client, times(3)).bulk(requests.capture());
+        assertThat(requests.getAllValues())
+                .extracting(request -> request.operations().size())
+                .containsExactlyInAnyOrder(2, 2, 1);
+        assertThat(requests.getAllValues()).allSatisfy(request -> {
+            assertThat(request.refresh()).isEqualTo(Refresh.False);
+            assertThat(request.index()).isEqualTo("test-index");
+        });
+    }
+
+    @Test
+    @DisplayName("_bulk 部分失败时抛出异常，交给批次重试")
+    void testFailedItemsAreReported() throws IOException {
+        // Given
+        BulkResponseItem failed = BulkResponseItem.of(i -> i.index("test-index")
+                .id("chunk-1")
+                .status(400)
+                .operationType(OperationType.Index)
+                .error(ErrorCause.of(e -> e.type("mapper_parsing_exception").reason("bad vector"))));
+        when(client.bulk(any(BulkRequest.class)))
+                .thenReturn(BulkResponse.of(r -> r.errors(true).took(1).items(List.of(failed))));
+        OpenSearchBulkVectorStore store = OpenSearchBulkVectorStore.builder(delegate, client, embeddingModel)
+                .withIndex("test-index")
+                .build();
+
+        // When & Then
+        assertThatThrownBy(() -> store.add(createDocuments(3)))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("1 of 3")
+                .hasMessageContaining("bad vector");
+    }
+
+    @Test
+    @DisplayName("检索时合并代次过滤条件，屏蔽写入中的代次")
+    void testSearchHidesPendingGenerations() {
+        // Given
+        GenerationRegistry registry = GenerationRegistry.inMemory();
+        OpenSearchBulkVectorStore store = OpenSearchBulkVectorStore.builder(delegate, client, embeddingModel)
+                .withGenerationRegistry(registry)
+                .build();
+        FilterExpressionBuilder b = new FilterExpressionBuilder();
+        Filter.Expression userFilter = b.eq("file_type", "markdown").build();
+
+        // When: 没有写入中的代次时原样检索
+        store.similaritySearch(SearchRequest.builder().query("q").filterExpression(userFilter).build());
+        registry.begin("doc.md", "g1");
+        store.similaritySearch(SearchRequest.builder().query("q").filterExpression(userFilter).build());
+        store.similaritySearch(SearchRequest.builder().query("q").build());
+
+        // Then
+        ArgumentCaptor<SearchRequest> requests = ArgumentCaptor.forClass(SearchRequest.class);
+        verify(delegate, times(3)).similaritySearch(requests.capture());
+        Filter.Expression hidden = b.nin(GenerationRegistry.GENERATION, "g1").build();
+        assertThat(requests.getAllValues()).extracting(SearchRequest::getFilterExpression).containsExactly(
+                userFilter,
+                new Filter.Expression(Filter.ExpressionType.AND, hidden, new Filter.Group(userFilter)),
+                hidden);
+    }
+}
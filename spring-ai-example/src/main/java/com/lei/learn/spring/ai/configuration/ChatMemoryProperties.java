@@ -0,0 +1,96 @@
+package com.lei.learn.spring.ai.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * <p>
+ * ChatMemoryProperties
+ * </p>
+ *
+ * @author 伍磊
+ */
+@Data
+@ConfigurationProperties(prefix = "ai.chat-memory")
+public class ChatMemoryProperties {
+
+    /**
+     * 只追加新消息，不再每轮删除后全量重写
+     */
+    private boolean appendOnly = true;
+
+    /**
+     * 对话上下文保留的消息数，同时作为读取对话时 MongoDB 查询的 limit
+     */
+    private int maxMessages = 20;
+
+    /**
+     * 异步刷盘
+     */
+    private WriteBehind writeBehind = new WriteBehind();
+
+    /**
+     * 热点对话缓存
+     */
+    private Cache cache = new Cache();
+
+    /**
+     * ai_chat_memory 索引管理
+     */
+    private Indexes indexes = new Indexes();
+
+    @Data
+    public static class WriteBehind {
+
+        private boolean enabled = true;
+
+        /**
+         * 后台刷盘间隔
+         */
+        private Duration flushInterval = Duration.ofSeconds(1);
+
+        /**
+         * 每批写入的对话数，待写对话达到该数量时提前刷盘
+         */
+        private int maxBatchSize = 100;
+
+    }
+
+    @Data
+    public static class Cache {
+
+        /**
+         * 缓存只在本进程内、没有跨实例失效，仅适用于单实例部署，默认关闭
+         */
+        private boolean enabled = false;
+
+        /**
+         * 写入缓存后的过期时间
+         */
+        private Duration ttl = Duration.ofMinutes(5);
+
+        /**
+         * 缓存中消息文本的总字符数上限
+         */
+        private long maxWeight = 10_000_000;
+
+    }
+
+    @Data
+    public static class Indexes {
+
+        /**
+         * 启动时创建并校验索引
+         */
+        private boolean enabled = true;
+
+        /**
+         * 消息写入后的过期时间，配置后创建 TTL 索引，为空时不过期
+         */
+        private Duration expireAfter;
+
+    }
+
+}
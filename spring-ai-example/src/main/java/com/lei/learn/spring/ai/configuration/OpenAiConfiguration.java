@@ -2,11 +2,15 @@ package com.lei.learn.spring.ai.configuration;
 
 import com.alibaba.cloud.ai.dashscope.rerank.DashScopeRerankModel;
 import com.lei.learn.spring.ai.advisor.UserContextAdvisor;
+import com.lei.learn.spring.ai.memory.CachingChatMemoryRepository;
+import com.lei.learn.spring.ai.memory.ChatMemoryIndexEndpoint;
 import com.lei.learn.spring.ai.memory.CustomerMongoChatMemoryRepository;
+import com.lei.learn.spring.ai.memory.WriteBehindChatMemoryRepository;
 import com.lei.learn.spring.ai.rag.ReRankDocumentPostProcessor;
 import com.lei.learn.spring.ai.repository.UserRepository;
 import com.lei.learn.spring.ai.tool.DateTimeTools;
 import com.lei.learn.spring.ai.tool.UserTools;
+import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.observation.ObservationRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
@@ -32,6 +36,7 @@ import org.springframework.ai.template.st.StTemplateRenderer;
 import org.springframework.ai.tool.ToolCallbackProvider;
 import org.springframework.ai.vectorstore.SearchRequest;
 import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
@@ -52,12 +57,14 @@ import java.util.stream.Collectors;
  */
 @Log4j2
 @Configuration(proxyBeanMethods = false)
-@EnableConfigurationProperties(OpenAiProperties.class)
+@EnableConfigurationProperties({OpenAiProperties.class, ChatMemoryProperties.class})
 @RequiredArgsConstructor
 public class OpenAiConfiguration {
 
     private final OpenAiProperties openAiProperties;
 
+    private final ChatMemoryProperties chatMemoryProperties;
+
     @Bean
     @ConditionalOnMissingBean
     public ToolCallingManager toolCallingManager() {
@@ -77,19 +84,63 @@ public class OpenAiConfiguration {
     }
 
     @Bean
-    @Primary
-    public ChatMemoryRepository customChatMemoryRepository(MongoTemplate mongoTemplate) {
-        return CustomerMongoChatMemoryRepository.builder()
+    public CustomerMongoChatMemoryRepository customChatMemoryRepository(MongoTemplate mongoTemplate) {
+        CustomerMongoChatMemoryRepository repository = CustomerMongoChatMemoryRepository.builder()
                 .mongoTemplate(mongoTemplate)
+                .appendOnly(chatMemoryProperties.isAppendOnly())
+                .maxMessages(chatMemoryProperties.getMaxMessages())
+                .expireAfter(chatMemoryProperties.getIndexes().getExpireAfter())
                 .build();
+        if (chatMemoryProperties.getIndexes().isEnabled()) {
+            repository.ensureIndexes();
+        }
+        return repository;
+    }
+
+    @Bean
+    public ChatMemoryIndexEndpoint chatMemoryIndexEndpoint(CustomerMongoChatMemoryRepository customChatMemoryRepository) {
+        return new ChatMemoryIndexEndpoint(customChatMemoryRepository);
     }
 
+    /**
+     * 对话中使用的 ChatMemoryRepository
+     * 1. 开启 cache 时缓存热点对话的消息窗口，写入后失效并重新加载（仅单实例部署）
+     * 2. 开启 write-behind 时写入在后台批量刷到 MongoDB，关闭应用时刷出剩余数据
+     *
+     * @param customChatMemoryRepository MongoDB 仓库
+     * @param meterRegistry              缓存指标
+     * @return ChatMemoryRepository
+     */
+    @Bean
+    @Primary
+    public ChatMemoryRepository chatMemoryRepository(CustomerMongoChatMemoryRepository customChatMemoryRepository,
+                                                     ObjectProvider<MeterRegistry> meterRegistry) {
+        ChatMemoryRepository chatMemoryRepository = customChatMemoryRepository;
+        ChatMemoryProperties.Cache cache = chatMemoryProperties.getCache();
+        if (cache.isEnabled()) {
+            chatMemoryRepository = CachingChatMemoryRepository.builder()
+                    .chatMemoryRepository(chatMemoryRepository)
+                    .ttl(cache.getTtl())
+                    .maxWeight(cache.getMaxWeight())
+                    .meterRegistry(meterRegistry.getIfAvailable())
+                    .build();
+        }
+        ChatMemoryProperties.WriteBehind writeBehind = chatMemoryProperties.getWriteBehind();
+        if (writeBehind.isEnabled()) {
+            chatMemoryRepository = WriteBehindChatMemoryRepository.builder()
+                    .chatMemoryRepository(chatMemoryRepository)
+                    .flushInterval(writeBehind.getFlushInterval())
+                    .maxBatchSize(writeBehind.getMaxBatchSize())
+                    .build();
+        }
+        return chatMemoryRepository;
+    }
 
     @Bean
     @ConditionalOnMissingBean
     public ChatMemory chatMemory(ChatMemoryRepository chatMemoryRepository) {
         return MessageWindowChatMemory.builder()
-                .maxMessages(20)
+                .maxMessages(chatMemoryProperties.getMaxMessages())
                 .chatMemoryRepository(chatMemoryRepository)
                 .build();
     }
@@ -10,6 +10,7 @@ import com.lei.learn.spring.ai.utils.UserContextUtils;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.ai.chat.memory.ChatMemory;
+import org.springframework.ai.chat.memory.ChatMemoryRepository;
 import org.springframework.ai.chat.messages.Message;
 import org.springframework.ai.content.Media;
 import org.springframework.beans.factory.annotation.Qualifier;
@@ -54,17 +55,20 @@ public class ChatController {
 
     private final ChatClient textChatClient;
     private final ChatClient fullChatClient;
-    private final CustomerMongoChatMemoryRepository chatMemoryRepository;
+    private final ChatMemoryRepository chatMemoryRepository;
+    private final CustomerMongoChatMemoryRepository mongoChatMemoryRepository;
     private final OpenAiProperties  openAiProperties;
     private final SecureRandom secureRandom = new SecureRandom();
 
     public ChatController(@Qualifier("textChatClient") ChatClient textChatClient,
                           @Qualifier("fullChatClient") ChatClient fullChatClient,
-                          CustomerMongoChatMemoryRepository chatMemoryRepository,
+                          ChatMemoryRepository chatMemoryRepository,
+                          CustomerMongoChatMemoryRepository mongoChatMemoryRepository,
                           OpenAiProperties openAiProperties) {
         this.textChatClient = textChatClient;
         this.fullChatClient = fullChatClient;
         this.chatMemoryRepository = chatMemoryRepository;
+        this.mongoChatMemoryRepository = mongoChatMemoryRepository;
         this.openAiProperties = openAiProperties;
     }
 
@@ -167,8 +171,9 @@ public class ChatController {
                     chatMemoryRepository.findByConversationId(request.getConversationId());
             return List.of(new ConversationHistory(request.getConversationId(), messages));
         } else {
+            // 按用户查询直接读 MongoDB，不包含尚未刷盘的消息
             var userMessagesMap =
-                    chatMemoryRepository.findByUserId(request.getUserId());
+                    mongoChatMemoryRepository.findByUserId(request.getUserId());
             return userMessagesMap.entrySet().stream()
                     .map(entry -> new ConversationHistory(entry.getKey(), entry.getValue()))
                     .collect(Collectors.toList());
@@ -0,0 +1,26 @@
+package com.lei.learn.spring.ai.memory;
+
+import org.springframework.ai.chat.memory.ChatMemoryRepository;
+import org.springframework.ai.chat.messages.Message;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>
+ * 支持批量保存的 ChatMemoryRepository
+ * </p>
+ * {@link WriteBehindChatMemoryRepository} 刷盘时优先使用批量接口，一次往返写入多个对话。
+ *
+ * @author 伍磊
+ */
+public interface BatchChatMemoryRepository extends ChatMemoryRepository {
+
+    /**
+     * 保存多个对话，语义等同于对每个对话调用 {@link #saveAll(String, List)}
+     *
+     * @param conversations conversationId -> 该对话的全部消息
+     */
+    void saveAll(Map<String, List<Message>> conversations);
+
+}
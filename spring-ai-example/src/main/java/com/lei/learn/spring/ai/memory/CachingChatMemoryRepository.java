@@ -0,0 +1,178 @@
+package com.lei.learn.spring.ai.memory;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.ai.chat.memory.ChatMemoryRepository;
+import org.springframework.ai.chat.messages.Message;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * <p>
+ * 缓存热点对话的 ChatMemoryRepository 装饰器
+ * </p>
+ * 以 conversationId 为 key 缓存 delegate 返回的消息窗口，Caffeine 按 W-TinyLFU 淘汰，
+ * 权重为消息文本的字符数，写入 ttl 后过期。
+ * <p>
+ * 写入和删除先落到 delegate 再使缓存失效；写入前已缓存的对话会立即从 delegate 重新加载，
+ * 多轮对话的下一轮读取仍然命中。和 {@link WriteBehindChatMemoryRepository} 组合时重新加载发生在后台刷盘线程上。
+ * 命中率通过 {@code cache.gets{cache=chat-memory}} 等指标暴露。
+ * </p>
+ * <p>
+ * 缓存只在本进程内，没有跨实例失效：多实例部署时其他节点写入同一对话后，本节点在 ttl 内仍读到旧窗口，
+ * appendOnly 下基于旧窗口的写入还可能删掉其他节点追加的消息。只在单实例部署（或同一对话固定路由到同一实例）时使用。
+ * </p>
+ *
+ * @author 伍磊
+ */
+public class CachingChatMemoryRepository implements BatchChatMemoryRepository {
+
+    public static final String CACHE_NAME = "chat-memory";
+
+    private final ChatMemoryRepository delegate;
+
+    private final Cache<String, List<Message>> cache;
+
+    private CachingChatMemoryRepository(ChatMemoryRepository delegate, Duration ttl, long maxWeight,
+                                        MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxWeight)
+                .weigher(CachingChatMemoryRepository::weigh)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        if (null != meterRegistry) {
+            CaffeineCacheMetrics.monitor(meterRegistry, this.cache, CACHE_NAME);
+        }
+    }
+
+    @Override
+    public List<String> findConversationIds() {
+        return this.delegate.findConversationIds();
+    }
+
+    @Override
+    public List<Message> findByConversationId(String conversationId) {
+        return new ArrayList<>(this.cache.get(conversationId,
+                id -> List.copyOf(this.delegate.findByConversationId(id))));
+    }
+
+    @Override
+    public void saveAll(String conversationId, List<Message> messages) {
+        this.delegate.saveAll(conversationId, messages);
+        reload(Set.of(conversationId));
+    }
+
+    @Override
+    public void saveAll(Map<String, List<Message>> conversations) {
+        if (this.delegate instanceof BatchChatMemoryRepository batchRepository) {
+            batchRepository.saveAll(conversations);
+        } else {
+            conversations.forEach(this.delegate::saveAll);
+        }
+        reload(conversations.keySet());
+    }
+
+    @Override
+    public void deleteByConversationId(String conversationId) {
+        this.delegate.deleteByConversationId(conversationId);
+        this.cache.invalidate(conversationId);
+    }
+
+    public long getHitCount() {
+        return this.cache.stats().hitCount();
+    }
+
+    public long getMissCount() {
+        return this.cache.stats().missCount();
+    }
+
+    private void reload(Collection<String> conversationIds) {
+        for (String conversationId : conversationIds) {
+            // 加载与失效在同一个 key 上互斥，写入前开始的加载不会把旧窗口留在缓存里
+            if (null != this.cache.asMap().remove(conversationId)) {
+                this.cache.put(conversationId,
+                        List.copyOf(this.delegate.findByConversationId(conversationId)));
+            }
+        }
+    }
+
+    private static int weigh(String conversationId, List<Message> messages) {
+        long chars = conversationId.length();
+        for (Message message : messages) {
+            chars += null == message.getText() ? 0 : message.getText().length();
+        }
+        return (int) Math.min(Integer.MAX_VALUE, chars);
+    }
+
+    public static CachingChatMemoryRepository.Builder builder() {
+        return new CachingChatMemoryRepository.Builder();
+    }
+
+    public final static class Builder {
+
+        private ChatMemoryRepository chatMemoryRepository;
+
+        private Duration ttl = Duration.ofMinutes(5);
+
+        private long maxWeight = 10_000_000;
+
+        private MeterRegistry meterRegistry;
+
+        private Builder() {
+        }
+
+        public CachingChatMemoryRepository.Builder chatMemoryRepository(
+                ChatMemoryRepository chatMemoryRepository) {
+            this.chatMemoryRepository = chatMemoryRepository;
+            return this;
+        }
+
+        /**
+         * 写入缓存后的过期时间，默认 5 分钟
+         */
+        public CachingChatMemoryRepository.Builder ttl(Duration ttl) {
+            this.ttl = ttl;
+            return this;
+        }
+
+        /**
+         * 缓存中消息文本的总字符数上限，默认一千万
+         */
+        public CachingChatMemoryRepository.Builder maxWeight(long maxWeight) {
+            this.maxWeight = maxWeight;
+            return this;
+        }
+
+        /**
+         * 注册命中率等缓存指标，为 null 时不注册
+         */
+        public CachingChatMemoryRepository.Builder meterRegistry(MeterRegistry meterRegistry) {
+            this.meterRegistry = meterRegistry;
+            return this;
+        }
+
+        public CachingChatMemoryRepository build() {
+            if (null == this.chatMemoryRepository) {
+                throw new IllegalArgumentException("chatMemoryRepository must not be null");
+            }
+            if (null == this.ttl || this.ttl.isNegative() || this.ttl.isZero()) {
+                throw new IllegalArgumentException("ttl must be positive");
+            }
+            if (this.maxWeight <= 0) {
+                throw new IllegalArgumentException("maxWeight must be positive");
+            }
+            return new CachingChatMemoryRepository(this.chatMemoryRepository, this.ttl, this.maxWeight,
+                    this.meterRegistry);
+        }
+
+    }
+}
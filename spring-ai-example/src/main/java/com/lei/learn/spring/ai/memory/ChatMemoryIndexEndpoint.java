@@ -0,0 +1,30 @@
+package com.lei.learn.spring.ai.memory;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+
+import java.util.List;
+
+/**
+ * <p>
+ * ai_chat_memory 索引使用情况
+ * </p>
+ * GET /actuator/chatmemoryindexes 返回 $indexStats 统计的各索引使用次数，ops 长期为 0 的索引可以考虑删除。
+ *
+ * @author 伍磊
+ */
+@Endpoint(id = "chatmemoryindexes")
+public class ChatMemoryIndexEndpoint {
+
+    private final CustomerMongoChatMemoryRepository chatMemoryRepository;
+
+    public ChatMemoryIndexEndpoint(CustomerMongoChatMemoryRepository chatMemoryRepository) {
+        this.chatMemoryRepository = chatMemoryRepository;
+    }
+
+    @ReadOperation
+    public List<CustomerMongoChatMemoryRepository.IndexUsage> indexes() {
+        return this.chatMemoryRepository.getIndexUsage();
+    }
+
+}
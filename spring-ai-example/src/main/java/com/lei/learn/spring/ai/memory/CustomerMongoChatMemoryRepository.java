@@ -2,19 +2,30 @@ package com.lei.learn.spring.ai.memory;
 
 import com.lei.learn.spring.ai.model.Conversation;
 import lombok.extern.log4j.Log4j2;
-import org.springframework.ai.chat.memory.ChatMemoryRepository;
+import org.bson.Document;
 import org.springframework.ai.chat.messages.AssistantMessage;
 import org.springframework.ai.chat.messages.Message;
 import org.springframework.ai.chat.messages.SystemMessage;
 import org.springframework.ai.chat.messages.UserMessage;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
 import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexField;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.IndexOptions;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
 
+import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 import static com.lei.learn.spring.ai.support.Constants.USER_ID;
@@ -23,16 +34,51 @@ import static com.lei.learn.spring.ai.support.Constants.USER_ID;
  * <p>
  * 自定义 CustomerMongoChatMemoryRepository
  * </p>
+ * 消息按 sequence 顺序读写；开启 appendOnly 后每轮对话只插入新增的消息，见 {@link #saveAll(String, List)}。
  *
  * @author 伍磊
  */
 @Log4j2
-public class CustomerMongoChatMemoryRepository implements ChatMemoryRepository {
+public class CustomerMongoChatMemoryRepository implements BatchChatMemoryRepository {
+
+    /**
+     * 消息在对话内的顺序号，读取时写入消息元数据，保存时据此区分已存储消息和新消息
+     */
+    public static final String SEQUENCE = "sequence";
+
+    /**
+     * 按对话读取消息窗口的索引
+     */
+    public static final String WINDOW_INDEX = "conversationId_sequence_timestamp";
+
+    /**
+     * 按用户查询历史的索引
+     */
+    public static final String USER_INDEX = "userId_sequence_timestamp";
+
+    /**
+     * 按消息写入时间过期的 TTL 索引
+     */
+    public static final String TTL_INDEX = "timestamp_ttl";
+
+    private static final List<IndexSpec> REQUIRED_INDEXES = List.of(
+            new IndexSpec(WINDOW_INDEX, List.of("conversationId", SEQUENCE, "timestamp")),
+            new IndexSpec(USER_INDEX, List.of("userId", SEQUENCE, "timestamp")));
 
     private final MongoTemplate mongoTemplate;
 
-    private CustomerMongoChatMemoryRepository(MongoTemplate mongoTemplate) {
+    private final boolean appendOnly;
+
+    private final int maxMessages;
+
+    private final Duration expireAfter;
+
+    private CustomerMongoChatMemoryRepository(MongoTemplate mongoTemplate, boolean appendOnly,
+                                              int maxMessages, Duration expireAfter) {
         this.mongoTemplate = mongoTemplate;
+        this.appendOnly = appendOnly;
+        this.maxMessages = maxMessages;
+        this.expireAfter = expireAfter;
     }
 
     @Override
@@ -41,20 +87,77 @@ public class CustomerMongoChatMemoryRepository implements ChatMemoryRepository {
                 .distinct("conversationId").as(String.class).all();
     }
 
+    /**
+     * 配置了 maxMessages 时只读取最近的 maxMessages 条消息，见 {@link #findByConversationId(String, int)}
+     */
     @Override
     public List<Message> findByConversationId(String conversationId) {
+        if (this.maxMessages > 0) {
+            return findByConversationId(conversationId, this.maxMessages);
+        }
         var messages = this.mongoTemplate.query(
                         Conversation.class)
                 .matching(Query.query(Criteria.where("conversationId").is(conversationId))
-                        .with(Sort.by("timestamp").descending()));
+                        .with(Sort.by(SEQUENCE, "timestamp")));
         return messages.stream().map(CustomerMongoChatMemoryRepository::mapMessage)
                 .collect(Collectors.toList());
     }
 
+    /**
+     * 读取对话最近的 limit 条消息，按时间正序返回
+     * <p>
+     * 倒序 + limit 在 {@link #WINDOW_INDEX} 索引上完成，只扫描 limit 条文档，与对话长度无关。
+     * 与 MessageWindowChatMemory 不同，窗口外的 SystemMessage 不会被保留。
+     * </p>
+     *
+     * @param conversationId 对话 id
+     * @param limit          最多返回的消息数
+     * @return 消息列表
+     */
+    public List<Message> findByConversationId(String conversationId, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("limit must be positive");
+        }
+        Query query = Query.query(Criteria.where("conversationId").is(conversationId))
+                .with(Sort.by(Sort.Direction.DESC, SEQUENCE, "timestamp"))
+                .limit(limit);
+        List<Message> messages = this.mongoTemplate.find(query, Conversation.class).stream()
+                .map(CustomerMongoChatMemoryRepository::mapMessage)
+                .collect(Collectors.toList());
+        Collections.reverse(messages);
+        return messages;
+    }
+
+    /**
+     * 保存对话的消息窗口
+     * <p>
+     * appendOnly 模式下，从库里读出的消息在元数据中带有 {@link #SEQUENCE}，据此与已存储的消息做差异：
+     * 不在窗口内的已存储消息删除，没有 sequence 的新消息接在最大 sequence 之后插入，删除与插入在一次 bulk 中完成，
+     * 已存储消息的 timestamp 保持不变。消息顺序不是"已存储消息在前、新消息在后"时无法追加，退化为整体替换。
+     * </p>
+     */
     @Override
     public void saveAll(String conversationId, List<Message> messages) {
-        deleteByConversationId(conversationId);
+        saveAll(Map.of(conversationId, messages));
+    }
+
+    /**
+     * 多个对话的保存合并为一次 ordered bulk，每个对话的处理与 {@link #saveAll(String, List)} 相同
+     */
+    @Override
+    public void saveAll(Map<String, List<Message>> conversations) {
+        if (conversations.isEmpty()) {
+            return;
+        }
+        BulkOperations bulkOps = this.mongoTemplate.bulkOps(BulkOperations.BulkMode.ORDERED,
+                Conversation.class);
+        conversations.forEach((conversationId, messages) ->
+                addSaveOperations(bulkOps, conversationId, messages));
+        bulkOps.execute();
+    }
 
+    private void addSaveOperations(BulkOperations bulkOps, String conversationId,
+                                   List<Message> messages) {
         // 处理 userId，给所有信息都加上 userId
         // 一段对话 -> 一个用户操作的
         Integer userId;
@@ -70,19 +173,141 @@ public class CustomerMongoChatMemoryRepository implements ChatMemoryRepository {
             userId = null;
         }
 
+        if (this.appendOnly && addAppendOperations(bulkOps, conversationId, userId, messages)) {
+            return;
+        }
 
-        var conversations = messages.stream()
-                .map(message -> new Conversation(
-                        userId,
-                        conversationId,
-                        new org.springframework.ai.chat.memory.repository.mongo.Conversation.Message(
-                                message.getText(), message.getMessageType().name(),
-                                message.getMetadata()),
-                        Instant.now()))
-                .toList();
-        this.mongoTemplate.insert(conversations,
-                Conversation.class);
+        bulkOps.remove(Query.query(Criteria.where("conversationId").is(conversationId)));
+        if (!messages.isEmpty()) {
+            bulkOps.insert(toConversations(userId, conversationId, messages, 0));
+        }
+    }
+
+    private boolean addAppendOperations(BulkOperations bulkOps, String conversationId,
+                                        Integer userId, List<Message> messages) {
+        List<Long> keptSequences = new ArrayList<>();
+        List<Message> newMessages = new ArrayList<>();
+        long nextSequence = 0;
+        for (Message message : messages) {
+            Long sequence = sequenceOf(message);
+            if (null == sequence) {
+                newMessages.add(message);
+                continue;
+            }
+            if (!newMessages.isEmpty() || sequence < nextSequence) {
+                log.debug("[chat memory] messages out of order, replace all | conversationId={}",
+                        conversationId);
+                return false;
+            }
+            keptSequences.add(sequence);
+            nextSequence = sequence + 1;
+        }
+
+        // 被窗口淘汰的消息，以及没有 sequence 的历史数据
+        bulkOps.remove(Query.query(Criteria.where("conversationId").is(conversationId)
+                .and(SEQUENCE).nin(keptSequences)));
+        if (!newMessages.isEmpty()) {
+            bulkOps.insert(toConversations(userId, conversationId, newMessages, nextSequence));
+        }
+        return true;
+    }
+
+    private static List<Conversation> toConversations(Integer userId, String conversationId,
+                                                      List<Message> messages, long firstSequence) {
+        Instant now = Instant.now();
+        List<Conversation> conversations = new ArrayList<>(messages.size());
+        for (int i = 0; i < messages.size(); i++) {
+            Message message = messages.get(i);
+            Map<String, Object> metadata = new HashMap<>();
+            if (null != message.getMetadata()) {
+                metadata.putAll(message.getMetadata());
+                metadata.remove(SEQUENCE);
+            }
+            conversations.add(new Conversation(
+                    userId,
+                    conversationId,
+                    new org.springframework.ai.chat.memory.repository.mongo.Conversation.Message(
+                            message.getText(), message.getMessageType().name(), metadata),
+                    firstSequence + i,
+                    now));
+        }
+        return conversations;
+    }
+
+    private static Long sequenceOf(Message message) {
+        Map<String, Object> metadata = message.getMetadata();
+        if (null != metadata && metadata.get(SEQUENCE) instanceof Number sequence) {
+            return sequence.longValue();
+        }
+        return null;
+    }
+
+    /**
+     * 创建并校验 ai_chat_memory 所需的索引
+     * <ul>
+     *     <li>{@link #WINDOW_INDEX}：按对话读取窗口、按对话删除，以及 distinct("conversationId")</li>
+     *     <li>{@link #USER_INDEX}：按用户查询历史</li>
+     *     <li>{@link #TTL_INDEX}：配置了 expireAfter 时按消息写入时间过期；取消配置时删除，修改时通过 collMod 更新</li>
+     * </ul>
+     * 已有相同字段的索引（名称不同也可以）时不重复创建。创建后校验索引是否齐全，缺失时抛出 IllegalStateException。
+     */
+    public void ensureIndexes() {
+        IndexOperations indexOps = this.mongoTemplate.indexOps(Conversation.class);
+        List<IndexInfo> existing = indexOps.getIndexInfo();
+        for (IndexSpec spec : REQUIRED_INDEXES) {
+            if (existing.stream().noneMatch(spec::matches)) {
+                indexOps.createIndex(spec.toIndex());
+                log.info("[chat memory] index created | name={}", spec.name());
+            }
+        }
+
+        IndexInfo ttlIndex = existing.stream()
+                .filter(info -> TTL_INDEX.equals(info.getName()))
+                .findFirst().orElse(null);
+        if (null == this.expireAfter) {
+            if (null != ttlIndex) {
+                indexOps.dropIndex(TTL_INDEX);
+                log.info("[chat memory] ttl index dropped");
+            }
+        } else if (null == ttlIndex) {
+            indexOps.createIndex(new Index().on("timestamp", Sort.Direction.ASC)
+                    .expire(this.expireAfter).named(TTL_INDEX));
+            log.info("[chat memory] ttl index created | expireAfter={}", this.expireAfter);
+        } else if (!ttlIndex.getExpireAfter().equals(Optional.of(this.expireAfter))) {
+            indexOps.alterIndex(TTL_INDEX, IndexOptions.expireAfter(this.expireAfter));
+            log.info("[chat memory] ttl index altered | expireAfter={}", this.expireAfter);
+        }
 
+        verifyIndexes(indexOps.getIndexInfo());
+    }
+
+    /**
+     * 通过 $indexStats 读取各索引自 since 以来被使用的次数，统计在 mongod 重启后清零
+     */
+    public List<IndexUsage> getIndexUsage() {
+        return this.mongoTemplate.getCollection(this.mongoTemplate.getCollectionName(Conversation.class))
+                .aggregate(List.of(new Document("$indexStats", new Document())))
+                .map(stats -> {
+                    Document accesses = stats.get("accesses", Document.class);
+                    return new IndexUsage(stats.getString("name"),
+                            ((Number) accesses.get("ops")).longValue(),
+                            accesses.getDate("since").toInstant());
+                })
+                .into(new ArrayList<>());
+    }
+
+    private void verifyIndexes(List<IndexInfo> indexes) {
+        for (IndexSpec spec : REQUIRED_INDEXES) {
+            if (indexes.stream().noneMatch(spec::matches)) {
+                throw new IllegalStateException("Missing index on ai_chat_memory: " + spec.fields());
+            }
+        }
+        if (null != this.expireAfter && indexes.stream().noneMatch(info -> TTL_INDEX.equals(info.getName())
+                && info.getExpireAfter().equals(Optional.of(this.expireAfter)))) {
+            throw new IllegalStateException("Missing ttl index on ai_chat_memory: expireAfter=" + this.expireAfter);
+        }
+        log.info("[chat memory] indexes verified | indexes={}",
+                indexes.stream().map(IndexInfo::getName).toList());
     }
 
     @Override
@@ -95,7 +320,7 @@ public class CustomerMongoChatMemoryRepository implements ChatMemoryRepository {
         var messages = this.mongoTemplate.query(
                         Conversation.class)
                 .matching(Query.query(Criteria.where("userId").is(userId))
-                        .with(Sort.by("timestamp").descending()));
+                        .with(Sort.by(SEQUENCE, "timestamp")));
 
         return messages.stream()
                 .collect(Collectors.groupingBy(
@@ -108,18 +333,25 @@ public class CustomerMongoChatMemoryRepository implements ChatMemoryRepository {
     }
 
     public static Message mapMessage(Conversation conversation) {
+        Map<String, Object> metadata = new HashMap<>();
+        if (null != conversation.message().metadata()) {
+            metadata.putAll(conversation.message().metadata());
+        }
+        if (null != conversation.sequence()) {
+            metadata.put(SEQUENCE, conversation.sequence());
+        }
         return switch (conversation.message().type()) {
             case "USER" -> UserMessage.builder()
                     .text(conversation.message().content())
-                    .metadata(conversation.message().metadata())
+                    .metadata(metadata)
                     .build();
             case "ASSISTANT" -> AssistantMessage.builder()
                     .content(conversation.message().content())
-                    .properties(conversation.message().metadata())
+                    .properties(metadata)
                     .build();
             case "SYSTEM" -> SystemMessage.builder()
                     .text(conversation.message().content())
-                    .metadata(conversation.message().metadata())
+                    .metadata(metadata)
                     .build();
             default -> {
                 log.warn("Unsupported message type: {}", conversation.message().type());
@@ -129,6 +361,29 @@ public class CustomerMongoChatMemoryRepository implements ChatMemoryRepository {
         };
     }
 
+    /**
+     * 索引使用情况
+     *
+     * @param name  索引名
+     * @param ops   自 since 以来使用该索引的操作数
+     * @param since 开始统计的时间
+     */
+    public record IndexUsage(String name, long ops, Instant since) {
+    }
+
+    private record IndexSpec(String name, List<String> fields) {
+
+        boolean matches(IndexInfo info) {
+            return info.getIndexFields().stream().map(IndexField::getKey).toList().equals(this.fields);
+        }
+
+        Index toIndex() {
+            Index index = new Index().named(this.name);
+            this.fields.forEach(field -> index.on(field, Sort.Direction.ASC));
+            return index;
+        }
+    }
+
     public static CustomerMongoChatMemoryRepository.Builder builder() {
         return new CustomerMongoChatMemoryRepository.Builder();
     }
@@ -137,6 +392,12 @@ public class CustomerMongoChatMemoryRepository implements ChatMemoryRepository {
 
         private MongoTemplate mongoTemplate;
 
+        private boolean appendOnly;
+
+        private int maxMessages;
+
+        private Duration expireAfter;
+
         private Builder() {
         }
 
@@ -146,8 +407,37 @@ public class CustomerMongoChatMemoryRepository implements ChatMemoryRepository {
             return this;
         }
 
+        /**
+         * 只追加新消息，不再每轮删除后全量重写
+         */
+        public CustomerMongoChatMemoryRepository.Builder appendOnly(boolean appendOnly) {
+            this.appendOnly = appendOnly;
+            return this;
+        }
+
+        /**
+         * {@link #findByConversationId(String)} 最多返回的消息数，与 MessageWindowChatMemory 的 maxMessages 保持一致；
+         * 小于等于 0 时返回全部消息
+         */
+        public CustomerMongoChatMemoryRepository.Builder maxMessages(int maxMessages) {
+            this.maxMessages = maxMessages;
+            return this;
+        }
+
+        /**
+         * 消息写入后的过期时间，{@link #ensureIndexes()} 据此维护 TTL 索引；为 null 时不过期
+         */
+        public CustomerMongoChatMemoryRepository.Builder expireAfter(Duration expireAfter) {
+            this.expireAfter = expireAfter;
+            return this;
+        }
+
         public CustomerMongoChatMemoryRepository build() {
-            return new CustomerMongoChatMemoryRepository(this.mongoTemplate);
+            if (null != this.expireAfter && (this.expireAfter.isNegative() || this.expireAfter.isZero())) {
+                throw new IllegalArgumentException("expireAfter must be positive");
+            }
+            return new CustomerMongoChatMemoryRepository(this.mongoTemplate, this.appendOnly,
+                    this.maxMessages, this.expireAfter);
         }
 
     }
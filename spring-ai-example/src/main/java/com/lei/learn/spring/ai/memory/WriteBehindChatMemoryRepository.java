@@ -0,0 +1,213 @@
+package com.lei.learn.spring.ai.memory;
+
+import lombok.extern.log4j.Log4j2;
+import org.springframework.ai.chat.memory.ChatMemoryRepository;
+import org.springframework.ai.chat.messages.Message;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * <p>
+ * 异步刷盘的 ChatMemoryRepository 装饰器
+ * </p>
+ * saveAll 只把对话的最新消息放进内存，同一对话在两次刷盘之间的多次写入只保留最后一次；
+ * 后台线程按 flushInterval 批量写入 delegate，待写对话达到 maxBatchSize 时提前刷盘，关闭时刷出剩余数据。
+ * 读取优先返回尚未刷盘的消息，因此经由本仓库的读写始终一致。
+ * <p>
+ * 写入失败的对话保留在内存中，下一轮刷盘重试；进程异常退出时会丢失最近一个刷盘周期内的消息。
+ * </p>
+ *
+ * @author 伍磊
+ */
+@Log4j2
+public class WriteBehindChatMemoryRepository implements ChatMemoryRepository, AutoCloseable {
+
+    private final ChatMemoryRepository delegate;
+
+    private final int maxBatchSize;
+
+    private final Map<String, List<Message>> pending = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * 刷盘与删除互斥，避免删除后被正在进行的刷盘重新写回
+     */
+    private final Object flushLock = new Object();
+
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+
+    private volatile boolean closed;
+
+    private WriteBehindChatMemoryRepository(ChatMemoryRepository delegate, Duration flushInterval,
+                                            int maxBatchSize) {
+        this.delegate = delegate;
+        this.maxBatchSize = maxBatchSize;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("chat-memory-flusher").daemon().factory());
+        long intervalMillis = flushInterval.toMillis();
+        this.scheduler.scheduleWithFixedDelay(this::flushQuietly, intervalMillis, intervalMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public List<String> findConversationIds() {
+        Set<String> conversationIds = new LinkedHashSet<>(this.delegate.findConversationIds());
+        conversationIds.addAll(this.pending.keySet());
+        return new ArrayList<>(conversationIds);
+    }
+
+    @Override
+    public List<Message> findByConversationId(String conversationId) {
+        List<Message> messages = this.pending.get(conversationId);
+        if (null != messages) {
+            return new ArrayList<>(messages);
+        }
+        return this.delegate.findByConversationId(conversationId);
+    }
+
+    @Override
+    public void saveAll(String conversationId, List<Message> messages) {
+        this.pending.put(conversationId, List.copyOf(messages));
+        if (this.closed) {
+            // 已关闭，不再有后台刷盘
+            flush();
+        } else if (this.pending.size() >= this.maxBatchSize && this.flushRequested.compareAndSet(false, true)) {
+            this.scheduler.execute(() -> {
+                this.flushRequested.set(false);
+                flushQuietly();
+            });
+        }
+    }
+
+    @Override
+    public void deleteByConversationId(String conversationId) {
+        synchronized (this.flushLock) {
+            this.pending.remove(conversationId);
+            this.delegate.deleteByConversationId(conversationId);
+        }
+    }
+
+    /**
+     * 把待写入的对话按 maxBatchSize 分批写入 delegate，写入失败时抛出异常，未写入的对话保留到下一次刷盘
+     */
+    public void flush() {
+        synchronized (this.flushLock) {
+            Map<String, List<Message>> batch = new LinkedHashMap<>();
+            for (Map.Entry<String, List<Message>> entry : this.pending.entrySet()) {
+                batch.put(entry.getKey(), entry.getValue());
+                if (batch.size() >= this.maxBatchSize) {
+                    write(batch);
+                    batch = new LinkedHashMap<>();
+                }
+            }
+            if (!batch.isEmpty()) {
+                write(batch);
+            }
+        }
+    }
+
+    /**
+     * 尚未刷盘的对话数
+     */
+    public int getPendingCount() {
+        return this.pending.size();
+    }
+
+    @Override
+    public void close() {
+        this.closed = true;
+        this.scheduler.shutdown();
+        try {
+            if (!this.scheduler.awaitTermination(10, TimeUnit.SECONDS)) {
+                log.warn("[chat memory] flusher did not stop in time");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+        log.info("[chat memory] write-behind closed");
+    }
+
+    private void write(Map<String, List<Message>> batch) {
+        if (this.delegate instanceof BatchChatMemoryRepository batchRepository) {
+            batchRepository.saveAll(batch);
+        } else {
+            batch.forEach(this.delegate::saveAll);
+        }
+        // 只移除已写入的版本，刷盘期间又有新写入的对话留到下一次
+        batch.forEach((conversationId, messages) -> this.pending.remove(conversationId, messages));
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.warn("[chat memory] flush failed | pending={}", this.pending.size(), e);
+        }
+    }
+
+    public static WriteBehindChatMemoryRepository.Builder builder() {
+        return new WriteBehindChatMemoryRepository.Builder();
+    }
+
+    public final static class Builder {
+
+        private ChatMemoryRepository chatMemoryRepository;
+
+        private Duration flushInterval = Duration.ofSeconds(1);
+
+        private int maxBatchSize = 100;
+
+        private Builder() {
+        }
+
+        public WriteBehindChatMemoryRepository.Builder chatMemoryRepository(
+                ChatMemoryRepository chatMemoryRepository) {
+            this.chatMemoryRepository = chatMemoryRepository;
+            return this;
+        }
+
+        /**
+         * 后台刷盘间隔，默认 1s
+         */
+        public WriteBehindChatMemoryRepository.Builder flushInterval(Duration flushInterval) {
+            this.flushInterval = flushInterval;
+            return this;
+        }
+
+        /**
+         * 每批写入的对话数，待写对话达到该数量时提前刷盘，默认 100
+         */
+        public WriteBehindChatMemoryRepository.Builder maxBatchSize(int maxBatchSize) {
+            this.maxBatchSize = maxBatchSize;
+            return this;
+        }
+
+        public WriteBehindChatMemoryRepository build() {
+            if (null == this.chatMemoryRepository) {
+                throw new IllegalArgumentException("chatMemoryRepository must not be null");
+            }
+            if (null == this.flushInterval || this.flushInterval.toMillis() <= 0) {
+                throw new IllegalArgumentException("flushInterval must be positive");
+            }
+            if (this.maxBatchSize <= 0) {
+                throw new IllegalArgumentException("maxBatchSize must be positive");
+            }
+            return new WriteBehindChatMemoryRepository(this.chatMemoryRepository, this.flushInterval,
+                    this.maxBatchSize);
+        }
+
+    }
+}
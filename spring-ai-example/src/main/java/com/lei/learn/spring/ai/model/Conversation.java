@@ -8,6 +8,7 @@ import java.time.Instant;
  * <p>
  * ai_chat_memory
  * </p>
+ * sequence 为消息在对话内的顺序号，从 0 开始递增，读取时按它排序；历史数据没有该字段时为 null。
  *
  * @author 伍磊
  */
@@ -15,6 +16,7 @@ import java.time.Instant;
 public record Conversation(Integer userId,
                            String conversationId,
                            org.springframework.ai.chat.memory.repository.mongo.Conversation.Message message,
+                           Long sequence,
                            Instant timestamp) {
 }
 
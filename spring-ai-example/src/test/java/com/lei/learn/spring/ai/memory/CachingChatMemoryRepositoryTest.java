@@ -0,0 +1,100 @@
+package com.lei.learn.spring.ai.memory;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.UserMessage;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * <p>
+ * CachingChatMemoryRepository 单元测试
+ * </p>
+ *
+ * @author 伍磊
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("CachingChatMemoryRepository 单元测试")
+class CachingChatMemoryRepositoryTest {
+
+    @Mock
+    private BatchChatMemoryRepository delegate;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private CachingChatMemoryRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        repository = CachingChatMemoryRepository.builder()
+                .chatMemoryRepository(delegate)
+                .meterRegistry(meterRegistry)
+                .build();
+    }
+
+    @Test
+    @DisplayName("重复读取同一对话只查询一次 delegate，并记录命中指标")
+    void testHit() {
+        // Given
+        List<Message> messages = List.of(new UserMessage("你好"), new AssistantMessage("你好"));
+        when(delegate.findByConversationId("c-1")).thenReturn(messages);
+
+        // When
+        repository.findByConversationId("c-1");
+        List<Message> cached = repository.findByConversationId("c-1");
+
+        // Then
+        assertThat(cached).isEqualTo(messages);
+        verify(delegate, times(1)).findByConversationId("c-1");
+        assertThat(repository.getHitCount()).isEqualTo(1);
+        assertThat(repository.getMissCount()).isEqualTo(1);
+        assertThat(meterRegistry.get("cache.gets")
+                .tags("cache", CachingChatMemoryRepository.CACHE_NAME, "result", "hit")
+                .functionCounter().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("写入已缓存的对话后重新加载，下一次读取命中新窗口")
+    void testReloadOnWrite() {
+        // Given
+        List<Message> before = List.of(new UserMessage("你好"));
+        List<Message> after = List.of(new UserMessage("你好"), new AssistantMessage("你好"));
+        when(delegate.findByConversationId("c-1")).thenReturn(before, after);
+        repository.findByConversationId("c-1");
+
+        // When
+        repository.saveAll(Map.of("c-1", after));
+
+        // Then
+        verify(delegate).saveAll(Map.of("c-1", after));
+        assertThat(repository.findByConversationId("c-1")).isEqualTo(after);
+        verify(delegate, times(2)).findByConversationId("c-1");
+        assertThat(repository.getHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("写入未缓存的对话不触发加载")
+    void testWriteUncached() {
+        // When
+        repository.saveAll("c-2", List.of(new UserMessage("在吗")));
+
+        // Then
+        verify(delegate).saveAll("c-2", List.of(new UserMessage("在吗")));
+        verify(delegate, never()).findByConversationId("c-2");
+    }
+}
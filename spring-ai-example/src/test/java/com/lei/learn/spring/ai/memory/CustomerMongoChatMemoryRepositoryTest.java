@@ -0,0 +1,256 @@
+package com.lei.learn.spring.ai.memory;
+
+import com.lei.learn.spring.ai.model.Conversation;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.IndexOptions;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * <p>
+ * CustomerMongoChatMemoryRepository 单元测试
+ * </p>
+ *
+ * @author 伍磊
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("CustomerMongoChatMemoryRepository 单元测试")
+class CustomerMongoChatMemoryRepositoryTest {
+
+    private static final String CONVERSATION_ID = "c-1";
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private BulkOperations bulkOperations;
+
+    private CustomerMongoChatMemoryRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        repository = CustomerMongoChatMemoryRepository.builder()
+                .mongoTemplate(mongoTemplate)
+                .appendOnly(true)
+                .build();
+    }
+
+    private static Conversation conversation(long sequence, String type, String text) {
+        return new Conversation(1001, CONVERSATION_ID,
+                new org.springframework.ai.chat.memory.repository.mongo.Conversation.Message(
+                        text, type, Map.of("userId", 1001)),
+                sequence, Instant.EPOCH);
+    }
+
+    private static Message stored(long sequence, String type, String text) {
+        return CustomerMongoChatMemoryRepository.mapMessage(conversation(sequence, type, text));
+    }
+
+    @Nested
+    @DisplayName("appendOnly 保存测试")
+    class AppendOnlyTests {
+
+        @Test
+        @DisplayName("只插入新消息，sequence 接在已存储消息之后，删除窗口外的消息")
+        @SuppressWarnings("unchecked")
+        void testAppendNewMessages() {
+            // Given
+            when(mongoTemplate.bulkOps(BulkOperations.BulkMode.ORDERED, Conversation.class))
+                    .thenReturn(bulkOperations);
+            List<Message> messages = List.of(
+                    stored(3, "USER", "你好"),
+                    stored(4, "ASSISTANT", "你好，有什么可以帮你"),
+                    new UserMessage("今天几号"),
+                    new AssistantMessage("10 月 18 日"));
+
+            // When
+            repository.saveAll(CONVERSATION_ID, messages);
+
+            // Then
+            ArgumentCaptor<Query> removed = ArgumentCaptor.forClass(Query.class);
+            ArgumentCaptor<List<Conversation>> inserted = ArgumentCaptor.forClass(List.class);
+            verify(bulkOperations).remove(removed.capture());
+            verify(bulkOperations).insert(inserted.capture());
+            verify(bulkOperations).execute();
+
+            assertThat(removed.getValue().getQueryObject().toJson())
+                    .contains("\"$nin\": [3, 4]");
+            assertThat(inserted.getValue())
+                    .extracting(Conversation::sequence)
+                    .containsExactly(5L, 6L);
+            assertThat(inserted.getValue())
+                    .extracting(conversation -> conversation.message().metadata())
+                    .allSatisfy(metadata -> assertThat(metadata)
+                            .doesNotContainKey(CustomerMongoChatMemoryRepository.SEQUENCE));
+        }
+
+        @Test
+        @DisplayName("新消息出现在已存储消息之前时整体替换")
+        @SuppressWarnings("unchecked")
+        void testReplaceWhenOutOfOrder() {
+            // Given
+            when(mongoTemplate.bulkOps(BulkOperations.BulkMode.ORDERED, Conversation.class))
+                    .thenReturn(bulkOperations);
+            List<Message> messages = List.of(new UserMessage("今天几号"), stored(0, "USER", "你好"));
+
+            // When
+            repository.saveAll(CONVERSATION_ID, messages);
+
+            // Then
+            ArgumentCaptor<Query> removed = ArgumentCaptor.forClass(Query.class);
+            ArgumentCaptor<List<Conversation>> inserted = ArgumentCaptor.forClass(List.class);
+            verify(bulkOperations).remove(removed.capture());
+            verify(bulkOperations).insert(inserted.capture());
+            assertThat(removed.getValue().getQueryObject().toJson()).doesNotContain("$nin");
+            assertThat(inserted.getValue())
+                    .extracting(Conversation::sequence)
+                    .containsExactly(0L, 1L);
+        }
+
+        @Test
+        @DisplayName("多个对话合并为一次 bulk")
+        void testSaveBatch() {
+            // Given
+            when(mongoTemplate.bulkOps(BulkOperations.BulkMode.ORDERED, Conversation.class))
+                    .thenReturn(bulkOperations);
+
+            // When
+            repository.saveAll(Map.of(
+                    "c-1", List.of(stored(0, "USER", "你好"), new AssistantMessage("你好")),
+                    "c-2", List.of(new UserMessage("在吗"))));
+
+            // Then
+            verify(bulkOperations, times(2)).remove(any(Query.class));
+            verify(bulkOperations, times(2)).insert(anyList());
+            verify(bulkOperations).execute();
+        }
+    }
+
+    @Test
+    @DisplayName("配置 maxMessages 后倒序 limit 查询，按时间正序返回")
+    void testFindWindow() {
+        // Given
+        CustomerMongoChatMemoryRepository windowed = CustomerMongoChatMemoryRepository.builder()
+                .mongoTemplate(mongoTemplate)
+                .maxMessages(2)
+                .build();
+        when(mongoTemplate.find(any(Query.class), eq(Conversation.class))).thenReturn(List.of(
+                conversation(9, "ASSISTANT", "10 月 18 日"),
+                conversation(8, "USER", "今天几号")));
+
+        // When
+        List<Message> messages = windowed.findByConversationId(CONVERSATION_ID);
+
+        // Then
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).find(query.capture(), eq(Conversation.class));
+        assertThat(query.getValue().getLimit()).isEqualTo(2);
+        assertThat(query.getValue().getSortObject().toJson())
+                .isEqualTo("{\"sequence\": -1, \"timestamp\": -1}");
+        assertThat(messages).extracting(Message::getText).containsExactly("今天几号", "10 月 18 日");
+    }
+
+    @Nested
+    @DisplayName("索引管理测试")
+    class IndexTests {
+
+        @Mock
+        private IndexOperations indexOperations;
+
+        private IndexInfo index(String name, Integer expireAfterSeconds, String... fields) {
+            Document key = new Document();
+            for (String field : fields) {
+                key.append(field, 1);
+            }
+            Document index = new Document("name", name).append("key", key);
+            if (null != expireAfterSeconds) {
+                index.append("expireAfterSeconds", expireAfterSeconds);
+            }
+            return IndexInfo.indexInfoOf(index);
+        }
+
+        @Test
+        @DisplayName("只创建缺失的索引，TTL 变化时通过 collMod 修改")
+        void testEnsureIndexes() {
+            // Given
+            CustomerMongoChatMemoryRepository withTtl = CustomerMongoChatMemoryRepository.builder()
+                    .mongoTemplate(mongoTemplate)
+                    .expireAfter(Duration.ofDays(30))
+                    .build();
+            IndexInfo id = index("_id_", null, "_id");
+            IndexInfo window = index("my_window", null, "conversationId", "sequence", "timestamp");
+            IndexInfo user = index(CustomerMongoChatMemoryRepository.USER_INDEX, null, "userId", "sequence", "timestamp");
+            when(mongoTemplate.indexOps(Conversation.class)).thenReturn(indexOperations);
+            when(indexOperations.getIndexInfo()).thenReturn(
+                    List.of(id, window, index(CustomerMongoChatMemoryRepository.TTL_INDEX, 86400, "timestamp")),
+                    List.of(id, window, user,
+                            index(CustomerMongoChatMemoryRepository.TTL_INDEX, 30 * 86400, "timestamp")));
+
+            // When
+            withTtl.ensureIndexes();
+
+            // Then
+            ArgumentCaptor<IndexDefinition> created = ArgumentCaptor.forClass(IndexDefinition.class);
+            verify(indexOperations).createIndex(created.capture());
+            assertThat(created.getValue().getIndexOptions().getString("name"))
+                    .isEqualTo(CustomerMongoChatMemoryRepository.USER_INDEX);
+            verify(indexOperations).alterIndex(eq(CustomerMongoChatMemoryRepository.TTL_INDEX), any(IndexOptions.class));
+            verify(indexOperations, never()).dropIndex(any());
+        }
+
+        @Test
+        @DisplayName("创建后仍缺少索引时启动失败")
+        void testVerifyFailure() {
+            // Given
+            when(mongoTemplate.indexOps(Conversation.class)).thenReturn(indexOperations);
+            when(indexOperations.getIndexInfo()).thenReturn(List.of(index("_id_", null, "_id")));
+
+            // When / Then
+            assertThatThrownBy(repository::ensureIndexes)
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasMessageContaining("conversationId");
+        }
+    }
+
+    @Test
+    @DisplayName("读取的消息在元数据中带有 sequence")
+    void testMapMessageWithSequence() {
+        // When
+        Message message = stored(7, "ASSISTANT", "好的");
+
+        // Then
+        assertThat(message.getMetadata())
+                .containsEntry(CustomerMongoChatMemoryRepository.SEQUENCE, 7L)
+                .containsEntry("userId", 1001);
+    }
+}
@@ -0,0 +1,148 @@
+package com.lei.learn.spring.ai.memory;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.UserMessage;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+/**
+ * <p>
+ * WriteBehindChatMemoryRepository 单元测试
+ * </p>
+ *
+ * @author 伍磊
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("WriteBehindChatMemoryRepository 单元测试")
+class WriteBehindChatMemoryRepositoryTest {
+
+    @Mock
+    private BatchChatMemoryRepository delegate;
+
+    private WriteBehindChatMemoryRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        // 刷盘间隔足够长，只由测试显式触发
+        repository = WriteBehindChatMemoryRepository.builder()
+                .chatMemoryRepository(delegate)
+                .flushInterval(Duration.ofHours(1))
+                .build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        repository.close();
+    }
+
+    @Test
+    @DisplayName("同一对话的多次写入合并为一次，刷盘前读取返回最新消息")
+    void testCoalesceWrites() {
+        // Given
+        List<Message> first = List.of(new UserMessage("你好"), new AssistantMessage("你好"));
+        List<Message> second = List.of(new UserMessage("你好"), new AssistantMessage("你好"),
+                new UserMessage("今天几号"), new AssistantMessage("10 月 18 日"));
+
+        // When
+        repository.saveAll("c-1", first);
+        repository.saveAll("c-1", second);
+        repository.saveAll("c-2", first);
+
+        // Then
+        verifyNoInteractions(delegate);
+        assertThat(repository.findByConversationId("c-1")).isEqualTo(second);
+        assertThat(repository.getPendingCount()).isEqualTo(2);
+
+        repository.flush();
+        verify(delegate).saveAll(Map.of("c-1", second, "c-2", first));
+        assertThat(repository.getPendingCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("刷盘失败时保留待写入的对话，下次刷盘重试")
+    void testKeepPendingOnFailure() {
+        // Given
+        List<Message> messages = List.of(new UserMessage("你好"));
+        doThrow(new IllegalStateException("mongo down")).doNothing().when(delegate).saveAll(anyMap());
+        repository.saveAll("c-1", messages);
+
+        // When
+        assertThatThrownBy(repository::flush).isInstanceOf(IllegalStateException.class);
+
+        // Then
+        assertThat(repository.getPendingCount()).isEqualTo(1);
+        repository.flush();
+        verify(delegate, times(2)).saveAll(Map.of("c-1", messages));
+        assertThat(repository.getPendingCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("刷盘期间同一对话的新写入保留到下一次刷盘")
+    void testKeepNewerWriteDuringFlush() throws InterruptedException {
+        // Given: 第一次写入 delegate 时阻塞，期间同一对话又写入新的消息
+        List<Message> first = List.of(new UserMessage("你好"));
+        List<Message> second = List.of(new UserMessage("你好"), new AssistantMessage("你好"));
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger writes = new AtomicInteger();
+        doAnswer(invocation -> {
+            if (writes.incrementAndGet() == 1) {
+                writing.countDown();
+                release.await();
+            }
+            return null;
+        }).when(delegate).saveAll(anyMap());
+        repository.saveAll("c-1", first);
+        Thread flusher = Thread.ofVirtual().start(repository::flush);
+        assertThat(writing.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // When
+        repository.saveAll("c-1", second);
+        release.countDown();
+        flusher.join();
+
+        // Then
+        verify(delegate).saveAll(Map.of("c-1", first));
+        assertThat(repository.getPendingCount()).isEqualTo(1);
+        assertThat(repository.findByConversationId("c-1")).isEqualTo(second);
+        repository.flush();
+        verify(delegate).saveAll(Map.of("c-1", second));
+        assertThat(repository.getPendingCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("关闭时刷出剩余数据")
+    void testFlushOnClose() {
+        // Given
+        List<Message> messages = List.of(new UserMessage("你好"));
+        repository.saveAll("c-1", messages);
+
+        // When
+        repository.close();
+
+        // Then
+        verify(delegate).saveAll(Map.of("c-1", messages));
+    }
+}